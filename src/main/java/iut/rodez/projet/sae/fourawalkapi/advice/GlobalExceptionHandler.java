@@ -116,6 +116,26 @@ public class GlobalExceptionHandler {
         return new ErrorResponse(HttpStatus.UNPROCESSABLE_ENTITY.value(), ex.getMessage());
     }
 
+    /**
+     * Gère l'abandon d'une optimisation par le client (HTTP 408).
+     */
+    @ExceptionHandler(OptimizationCancelledException.class)
+    @ResponseStatus(HttpStatus.REQUEST_TIMEOUT)
+    public ErrorResponse handleOptimizationCancelled(OptimizationCancelledException ex) {
+        logger.warn("Optimisation annulée : {}", ex.getMessage());
+        return new ErrorResponse(HttpStatus.REQUEST_TIMEOUT.value(), ex.getMessage());
+    }
+
+    /**
+     * Gère la saturation de la file des optimisations asynchrones (HTTP 503).
+     */
+    @ExceptionHandler(OptimizationQueueFullException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleOptimizationQueueFull(OptimizationQueueFullException ex) {
+        logger.warn("File d'optimisation pleine : {}", ex.getMessage());
+        return new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage());
+    }
+
     // =========================================================================
     // 5. ERREURS TECHNIQUES ET FALLBACK
     // =========================================================================
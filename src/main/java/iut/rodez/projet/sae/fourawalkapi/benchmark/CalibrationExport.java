@@ -0,0 +1,55 @@
+package iut.rodez.projet.sae.fourawalkapi.benchmark;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Export de la table de calibration du sélecteur de moteurs de répartition.
+ * Lit les résultats bruts de BenchmarkV2 et BenchmarkV3 et en extrait, pour chaque scénario réussi,
+ * le temps médian d'exécution.
+ *
+ * Exécution (après les deux benchmarks, depuis la racine du projet) :
+ *   javac CalibrationExport.java && java CalibrationExport
+ */
+public class CalibrationExport {
+
+    static final String OUTPUT = "src/main/resources/optimizer-calibration.csv";
+
+    // Moteur (nom du registre) → résultats bruts du benchmark correspondant
+    static final String[][] SOURCES = {
+        {"v2", "benchmark_results/benchmark_v2_results.csv"},
+        {"v3", "benchmark_results/benchmark_v3_results.csv"},
+    };
+
+    public static void main(String[] args) throws IOException {
+        try (FileWriter fw = new FileWriter(OUTPUT)) {
+            fw.write("engine,items,bags,median_ns\n");
+            for (String[] source : SOURCES) {
+                for (Map.Entry<String, List<Long>> e : readTimes(Path.of(source[1])).entrySet()) {
+                    List<Long> times = e.getValue();
+                    Collections.sort(times);
+                    fw.write(source[0] + "," + e.getKey() + "," + times.get(times.size() / 2) + "\n");
+                }
+            }
+        }
+        System.out.println("  Table de calibration exportée → " + OUTPUT);
+    }
+
+    /**
+     * Temps des runs réussis par scénario "n,k" (colonnes n, k, run, temps_ns ; dernière colonne success).
+     * Les colonnes suivantes contiennent des décimales à virgule : seules les 4 premières sont lues.
+     */
+    static Map<String, List<Long>> readTimes(Path csv) throws IOException {
+        Map<String, List<Long>> times = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(csv);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] c = line.split(",");
+            if (!Boolean.parseBoolean(c[c.length - 1].trim())) continue;
+            times.computeIfAbsent(c[0] + "," + c[1], k -> new ArrayList<>()).add(Long.parseLong(c[3]));
+        }
+        return times;
+    }
+}
@@ -0,0 +1,84 @@
+package iut.rodez.projet.sae.fourawalkapi.config;
+
+import iut.rodez.projet.sae.fourawalkapi.dto.BatchOptimizationReportDto;
+import iut.rodez.projet.sae.fourawalkapi.dto.BatchOptimizationResultDto;
+import iut.rodez.projet.sae.fourawalkapi.service.BatchOptimizationService;
+import iut.rodez.projet.sae.fourawalkapi.solver.DistributionObjective;
+import iut.rodez.projet.sae.fourawalkapi.solver.EngineChoice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mode ligne de commande : optimise au démarrage toutes les randonnées correspondant au filtre,
+ * journalise le bilan puis arrête l'application (code de sortie 1 si une randonnée a échoué).
+ * Exemple :
+ * <pre>
+ * java -jar 4aWalk-api.jar --spring.main.web-application-type=none \
+ *      --app.optimizer.batch.cli.enabled=true --app.optimizer.batch.cli.creator-id=1
+ * </pre>
+ */
+@Component
+@ConditionalOnProperty(name = "app.optimizer.batch.cli.enabled", havingValue = "true")
+public class BatchOptimizationRunner implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchOptimizationRunner.class);
+
+    private final BatchOptimizationService batchOptimizationService;
+    private final ConfigurableApplicationContext context;
+
+    // Créateur des randonnées à optimiser (vide : tous)
+    @Value("${app.optimizer.batch.cli.creator-id:#{null}}")
+    private Long creatorId;
+
+    // Ignore les randonnées déjà optimisées
+    @Value("${app.optimizer.batch.cli.only-unoptimized:true}")
+    private boolean onlyUnoptimized;
+
+    // Budget de temps par randonnée en ms (vide : illimité)
+    @Value("${app.optimizer.batch.cli.time-budget-ms:#{null}}")
+    private Long timeBudgetMs;
+
+    // Objectif de répartition (first-fit ou balanced)
+    @Value("${app.optimizer.batch.cli.objective:#{null}}")
+    private String objective;
+
+    // Arrêt de l'application une fois le lot terminé
+    @Value("${app.optimizer.batch.cli.exit:true}")
+    private boolean exit;
+
+    public BatchOptimizationRunner(BatchOptimizationService batchOptimizationService,
+                                   ConfigurableApplicationContext context) {
+        this.batchOptimizationService = batchOptimizationService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(String... args) {
+        logger.info("Optimisation par lot : créateur={}, seulement non optimisées={}",
+                creatorId == null ? "tous" : creatorId, onlyUnoptimized);
+        EngineChoice engines = new EngineChoice(null, null, DistributionObjective.parse(objective));
+        BatchOptimizationReportDto report = batchOptimizationService.optimizeMatching(
+                creatorId, onlyUnoptimized, timeBudgetMs, null, engines);
+
+        for (BatchOptimizationResultDto result : report.getResults()) {
+            if (BatchOptimizationResultDto.SUCCEEDED.equals(result.getStatus())) {
+                logger.info("Randonnée {} optimisée en {} ms", result.getHikeId(), result.getOptimization().getElapsedMs());
+            } else {
+                logger.warn("Randonnée {} en échec ({}) : {}", result.getHikeId(), result.getErrorStatus(), result.getErrorMessage());
+            }
+        }
+        logger.info("Optimisation par lot terminée en {} ms : {} réussie(s), {} échec(s)",
+                report.getElapsedMs(), report.getSucceeded(), report.getFailed());
+
+        if (exit) {
+            int code = report.getFailed() == 0 ? 0 : 1;
+            System.exit(SpringApplication.exit(context, () -> code));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package iut.rodez.projet.sae.fourawalkapi.config;
+
+import iut.rodez.projet.sae.fourawalkapi.service.FoodSolutionCache;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Point d'entrée d'administration (Actuator) du cache des solutions de nourriture.
+ * Le cache est partagé par tous les utilisateurs : son vidage est réservé à l'exploitation et n'est pas
+ * exposé par défaut. Pour l'activer, l'ajouter à management.endpoints.web.exposure.include,
+ * idéalement derrière un port de supervision dédié (management.server.port).
+ */
+@Component
+@Endpoint(id = "optimizercache")
+public class OptimizerCacheEndpoint {
+
+    private final FoodSolutionCache foodSolutionCache;
+
+    public OptimizerCacheEndpoint(FoodSolutionCache foodSolutionCache) {
+        this.foodSolutionCache = foodSolutionCache;
+    }
+
+    /**
+     * @return les statistiques du cache (taille, succès, échecs, évictions)
+     */
+    @ReadOperation
+    public FoodSolutionCache.Stats stats() {
+        return foodSolutionCache.getStats();
+    }
+
+    /**
+     * Vide le cache des solutions
+     */
+    @DeleteOperation
+    public void clear() {
+        foodSolutionCache.clear();
+    }
+}
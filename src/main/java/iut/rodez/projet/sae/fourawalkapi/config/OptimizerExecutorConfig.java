@@ -0,0 +1,96 @@
+package iut.rodez.projet.sae.fourawalkapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuration des exécuteurs dédiés aux calculs d'optimisation : sous-problèmes indépendants
+ * d'une même randonnée, optimisations asynchrones soumises par l'API et optimisations par lot.
+ * Pour les sous-problèmes, le nombre de threads et la file d'attente sont bornés : une fois la file
+ * pleine, la tâche s'exécute sur le thread appelant, ce qui freine naturellement les requêtes.
+ */
+@Configuration
+public class OptimizerExecutorConfig {
+
+    // Nombre de threads (par défaut : nombre de cœurs disponibles)
+    @Value("${app.optimizer.executor.threads:0}")
+    private int threads;
+
+    // Taille maximale de la file d'attente
+    @Value("${app.optimizer.executor.queue-capacity:256}")
+    private int queueCapacity;
+
+    // Nombre d'optimisations asynchrones exécutées simultanément
+    @Value("${app.optimizer.jobs.threads:2}")
+    private int jobThreads;
+
+    // Nombre d'optimisations asynchrones en attente (au-delà, la soumission est refusée)
+    @Value("${app.optimizer.jobs.queue-capacity:16}")
+    private int jobQueueCapacity;
+
+    // Nombre de randonnées d'un lot optimisées simultanément
+    @Value("${app.optimizer.batch.threads:2}")
+    private int batchThreads;
+
+    /**
+     * Exécuteur borné des sous-problèmes d'optimisation.
+     * @return l'exécuteur, arrêté à la fermeture du contexte
+     */
+    @Bean(name = "optimizerExecutor", destroyMethod = "shutdown")
+    public ExecutorService optimizerExecutor() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "optimizer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), factory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Exécuteur borné des optimisations asynchrones (une tâche = une randonnée complète).
+     * Contrairement aux sous-problèmes, une file pleine refuse la tâche au lieu de l'exécuter
+     * sur le thread de la requête, qui doit rester libre.
+     * @return l'exécuteur, arrêté à la fermeture du contexte
+     */
+    @Bean(name = "optimizationJobExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService optimizationJobExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "optimization-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        int size = Math.max(1, jobThreads);
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, jobQueueCapacity)), factory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Exécuteur des optimisations par lot (une tâche = une randonnée du lot).
+     * Le nombre de randonnées d'un lot est borné par le service : la file n'est pas limitée
+     * et les lots concurrents attendent leur tour.
+     * @return l'exécuteur, arrêté à la fermeture du contexte
+     */
+    @Bean(name = "batchOptimizationExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService batchOptimizationExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "optimization-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        int size = Math.max(1, batchThreads);
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), factory);
+    }
+}
@@ -1,6 +1,7 @@
 package iut.rodez.projet.sae.fourawalkapi.config;
 
 import iut.rodez.projet.sae.fourawalkapi.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -67,6 +68,8 @@ public class SecurityConfig {
 
                 // Définir les autorisations d'accès aux Endpoints
                 .authorizeHttpRequests(authorize -> authorize
+                        // Redispatch d'une réponse asynchrone déjà autorisée lors de la requête initiale
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(HttpMethod.POST, "/users/register").permitAll()
                         .requestMatchers(HttpMethod.POST, "/users/login").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/openapi.yaml").permitAll()
@@ -1,17 +1,33 @@
 package iut.rodez.projet.sae.fourawalkapi.controller;
 
+import iut.rodez.projet.sae.fourawalkapi.dto.BatchOptimizationReportDto;
 import iut.rodez.projet.sae.fourawalkapi.dto.HikeResponseDto;
 import iut.rodez.projet.sae.fourawalkapi.dto.HikeSummaryDto;
+import iut.rodez.projet.sae.fourawalkapi.dto.OptimizationJobDto;
+import iut.rodez.projet.sae.fourawalkapi.dto.OptimizationPreviewRequestDto;
+import iut.rodez.projet.sae.fourawalkapi.dto.OptimizationReportDto;
 import iut.rodez.projet.sae.fourawalkapi.dto.ParticipantResponseDto;
 import iut.rodez.projet.sae.fourawalkapi.dto.PointOfInterestResponseDto;
 import iut.rodez.projet.sae.fourawalkapi.entity.*;
 import iut.rodez.projet.sae.fourawalkapi.service.*;
+import iut.rodez.projet.sae.fourawalkapi.solver.DistributionObjective;
+import iut.rodez.projet.sae.fourawalkapi.solver.EngineChoice;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationReport;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationStage;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static iut.rodez.projet.sae.fourawalkapi.security.SecurityUtils.getUserId;
 
@@ -22,11 +38,19 @@ import static iut.rodez.projet.sae.fourawalkapi.security.SecurityUtils.getUserId
 @RequestMapping("/hikes")
 public class HikeController {
 
+    /* Pas de délai d'expiration asynchrone : la durée du calcul est bornée par le budget demandé */
+    private static final long NO_ASYNC_TIMEOUT = -1L;
+
+    /* En-tête détaillant la durée des étapes de l'optimisation (outils de développement des navigateurs) */
+    static final String SERVER_TIMING = "Server-Timing";
+
     private final HikeService hikeService;
     private final ParticipantService participantService;
     private final PointOfInterestService poiService;
     private final FoodService foodService;
     private final EquipmentService equipmentService;
+    private final OptimizationJobService optimizationJobService;
+    private final BatchOptimizationService batchOptimizationService;
 
     /**
      * Injection des dépendances
@@ -35,14 +59,19 @@ public class HikeController {
      * @param pois point d'interet service
      * @param fs nourriture service
      * @param es equipement service
+     * @param ojs optimisations asynchrones service
+     * @param bos optimisations par lot service
      */
     public HikeController(HikeService hs, ParticipantService ps, PointOfInterestService pois,
-                          FoodService fs, EquipmentService es) {
+                          FoodService fs, EquipmentService es, OptimizationJobService ojs,
+                          BatchOptimizationService bos) {
         this.hikeService = hs;
         this.participantService = ps;
         this.poiService = pois;
         this.foodService = fs;
         this.equipmentService = es;
+        this.optimizationJobService = ojs;
+        this.batchOptimizationService = bos;
     }
 
     // --- SCOPE HIKE ---
@@ -255,16 +284,176 @@ public class HikeController {
     // --- SCOPE OPTIMISATION ---
 
     /**
-     * Optimisation du sac à dos de tous les participants
+     * Optimisation du sac à dos de tous les participants.
+     * Le calcul s'exécute hors du thread de la requête : si le client abandonne la requête,
+     * la tâche est interrompue et la recherche s'arrête d'elle-même.
      * @param hikeId identifiant de la randonnée
+     * @param timeBudgetMs budget de temps de la recherche en millisecondes (optionnel)
+     * @param nodeBudget budget de nœuds explorés de la recherche (optionnel)
+     * @param foodEngine moteur de sélection de la nourriture imposé (optionnel, "auto" par défaut)
+     * @param distributionEngine moteur de répartition imposé (optionnel, "auto" par défaut)
+     * @param objective objectif de répartition : "first-fit" (défaut) ou "balanced" (sacs équilibrés)
      * @param auth token di'identification
-     * @return Les sacs à dos des particpants optimisé, ou non si impossible
+     * @return Les sacs à dos des particpants optimisé, ou non si impossible, avec le bilan de l'optimisation
+     * (durée de chaque étape également dans l'en-tête Server-Timing)
      */
     @PostMapping("/{hikeId}/optimize")
-    public ResponseEntity<HikeResponseDto> optimizeBackpacks(@PathVariable Long hikeId, Authentication auth) {
-        hikeService.optimizeBackpack(hikeId, getUserId(auth));
-        Hike optimizedHike = hikeService.getHikeById(hikeId, getUserId(auth));
-        Map<Long, List<Participant>> owners = equipmentService.getEquipmentOwners(hikeId);
-        return ResponseEntity.ok(new HikeResponseDto(optimizedHike, owners));
+    public WebAsyncTask<ResponseEntity<HikeResponseDto>> optimizeBackpacks(@PathVariable Long hikeId,
+                                                                           @RequestParam(required = false) Long timeBudgetMs,
+                                                                           @RequestParam(required = false) Long nodeBudget,
+                                                                           @RequestParam(required = false) String foodEngine,
+                                                                           @RequestParam(required = false) String distributionEngine,
+                                                                           @RequestParam(required = false) String objective,
+                                                                           Authentication auth) {
+        Long userId = getUserId(auth);
+        SearchBudget budget = SearchBudget.of(timeBudgetMs, nodeBudget);
+        OptimizationReport report = new OptimizationReport(budget);
+        EngineChoice engines = new EngineChoice(foodEngine, distributionEngine, DistributionObjective.parse(objective));
+
+        WebAsyncTask<ResponseEntity<HikeResponseDto>> task = new WebAsyncTask<>(NO_ASYNC_TIMEOUT, () -> {
+            hikeService.optimizeBackpack(hikeId, userId, budget, engines, report);
+            return ResponseEntity.ok()
+                    .header(SERVER_TIMING, serverTiming(report))
+                    .body(hikeService.getOptimizedHikeResponse(hikeId, userId, budget, report));
+        });
+        // Fin de la requête (réponse envoyée, erreur ou déconnexion) : la recherche n'a plus lieu d'être
+        task.onCompletion(budget::cancel);
+        return task;
+    }
+
+    /**
+     * Optimisation « à blanc » : simule une modification de la randonnée (nourritures et équipements ajoutés
+     * ou retirés, capacités d'emport) et renvoie les sacs qui en résulteraient, sans rien enregistrer.
+     * Mêmes paramètres de budget et de moteurs que l'optimisation.
+     * @param hikeId identifiant de la randonnée
+     * @param delta modification à simuler (absente : randonnée telle quelle)
+     * @param auth token d'identification
+     * @return la randonnée simulée, avec ses sacs et le bilan de l'optimisation
+     */
+    @PostMapping("/{hikeId}/optimize/preview")
+    public WebAsyncTask<ResponseEntity<HikeResponseDto>> previewOptimization(@PathVariable Long hikeId,
+                                                                             @RequestBody(required = false) OptimizationPreviewRequestDto delta,
+                                                                             @RequestParam(required = false) Long timeBudgetMs,
+                                                                             @RequestParam(required = false) Long nodeBudget,
+                                                                             @RequestParam(required = false) String foodEngine,
+                                                                             @RequestParam(required = false) String distributionEngine,
+                                                                             @RequestParam(required = false) String objective,
+                                                                             Authentication auth) {
+        Long userId = getUserId(auth);
+        SearchBudget budget = SearchBudget.of(timeBudgetMs, nodeBudget);
+        OptimizationReport report = new OptimizationReport(budget);
+        EngineChoice engines = new EngineChoice(foodEngine, distributionEngine, DistributionObjective.parse(objective));
+
+        WebAsyncTask<ResponseEntity<HikeResponseDto>> task = new WebAsyncTask<>(NO_ASYNC_TIMEOUT, () -> {
+            Hike preview = hikeService.previewOptimization(hikeId, userId, delta, budget, engines, report);
+            Map<Long, List<Participant>> owners = equipmentService.getEquipmentOwners(hikeId);
+            return ResponseEntity.ok()
+                    .header(SERVER_TIMING, serverTiming(report))
+                    .body(new HikeResponseDto(preview, owners, new OptimizationReportDto(budget, report)));
+        });
+        task.onCompletion(budget::cancel);
+        return task;
+    }
+
+    /**
+     * Optimise plusieurs randonnées de l'utilisateur en parallèle. Mêmes paramètres que l'optimisation,
+     * le budget s'appliquant à chaque randonnée. L'échec d'une randonnée n'empêche pas l'optimisation des autres.
+     * @param hikeIds identifiants des randonnées
+     * @param auth token d'identification
+     * @return le bilan de chaque randonnée
+     */
+    @PostMapping("/optimize:batch")
+    public WebAsyncTask<ResponseEntity<BatchOptimizationReportDto>> optimizeBatch(@RequestBody List<Long> hikeIds,
+                                                                                  @RequestParam(required = false) Long timeBudgetMs,
+                                                                                  @RequestParam(required = false) Long nodeBudget,
+                                                                                  @RequestParam(required = false) String foodEngine,
+                                                                                  @RequestParam(required = false) String distributionEngine,
+                                                                                  @RequestParam(required = false) String objective,
+                                                                                  Authentication auth) {
+        Long userId = getUserId(auth);
+        EngineChoice engines = new EngineChoice(foodEngine, distributionEngine, DistributionObjective.parse(objective));
+
+        return new WebAsyncTask<>(NO_ASYNC_TIMEOUT, () -> ResponseEntity.ok(
+                batchOptimizationService.optimize(hikeIds, userId, timeBudgetMs, nodeBudget, engines)));
+    }
+
+    /**
+     * Met en file l'optimisation d'une randonnée et rend la main immédiatement (HTTP 202).
+     * Mêmes paramètres que l'optimisation synchrone ; le suivi se fait sur l'URL indiquée par l'en-tête Location.
+     * @param hikeId identifiant de la randonnée
+     * @param auth token d'identification
+     * @return la tâche créée
+     */
+    @PostMapping("/{hikeId}/optimize/jobs")
+    public ResponseEntity<OptimizationJobDto> submitOptimizationJob(@PathVariable Long hikeId,
+                                                                    @RequestParam(required = false) Long timeBudgetMs,
+                                                                    @RequestParam(required = false) Long nodeBudget,
+                                                                    @RequestParam(required = false) String foodEngine,
+                                                                    @RequestParam(required = false) String distributionEngine,
+                                                                    @RequestParam(required = false) String objective,
+                                                                    Authentication auth) {
+        Long userId = getUserId(auth);
+        SearchBudget budget = SearchBudget.of(timeBudgetMs, nodeBudget);
+        EngineChoice engines = new EngineChoice(foodEngine, distributionEngine, DistributionObjective.parse(objective));
+
+        OptimizationJob job = optimizationJobService.submit(hikeId, userId, budget, engines);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{jobId}").buildAndExpand(job.getId()).toUri();
+        return ResponseEntity.accepted().location(location).body(new OptimizationJobDto(job));
+    }
+
+    /**
+     * État d'une optimisation asynchrone (avec la randonnée optimisée une fois terminée)
+     * @param hikeId identifiant de la randonnée
+     * @param jobId identifiant de la tâche
+     * @param auth token d'identification
+     * @return l'état de la tâche
+     */
+    @GetMapping("/{hikeId}/optimize/jobs/{jobId}")
+    public OptimizationJobDto getOptimizationJob(@PathVariable Long hikeId, @PathVariable String jobId,
+                                                 Authentication auth) {
+        return new OptimizationJobDto(optimizationJobService.getJob(jobId, hikeId, getUserId(auth)));
+    }
+
+    /**
+     * Flux d'événements serveur d'une optimisation asynchrone : "status" à l'abonnement, puis "completion"
+     * @param hikeId identifiant de la randonnée
+     * @param jobId identifiant de la tâche
+     * @param auth token d'identification
+     * @return le flux d'événements
+     */
+    @GetMapping(value = "/{hikeId}/optimize/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOptimizationJob(@PathVariable Long hikeId, @PathVariable String jobId,
+                                            Authentication auth) {
+        return optimizationJobService.subscribe(jobId, hikeId, getUserId(auth));
+    }
+
+    /**
+     * Annule une optimisation asynchrone
+     * @param hikeId identifiant de la randonnée
+     * @param jobId identifiant de la tâche
+     * @param auth token d'identification
+     * @return l'état de la tâche après la demande d'annulation
+     */
+    @DeleteMapping("/{hikeId}/optimize/jobs/{jobId}")
+    public OptimizationJobDto cancelOptimizationJob(@PathVariable Long hikeId, @PathVariable String jobId,
+                                                    Authentication auth) {
+        return new OptimizationJobDto(optimizationJobService.cancel(jobId, hikeId, getUserId(auth)));
+    }
+
+    /**
+     * Valeur de l'en-tête Server-Timing : une entrée par étape, avec sa durée en millisecondes,
+     * le nombre d'éléments traités, les nœuds explorés et les branches coupées.
+     * Exemple : {@code load;dur=4.1;desc="items=42 nodes=0 prunes=0", distribute;dur=12.7;desc="items=18 nodes=5230 prunes=812"}
+     */
+    static String serverTiming(OptimizationReport report) {
+        return report.getStages().stream()
+                .map(HikeController::serverTimingEntry)
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String serverTimingEntry(OptimizationStage stage) {
+        return String.format(Locale.ROOT, "%s;dur=%.3f;desc=\"items=%d nodes=%d prunes=%d\"",
+                stage.name(), stage.elapsedMs(), stage.items(), stage.nodes(), stage.prunes());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package iut.rodez.projet.sae.fourawalkapi.controller;
+
+import iut.rodez.projet.sae.fourawalkapi.service.DistributionPortfolio;
+import iut.rodez.projet.sae.fourawalkapi.service.DistributionSelector;
+import iut.rodez.projet.sae.fourawalkapi.service.FoodSolutionCache;
+import iut.rodez.projet.sae.fourawalkapi.service.OptimizerService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controleur de supervision de l'optimiseur
+ */
+@RestController
+@RequestMapping("/optimizer")
+public class OptimizerController {
+
+    private final FoodSolutionCache foodSolutionCache;
+    private final OptimizerService optimizerService;
+    private final DistributionSelector distributionSelector;
+    private final DistributionPortfolio distributionPortfolio;
+
+    /**
+     * Injection de dépendance
+     * @param fsc cache des solutions de nourriture
+     * @param os service d'optimisation (registre des moteurs de nourriture)
+     * @param ds sélecteur des moteurs de répartition
+     * @param dp portefeuille des moteurs de répartition
+     */
+    public OptimizerController(FoodSolutionCache fsc, OptimizerService os, DistributionSelector ds,
+                               DistributionPortfolio dp) {
+        this.foodSolutionCache = fsc;
+        this.optimizerService = os;
+        this.distributionSelector = ds;
+        this.distributionPortfolio = dp;
+    }
+
+    /**
+     * Moteurs disponibles, utilisables dans les paramètres foodEngine et distributionEngine de l'optimisation
+     * @return les noms des moteurs par problème
+     */
+    @GetMapping("/engines")
+    public Map<String, List<String>> getEngines() {
+        return Map.of("food", List.copyOf(optimizerService.getFoodEngineNames()),
+                "distribution", distributionSelector.getEngineNames());
+    }
+
+    /**
+     * Victoires de chaque moteur dans le portefeuille de répartition (distributionEngine=portfolio)
+     * @return nombre de courses gagnées par moteur depuis le démarrage
+     */
+    @GetMapping("/portfolio")
+    public Map<String, Long> getPortfolioWins() {
+        return distributionPortfolio.getWins();
+    }
+
+    /**
+     * Statistiques du cache des solutions (taille, succès, échecs, évictions).
+     * Le vidage de ce cache partagé est réservé à l'exploitation (point d'entrée Actuator optimizercache).
+     * @return les statistiques du cache
+     */
+    @GetMapping("/cache")
+    public FoodSolutionCache.Stats getCacheStats() {
+        return foodSolutionCache.getStats();
+    }
+}
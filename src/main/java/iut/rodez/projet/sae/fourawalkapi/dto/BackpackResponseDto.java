@@ -47,7 +47,7 @@ public class BackpackResponseDto {
         this.nourriture = new ArrayList<>();
         if (backpack.getFoodItems() != null) {
             this.nourriture = backpack.getFoodItems().stream()
-                    .map(FoodProductResponseDto::new)
+                    .map(food -> new FoodProductResponseDto(food, backpack.getFoodUnits(food)))
                     .toList();
         }
     }
@@ -0,0 +1,27 @@
+package iut.rodez.projet.sae.fourawalkapi.dto;
+
+import java.util.List;
+
+/**
+ * Bilan d'une optimisation par lot : résultat de chaque randonnée, dans l'ordre de la demande.
+ */
+public class BatchOptimizationReportDto {
+    private int succeeded;
+    private int failed;
+    private long elapsedMs;
+    private List<BatchOptimizationResultDto> results;
+
+    public BatchOptimizationReportDto(List<BatchOptimizationResultDto> results, long elapsedMs) {
+        this.results = results;
+        this.elapsedMs = elapsedMs;
+        this.succeeded = (int) results.stream()
+                .filter(result -> BatchOptimizationResultDto.SUCCEEDED.equals(result.getStatus()))
+                .count();
+        this.failed = results.size() - succeeded;
+    }
+
+    public int getSucceeded() { return succeeded; }
+    public int getFailed() { return failed; }
+    public long getElapsedMs() { return elapsedMs; }
+    public List<BatchOptimizationResultDto> getResults() { return results; }
+}
@@ -0,0 +1,44 @@
+package iut.rodez.projet.sae.fourawalkapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Résultat de l'optimisation d'une randonnée d'un lot : le bilan de la recherche en cas de succès,
+ * le code et le message d'erreur en cas d'échec.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchOptimizationResultDto {
+
+    public static final String SUCCEEDED = "SUCCEEDED";
+    public static final String FAILED = "FAILED";
+
+    private Long hikeId;
+    private String status;
+    private OptimizationReportDto optimization;
+    private Integer errorStatus;
+    private String errorMessage;
+
+    private BatchOptimizationResultDto(Long hikeId, String status) {
+        this.hikeId = hikeId;
+        this.status = status;
+    }
+
+    public static BatchOptimizationResultDto succeeded(Long hikeId, OptimizationReportDto optimization) {
+        BatchOptimizationResultDto result = new BatchOptimizationResultDto(hikeId, SUCCEEDED);
+        result.optimization = optimization;
+        return result;
+    }
+
+    public static BatchOptimizationResultDto failed(Long hikeId, int errorStatus, String errorMessage) {
+        BatchOptimizationResultDto result = new BatchOptimizationResultDto(hikeId, FAILED);
+        result.errorStatus = errorStatus;
+        result.errorMessage = errorMessage;
+        return result;
+    }
+
+    public Long getHikeId() { return hikeId; }
+    public String getStatus() { return status; }
+    public OptimizationReportDto getOptimization() { return optimization; }
+    public Integer getErrorStatus() { return errorStatus; }
+    public String getErrorMessage() { return errorMessage; }
+}
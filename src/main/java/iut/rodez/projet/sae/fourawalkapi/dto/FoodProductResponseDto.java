@@ -14,12 +14,22 @@ public class FoodProductResponseDto {
     private double apportNutritionnelKcal;
     private double prixEuro;
     private int nbItem;
+    private boolean divisible;
 
     /**
      * Mapper entity to dto
      * @param food nourriture à mapper
      */
     public FoodProductResponseDto(FoodProduct food) {
+        this(food, food.getNbItem());
+    }
+
+    /**
+     * Mapper entity to dto pour le contenu d'un sac
+     * @param food nourriture à mapper
+     * @param nbItem unités du lot portées par le sac (lot réparti sur plusieurs sacs)
+     */
+    public FoodProductResponseDto(FoodProduct food, int nbItem) {
         this.id = food.getId();
         this.nom = food.getNom();
         this.masseGrammes = food.getMasseGrammes();
@@ -27,7 +37,8 @@ public class FoodProductResponseDto {
         this.conditionnement = food.getConditionnement();
         this.apportNutritionnelKcal = food.getApportNutritionnelKcal();
         this.prixEuro = food.getPrixEuro();
-        this.nbItem = food.getNbItem();
+        this.nbItem = nbItem;
+        this.divisible = food.isDivisible();
     }
 
     // Getters
@@ -39,4 +50,5 @@ public class FoodProductResponseDto {
     public double getApportNutritionnelKcal() { return apportNutritionnelKcal; }
     public double getPrixEuro() { return prixEuro; }
     public int getNbItem() { return nbItem; }
+    public boolean isDivisible() { return divisible; }
 }
\ No newline at end of file
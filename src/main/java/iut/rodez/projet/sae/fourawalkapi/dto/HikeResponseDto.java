@@ -1,5 +1,6 @@
 package iut.rodez.projet.sae.fourawalkapi.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import iut.rodez.projet.sae.fourawalkapi.entity.Hike;
 import iut.rodez.projet.sae.fourawalkapi.entity.Participant;
 import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
@@ -21,6 +22,8 @@ public class HikeResponseDto {
     private Set<FoodProductResponseDto> foodCatalogue;
     private Map<TypeEquipment, GroupEquipmentResponseDto> equipmentGroups;
     private boolean optimize;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private OptimizationReportDto optimization;
 
     public HikeResponseDto(Hike hike, Map<Long, List<Participant>> equipmentOwners) {
         this.id = hike.getId();
@@ -54,6 +57,17 @@ public class HikeResponseDto {
         this.optimize = hike.getOptimize();
     }
 
+    /**
+     * Réponse d'une optimisation, accompagnée de son bilan
+     * @param hike randonnée optimisée
+     * @param equipmentOwners propriétaires des équipements
+     * @param optimization bilan de l'optimisation
+     */
+    public HikeResponseDto(Hike hike, Map<Long, List<Participant>> equipmentOwners, OptimizationReportDto optimization) {
+        this(hike, equipmentOwners);
+        this.optimization = optimization;
+    }
+
     public Long getId() { return id; }
     public String getLibelle() { return libelle; }
     public int getDureeJours() { return dureeJours; }
@@ -65,4 +79,5 @@ public class HikeResponseDto {
     public Set<FoodProductResponseDto> getFoodCatalogue() { return foodCatalogue; }
     public Map<TypeEquipment, GroupEquipmentResponseDto> getEquipmentGroups() { return equipmentGroups; }
     public boolean isOptimize() { return optimize; }
+    public OptimizationReportDto getOptimization() { return optimization; }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package iut.rodez.projet.sae.fourawalkapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import iut.rodez.projet.sae.fourawalkapi.service.OptimizationJob;
+
+import java.time.Instant;
+
+/**
+ * État d'une optimisation asynchrone : la randonnée optimisée (avec son bilan) une fois la tâche réussie,
+ * le code et le message d'erreur en cas d'échec.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OptimizationJobDto {
+    private String id;
+    private Long hikeId;
+    private String status;
+    private boolean cancelRequested;
+    private Instant submittedAt;
+    private Instant finishedAt;
+    private HikeResponseDto result;
+    private Integer errorStatus;
+    private String errorMessage;
+
+    public OptimizationJobDto(OptimizationJob job) {
+        this.id = job.getId();
+        this.hikeId = job.getHikeId();
+        this.status = job.getStatus().name();
+        this.cancelRequested = job.isCancelRequested();
+        this.submittedAt = job.getSubmittedAt();
+        this.finishedAt = job.getFinishedAt();
+        this.result = job.getResult();
+        this.errorStatus = job.getErrorStatus();
+        this.errorMessage = job.getErrorMessage();
+    }
+
+    public String getId() { return id; }
+    public Long getHikeId() { return hikeId; }
+    public String getStatus() { return status; }
+    public boolean isCancelRequested() { return cancelRequested; }
+    public Instant getSubmittedAt() { return submittedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public HikeResponseDto getResult() { return result; }
+    public Integer getErrorStatus() { return errorStatus; }
+    public String getErrorMessage() { return errorMessage; }
+}
@@ -0,0 +1,42 @@
+package iut.rodez.projet.sae.fourawalkapi.dto;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Modification hypothétique d'une randonnée pour une optimisation à blanc :
+ * nourritures et équipements ajoutés ou retirés (par identifiant), capacités d'emport modifiées par participant.
+ * Les champs absents sont considérés comme vides.
+ */
+public class OptimizationPreviewRequestDto {
+    private Set<Long> addedFoodIds = new HashSet<>();
+    private Set<Long> removedFoodIds = new HashSet<>();
+    private Set<Long> addedEquipmentIds = new HashSet<>();
+    private Set<Long> removedEquipmentIds = new HashSet<>();
+    private Map<Long, Double> participantCapacitiesKg = new HashMap<>();
+
+    public OptimizationPreviewRequestDto() {}
+
+    public Set<Long> getAddedFoodIds() { return addedFoodIds; }
+    public void setAddedFoodIds(Set<Long> addedFoodIds) { this.addedFoodIds = orEmpty(addedFoodIds); }
+
+    public Set<Long> getRemovedFoodIds() { return removedFoodIds; }
+    public void setRemovedFoodIds(Set<Long> removedFoodIds) { this.removedFoodIds = orEmpty(removedFoodIds); }
+
+    public Set<Long> getAddedEquipmentIds() { return addedEquipmentIds; }
+    public void setAddedEquipmentIds(Set<Long> addedEquipmentIds) { this.addedEquipmentIds = orEmpty(addedEquipmentIds); }
+
+    public Set<Long> getRemovedEquipmentIds() { return removedEquipmentIds; }
+    public void setRemovedEquipmentIds(Set<Long> removedEquipmentIds) { this.removedEquipmentIds = orEmpty(removedEquipmentIds); }
+
+    public Map<Long, Double> getParticipantCapacitiesKg() { return participantCapacitiesKg; }
+    public void setParticipantCapacitiesKg(Map<Long, Double> participantCapacitiesKg) {
+        this.participantCapacitiesKg = participantCapacitiesKg == null ? new HashMap<>() : participantCapacitiesKg;
+    }
+
+    private static Set<Long> orEmpty(Set<Long> ids) {
+        return ids == null ? new HashSet<>() : ids;
+    }
+}
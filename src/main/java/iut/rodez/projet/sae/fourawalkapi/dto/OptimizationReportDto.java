@@ -0,0 +1,67 @@
+package iut.rodez.projet.sae.fourawalkapi.dto;
+
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationReport;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationStage;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+
+import java.util.List;
+
+/**
+ * Bilan de l'optimisation d'une randonnée : budget demandé et qualité de la solution obtenue.
+ * Un écart (gap) de 0 signifie que l'optimalité de la sélection de nourriture est prouvée.
+ * Les moteurs exécutés (nourriture, répartition) sont indiqués par leur nom, avec l'objectif de répartition
+ * et le taux de remplissage du sac le plus chargé (charge / capacité).
+ * Les étapes du pipeline sont détaillées dans l'ordre d'exécution (durée, éléments traités, nœuds explorés,
+ * branches coupées).
+ */
+public class OptimizationReportDto {
+    private Long timeBudgetMs;
+    private Long nodeBudget;
+    private long elapsedMs;
+    private long nodesExplored;
+    private long nodesPruned;
+    private boolean budgetExhausted;
+    private boolean optimal;
+    private Integer foodMassGrammes;
+    private Double lowerBoundGrammes;
+    private Double gap;
+    private String foodEngine;
+    private String distributionEngine;
+    private String distributionObjective;
+    private Double maxLoadRatio;
+    private List<OptimizationStage> stages;
+
+    public OptimizationReportDto(SearchBudget budget, OptimizationReport report) {
+        this.timeBudgetMs = budget.getTimeLimitMs();
+        this.nodeBudget = budget.getNodeLimit();
+        this.elapsedMs = budget.getElapsedMs();
+        this.nodesExplored = budget.getNodes();
+        this.nodesPruned = budget.getPrunes();
+        this.budgetExhausted = budget.isExhausted();
+        this.optimal = budget.isOptimal();
+        this.foodMassGrammes = budget.getBestMass();
+        this.lowerBoundGrammes = budget.getLowerBound();
+        this.gap = budget.getGap();
+        this.foodEngine = report.getFoodEngine();
+        this.distributionEngine = report.getDistributionEngine();
+        this.distributionObjective = report.getDistributionObjective();
+        this.maxLoadRatio = report.getMaxLoadRatio();
+        this.stages = report.getStages();
+    }
+
+    public Long getTimeBudgetMs() { return timeBudgetMs; }
+    public Long getNodeBudget() { return nodeBudget; }
+    public long getElapsedMs() { return elapsedMs; }
+    public long getNodesExplored() { return nodesExplored; }
+    public long getNodesPruned() { return nodesPruned; }
+    public boolean isBudgetExhausted() { return budgetExhausted; }
+    public boolean isOptimal() { return optimal; }
+    public Integer getFoodMassGrammes() { return foodMassGrammes; }
+    public Double getLowerBoundGrammes() { return lowerBoundGrammes; }
+    public Double getGap() { return gap; }
+    public String getFoodEngine() { return foodEngine; }
+    public String getDistributionEngine() { return distributionEngine; }
+    public String getDistributionObjective() { return distributionObjective; }
+    public Double getMaxLoadRatio() { return maxLoadRatio; }
+    public List<OptimizationStage> getStages() { return stages; }
+}
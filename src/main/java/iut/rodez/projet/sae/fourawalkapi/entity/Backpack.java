@@ -2,6 +2,8 @@ package iut.rodez.projet.sae.fourawalkapi.entity;
 
 import iut.rodez.projet.sae.fourawalkapi.model.Item;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import java.util.*;
 
@@ -14,6 +16,9 @@ import java.util.*;
 @Table(name = "backpacks")
 public class Backpack {
 
+    /* Charge courante inconnue : recalculée depuis le contenu au premier accès */
+    private static final long UNKNOWN_LOAD = -1;
+
     /* identifiant du sac à dos */
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -33,6 +38,7 @@ public class Backpack {
             name = "backpack_food",
             joinColumns = @JoinColumn(name = "backpack_id"),
             inverseJoinColumns = @JoinColumn(name = "food_id"))
+    @Fetch(FetchMode.SUBSELECT)
     private Set<FoodProduct> foodItems = new HashSet<>();
 
     /* Équipements en vrac que le sac contient */
@@ -41,8 +47,21 @@ public class Backpack {
             name = "backpack_equipment",
             joinColumns = @JoinColumn(name = "backpack_id"),
             inverseJoinColumns = @JoinColumn(name = "equipment_id"))
+    @Fetch(FetchMode.SUBSELECT)
     private Set<EquipmentItem> equipmentItems = new HashSet<>();
 
+    /* Unités transportées des lots de nourriture répartis sur plusieurs sacs (absent : lot entier) */
+    @ElementCollection
+    @CollectionTable(name = "backpack_food_units", joinColumns = @JoinColumn(name = "backpack_id"))
+    @MapKeyJoinColumn(name = "food_id")
+    @Column(name = "nb_units")
+    @Fetch(FetchMode.SUBSELECT)
+    private Map<FoodProduct, Integer> foodUnits = new HashMap<>();
+
+    /* Charge courante en grammes, tenue à jour par addItem / removeItem / clearContent */
+    @Transient
+    private long loadGrammes = UNKNOWN_LOAD;
+
     // --- Constructeurs ---
 
     public Backpack() {
@@ -58,7 +77,50 @@ public class Backpack {
     public void clearContent() {
         this.foodItems.clear();
         this.equipmentItems.clear();
+        this.foodUnits.clear();
         this.totalMassKg = 0.0;
+        this.loadGrammes = 0;
+    }
+
+    /**
+     * Copie de travail du sac, hors contexte de persistance : même propriétaire, même contenu.
+     * @return la copie
+     */
+    public Backpack workingCopy() {
+        return copyFor(owner);
+    }
+
+    /**
+     * Copie du sac (contenu compris) attribuée à un autre participant.
+     * @param newOwner propriétaire de la copie
+     * @return la copie
+     */
+    public Backpack copyFor(Participant newOwner) {
+        Backpack copy = new Backpack(newOwner);
+        foodItems.forEach(food -> copy.addUnits(food, getFoodUnits(food)));
+        equipmentItems.forEach(copy::addItem);
+        return copy;
+    }
+
+    /**
+     * Aligne le contenu du sac sur celui d'une copie de travail en ne modifiant que les différences :
+     * Hibernate n'écrit alors que les lignes ajoutées ou retirées des tables de jointure,
+     * au lieu de vider puis réinsérer tout le contenu.
+     * @param source copie de travail remplie
+     */
+    public void syncContent(Backpack source) {
+        foodItems.retainAll(source.foodItems);
+        foodItems.addAll(source.foodItems);
+        equipmentItems.retainAll(source.equipmentItems);
+        equipmentItems.addAll(source.equipmentItems);
+        foodUnits.keySet().retainAll(source.foodUnits.keySet());
+        source.foodUnits.forEach((food, units) -> {
+            if (!units.equals(foodUnits.get(food))) {
+                foodUnits.put(food, units);
+            }
+        });
+        this.loadGrammes = source.getLoadGrammes();
+        this.totalMassKg = loadGrammes / 1000.0;
     }
 
     // --- Getters et Setters ---
@@ -70,32 +132,63 @@ public class Backpack {
     public void setOwner(Participant owner) { this.owner = owner; }
 
     public Set<FoodProduct> getFoodItems() { return foodItems; }
-    public void setFoodItems(Set<FoodProduct> foodItems) { this.foodItems = foodItems; }
+    public void setFoodItems(Set<FoodProduct> foodItems) {
+        this.foodItems = foodItems;
+        this.foodUnits.keySet().retainAll(foodItems);
+        this.loadGrammes = UNKNOWN_LOAD;
+    }
+
+    /**
+     * Nombre d'unités d'un lot de nourriture transportées par ce sac
+     * @param food nourriture rangée dans le sac
+     * @return les unités portées, le lot entier s'il n'est pas réparti sur plusieurs sacs
+     */
+    public int getFoodUnits(FoodProduct food) {
+        return foodUnits.getOrDefault(food, food.getNbItem());
+    }
 
     public Set<EquipmentItem> getEquipmentItems() { return equipmentItems; }
     public void setEquipmentItems(Set<EquipmentItem> equipmentItems) {
         this.equipmentItems = equipmentItems;
+        this.loadGrammes = UNKNOWN_LOAD;
     }
 
 
     /**
-     * Recalcule le poids total du sac (Nourriture + Équipement)
+     * Recalcule entièrement le poids du sac (Nourriture + Équipement) et resynchronise la charge courante.
+     * N'est plus appelée à chaque lecture : sert de contrôle de cohérence (ou après modification
+     * directe des collections ou des quantités d'un item déjà rangé).
+     * @return la charge recalculée en grammes
      */
-    public void updateTotalMass() {
-        double mass = 0.0;
+    public long updateTotalMass() {
+        long grams = 0;
         if (equipmentItems != null) {
-            mass += equipmentItems.stream()
-                    .mapToDouble(EquipmentItem::getTotalMassesKg)
-                    .sum();
+            for (EquipmentItem equip : equipmentItems) {
+                grams += gramsOf(equip);
+            }
         }
 
         if (foodItems != null) {
-            mass += foodItems.stream()
-                    .mapToDouble(FoodProduct::getTotalMassesKg)
-                    .sum();
+            for (FoodProduct food : foodItems) {
+                grams += gramsOf(food, getFoodUnits(food));
+            }
         }
 
-        this.totalMassKg = mass;
+        this.loadGrammes = grams;
+        this.totalMassKg = grams / 1000.0;
+        return grams;
+    }
+
+    /**
+     * Charge courante du sac en grammes, en O(1) (recalculée une seule fois pour un sac chargé depuis la base)
+     * @return poids du contenu en grammes
+     */
+    @Transient
+    public long getLoadGrammes() {
+        if (loadGrammes == UNKNOWN_LOAD) {
+            updateTotalMass();
+        }
+        return loadGrammes;
     }
 
     /**
@@ -103,8 +196,7 @@ public class Backpack {
      * @return poids du sac actuel
      */
     public double getTotalMassKg() {
-        updateTotalMass();
-        return this.totalMassKg;
+        return getLoadGrammes() / 1000.0;
     }
 
     /**
@@ -122,9 +214,7 @@ public class Backpack {
      * @return true si le poids peut être emporté, false sinon
      */
     public boolean canAddWeightGrammes(double weightInGrammes) {
-        double weightInKg = weightInGrammes / 1000.0;
-        updateTotalMass();
-        return (this.totalMassKg + weightInKg) <= getCapacityMaxKg();
+        return getLoadGrammes() + weightInGrammes <= getCapacityMaxKg() * 1000.0;
     }
 
     /**
@@ -134,13 +224,39 @@ public class Backpack {
      */
     public void addItem(Item item) {
         if (item instanceof FoodProduct food) {
-            this.foodItems.add(food);
+            if (this.foodItems.add(food)) {
+                addLoad(gramsOf(food, food.getNbItem()));
+            }
         }
         else if (item instanceof EquipmentItem equip) {
-            this.equipmentItems.add(equip);
+            if (this.equipmentItems.add(equip)) {
+                addLoad(gramsOf(equip));
+            }
         }
     }
 
+    /**
+     * Ajoute une partie des unités d'un lot divisible (cumulées avec celles déjà portées par le sac).
+     * Un lot complet, ou un équipement, est ajouté comme par {@link #addItem(Item)}.
+     * @param item lot dont une partie est rangée dans ce sac
+     * @param units nombre d'unités ajoutées
+     */
+    public void addUnits(Item item, int units) {
+        if (!(item instanceof FoodProduct food)) {
+            addItem(item);
+            return;
+        }
+        int carried = foodItems.contains(food) ? getFoodUnits(food) : 0;
+        int total = Math.min(carried + units, food.getNbItem());
+        foodItems.add(food);
+        if (total >= food.getNbItem()) {
+            foodUnits.remove(food);
+        } else {
+            foodUnits.put(food, total);
+        }
+        addLoad(gramsOf(food, total) - gramsOf(food, carried));
+    }
+
     /**
      * Retire un item du sac à dos
      * Item peu être soit une nourriture ou un équipement
@@ -148,9 +264,15 @@ public class Backpack {
      */
     public void removeItem(Item item) {
         if (item instanceof FoodProduct food) {
-            this.foodItems.remove(food);
+            int carried = getFoodUnits(food);
+            if (this.foodItems.remove(food)) {
+                foodUnits.remove(food);
+                addLoad(-gramsOf(food, carried));
+            }
         } else if (item instanceof EquipmentItem equip) {
-            this.equipmentItems.remove(equip); // <-- Directement à la poubelle
+            if (this.equipmentItems.remove(equip)) { // <-- Directement à la poubelle
+                addLoad(-gramsOf(equip));
+            }
         }
     }
 
@@ -160,7 +282,31 @@ public class Backpack {
      */
     @Transient
     public double getSpaceRemainingGrammes() {
-        updateTotalMass();
-        return (getCapacityMaxKg() - this.totalMassKg) * 1000.0;
+        return getCapacityMaxKg() * 1000.0 - getLoadGrammes();
+    }
+
+    /**
+     * Reporte une variation de poids sur la charge courante (ignorée tant qu'elle n'est pas connue)
+     * @param grams variation en grammes
+     */
+    private void addLoad(long grams) {
+        if (loadGrammes != UNKNOWN_LOAD) {
+            loadGrammes += grams;
+            totalMassKg = loadGrammes / 1000.0;
+        }
+    }
+
+    /**
+     * Poids des unités portées d'un lot arrondi au gramme
+     */
+    private static long gramsOf(FoodProduct food, int units) {
+        if (units == food.getNbItem()) {
+            return Math.round(food.getTotalMassesKg() * 1000.0);
+        }
+        return Math.round(food.getMasseGrammes() * units);
+    }
+
+    private static long gramsOf(EquipmentItem equip) {
+        return Math.round(equip.getTotalMassesKg() * 1000.0);
     }
 }
\ No newline at end of file
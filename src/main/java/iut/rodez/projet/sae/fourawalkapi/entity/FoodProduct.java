@@ -48,6 +48,10 @@ public class FoodProduct implements Item {
     @Max(value = 3, message = "Un lot de nourriture doit comporté au plus 3 nourritures")
     private int nbItem;
 
+    /* Lot divisible : ses unités peuvent être réparties dans plusieurs sacs */
+    @Column(nullable = false)
+    private boolean divisible = true;
+
     // --- Constructeurs ---
     public FoodProduct() {}
 
@@ -88,6 +92,9 @@ public class FoodProduct implements Item {
     @Override
     public void setNbItem(int nbItem) { this.nbItem = nbItem; }
 
+    @Override
+    public boolean isDivisible() { return divisible; }
+
     // --- Getters et Setters ---
 
     public String getAppellationCourante() { return appellationCourante; }
@@ -104,6 +111,8 @@ public class FoodProduct implements Item {
     public double getPrixEuro() { return prixEuro; }
     public void setPrixEuro(double prixEuro) { this.prixEuro = prixEuro; }
 
+    public void setDivisible(boolean divisible) { this.divisible = divisible; }
+
     public int getTotalMasses() { return (int) (this.masseGrammes * this.nbItem); }
 
     public double getTotalMassesKg(){ return this.masseGrammes * this.nbItem / 1000; }
@@ -2,6 +2,9 @@ package iut.rodez.projet.sae.fourawalkapi.entity;
 
 import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,6 +33,7 @@ public class GroupEquipment {
             inverseJoinColumns = @JoinColumn(name = "equipment_id")
     )
     @OrderBy("masseGrammes / nbItem ASC")
+    @Fetch(FetchMode.SUBSELECT)
     private List<EquipmentItem> items = new ArrayList<>();
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -59,6 +59,7 @@ public class Hike {
     /* Liste de tous les points d'intêrets à visiter pendant la randonnée */
     @OneToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinColumn(name="hike_id")
+    @Fetch(FetchMode.SUBSELECT)
     private List<PointOfInterest> optionalPoints = new ArrayList<>();
 
     /* Liste de la nourriture ajouté à la randonnée */
@@ -68,6 +69,7 @@ public class Hike {
             joinColumns = @JoinColumn(name = "hike_id"),
             inverseJoinColumns = @JoinColumn(name = "food_product_id")
     )
+    @Fetch(FetchMode.SUBSELECT)
     private List<FoodProduct> foodCatalogue = new ArrayList<>();
 
     /* Liste de l'ensemble des équipements rajoutés à la randonnée */
@@ -79,6 +81,10 @@ public class Hike {
     @Column(name = "is_optimize")
     private boolean optimize;
 
+    /* Empreinte des données d'entrée de la dernière optimisation (null : à recalculer) */
+    @Column(name = "optimization_fingerprint")
+    private Long optimizationFingerprint;
+
     // --- Constructeurs ---
 
     public Hike() {}
@@ -234,4 +240,13 @@ public class Hike {
 
     public boolean getOptimize() { return optimize; }
     public void setOptimize(boolean optimize) { this.optimize = optimize; }
+
+    public Long getOptimizationFingerprint() { return optimizationFingerprint; }
+    public void setOptimizationFingerprint(Long optimizationFingerprint) { this.optimizationFingerprint = optimizationFingerprint; }
+
+    /**
+     * Oublie l'empreinte de la dernière optimisation : la prochaine optimisation sera recalculée.
+     * La répartition en place reste valable pour les parcours tant qu'elle n'est pas remplacée.
+     */
+    public void invalidateOptimizationFingerprint() { this.optimizationFingerprint = null; }
 }
\ No newline at end of file
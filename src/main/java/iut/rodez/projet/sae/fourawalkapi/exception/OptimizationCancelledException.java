@@ -0,0 +1,7 @@
+package iut.rodez.projet.sae.fourawalkapi.exception;
+
+public class OptimizationCancelledException extends RuntimeException {
+    public OptimizationCancelledException(String message) {
+        super(message);
+    }
+}
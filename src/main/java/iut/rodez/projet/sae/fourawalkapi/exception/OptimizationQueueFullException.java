@@ -0,0 +1,7 @@
+package iut.rodez.projet.sae.fourawalkapi.exception;
+
+public class OptimizationQueueFullException extends RuntimeException {
+    public OptimizationQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -14,4 +14,10 @@ public interface Item {
     void setNom(String nom);
     void setMasseGrammes(double masseGrammes);
     void setNbItem(int nbItem);
+
+    /**
+     * Indique si les unités du lot peuvent être réparties dans plusieurs sacs.
+     * @return false par défaut : le lot est rangé d'un seul bloc
+     */
+    default boolean isDivisible() { return false; }
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package iut.rodez.projet.sae.fourawalkapi.repository.mysql;
 import iut.rodez.projet.sae.fourawalkapi.entity.Hike;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -34,6 +36,24 @@ public interface HikeRepository extends JpaRepository<Hike, Long> {
     })
     Optional<Hike> findById(Long id);
 
+    /**
+     * Chargement de l'agrégat complet d'une randonnée pour l'optimisation, en un nombre fixe de requêtes :
+     * points de départ et d'arrivée, participants, sacs et groupes d'équipements par jointure ;
+     * puis une requête par collection restante (contenu des groupes, catalogue, points optionnels,
+     * contenu des sacs), chargée en une fois pour tous ses propriétaires.
+     * @param id identifiant de la randonnée
+     * @return la randonnée, si elle existe
+     */
+    @EntityGraph(attributePaths = {
+            "depart",
+            "arrivee",
+            "participants",
+            "participants.backpack",
+            "equipmentGroups"
+    })
+    @Query("select h from Hike h where h.id = :id")
+    Optional<Hike> findForOptimization(@Param("id") Long id);
+
     /**
      * Recherche si il exite déjà un nom de randonné pour un utilisateur
      * pour assuré l'unicité du libellé pour l'utilisateur
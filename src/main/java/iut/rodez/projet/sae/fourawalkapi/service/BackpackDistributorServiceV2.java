@@ -2,11 +2,16 @@ package iut.rodez.projet.sae.fourawalkapi.service;
 
 import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
 import iut.rodez.projet.sae.fourawalkapi.exception.CapacityExceededException;
+import iut.rodez.projet.sae.fourawalkapi.exception.OptimizationCancelledException;
 import iut.rodez.projet.sae.fourawalkapi.model.Item;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
+import iut.rodez.projet.sae.fourawalkapi.solver.PackingInstance;
+import iut.rodez.projet.sae.fourawalkapi.solver.PackingPruning;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -15,27 +20,66 @@ import java.util.List;
  * gloutonne combinée à du backtracking pour garantir une solution valide si elle existe.
  */
 @Service
-public class BackpackDistributorServiceV2 {
+public class BackpackDistributorServiceV2 implements DistributionStrategy {
+
+    /* Taille par défaut de la table de transposition des impasses (V2 et V3) */
+    static final int DEFAULT_MEMO_MAX_ENTRIES = 65536;
 
     private final BackpackService backpackService;
 
+    /* Nombre maximal d'impasses mémorisées par répartition (0 : table de transposition désactivée) */
+    private final int memoMaxEntries;
+
     /**
      * Injection de dépendance
      * @param backpackService service sac à dos
      */
     public BackpackDistributorServiceV2(BackpackService backpackService) {
+        this(backpackService, DEFAULT_MEMO_MAX_ENTRIES);
+    }
+
+    /**
+     * Injection de dépendance
+     * @param backpackService service sac à dos
+     * @param memoMaxEntries taille maximale de la table de transposition des impasses
+     */
+    @Autowired
+    public BackpackDistributorServiceV2(BackpackService backpackService,
+                                        @Value("${app.optimizer.distribution.memo-max-entries:65536}") int memoMaxEntries) {
         this.backpackService = backpackService;
+        this.memoMaxEntries = memoMaxEntries;
+    }
+
+    @Override
+    public String getName() {
+        return "v2";
     }
 
     /**
      * Orchestre la distribution des objets dans les sacs à dos disponibles.
-     * Prépare les données (nettoyage, tri heuristique) avant de lancer l'algorithme récursif.
+     * Prépare les données (nettoyage, tri heuristique, compilation en tableaux primitifs)
+     * avant de lancer l'algorithme récursif.
      *
      * @param itemsToPack Liste des objets (équipements ou nourriture) à répartir.
      * @param backpacks Liste des sacs à dos (conteneurs) disponibles.
      * @param hikeId Identifiant de la randonnée (nécessaire pour retrouver les propriétaires).
      */
     public void distributeBatchesToBackpacks(List<Item> itemsToPack, List<Backpack> backpacks, Long hikeId) {
+        distributeBatchesToBackpacks(itemsToPack, backpacks, backpackService.loadOwnershipIndex(backpacks, hikeId),
+                SearchBudget.unlimited());
+    }
+
+    /**
+     * Variante recevant l'index des propriétaires déjà chargé : la résolution ne fait aucune requête.
+     *
+     * @param itemsToPack Liste des objets (équipements ou nourriture) à répartir.
+     * @param backpacks Liste des sacs à dos (conteneurs) disponibles.
+     * @param ownership Index des propriétaires construit sur ces sacs.
+     * @param budget Budget consommé nœud par nœud par la recherche.
+     */
+    @Override
+    public void distributeBatchesToBackpacks(List<Item> itemsToPack, List<Backpack> backpacks, OwnershipIndex ownership,
+                                             SearchBudget budget) {
 
         // Réinitialisation de l'état des sacs
         backpacks.forEach(Backpack::clearContent);
@@ -47,62 +91,109 @@ public class BackpackDistributorServiceV2 {
             return Double.compare(totalWeight2, totalWeight1);
         });
 
-        // Lancement de la résolution récursive avec l'ID de la randonnée
-        boolean success = solveStrictBinPacking(0, itemsToPack, backpacks, hikeId);
+        // Compilation : le sac du propriétaire est lu dans l'index préchargé (aucune requête pendant la recherche)
+        PackingInstance instance = PackingInstance.of(itemsToPack, backpacks, ownership);
 
-        if (!success) {
+        int[] assignment = new int[instance.itemCount()];
+        if (!solve(instance, assignment, budget)) {
+            if (budget.isCancelled() || budget.isExhausted()) {
+                throw new OptimizationCancelledException("Répartition abandonnée");
+            }
             throw new CapacityExceededException("Répartition impossible : Capacité totale insuffisante " +
                     "ou objets trop volumineux pour les sacs disponibles.");
         }
+
+        instance.applyTo(assignment);
+    }
+
+    @Override
+    public boolean solve(PackingInstance instance, int[] assignment, SearchBudget budget) {
+        int[] loads = new int[instance.bagCount()];
+        int[][] orderStack = new int[instance.itemCount()][instance.bagCount()];
+
+        // Lancement de la résolution récursive, sans branches symétriques ni impasses déjà rencontrées
+        PackingPruning pruning = PackingPruning.of(instance, memoMaxEntries);
+        return solveStrictBinPacking(0, instance, pruning, budget, loads, assignment, orderStack);
     }
 
     /**
      * Algorithme récursif de résolution par retour sur trace (Backtracking).
+     * Travaille uniquement sur les tableaux de l'instance : aucune allocation par nœud,
+     * l'ordre des sacs candidats de chaque profondeur est écrit dans une ligne préallouée.
+     *
+     * @param index L'index de l'objet actuel.
+     * @param instance Instance compilée (poids, capacités, sacs propriétaires).
+     * @param pruning Élagage des branches symétriques et des impasses déjà rencontrées.
+     * @param budget Budget consommé à chaque nœud (épuisé, annulé ou thread interrompu : échec).
+     * @param loads Charge courante de chaque sac en grammes.
+     * @param assignment Sac affecté à chaque objet déjà placé.
+     * @param orderStack Ordre des sacs candidats, une ligne par profondeur.
+     * @return true si une solution est trouvée.
      */
-    private boolean solveStrictBinPacking(int index, List<Item> items, List<Backpack> backpacks, Long hikeId) {
+    private boolean solveStrictBinPacking(int index, PackingInstance instance, PackingPruning pruning, SearchBudget budget,
+                                          int[] loads, int[] assignment, int[][] orderStack) {
 
         // Condition d'arrêt
-        if (index >= items.size()) {
+        if (index >= instance.itemCount()) {
             return true;
         }
 
-        Item currentItem = items.get(index);
-        double batchWeightGrammes = currentItem.getMasseGrammes() * currentItem.getNbItem();
+        // Budget épuisé ou annulation coopérative (portefeuille de moteurs, requête abandonnée)
+        if (budget.tick()) {
+            return false;
+        }
 
-        // 1. Chercher le sac prioritaire (propriétaire) si VETEMENT ou REPOS
-        Backpack preferredBackpack = backpackService.getPreferredOwnerBackpack(currentItem, backpacks, hikeId);
+        // Impasse déjà rencontrée (même lot suivant, mêmes espaces libres à une permutation près)
+        if (pruning.isDeadEnd(index, loads)) {
+            budget.prune();
+            return false;
+        }
 
-        // 2. Créer une liste de candidats triée par espace disponible (Optimisation gloutonne)
-        List<Backpack> candidateBackpacks = new ArrayList<>(backpacks);
-        candidateBackpacks.sort(Comparator.comparingDouble(Backpack::getSpaceRemainingGrammes).reversed());
+        int batchWeight = instance.getWeights()[index];
+        int[] capacities = instance.getCapacities();
+
+        // 1. Candidats triés par espace disponible décroissant (tri par insertion stable)
+        int[] order = orderStack[index];
+        for (int b = 0; b < order.length; b++) {
+            int space = capacities[b] - loads[b];
+            int pos = b;
+            while (pos > 0 && capacities[order[pos - 1]] - loads[order[pos - 1]] < space) {
+                order[pos] = order[pos - 1];
+                pos--;
+            }
+            order[pos] = b;
+        }
 
-        // 3. Forcer le sac du propriétaire en TOUTE PREMIÈRE position des tentatives
-        if (preferredBackpack != null) {
-            candidateBackpacks.remove(preferredBackpack); // On l'enlève de sa position actuelle
-            candidateBackpacks.add(0, preferredBackpack); // On le met tout devant !
+        // 2. Forcer le sac du propriétaire (VETEMENT ou REPOS) en toute première position
+        int preferred = instance.getPreferredBags()[index];
+        if (preferred >= 0) {
+            int pos = 0;
+            while (order[pos] != preferred) pos++;
+            System.arraycopy(order, 0, order, 1, pos);
+            order[0] = preferred;
         }
 
-        // 4. Itération sur les conteneurs candidats
-        for (Backpack backpack : candidateBackpacks) {
+        // 3. Itération sur les conteneurs candidats
+        for (int b : order) {
 
-            // Vérification de la contrainte de capacité stricte
-            if (backpack.canAddWeightGrammes(batchWeightGrammes)) {
+            // Vérification de la contrainte de capacité stricte, sacs et lots équivalents essayés une seule fois
+            if (loads[b] + batchWeight <= capacities[b] && pruning.allows(b, index, loads, assignment)) {
 
                 // Tentative : On ajoute l'objet au sac courant
-                backpack.addItem(currentItem);
+                loads[b] += batchWeight;
+                assignment[index] = b;
 
                 // Appel récursif pour tenter de placer l'objet suivant
-                if (solveStrictBinPacking(index + 1, items, backpacks, hikeId)) {
+                if (solveStrictBinPacking(index + 1, instance, pruning, budget, loads, assignment, orderStack)) {
                     return true;
                 }
 
                 // Backtracking (Annulation) si impasse
-                backpack.removeItem(currentItem);
+                loads[b] -= batchWeight;
             }
         }
 
+        pruning.recordDeadEnd(index, loads);
         return false;
     }
-
-
-}
\ No newline at end of file
+}
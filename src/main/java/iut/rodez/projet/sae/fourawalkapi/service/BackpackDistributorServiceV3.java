@@ -2,10 +2,17 @@ package iut.rodez.projet.sae.fourawalkapi.service;
 
 import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
 import iut.rodez.projet.sae.fourawalkapi.exception.CapacityExceededException;
+import iut.rodez.projet.sae.fourawalkapi.exception.OptimizationCancelledException;
 import iut.rodez.projet.sae.fourawalkapi.model.Item;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
+import iut.rodez.projet.sae.fourawalkapi.solver.PackingBounds;
+import iut.rodez.projet.sae.fourawalkapi.solver.PackingInstance;
+import iut.rodez.projet.sae.fourawalkapi.solver.PackingPruning;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -13,35 +20,55 @@ import java.util.List;
  * Approche gloutonne couplée à un backtracking élagué pour des performances maximales.
  */
 @Service
-public class BackpackDistributorServiceV3 {
+public class BackpackDistributorServiceV3 implements DistributionStrategy {
+
+    /* Les bornes fortes (gros objets, L2) sont recalculées tous les BOUND_DEPTH_STRIDE niveaux */
+    private static final int BOUND_DEPTH_STRIDE = 4;
 
     private final BackpackService backpackService;
 
+    /* Nombre maximal d'impasses mémorisées par répartition (0 : table de transposition désactivée) */
+    private final int memoMaxEntries;
+
     /**
      * Injection de dépendance
      * @param backpackService service sac à dos
      */
     public BackpackDistributorServiceV3(BackpackService backpackService) {
-        this.backpackService = backpackService;
+        this(backpackService, BackpackDistributorServiceV2.DEFAULT_MEMO_MAX_ENTRIES);
     }
 
-    public void distributeBatchesToBackpacks(List<Item> itemsToPack, List<Backpack> backpacks, Long hikeId) {
+    /**
+     * Injection de dépendance
+     * @param backpackService service sac à dos
+     * @param memoMaxEntries taille maximale de la table de transposition des impasses
+     */
+    @Autowired
+    public BackpackDistributorServiceV3(BackpackService backpackService,
+                                        @Value("${app.optimizer.distribution.memo-max-entries:65536}") int memoMaxEntries) {
+        this.backpackService = backpackService;
+        this.memoMaxEntries = memoMaxEntries;
+    }
 
-        backpacks.forEach(Backpack::clearContent);
+    @Override
+    public String getName() {
+        return "v3";
+    }
 
-        // 1. Pré-calcul pour le Fail-Fast
-        double totalItemsWeight = itemsToPack.stream()
-                .mapToDouble(i -> i.getMasseGrammes() * i.getNbItem())
-                .sum();
+    /**
+     * Répartit les objets en chargeant une seule fois les propriétaires de la randonnée.
+     * @param hikeId Identifiant de la randonnée (nécessaire pour retrouver les propriétaires).
+     */
+    public void distributeBatchesToBackpacks(List<Item> itemsToPack, List<Backpack> backpacks, Long hikeId) {
+        distributeBatchesToBackpacks(itemsToPack, backpacks, backpackService.loadOwnershipIndex(backpacks, hikeId),
+                SearchBudget.unlimited());
+    }
 
-        double totalBackpacksCapacity = backpacks.stream()
-                .mapToDouble(Backpack::getSpaceRemainingGrammes)
-                .sum();
+    @Override
+    public void distributeBatchesToBackpacks(List<Item> itemsToPack, List<Backpack> backpacks, OwnershipIndex ownership,
+                                             SearchBudget budget) {
 
-        // Si le poids total dépasse la capacité max combinée, on stoppe net
-        if (totalItemsWeight > totalBackpacksCapacity) {
-            throw new CapacityExceededException("Répartition impossible : Le poids total dépasse la capacité max des sacs.");
-        }
+        backpacks.forEach(Backpack::clearContent);
 
         // Tri décroissant des objets (Heuristique First-Fit Decreasing)
         // Les objets les plus lourds sont les plus difficiles à placer, on les gère en premier.
@@ -51,75 +78,154 @@ public class BackpackDistributorServiceV3 {
             return Double.compare(w2, w1);
         });
 
-        // 2. Lancement de la résolution optimisée avec passage du poids restant
-        boolean success = solveBranchAndBound(0, itemsToPack, backpacks, totalItemsWeight, hikeId);
+        // Compilation : le sac du propriétaire est lu dans l'index préchargé (aucune requête pendant la recherche)
+        PackingInstance instance = PackingInstance.of(itemsToPack, backpacks, ownership);
+
+        // 1. Fail-Fast : si le poids total dépasse la capacité max combinée, on stoppe net
+        if (totalWeight(instance.getWeights()) > totalWeight(instance.getCapacities())) {
+            throw new CapacityExceededException("Répartition impossible : Le poids total dépasse la capacité max des sacs.");
+        }
+
+        // 2. Bornes fortes à la racine : l'impossibilité est prouvée sans recherche, avec sa raison
+        String reason = PackingBounds.of(instance).reason(0, instance.getCapacities(), null);
+        if (reason != null) {
+            throw new CapacityExceededException("Répartition impossible : Objets trop volumineux pour l'espace " +
+                    "des sacs disponibles (" + reason + ").");
+        }
 
-        if (!success) {
+        // 3. Lancement de la résolution optimisée avec passage du poids restant
+        int[] assignment = new int[instance.itemCount()];
+        if (!solve(instance, assignment, budget)) {
+            if (budget.isCancelled() || budget.isExhausted()) {
+                throw new OptimizationCancelledException("Répartition abandonnée");
+            }
             throw new CapacityExceededException("Répartition impossible : Objets trop volumineux pour l'espace des sacs disponibles.");
         }
+
+        instance.applyTo(assignment);
+    }
+
+    @Override
+    public boolean solve(PackingInstance instance, int[] assignment, SearchBudget budget) {
+        int[] loads = new int[instance.bagCount()];
+
+        // Symétries (sacs de même espace libre, lots identiques), impasses déjà rencontrées et bornes fortes
+        PackingPruning pruning = PackingPruning.of(instance, memoMaxEntries);
+        PackingBounds bounds = PackingBounds.of(instance);
+        return solveBranchAndBound(0, instance, pruning, bounds, budget, loads, assignment,
+                totalWeight(instance.getWeights()), totalWeight(instance.getCapacities()));
+    }
+
+    /**
+     * Somme de poids (ou de capacités) en grammes
+     */
+    private static long totalWeight(int[] grams) {
+        long total = 0;
+        for (int g : grams) {
+            total += g;
+        }
+        return total;
     }
 
     /**
      * Algorithme récursif avec élagage (Branch and Bound).
-     * * @param index L'index de l'objet actuel.
-     * @param items Liste des objets triés.
-     * @param backpacks Liste des sacs.
+     * Travaille uniquement sur les tableaux de l'instance : aucune allocation par nœud.
+     *
+     * @param index L'index de l'objet actuel.
+     * @param instance Instance compilée (poids, capacités, sacs propriétaires).
+     * @param pruning Élagage des branches symétriques et des impasses déjà rencontrées.
+     * @param bounds Bornes fortes (gros objets, L2), évaluées à la racine puis tous les quelques niveaux.
+     * @param budget Budget consommé à chaque nœud (épuisé, annulé ou thread interrompu : échec).
+     * @param loads Charge courante de chaque sac en grammes.
+     * @param assignment Sac affecté à chaque objet déjà placé.
      * @param remainingWeight Poids total des objets qu'il reste à placer.
+     * @param freeSpace Espace libre total des sacs, tenu à jour à chaque placement.
      * @return true si une solution est trouvée.
      */
-    private boolean solveBranchAndBound(int index, List<Item> items, List<Backpack> backpacks, double remainingWeight, Long hikeId) {
+    private boolean solveBranchAndBound(int index, PackingInstance instance, PackingPruning pruning, PackingBounds bounds,
+                                        SearchBudget budget, int[] loads, int[] assignment, long remainingWeight, long freeSpace) {
 
         // Cas de base : tout est placé
-        if (index >= items.size()) {
+        if (index >= instance.itemCount()) {
             return true;
         }
 
-        // --- OPTIMISATION CRUCIALE : Élagage (Branch & Bound) ---
-        // On calcule l'espace total actuellement libre dans tous les sacs.
-        double currentAvailableSpace = backpacks.stream()
-                .mapToDouble(Backpack::getSpaceRemainingGrammes)
-                .sum();
+        // Budget épuisé ou annulation coopérative (portefeuille de moteurs, requête abandonnée)
+        if (budget.tick()) {
+            return false;
+        }
 
-        // Si l'espace libre total est devenu strictement inférieur au poids qu'il nous reste à placer,
+        int[] capacities = instance.getCapacities();
+
+        // --- OPTIMISATION CRUCIALE : Élagage (Branch & Bound) ---
+        // L'espace total libre est un total courant (O(1)) : plus de somme sur les sacs à chaque nœud.
+        // S'il est devenu strictement inférieur au poids qu'il nous reste à placer,
         // c'est une impasse (Dead-end). Inutile de continuer à creuser cette branche !
-        if (currentAvailableSpace < remainingWeight) {
+        if (freeSpace < remainingWeight) {
+            budget.prune();
+            return false;
+        }
+
+        // Même lot suivant et même multiensemble d'espaces libres qu'une impasse connue : inutile de recommencer
+        if (pruning.isDeadEnd(index, loads)) {
+            budget.prune();
             return false;
         }
 
-        Item currentItem = items.get(index);
-        double batchWeight = currentItem.getMasseGrammes() * currentItem.getNbItem();
+        // Bornes fortes aux profondeurs choisies : gros objets incompatibles, borne L2 sur les espaces restants
+        if (index % BOUND_DEPTH_STRIDE == 0 && !bounds.canComplete(index, capacities, loads)) {
+            pruning.recordDeadEnd(index, loads);
+            budget.prune();
+            return false;
+        }
 
-        // Ajout : Récupération du sac prioritaire si c'est un vêtement ou repos
-        Backpack preferredBackpack = backpackService.getPreferredOwnerBackpack(currentItem, backpacks, hikeId);
+        int batchWeight = instance.getWeights()[index];
 
-        // Création de la liste des candidats à tester.
-        // Si on a un sac prioritaire, on le place en tête de liste, sinon on utilise la liste telle quelle.
-        List<Backpack> candidateBackpacks = backpacks;
-        if (preferredBackpack != null) {
-            candidateBackpacks = new ArrayList<>(backpacks);
-            candidateBackpacks.remove(preferredBackpack);
-            candidateBackpacks.add(0, preferredBackpack);
+        // Le sac prioritaire (vêtement ou repos) est tenté en premier
+        int preferred = instance.getPreferredBags()[index];
+        if (preferred >= 0
+                && tryBackpack(preferred, index, instance, pruning, bounds, budget, loads, assignment, remainingWeight,
+                freeSpace, batchWeight)) {
+            return true;
         }
 
         // Itération classique (First-Fit)
         // Contrairement à la V2, on NE TRIE PAS les sacs ici. Le coût CPU d'un tri à chaque appel est trop lourd.
-        for (Backpack backpack : candidateBackpacks) {
+        for (int b = 0; b < capacities.length; b++) {
+            if (b != preferred
+                    && tryBackpack(b, index, instance, pruning, bounds, budget, loads, assignment, remainingWeight,
+                    freeSpace, batchWeight)) {
+                return true;
+            }
+        }
 
-            if (backpack.canAddWeightGrammes(batchWeight)) {
+        pruning.recordDeadEnd(index, loads);
+        return false; // Échec pour cette branche
+    }
 
-                // On place l'objet
-                backpack.addItem(currentItem);
+    /**
+     * Tente de placer l'objet courant dans un sac puis poursuit la récursion.
+     * @return true si une solution complète est trouvée avec ce placement.
+     */
+    private boolean tryBackpack(int b, int index, PackingInstance instance, PackingPruning pruning, PackingBounds bounds,
+                                SearchBudget budget, int[] loads, int[] assignment, long remainingWeight, long freeSpace, int batchWeight) {
+        if (loads[b] + batchWeight > instance.getCapacities()[b]
+                || !pruning.allows(b, index, loads, assignment)) {
+            return false;
+        }
 
-                // Appel récursif en déduisant le poids de l'objet qu'on vient de placer
-                if (solveBranchAndBound(index + 1, items, backpacks, remainingWeight - batchWeight, hikeId)) {
-                    return true;
-                }
+        // On place l'objet
+        loads[b] += batchWeight;
+        assignment[index] = b;
 
-                // Backtracking : on retire l'objet pour tester une autre combinaison
-                backpack.removeItem(currentItem);
-            }
+        // Appel récursif en déduisant le poids de l'objet qu'on vient de placer
+        if (solveBranchAndBound(index + 1, instance, pruning, bounds, budget, loads, assignment,
+                remainingWeight - batchWeight, freeSpace - batchWeight)) {
+            return true;
         }
 
-        return false; // Échec pour cette branche
+        // Backtracking : on retire l'objet pour tester une autre combinaison
+        loads[b] -= batchWeight;
+        return false;
     }
-}
\ No newline at end of file
+}
@@ -1,44 +1,116 @@
 package iut.rodez.projet.sae.fourawalkapi.service;
 
 import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
-import iut.rodez.projet.sae.fourawalkapi.entity.EquipmentItem;
+import iut.rodez.projet.sae.fourawalkapi.entity.FoodProduct;
 import iut.rodez.projet.sae.fourawalkapi.model.Item;
-import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
 import iut.rodez.projet.sae.fourawalkapi.repository.mysql.BelongEquipmentRepository;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
+import iut.rodez.projet.sae.fourawalkapi.solver.PackingInstance;
+import iut.rodez.projet.sae.fourawalkapi.solver.PackingRepair;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 @Service
 public class BackpackService {
 
     private final BelongEquipmentRepository belongEquipmentRepository;
 
+    /* Réparation incrémentale de la répartition persistée (désactivable pour les mesures) */
+    private final boolean repairEnabled;
+
     /**
      * Injection de dépendance
      * @param belongEquipmentRepository repository d'appartenance d'équipement
      */
     public BackpackService(BelongEquipmentRepository belongEquipmentRepository) {
+        this(belongEquipmentRepository, true);
+    }
+
+    /**
+     * Injection de dépendance
+     * @param belongEquipmentRepository repository d'appartenance d'équipement
+     * @param repairEnabled true pour réparer la répartition existante avant toute recherche complète
+     */
+    @Autowired
+    public BackpackService(BelongEquipmentRepository belongEquipmentRepository,
+                           @Value("${app.optimizer.repair.enabled:true}") boolean repairEnabled) {
         this.belongEquipmentRepository = belongEquipmentRepository;
+        this.repairEnabled = repairEnabled;
     }
+
     /**
-     * Détermine si l'objet a un propriétaire et retourne son sac.
-     * Restreint aux équipements de type VETEMENT et REPOS.
+     * Charge en une requête les propriétaires d'équipement d'une randonnée.
+     * L'index obtenu est transmis aux moteurs de répartition, qui n'interrogent plus la base.
+     * @param backpacks sacs de la répartition
+     * @param hikeId identifiant de la randonnée
+     * @return l'index équipement → sac du propriétaire
      */
-    public Backpack getPreferredOwnerBackpack(Item item, List<Backpack> backpacks, Long hikeId) {
-        // On vérifie que c'est bien un équipement (et non de la nourriture)
-        if (item instanceof EquipmentItem equipmentItem) {
-            TypeEquipment type = equipmentItem.getType();
+    public OwnershipIndex loadOwnershipIndex(List<Backpack> backpacks, Long hikeId) {
+        return OwnershipIndex.of(belongEquipmentRepository.findByHikeId(hikeId), backpacks);
+    }
 
-            // Si c'est un vêtement ou du repos
-            if (type == TypeEquipment.VETEMENT || type == TypeEquipment.REPOS) {
-                Long ownerId = belongEquipmentRepository.getIfExistParticipantForEquipmentAndHike(hikeId, item.getId());
+    /**
+     * Répare la répartition persistée au lieu de tout recalculer : les objets déjà rangés restent en place,
+     * les objets retirés quittent leur sac et les nouveaux sont insérés par mouvements locaux.
+     * Sans aucun objet déjà rangé (première optimisation), ou si l'insertion locale échoue,
+     * les sacs ne sont pas modifiés et l'appelant lance la recherche complète.
+     * @param itemsToPack objets à ranger
+     * @param backpacks sacs, avec leur contenu actuel
+     * @param ownership index des propriétaires
+     * @return true si la répartition a été réparée et appliquée
+     */
+    public boolean repairDistribution(List<Item> itemsToPack, List<Backpack> backpacks, OwnershipIndex ownership) {
+        if (!repairEnabled || itemsToPack.isEmpty()) {
+            return false;
+        }
+        itemsToPack.sort(Comparator.comparingDouble((Item item) -> item.getMasseGrammes() * item.getNbItem()).reversed());
+        PackingInstance instance = PackingInstance.of(itemsToPack, backpacks, ownership);
 
-                for(Backpack backpack : backpacks) {
-                    if(backpack.getOwner().getId().equals(ownerId)) {return backpack;}
+        // Sac actuel de chaque lot (les unités d'un lot découpé sont retrouvées sac par sac)
+        Map<Item, int[]> carried = new IdentityHashMap<>();
+        int[] units = instance.getUnits();
+        int[] previous = new int[instance.itemCount()];
+        boolean anyPacked = false;
+        for (int i = 0; i < previous.length; i++) {
+            int[] left = carried.computeIfAbsent(instance.getItem(i), item -> carriedUnits(item, backpacks));
+            previous[i] = PackingRepair.UNASSIGNED;
+            for (int b = 0; b < left.length && previous[i] == PackingRepair.UNASSIGNED; b++) {
+                if (left[b] >= units[i]) {
+                    left[b] -= units[i];
+                    previous[i] = b;
                 }
+            }
+            anyPacked |= previous[i] != PackingRepair.UNASSIGNED;
+        }
+        if (!anyPacked) {
+            return false;
+        }
+
+        int[] repaired = PackingRepair.repair(instance, previous);
+        if (repaired == null) {
+            return false;
+        }
+        backpacks.forEach(Backpack::clearContent);
+        instance.applyTo(repaired);
+        return true;
+    }
 
+    /* Unités de l'objet déjà portées par chaque sac */
+    private static int[] carriedUnits(Item item, List<Backpack> backpacks) {
+        int[] carried = new int[backpacks.size()];
+        for (int b = 0; b < carried.length; b++) {
+            Backpack backpack = backpacks.get(b);
+            if (item instanceof FoodProduct food && backpack.getFoodItems().contains(food)) {
+                carried[b] = backpack.getFoodUnits(food);
+            } else if (backpack.getEquipmentItems().contains(item)) {
+                carried[b] = item.getNbItem();
             }
         }
-        return null; // Aucun propriétaire ou type non éligible
+        return carried;
     }
 }
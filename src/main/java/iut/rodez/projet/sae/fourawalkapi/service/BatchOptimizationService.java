@@ -0,0 +1,189 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.dto.BatchOptimizationReportDto;
+import iut.rodez.projet.sae.fourawalkapi.dto.BatchOptimizationResultDto;
+import iut.rodez.projet.sae.fourawalkapi.dto.OptimizationReportDto;
+import iut.rodez.projet.sae.fourawalkapi.entity.Hike;
+import iut.rodez.projet.sae.fourawalkapi.exception.OptimizationCancelledException;
+import iut.rodez.projet.sae.fourawalkapi.repository.mysql.HikeRepository;
+import iut.rodez.projet.sae.fourawalkapi.solver.EngineChoice;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationReport;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Optimisation de plusieurs randonnées en une seule demande (API ou ligne de commande).
+ * Les randonnées sont optimisées en parallèle sur un exécuteur borné, chacune dans sa propre transaction :
+ * l'échec de l'une n'annule pas les autres et figure dans le bilan avec son code HTTP.
+ * Les lots de nourriture identiques d'une randonnée à l'autre profitent du cache des solutions de l'optimiseur.
+ */
+@Service
+public class BatchOptimizationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchOptimizationService.class);
+
+    private final HikeService hikeService;
+    private final HikeRepository hikeRepository;
+    private final ExecutorService batchExecutor;
+    private final int maxHikes;
+
+    /**
+     * Injection de dépendance
+     * @param hikeService service des randonnées
+     * @param hikeRepository repository des randonnées (sélection des randonnées de la ligne de commande)
+     * @param batchExecutor exécuteur borné des optimisations par lot
+     * @param maxHikes nombre maximal de randonnées d'un lot soumis par l'API
+     */
+    public BatchOptimizationService(HikeService hikeService, HikeRepository hikeRepository,
+                                    @Qualifier("batchOptimizationExecutor") ExecutorService batchExecutor,
+                                    @Value("${app.optimizer.batch.max-hikes:100}") int maxHikes) {
+        this.hikeService = hikeService;
+        this.hikeRepository = hikeRepository;
+        this.batchExecutor = batchExecutor;
+        this.maxHikes = maxHikes;
+    }
+
+    /**
+     * Optimise les randonnées d'un utilisateur. Chaque randonnée reçoit son propre budget,
+     * démarré au début de son optimisation.
+     * @param hikeIds identifiants des randonnées (les doublons sont ignorés)
+     * @param userId identifiant de l'utilisateur demandeur
+     * @param timeBudgetMs budget de temps par randonnée (null : illimité)
+     * @param nodeBudget budget de nœuds par randonnée (null : illimité)
+     * @param engines moteurs et objectif demandés
+     * @return le bilan, dans l'ordre des identifiants
+     * @throws IllegalArgumentException si la liste est vide, trop longue, contient un identifiant nul ou si le budget est invalide
+     */
+    public BatchOptimizationReportDto optimize(List<Long> hikeIds, Long userId, Long timeBudgetMs, Long nodeBudget,
+                                               EngineChoice engines) {
+        if (hikeIds == null || hikeIds.isEmpty()) {
+            throw new IllegalArgumentException("La liste des randonnées à optimiser est vide");
+        }
+        if (hikeIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Identifiant de randonnée manquant");
+        }
+        LinkedHashSet<Long> distinctIds = new LinkedHashSet<>(hikeIds);
+        if (distinctIds.size() > maxHikes) {
+            throw new IllegalArgumentException("Un lot ne peut pas dépasser " + maxHikes + " randonnées");
+        }
+        // Budget invalide : refusé avant de lancer la moindre optimisation
+        SearchBudget.of(timeBudgetMs, nodeBudget);
+
+        List<Target> targets = distinctIds.stream().map(id -> new Target(id, userId)).toList();
+        return run(targets, timeBudgetMs, nodeBudget, engines);
+    }
+
+    /**
+     * Optimise toutes les randonnées correspondant au filtre, chacune au nom de son créateur
+     * (mode ligne de commande, sans limite de taille).
+     * @param creatorId créateur des randonnées (null : tous les créateurs)
+     * @param onlyUnoptimized true pour ignorer les randonnées déjà optimisées
+     * @param timeBudgetMs budget de temps par randonnée (null : illimité)
+     * @param nodeBudget budget de nœuds par randonnée (null : illimité)
+     * @param engines moteurs et objectif demandés
+     * @return le bilan
+     */
+    public BatchOptimizationReportDto optimizeMatching(Long creatorId, boolean onlyUnoptimized,
+                                                       Long timeBudgetMs, Long nodeBudget, EngineChoice engines) {
+        SearchBudget.of(timeBudgetMs, nodeBudget);
+        List<Hike> hikes = creatorId != null ? hikeRepository.findByCreatorId(creatorId) : hikeRepository.findAll();
+        List<Target> targets = hikes.stream()
+                .filter(hike -> !onlyUnoptimized || !hike.getOptimize())
+                .map(hike -> new Target(hike.getId(), hike.getCreator().getId()))
+                .toList();
+        return run(targets, timeBudgetMs, nodeBudget, engines);
+    }
+
+    private BatchOptimizationReportDto run(List<Target> targets, Long timeBudgetMs, Long nodeBudget, EngineChoice engines) {
+        long start = System.nanoTime();
+        List<Future<BatchOptimizationResultDto>> futures = new ArrayList<>(targets.size());
+        for (Target target : targets) {
+            futures.add(batchExecutor.submit(() -> optimizeOne(target, timeBudgetMs, nodeBudget, engines)));
+        }
+
+        List<BatchOptimizationResultDto> results = new ArrayList<>(targets.size());
+        for (int i = 0; i < futures.size(); i++) {
+            Long hikeId = targets.get(i).hikeId();
+            try {
+                results.add(resultOf(hikeId, futures.get(i)));
+            } catch (InterruptedException e) {
+                // Demande abandonnée : les randonnées en attente ne seront pas lancées, celles en cours sont
+                // interrompues (leur transaction est annulée) ; celles déjà terminées gardent leur résultat
+                Thread.currentThread().interrupt();
+                for (int j = i; j < futures.size(); j++) {
+                    Future<BatchOptimizationResultDto> future = futures.get(j);
+                    Long remainingId = targets.get(j).hikeId();
+                    if (future.cancel(true)) {
+                        results.add(BatchOptimizationResultDto.failed(remainingId,
+                                HttpStatus.REQUEST_TIMEOUT.value(), "Optimisation par lot interrompue"));
+                    } else {
+                        results.add(doneResultOf(remainingId, future));
+                    }
+                }
+                break;
+            }
+        }
+        return new BatchOptimizationReportDto(results, (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    /* Résultat d'une randonnée, en attendant la fin de son optimisation */
+    private static BatchOptimizationResultDto resultOf(Long hikeId, Future<BatchOptimizationResultDto> future)
+            throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            logger.error("Échec de l'optimisation de la randonnée {} : ", hikeId, e.getCause());
+            return BatchOptimizationResultDto.failed(hikeId,
+                    HttpStatus.INTERNAL_SERVER_ERROR.value(), OptimizationJobService.INTERNAL_ERROR_MESSAGE);
+        }
+    }
+
+    /* Résultat d'une randonnée dont l'optimisation est terminée (lecture sans attente, même thread interrompu) */
+    private static BatchOptimizationResultDto doneResultOf(Long hikeId, Future<BatchOptimizationResultDto> future) {
+        return switch (future.state()) {
+            case SUCCESS -> future.resultNow();
+            case FAILED -> {
+                logger.error("Échec de l'optimisation de la randonnée {} : ", hikeId, future.exceptionNow());
+                yield BatchOptimizationResultDto.failed(hikeId,
+                        HttpStatus.INTERNAL_SERVER_ERROR.value(), OptimizationJobService.INTERNAL_ERROR_MESSAGE);
+            }
+            default -> BatchOptimizationResultDto.failed(hikeId,
+                    HttpStatus.REQUEST_TIMEOUT.value(), "Optimisation par lot interrompue");
+        };
+    }
+
+    private BatchOptimizationResultDto optimizeOne(Target target, Long timeBudgetMs, Long nodeBudget, EngineChoice engines) {
+        SearchBudget budget = SearchBudget.of(timeBudgetMs, nodeBudget);
+        OptimizationReport report = new OptimizationReport(budget);
+        try {
+            hikeService.optimizeBackpack(target.hikeId(), target.userId(), budget, engines, report);
+            return BatchOptimizationResultDto.succeeded(target.hikeId(), new OptimizationReportDto(budget, report));
+        } catch (OptimizationCancelledException e) {
+            return BatchOptimizationResultDto.failed(target.hikeId(), HttpStatus.REQUEST_TIMEOUT.value(), e.getMessage());
+        } catch (RuntimeException e) {
+            HttpStatus status = OptimizationJobService.statusOf(e);
+            if (status.is5xxServerError()) {
+                logger.error("Échec de l'optimisation de la randonnée {} : ", target.hikeId(), e);
+                return BatchOptimizationResultDto.failed(target.hikeId(), status.value(),
+                        OptimizationJobService.INTERNAL_ERROR_MESSAGE);
+            }
+            return BatchOptimizationResultDto.failed(target.hikeId(), status.value(), e.getMessage());
+        }
+    }
+
+    /* Randonnée à optimiser, au nom de l'utilisateur indiqué */
+    private record Target(Long hikeId, Long userId) {}
+}
@@ -0,0 +1,152 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
+import iut.rodez.projet.sae.fourawalkapi.exception.CapacityExceededException;
+import iut.rodez.projet.sae.fourawalkapi.exception.OptimizationCancelledException;
+import iut.rodez.projet.sae.fourawalkapi.model.Item;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
+import iut.rodez.projet.sae.fourawalkapi.solver.PackingInstance;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Portefeuille de moteurs de répartition : V2, V3 et l'heuristique gloutonne sont lancés en parallèle
+ * sur la même instance compilée (immuable), chacun avec sa propre affectation et ses propres charges.
+ * La première répartition valide l'emporte et les autres moteurs sont interrompus (annulation coopérative).
+ * L'échec d'un moteur exact prouve l'impossibilité (sauf budget épuisé) ; celui de l'heuristique ne prouve rien :
+ * le portefeuille ne rend un échec qu'une fois un moteur exact arrêté, il peut donc servir d'oracle exact
+ * à la répartition équilibrée.
+ * Les victoires de chaque moteur sont comptées pour ajuster les choix par défaut.
+ */
+@Service
+public class DistributionPortfolio implements DistributionStrategy {
+
+    /* Nom du portefeuille dans le registre des moteurs */
+    public static final String NAME = "portfolio";
+
+    private final List<DistributionStrategy> members;
+    private final Executor optimizerExecutor;
+
+    /* Victoires par moteur, dans l'ordre des membres */
+    private final Map<String, AtomicLong> wins = new LinkedHashMap<>();
+
+    /**
+     * Injection de dépendance
+     * @param v2 moteur par retour sur trace trié
+     * @param v3 moteur par séparation et évaluation
+     * @param greedy moteur heuristique
+     * @param optimizerExecutor exécuteur des calculs d'optimisation
+     */
+    @Autowired
+    public DistributionPortfolio(BackpackDistributorServiceV2 v2, BackpackDistributorServiceV3 v3,
+                                 GreedyDistributorService greedy,
+                                 @Qualifier("optimizerExecutor") Executor optimizerExecutor) {
+        this(List.of(greedy, v3, v2), optimizerExecutor);
+    }
+
+    DistributionPortfolio(List<DistributionStrategy> members, Executor optimizerExecutor) {
+        this.members = List.copyOf(members);
+        this.optimizerExecutor = optimizerExecutor;
+        members.forEach(member -> wins.put(member.getName(), new AtomicLong()));
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void distributeBatchesToBackpacks(List<Item> itemsToPack, List<Backpack> backpacks, OwnershipIndex ownership,
+                                             SearchBudget budget) {
+        backpacks.forEach(Backpack::clearContent);
+
+        // Tri décroissant des objets par poids total, ordre commun à tous les moteurs
+        itemsToPack.sort(Comparator.comparingDouble((Item item) -> item.getMasseGrammes() * item.getNbItem()).reversed());
+        PackingInstance instance = PackingInstance.of(itemsToPack, backpacks, ownership);
+
+        int[] assignment = new int[instance.itemCount()];
+        if (!solve(instance, assignment, budget)) {
+            if (budget.isCancelled() || budget.isExhausted()) {
+                throw new OptimizationCancelledException("Répartition abandonnée");
+            }
+            throw new CapacityExceededException("Répartition impossible : Capacité totale insuffisante " +
+                    "ou objets trop volumineux pour les sacs disponibles.");
+        }
+        instance.applyTo(assignment);
+    }
+
+    /**
+     * Lance la course des moteurs.
+     * @param instance instance compilée, partagée en lecture seule
+     * @param assignment rempli avec l'affectation du vainqueur
+     * @param budget budget partagé par les moteurs (l'interruption d'un perdant ne l'épuise pas)
+     * @return true si un moteur a trouvé une répartition
+     */
+    @Override
+    public boolean solve(PackingInstance instance, int[] assignment, SearchBudget budget) {
+        CompletionService<Outcome> race = new ExecutorCompletionService<>(optimizerExecutor);
+        List<Future<Outcome>> runners = new ArrayList<>(members.size());
+        try {
+            for (DistributionStrategy member : members) {
+                runners.add(race.submit(() -> {
+                    int[] own = new int[instance.itemCount()];
+                    return new Outcome(member, member.solve(instance, own, budget) ? own : null);
+                }));
+            }
+            for (int finished = 0; finished < runners.size(); finished++) {
+                Outcome outcome = race.take().get();
+                if (outcome.assignment() != null) {
+                    System.arraycopy(outcome.assignment(), 0, assignment, 0, assignment.length);
+                    wins.get(outcome.engine().getName()).incrementAndGet();
+                    return true;
+                }
+                // Un moteur exact a parcouru tout l'arbre (ou épuisé le budget commun) : inutile d'attendre les autres
+                if (outcome.engine().isExact()) {
+                    return false;
+                }
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // Les perdants sont interrompus (ou retirés de la file s'ils n'ont pas démarré)
+            runners.forEach(runner -> runner.cancel(true));
+        }
+    }
+
+    /**
+     * Nombre de victoires de chaque moteur depuis le démarrage
+     * @return victoires par nom de moteur
+     */
+    public Map<String, Long> getWins() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        wins.forEach((name, count) -> snapshot.put(name, count.get()));
+        return snapshot;
+    }
+
+    /**
+     * Résultat d'un moteur : son affectation, null en cas d'échec
+     */
+    private record Outcome(DistributionStrategy engine, int[] assignment) {
+    }
+}
@@ -0,0 +1,139 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.model.Item;
+import iut.rodez.projet.sae.fourawalkapi.solver.CalibrationTable;
+import iut.rodez.projet.sae.fourawalkapi.solver.EngineChoice;
+import iut.rodez.projet.sae.fourawalkapi.solver.InstanceFeatures;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
+import iut.rodez.projet.sae.fourawalkapi.solver.StrategyRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Registre et sélecteur des moteurs de répartition.
+ * Ordre de priorité : moteur demandé par la requête, moteur fixé par le déploiement
+ * (app.optimizer.distribution-engine), puis choix automatique par la table de calibration :
+ * le moteur le plus rapide sur le scénario mesuré le plus proche, parmi ceux dont la calibration
+ * couvre la taille de l'instance.
+ */
+@Service
+public class DistributionSelector {
+
+    /* Moteur historique, retenu quand aucune calibration ne s'applique */
+    static final String DEFAULT_ENGINE = "v2";
+
+    private final StrategyRegistry<DistributionStrategy> registry = new StrategyRegistry<>();
+    private final CalibrationTable calibration;
+    private final String deploymentEngine;
+
+    /**
+     * Injection de dépendance
+     * @param strategies moteurs de répartition disponibles
+     * @param deploymentEngine moteur fixé par le déploiement ("auto" : choix automatique)
+     * @param calibrationResource table de calibration (ressource du classpath)
+     */
+    @Autowired
+    public DistributionSelector(List<DistributionStrategy> strategies,
+                                @Value("${app.optimizer.distribution-engine:auto}") String deploymentEngine,
+                                @Value("${app.optimizer.calibration-resource:optimizer-calibration.csv}") String calibrationResource) {
+        this(strategies, deploymentEngine, loadCalibration(calibrationResource));
+    }
+
+    DistributionSelector(List<DistributionStrategy> strategies, String deploymentEngine, CalibrationTable calibration) {
+        strategies.forEach(s -> registry.register(s.getName(), s));
+        this.deploymentEngine = deploymentEngine;
+        this.calibration = calibration;
+        if (!EngineChoice.isAuto(deploymentEngine)) {
+            registry.get(deploymentEngine); // Échec au démarrage si le moteur configuré n'existe pas
+        }
+    }
+
+    private static CalibrationTable loadCalibration(String resource) {
+        try (InputStream in = DistributionSelector.class.getClassLoader().getResourceAsStream(resource)) {
+            return in == null ? CalibrationTable.empty() : CalibrationTable.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture de la table de calibration impossible : " + resource, e);
+        }
+    }
+
+    /**
+     * Caractéristiques d'une répartition : seuls les items dont le propriétaire a un sac dans la répartition
+     * (vêtements et matériel de repos attribués) sont comptés comme attachés ; un vêtement sans propriétaire
+     * est exploré librement, comme tout autre item.
+     * @param itemsToPack items à répartir
+     * @param backpackCount nombre de sacs
+     * @param ownership index des propriétaires de la répartition
+     */
+    public static InstanceFeatures features(List<Item> itemsToPack, int backpackCount, OwnershipIndex ownership) {
+        int ownerBound = 0;
+        for (Item item : itemsToPack) {
+            if (ownership.bagOf(item) >= 0) {
+                ownerBound++;
+            }
+        }
+        return new InstanceFeatures(itemsToPack.size(), backpackCount, 0, ownerBound);
+    }
+
+    /**
+     * Choisit le moteur de répartition.
+     * @param features caractéristiques de l'instance
+     * @param requested moteur demandé par la requête (null ou "auto" : pas de surcharge)
+     * @return le moteur à exécuter
+     * @throws IllegalArgumentException si le moteur demandé n'existe pas
+     */
+    public DistributionStrategy select(InstanceFeatures features, String requested) {
+        if (!EngineChoice.isAuto(requested)) {
+            return registry.get(requested);
+        }
+        if (!EngineChoice.isAuto(deploymentEngine)) {
+            return registry.get(deploymentEngine);
+        }
+        return registry.get(selectCalibrated(features));
+    }
+
+    /**
+     * Vérifie qu'un moteur demandé existe (avant tout calcul).
+     * @throws IllegalArgumentException si le moteur demandé n'existe pas
+     */
+    public void checkEngine(String requested) {
+        if (!EngineChoice.isAuto(requested)) {
+            registry.get(requested);
+        }
+    }
+
+    /**
+     * Moteur le plus rapide d'après la calibration. Au-delà des scénarios mesurés d'un moteur,
+     * son estimation n'est plus fiable : s'il n'en reste aucun, on retient le mieux calibré.
+     */
+    private String selectCalibrated(InstanceFeatures features) {
+        int items = features.freeItems();
+        String best = null;
+        long bestNs = Long.MAX_VALUE;
+        String widest = null;
+        int widestItems = -1;
+        for (String name : registry.names()) {
+            int maxItems = calibration.maxItems(name);
+            if (maxItems > widestItems) {
+                widest = name;
+                widestItems = maxItems;
+            }
+            if (maxItems < items) continue;
+            long estimate = calibration.estimateNs(name, items, features.participantCount());
+            if (estimate < bestNs) {
+                best = name;
+                bestNs = estimate;
+            }
+        }
+        if (best != null) return best;
+        if (widest != null && widestItems >= 0) return widest;
+        return registry.contains(DEFAULT_ENGINE) ? DEFAULT_ENGINE : registry.names().iterator().next();
+    }
+
+    public List<String> getEngineNames() { return List.copyOf(registry.names()); }
+}
@@ -0,0 +1,87 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
+import iut.rodez.projet.sae.fourawalkapi.exception.CapacityExceededException;
+import iut.rodez.projet.sae.fourawalkapi.exception.OptimizationCancelledException;
+import iut.rodez.projet.sae.fourawalkapi.model.Item;
+import iut.rodez.projet.sae.fourawalkapi.solver.LoadBalancer;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
+import iut.rodez.projet.sae.fourawalkapi.solver.PackingInstance;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Moteur de répartition des objets dans les sacs à dos des participants.
+ * Chaque implémentation est un bean enregistré sous son nom dans le {@link DistributionSelector}.
+ */
+public interface DistributionStrategy {
+
+    /**
+     * @return nom du moteur (clé du registre, valeur des surcharges)
+     */
+    String getName();
+
+    /**
+     * @return true si un échec du moteur, budget non épuisé, prouve que la répartition est impossible
+     * (recherche complète). Seuls les moteurs exacts servent d'oracle à la répartition équilibrée.
+     */
+    default boolean isExact() {
+        return true;
+    }
+
+    /**
+     * Répartit les objets dans les sacs.
+     * @param itemsToPack Liste des objets (équipements ou nourriture) à répartir.
+     * @param backpacks Liste des sacs à dos (conteneurs) disponibles.
+     * @param ownership Index des propriétaires, chargé une fois avant la recherche (aucune requête pendant celle-ci).
+     * @param budget Budget consommé par la recherche ; la répartition devant aboutir, l'appelant passe
+     *               en général sa vue sans limite ({@link SearchBudget#withoutLimits()}).
+     * @throws iut.rodez.projet.sae.fourawalkapi.exception.CapacityExceededException si la répartition est impossible
+     * @throws OptimizationCancelledException si la recherche a été annulée ou son budget épuisé
+     */
+    void distributeBatchesToBackpacks(List<Item> itemsToPack, List<Backpack> backpacks, OwnershipIndex ownership,
+                                      SearchBudget budget);
+
+    /**
+     * Cherche une affectation respectant les capacités d'une instance compilée (oracle de faisabilité).
+     * La recherche consomme le budget nœud par nœud et s'arrête (échec) dès qu'il est épuisé, annulé
+     * ou que le thread est interrompu : un échec n'est une preuve que si le budget n'est pas épuisé.
+     * @param instance instance compilée (lots triés, capacités éventuellement abaissées)
+     * @param assignment rempli avec le sac de chaque lot en cas de succès
+     * @param budget budget de la recherche
+     * @return true si une affectation a été trouvée
+     */
+    boolean solve(PackingInstance instance, int[] assignment, SearchBudget budget);
+
+    /**
+     * Répartit les objets en minimisant le taux de remplissage du sac le plus chargé (charge / capacité).
+     * Le moteur, exact, sert d'oracle à la recherche dichotomique du {@link LoadBalancer} ; un moteur
+     * heuristique doit redéfinir cette méthode. Le budget épuisé, la meilleure répartition connue est retenue.
+     * @param itemsToPack Liste des objets (équipements ou nourriture) à répartir.
+     * @param backpacks Liste des sacs à dos (conteneurs) disponibles.
+     * @param ownership Index des propriétaires, chargé une fois avant la recherche.
+     * @param budget Budget de la recherche d'équilibre.
+     * @throws CapacityExceededException si la répartition est impossible
+     * @throws OptimizationCancelledException si la recherche a été annulée
+     */
+    default void distributeBalanced(List<Item> itemsToPack, List<Backpack> backpacks, OwnershipIndex ownership,
+                                    SearchBudget budget) {
+        backpacks.forEach(Backpack::clearContent);
+
+        // Tri décroissant des objets par poids total, comme la recherche du premier rangement
+        itemsToPack.sort(Comparator.comparingDouble((Item item) -> item.getMasseGrammes() * item.getNbItem()).reversed());
+        PackingInstance instance = PackingInstance.of(itemsToPack, backpacks, ownership);
+
+        int[] assignment = LoadBalancer.minimizeMaxLoadRatio(instance, this::solve, budget);
+        if (budget.isCancelled()) {
+            throw new OptimizationCancelledException("Répartition abandonnée");
+        }
+        if (assignment == null) {
+            throw new CapacityExceededException("Répartition impossible : Capacité totale insuffisante " +
+                    "ou objets trop volumineux pour les sacs disponibles.");
+        }
+        instance.applyTo(assignment);
+    }
+}
@@ -123,6 +123,7 @@ public class EquipmentService {
 
         // Délégation de la logique métier (ajout dans le sac de la rando)
         hike.addEquipment(item);
+        hike.invalidateOptimizationFingerprint();
         hikeRepository.save(hike);
     }
 
@@ -147,6 +148,7 @@ public class EquipmentService {
 
         // Appel à l'entité pour suppression propre dans la collection
         hike.removeEquipment(item);
+        hike.invalidateOptimizationFingerprint();
 
         hikeRepository.save(hike);
     }
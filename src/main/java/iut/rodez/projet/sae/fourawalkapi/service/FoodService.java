@@ -87,6 +87,7 @@ public class FoodService {
 
         // Délégation à l'entité Hike pour la gestion de la collection
         hike.addFood(fp);
+        hike.invalidateOptimizationFingerprint();
 
         // La sauvegarde cascade la mise à jour de la table de jointure
         hikeRepository.save(hike);
@@ -115,6 +116,7 @@ public class FoodService {
 
         // Suppression via la méthode helper de l'entité
         hike.removeFood(food);
+        hike.invalidateOptimizationFingerprint();
 
         hikeRepository.save(hike);
     }
@@ -0,0 +1,127 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.solver.FoodFingerprint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache des solutions de nourriture partagé entre randonnées.
+ * Les solutions sont indexées par l'empreinte canonique du problème ({@link FoodFingerprint}) :
+ * deux randonnées construites à partir des mêmes aliments et du même objectif réutilisent
+ * la même solution. Seules les solutions d'optimalité prouvée sont stockées.
+ * Le cache est borné (éviction du moins récemment utilisé) et désactivable par configuration.
+ */
+@Service
+public class FoodSolutionCache {
+
+    /* Solution absente : problème sans solution (prouvé) */
+    private static final int[] NO_SOLUTION = new int[0];
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Map<FoodFingerprint, int[]> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Injection de la configuration
+     * @param enabled activation du cache (désactivé pour les mesures de performance)
+     * @param maxEntries nombre maximal de solutions conservées
+     */
+    public FoodSolutionCache(@Value("${app.optimizer.cache.enabled:true}") boolean enabled,
+                             @Value("${app.optimizer.cache.max-entries:1024}") int maxEntries) {
+        this.enabled = enabled && maxEntries > 0;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FoodFingerprint, int[]> eldest) {
+                if (size() > FoodSolutionCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Cache inactif (aucune lecture ni écriture)
+     */
+    public static FoodSolutionCache disabled() {
+        return new FoodSolutionCache(false, 0);
+    }
+
+    /**
+     * Résultat d'une lecture du cache
+     * @param selected sélection reprojetée sur l'instance, null si le problème n'a pas de solution
+     */
+    public record Hit(boolean[] selected) {}
+
+    /**
+     * Recherche la solution d'un problème.
+     * @param fingerprint empreinte du problème
+     * @return la solution connue, ou null si le problème n'a jamais été résolu (ou cache inactif)
+     */
+    public Hit lookup(FoodFingerprint fingerprint) {
+        if (!enabled) return null;
+        int[] positions;
+        synchronized (entries) {
+            positions = entries.get(fingerprint);
+        }
+        if (positions == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return new Hit(positions == NO_SOLUTION ? null : fingerprint.fromCanonical(positions));
+    }
+
+    /**
+     * Enregistre la solution optimale d'un problème.
+     * @param fingerprint empreinte du problème
+     * @param selected sélection optimale, ou null si le problème n'a pas de solution
+     */
+    public void store(FoodFingerprint fingerprint, boolean[] selected) {
+        if (!enabled) return;
+        int[] positions = selected == null ? NO_SOLUTION : fingerprint.toCanonical(selected);
+        synchronized (entries) {
+            entries.put(fingerprint, positions);
+        }
+    }
+
+    /**
+     * Vide le cache (les compteurs sont conservés).
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Statistiques du cache
+     * @param enabled cache actif
+     * @param size nombre de solutions conservées
+     * @param maxEntries capacité
+     * @param hits lectures réussies
+     * @param misses lectures infructueuses
+     * @param evictions solutions évincées
+     */
+    public record Stats(boolean enabled, int size, int maxEntries, long hits, long misses, long evictions) {}
+
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(enabled, size, maxEntries, hits.get(), misses.get(), evictions.get());
+    }
+
+    public boolean isEnabled() { return enabled; }
+}
@@ -0,0 +1,102 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
+import iut.rodez.projet.sae.fourawalkapi.exception.CapacityExceededException;
+import iut.rodez.projet.sae.fourawalkapi.model.Item;
+import iut.rodez.projet.sae.fourawalkapi.solver.LoadBalancer;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
+import iut.rodez.projet.sae.fourawalkapi.solver.PackingInstance;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Moteur de répartition heuristique (Worst-Fit Decreasing), sans retour sur trace.
+ * Chaque objet, du plus lourd au plus léger, va dans le sac de son propriétaire s'il y a la place,
+ * sinon dans le sac le moins rempli. Linéaire et peu chargé en pratique, mais il peut déclarer
+ * impossible une répartition qui existe : c'est surtout un concurrent rapide du portefeuille.
+ * Son échec ne prouvant rien, il ne sert pas d'oracle à la répartition équilibrée : celle-ci est
+ * elle aussi heuristique (LPT et passe d'amélioration).
+ */
+@Service
+public class GreedyDistributorService implements DistributionStrategy {
+
+    @Override
+    public String getName() {
+        return "greedy";
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+
+    @Override
+    public void distributeBatchesToBackpacks(List<Item> itemsToPack, List<Backpack> backpacks, OwnershipIndex ownership,
+                                             SearchBudget budget) {
+        PackingInstance instance = compile(itemsToPack, backpacks, ownership);
+
+        int[] assignment = new int[instance.itemCount()];
+        if (!solve(instance, assignment, budget)) {
+            throw new CapacityExceededException("Répartition impossible : aucun sac ne peut accueillir un objet " +
+                    "(heuristique sans retour sur trace).");
+        }
+        instance.applyTo(assignment);
+    }
+
+    @Override
+    public void distributeBalanced(List<Item> itemsToPack, List<Backpack> backpacks, OwnershipIndex ownership,
+                                   SearchBudget budget) {
+        PackingInstance instance = compile(itemsToPack, backpacks, ownership);
+
+        int[] assignment = LoadBalancer.balanceGreedily(instance);
+        if (assignment == null) {
+            throw new CapacityExceededException("Répartition impossible : aucun sac ne peut accueillir un objet " +
+                    "(heuristique sans retour sur trace).");
+        }
+        instance.applyTo(assignment);
+    }
+
+    /**
+     * Vide les sacs et compile l'instance, objets triés par poids total décroissant (Masse * Quantité)
+     */
+    private static PackingInstance compile(List<Item> itemsToPack, List<Backpack> backpacks, OwnershipIndex ownership) {
+        backpacks.forEach(Backpack::clearContent);
+        itemsToPack.sort(Comparator.comparingDouble((Item item) -> item.getMasseGrammes() * item.getNbItem()).reversed());
+        return PackingInstance.of(itemsToPack, backpacks, ownership);
+    }
+
+    @Override
+    public boolean solve(PackingInstance instance, int[] assignment, SearchBudget budget) {
+        int[] capacities = instance.getCapacities();
+        int[] weights = instance.getWeights();
+        int[] preferredBags = instance.getPreferredBags();
+        int[] loads = new int[capacities.length];
+
+        for (int i = 0; i < weights.length; i++) {
+            int preferred = preferredBags[i];
+            int bag = -1;
+            if (preferred >= 0 && loads[preferred] + weights[i] <= capacities[preferred]) {
+                bag = preferred;
+            } else {
+                // Sac offrant le plus d'espace libre
+                int bestSpace = -1;
+                for (int b = 0; b < capacities.length; b++) {
+                    int space = capacities[b] - loads[b];
+                    if (space >= weights[i] && space > bestSpace) {
+                        bag = b;
+                        bestSpace = space;
+                    }
+                }
+            }
+            if (bag < 0) {
+                return false;
+            }
+            loads[bag] += weights[i];
+            assignment[i] = bag;
+        }
+        return true;
+    }
+}
@@ -1,20 +1,30 @@
 package iut.rodez.projet.sae.fourawalkapi.service;
 
+import iut.rodez.projet.sae.fourawalkapi.dto.HikeResponseDto;
+import iut.rodez.projet.sae.fourawalkapi.dto.OptimizationPreviewRequestDto;
+import iut.rodez.projet.sae.fourawalkapi.dto.OptimizationReportDto;
 import iut.rodez.projet.sae.fourawalkapi.entity.*;
 import iut.rodez.projet.sae.fourawalkapi.exception.BusinessValidationException;
 import iut.rodez.projet.sae.fourawalkapi.exception.IllegalBusinessActionException;
+import iut.rodez.projet.sae.fourawalkapi.exception.OptimizationCancelledException;
 import iut.rodez.projet.sae.fourawalkapi.exception.ResourceNotFoundException;
 import iut.rodez.projet.sae.fourawalkapi.exception.UnauthorizedAccessException;
 import iut.rodez.projet.sae.fourawalkapi.model.Item;
 import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
 import iut.rodez.projet.sae.fourawalkapi.repository.mongo.CourseRepository;
 import iut.rodez.projet.sae.fourawalkapi.repository.mysql.*;
+import iut.rodez.projet.sae.fourawalkapi.solver.DistributionObjective;
+import iut.rodez.projet.sae.fourawalkapi.solver.EngineChoice;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationReport;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Service de gestion des randonnées assurant les opérations de persistance,
@@ -23,12 +33,28 @@ import java.util.*;
 @Service
 public class HikeService {
 
+    /* Nom enregistré dans le bilan quand la répartition persistée a été réparée sans recherche complète */
+    public static final String REPAIR_ENGINE = "repair";
+
+    /* Nom enregistré dans le bilan quand les données n'ont pas changé depuis la dernière optimisation */
+    public static final String UNCHANGED_ENGINE = "unchanged";
+
+    /* Étapes chronométrées du pipeline d'optimisation (bilan, en-tête Server-Timing et métriques) */
+    public static final String STAGE_LOAD = "load";
+    public static final String STAGE_VALIDATE = "validate";
+    public static final String STAGE_SELECT = "select";
+    public static final String STAGE_PREPARE = "prepare";
+    public static final String STAGE_FLUSH = "flush";
+    public static final String STAGE_OWNERSHIP = "ownership";
+    public static final String STAGE_DISTRIBUTE = "distribute";
+    public static final String STAGE_SAVE = "save";
+
     @PersistenceContext
     private EntityManager entityManager;
 
     private final HikeRepository hikeRepository;
-    private final BackpackDistributorServiceV2 backpackDistributorV2;
-    //private final BackpackDistributorServiceV3 backpackDistributorV3;
+    private final DistributionSelector distributionSelector;
+    private final BackpackService backpackService;
     private final HikeValidationOrchestrator hikeValidatorService;
     private final OptimizerService optimizerService;
     private final UserRepository userRepository;
@@ -37,12 +63,15 @@ public class HikeService {
     private final CourseRepository courseRepository;
     private final GroupEquipmentRepository groupEquipmentRepository;
     private final BelongEquipmentRepository belongEquipmentRepository;
+    private final FoodProductRepository foodProductRepository;
+    private final EquipmentItemRepository equipmentItemRepository;
+    private final OptimizationMetrics optimizationMetrics;
 
     /**
      * Initialise le service avec les dépendances nécessaires à la gestion des randonnées.
      * @param hr Repository pour l'accès aux données des randonnées.
-     * @param bds2 Service de distribution des items dans les sacs à dos (algorithme v2).
-     //* @param bds3 Service de distribution des items dans les sacs à dos (algorithme v3).
+     * @param ds Sélecteur du moteur de distribution des items dans les sacs à dos.
+     * @param bs Service des sacs à dos (index des propriétaires d'équipement).
      * @param hvo Service d'outils de validation métier.
      * @param os Service de sélection optimisée du matériel et de la nourriture.
      * @param ur Repository pour l'accès aux données utilisateurs.
@@ -50,20 +79,27 @@ public class HikeService {
      * @param pr Repository pour la gestion des participants.
      * @param cr Repository pour la gestion des parcours
      * @param ger Repository pour la gestion des groupes d'équipements
+     * @param be Repository pour la gestion des propriétaires d'équipements
+     * @param fpr Repository des nourritures (ajouts d'une optimisation à blanc)
+     * @param eir Repository des équipements (ajouts d'une optimisation à blanc)
+     * @param om Métriques des étapes de l'optimisation
      */
     public HikeService(HikeRepository hr,
-                       BackpackDistributorServiceV2 bds2,
-                       //BackpackDistributorServiceV3 bds3,
+                       DistributionSelector ds,
+                       BackpackService bs,
                        HikeValidationOrchestrator hvo,
                        OptimizerService os, UserRepository ur,
                        PointOfInterestRepository poiRepo,
                        ParticipantRepository pr,
                        CourseRepository cr,
                        GroupEquipmentRepository ger,
-                       BelongEquipmentRepository be) {
+                       BelongEquipmentRepository be,
+                       FoodProductRepository fpr,
+                       EquipmentItemRepository eir,
+                       OptimizationMetrics om) {
         this.hikeRepository = hr;
-        this.backpackDistributorV2 = bds2;
-        //this.backpackDistributorV3 = bds3;
+        this.distributionSelector = ds;
+        this.backpackService = bs;
         this.hikeValidatorService = hvo;
         this.optimizerService = os;
         this.userRepository = ur;
@@ -72,6 +108,9 @@ public class HikeService {
         this.courseRepository = cr;
         this.groupEquipmentRepository = ger;
         this.belongEquipmentRepository = be;
+        this.foodProductRepository = fpr;
+        this.equipmentItemRepository = eir;
+        this.optimizationMetrics = om;
     }
 
     /**
@@ -94,7 +133,47 @@ public class HikeService {
     public Hike getHikeById(Long hikeId, Long userId) {
         Hike hike = hikeRepository.findById(hikeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Randonnée introuvable"));
+        return checkOwner(hike, userId);
+    }
+
+    /**
+     * Récupère une randonnée avec tout ce que lit l'optimisation (groupes d'équipements, catalogue,
+     * points, sacs et leur contenu) en un nombre fixe de requêtes.
+     * @throws ResourceNotFoundException Si la randonnée est introuvable
+     * @throws UnauthorizedAccessException Si l'accès à la ressource est refusée
+     */
+    private Hike getHikeForOptimization(Long hikeId, Long userId) {
+        Hike hike = hikeRepository.findForOptimization(hikeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Randonnée introuvable"));
+        return checkOwner(hike, userId);
+    }
 
+    /**
+     * Réponse d'une randonnée après son optimisation, avec le bilan de la recherche.
+     * Construite dans une transaction en lecture : les associations paresseuses (créateur, points, catalogue,
+     * groupes d'équipements, contenu des sacs) sont lues avant la fermeture de la session, y compris
+     * hors d'un thread de requête (optimisations asynchrones).
+     * @param hikeId Identifiant de la randonnée.
+     * @param userId Identifiant de l'utilisateur demandeur.
+     * @param budget Budget de l'optimisation, porteur de son bilan.
+     * @param report Compte rendu de l'optimisation (moteurs, étapes).
+     * @return la randonnée, ses propriétaires d'équipements et le bilan
+     * @throws ResourceNotFoundException Si la randonnée est introuvable
+     * @throws UnauthorizedAccessException Si l'accès à la ressource est refusée
+     */
+    @Transactional(readOnly = true)
+    public HikeResponseDto getOptimizedHikeResponse(Long hikeId, Long userId, SearchBudget budget,
+                                                    OptimizationReport report) {
+        Hike hike = getHikeForOptimization(hikeId, userId);
+        Map<Long, List<Participant>> owners = belongEquipmentRepository.findByHikeId(hikeId).stream()
+                .collect(Collectors.groupingBy(
+                        belong -> belong.getEquipment().getId(),
+                        Collectors.mapping(BelongEquipment::getParticipant, Collectors.toList())
+                ));
+        return new HikeResponseDto(hike, owners, new OptimizationReportDto(budget, report));
+    }
+
+    private static Hike checkOwner(Hike hike, Long userId) {
         if (!hike.getCreator().getId().equals(userId)) {
             throw new UnauthorizedAccessException("Accès refusé : Vous n'êtes pas le propriétaire de cette randonnée");
         }
@@ -178,6 +257,7 @@ public class HikeService {
         resolvePois(hike);
 
         hike.setOptimize(false);
+        hike.invalidateOptimizationFingerprint();
 
         return hikeRepository.save(hike);
     }
@@ -260,44 +340,336 @@ public class HikeService {
      */
     @Transactional
     public void optimizeBackpack(Long hikeId, Long userId) {
-        Hike hike = getHikeById(hikeId, userId);
+        optimizeBackpack(hikeId, userId, SearchBudget.unlimited());
+    }
 
-        hike.setOptimize(false);
+    /**
+     * Variante bornée de l'optimisation : la recherche de nourriture s'arrête à l'épuisement du budget
+     * et conserve la meilleure solution connue. Le bilan de la recherche est enregistré dans le budget.
+     * @param hikeId Identifiant de la randonnée à optimiser.
+     * @param userId Identifiant de l'utilisateur demandeur.
+     * @param budget Budget de temps / de nœuds de la recherche.
+     * @throws OptimizationCancelledException si la requête a été abandonnée pendant la recherche
+     */
+    @Transactional
+    public void optimizeBackpack(Long hikeId, Long userId, SearchBudget budget) {
+        optimizeBackpack(hikeId, userId, budget, EngineChoice.AUTOMATIC, new OptimizationReport(budget));
+    }
+
+    /**
+     * Variante de l'optimisation imposant les moteurs de nourriture et/ou de répartition, et l'objectif de répartition
+     * (premier rangement valide ou sacs équilibrés). Les moteurs exécutés et l'équilibre obtenu sont enregistrés
+     * dans le compte rendu, ainsi que la durée, le nombre d'éléments, les nœuds explorés et les branches coupées
+     * de chaque étape : chargement, validation, sélection, préparation des sacs, écriture, propriétaires,
+     * répartition, sauvegarde.
+     * @param hikeId Identifiant de la randonnée à optimiser.
+     * @param userId Identifiant de l'utilisateur demandeur.
+     * @param budget Budget de temps / de nœuds de la recherche.
+     * @param engines Moteurs et objectif demandés (null : choix automatique).
+     * @param report Compte rendu de l'optimisation.
+     * @throws OptimizationCancelledException si la requête a été abandonnée pendant la recherche
+     * @throws IllegalArgumentException si un moteur demandé n'existe pas
+     */
+    @Transactional
+    public void optimizeBackpack(Long hikeId, Long userId, SearchBudget budget, EngineChoice engines,
+                                 OptimizationReport report) {
+        report.beginStages();
+        try {
+            runOptimization(hikeId, userId, budget, engines, report);
+        } finally {
+            optimizationMetrics.record(OptimizationMetrics.OPTIMIZE, report);
+        }
+    }
+
+    private void runOptimization(Long hikeId, Long userId, SearchBudget budget, EngineChoice engines,
+                                 OptimizationReport report) {
+        // Chargement de l'agrégat et des propriétaires d'équipements
+        distributionSelector.checkEngine(engines.distribution());
+        Hike hike = getHikeForOptimization(hikeId, userId);
+        List<BelongEquipment> owners = belongEquipmentRepository.findByHikeId(hikeId);
+        report.endStage(STAGE_LOAD, loadedEntities(hike) + owners.size());
 
         // Validation des informations de la randonnée et des participants
         hikeValidatorService.validateHikeForOptimize(hike);
 
+        // Données inchangées depuis la dernière optimisation : la répartition en place est conservée
+        long fingerprint = OptimizationFingerprint.of(hike, owners, engines);
+        boolean unchanged = hike.getOptimize() && Objects.equals(hike.getOptimizationFingerprint(), fingerprint);
+        report.endStage(STAGE_VALIDATE, hike.getParticipants().size());
+        if (unchanged) {
+            report.recordFoodEngine(UNCHANGED_ENGINE);
+            report.recordDistributionEngine(UNCHANGED_ENGINE);
+            report.recordDistributionObjective(engines.objective().getName(), maxLoadRatio(hike.getBackpacks()));
+            return;
+        }
+
+        hike.setOptimize(false);
+
         // Sauvegarder des groupes d'équipement en base
         groupEquipmentRepository.saveAll(hike.getEquipmentGroups().values());
 
-        // Récupération des listes d'équipements et nourritures esscentiels
-        List<EquipmentItem> optimizedEquipment = optimizerService.getOptimizeAllEquipment(hike);
-        List<FoodProduct> optimizedFood = optimizerService.getOptimizeAllFood(hike);
-
-        List<Item> itemsToPack = new ArrayList<>();
-        itemsToPack.addAll(optimizedEquipment);
-        itemsToPack.addAll(optimizedFood);
+        List<Item> itemsToPack = selectItemsToPack(hike, budget, engines, report);
+        report.endStage(STAGE_SELECT, itemsToPack.size());
 
         // Initialisation des sacs
+        int created = 0;
         for (Participant p : hike.getParticipants()) {
             if (p.getBackpack() == null) {
                 Backpack newBackpack = new Backpack();
                 newBackpack.setOwner(p);
                 p.setBackpack(newBackpack);
+                created++;
             }
         }
+        report.endStage(STAGE_PREPARE, created);
 
         hikeRepository.saveAndFlush(hike);
+        report.endStage(STAGE_FLUSH, hike.getParticipants().size());
 
         List<Backpack> backpacks = hike.getBackpacks();
 
-        // Répartitions des vivres
-        backpackDistributorV2.distributeBatchesToBackpacks(itemsToPack, backpacks, hikeId);
-        //backpackDistributorV3.distributeBatchesToBackpacks(itemsToPack, backpacks, hikeId);
+        OwnershipIndex ownership = backpackService.loadOwnershipIndex(backpacks, hikeId);
+        report.endStage(STAGE_OWNERSHIP, backpacks.size());
+
+        distribute(itemsToPack, backpacks, ownership, budget, engines, report);
+        report.endStage(STAGE_DISTRIBUTE, itemsToPack.size());
+
+        // Annulation (tâche ou lot interrompu) avant l'écriture : rien n'est enregistré
+        if (budget.isCancelled()) {
+            throw new OptimizationCancelledException("Optimisation abandonnée par le client");
+        }
 
         hike.setOptimize(true);
+        // Recherche interrompue par le budget : un nouvel appel pourra l'améliorer
+        hike.setOptimizationFingerprint(budget.isExhausted() ? null : fingerprint);
 
+        // Écriture immédiate : le coût des mises à jour du contenu des sacs est compté dans l'étape
         hikeRepository.save(hike);
+        entityManager.flush();
+
+        // Annulation pendant l'écriture : l'exception annule la transaction, seule la validation reste à faire
+        if (budget.isCancelled()) {
+            throw new OptimizationCancelledException("Optimisation abandonnée par le client");
+        }
+        report.endStage(STAGE_SAVE, backpacks.size());
+    }
+
+    /**
+     * Optimisation « à blanc » : applique une modification hypothétique (nourritures et équipements ajoutés ou
+     * retirés, capacités d'emport modifiées) à une copie détachée de la randonnée, puis exécute la validation,
+     * la sélection et la répartition sur cette copie. Rien n'est écrit en base : la randonnée renvoyée
+     * n'est pas gérée par le contexte de persistance. Les étapes sont chronométrées comme pour l'optimisation.
+     * @param hikeId Identifiant de la randonnée.
+     * @param userId Identifiant de l'utilisateur demandeur.
+     * @param delta Modification à simuler (null : randonnée telle quelle).
+     * @param budget Budget de temps / de nœuds de la recherche.
+     * @param engines Moteurs et objectif demandés.
+     * @param report Compte rendu de l'optimisation.
+     * @return la copie de la randonnée, avec les sacs qu'elle aurait après optimisation
+     * @throws ResourceNotFoundException si une nourriture ou un équipement ajouté est introuvable
+     * @throws IllegalArgumentException si une capacité vise un participant inconnu ou est invalide
+     */
+    @Transactional(readOnly = true)
+    public Hike previewOptimization(Long hikeId, Long userId, OptimizationPreviewRequestDto delta,
+                                    SearchBudget budget, EngineChoice engines, OptimizationReport report) {
+        report.beginStages();
+        try {
+            distributionSelector.checkEngine(engines.distribution());
+            Hike snapshot = snapshotOf(getHikeForOptimization(hikeId, userId),
+                    delta == null ? new OptimizationPreviewRequestDto() : delta);
+            report.endStage(STAGE_LOAD, loadedEntities(snapshot));
+
+            hikeValidatorService.validateHikeForOptimize(snapshot);
+            report.endStage(STAGE_VALIDATE, snapshot.getParticipants().size());
+
+            List<Item> itemsToPack = selectItemsToPack(snapshot, budget, engines, report);
+            report.endStage(STAGE_SELECT, itemsToPack.size());
+
+            List<Backpack> backpacks = snapshot.getBackpacks();
+            OwnershipIndex ownership = backpackService.loadOwnershipIndex(backpacks, hikeId);
+            report.endStage(STAGE_OWNERSHIP, backpacks.size());
+
+            distribute(itemsToPack, backpacks, ownership, budget, engines, report);
+            report.endStage(STAGE_DISTRIBUTE, itemsToPack.size());
+
+            snapshot.setOptimize(true);
+            return snapshot;
+        } finally {
+            optimizationMetrics.record(OptimizationMetrics.PREVIEW, report);
+        }
+    }
+
+    /**
+     * Nombre d'entités lues par l'optimisation : participants, catalogue de nourriture et équipements des groupes.
+     * Le parcours initialise les collections paresseuses : leur chargement est compté dans l'étape de chargement.
+     */
+    private static int loadedEntities(Hike hike) {
+        int count = hike.getParticipants().size() + hike.getFoodCatalogue().size();
+        for (GroupEquipment group : hike.getEquipmentGroups().values()) {
+            count += group.getItems().size();
+        }
+        return count;
+    }
+
+    /**
+     * Sélection du matériel et de la nourriture à emporter.
+     * @throws OptimizationCancelledException si la requête a été abandonnée pendant la recherche
+     */
+    private List<Item> selectItemsToPack(Hike hike, SearchBudget budget, EngineChoice engines,
+                                         OptimizationReport report) {
+        // Récupération des listes d'équipements et nourritures esscentiels (résolues en parallèle)
+        OptimizerService.Selection selection = optimizerService.optimizeAll(hike, budget, engines.food(), report);
+        List<EquipmentItem> optimizedEquipment = selection.equipment();
+        List<FoodProduct> optimizedFood = selection.food();
+
+        // Requête abandonnée : inutile de persister un résultat que personne n'attend
+        if (budget.isCancelled()) {
+            throw new OptimizationCancelledException("Optimisation abandonnée par le client");
+        }
+
+        List<Item> itemsToPack = new ArrayList<>();
+        itemsToPack.addAll(optimizedEquipment);
+        itemsToPack.addAll(optimizedFood);
+        return itemsToPack;
+    }
+
+    /**
+     * Répartition des items dans les sacs, par réparation de la répartition existante si possible,
+     * sinon par le moteur adapté à l'instance. Les moteurs et l'équilibre obtenu sont enregistrés dans le compte rendu.
+     * @throws OptimizationCancelledException si l'optimisation a été annulée pendant la répartition
+     */
+    private void distribute(List<Item> itemsToPack, List<Backpack> backpacks, OwnershipIndex ownership,
+                            SearchBudget budget, EngineChoice engines, OptimizationReport report) {
+        // Les moteurs vident puis remplissent des copies de travail : seules les différences
+        // sont ensuite reportées sur les sacs persistés
+        List<Backpack> working = backpacks.stream().map(Backpack::workingCopy).toList();
+
+        // Petite modification d'une randonnée déjà optimisée : réparation de la répartition persistée
+        boolean repairable = engines.objective() == DistributionObjective.FIRST_FIT
+                && EngineChoice.isAuto(engines.distribution());
+        if (repairable && backpackService.repairDistribution(itemsToPack, working, ownership)) {
+            report.recordDistributionEngine(REPAIR_ENGINE);
+        } else {
+            // Répartitions des vivres par le moteur adapté à l'instance
+            DistributionStrategy distributor = distributionSelector.select(
+                    DistributionSelector.features(itemsToPack, working.size(), ownership), engines.distribution());
+            report.recordDistributionEngine(distributor.getName());
+            if (engines.objective() == DistributionObjective.BALANCED) {
+                // Recherche d'équilibre bornée par le budget : épuisé, la meilleure répartition connue est retenue
+                distributor.distributeBalanced(itemsToPack, working, ownership, budget);
+            } else {
+                // Une répartition valide est due : seule l'annulation interrompt la recherche
+                distributor.distributeBatchesToBackpacks(itemsToPack, working, ownership, budget.withoutLimits());
+            }
+        }
+
+        // Annulation pendant la répartition : la répartition interrompue n'est pas reportée sur les sacs
+        if (budget.isCancelled()) {
+            throw new OptimizationCancelledException("Optimisation abandonnée par le client");
+        }
+
+        for (int i = 0; i < backpacks.size(); i++) {
+            backpacks.get(i).syncContent(working.get(i));
+        }
+        report.recordDistributionObjective(engines.objective().getName(), maxLoadRatio(backpacks));
+    }
+
+    /**
+     * Copie détachée d'une randonnée, modifiée par le delta. Les participants, leurs sacs (avec leur contenu,
+     * pour permettre la réparation) et les groupes d'équipements sont copiés ; les nourritures, équipements
+     * et points d'intérêt sont partagés, en lecture seule.
+     * @param hike randonnée persistée
+     * @param delta modification à appliquer à la copie
+     * @return la copie modifiée
+     */
+    private Hike snapshotOf(Hike hike, OptimizationPreviewRequestDto delta) {
+        Hike snapshot = new Hike(hike.getLibelle(), hike.getDepart(), hike.getArrivee(),
+                hike.getDureeJours(), hike.getCreator(), false);
+        snapshot.setId(hike.getId());
+        snapshot.setOptionalPoints(new ArrayList<>(hike.getOptionalPoints()));
+
+        Map<Long, Double> capacities = new HashMap<>(delta.getParticipantCapacitiesKg());
+        for (Participant participant : hike.getParticipants()) {
+            Participant copy = copyOf(participant);
+            Double capacity = capacities.remove(participant.getId());
+            if (capacity != null) {
+                if (capacity <= 0) {
+                    throw new IllegalArgumentException("Capacité d'emport invalide pour le participant " + participant.getId());
+                }
+                copy.setCapaciteEmportMaxKg(capacity);
+            }
+            snapshot.getParticipants().add(copy);
+        }
+        if (!capacities.isEmpty()) {
+            throw new IllegalArgumentException("Participant(s) inconnu(s) dans la randonnée : " + capacities.keySet());
+        }
+
+        for (FoodProduct food : hike.getFoodCatalogue()) {
+            if (!delta.getRemovedFoodIds().contains(food.getId())) {
+                snapshot.getFoodCatalogue().add(food);
+            }
+        }
+        for (Long foodId : delta.getAddedFoodIds()) {
+            boolean present = snapshot.getFoodCatalogue().stream().anyMatch(f -> foodId.equals(f.getId()));
+            if (!present) {
+                snapshot.addFood(foodProductRepository.findById(foodId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Nourriture introuvable : " + foodId)));
+            }
+        }
+
+        for (GroupEquipment group : hike.getEquipmentGroups().values()) {
+            GroupEquipment copy = new GroupEquipment(group.getType());
+            copy.setId(group.getId());
+            copy.setHike(snapshot);
+            for (EquipmentItem item : group.getItems()) {
+                if (!delta.getRemovedEquipmentIds().contains(item.getId())) {
+                    copy.getItems().add(item);
+                }
+            }
+            snapshot.getEquipmentGroups().put(group.getType(), copy);
+        }
+        for (Long equipmentId : delta.getAddedEquipmentIds()) {
+            boolean present = snapshot.getEquipmentGroups().values().stream()
+                    .flatMap(group -> group.getItems().stream())
+                    .anyMatch(item -> equipmentId.equals(item.getId()));
+            if (!present) {
+                snapshot.addEquipment(equipmentItemRepository.findById(equipmentId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Équipement introuvable : " + equipmentId)));
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Copie détachée d'un participant et de son sac (contenu compris).
+     */
+    private static Participant copyOf(Participant participant) {
+        Participant copy = new Participant(participant.getPrenom(), participant.getNom(), participant.getAge(),
+                participant.getNiveau(), participant.getMorphologie(), participant.getCreator(),
+                participant.getCreatorId(), participant.getBesoinKcal(), participant.getBesoinEauLitre(),
+                participant.getCapaciteEmportMaxKg());
+        copy.setId(participant.getId());
+
+        Backpack original = participant.getBackpack();
+        copy.setBackpack(original != null ? original.copyFor(copy) : new Backpack(copy));
+        return copy;
+    }
+
+    /**
+     * Plus grand rapport charge / capacité parmi les sacs (les sacs sans capacité sont ignorés).
+     * @param backpacks sacs remplis
+     * @return le taux du sac le plus chargé, null si aucun sac n'a de capacité
+     */
+    static Double maxLoadRatio(List<Backpack> backpacks) {
+        Double max = null;
+        for (Backpack backpack : backpacks) {
+            double capacity = backpack.getCapacityMaxKg() * 1000.0;
+            if (capacity > 0) {
+                double ratio = backpack.getLoadGrammes() / capacity;
+                max = max == null ? ratio : Math.max(max, ratio);
+            }
+        }
+        return max;
     }
 
     /**
@@ -0,0 +1,125 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.*;
+import iut.rodez.projet.sae.fourawalkapi.solver.EngineChoice;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Empreinte 64 bits des données d'entrée d'une optimisation : durée et parcours, participants (besoins et
+ * capacités), catalogue de nourriture, groupes d'équipements, propriétaires d'équipements et moteurs demandés.
+ * Chaque collection est parcourue dans un ordre canonique (identifiants, séquence des points) :
+ * l'empreinte ne dépend pas de l'ordre de chargement des entités.
+ */
+final class OptimizationFingerprint {
+
+    private long hash = 0xcbf29ce484222325L;
+
+    private OptimizationFingerprint() {}
+
+    /**
+     * Calcule l'empreinte d'une randonnée.
+     * @param hike randonnée à optimiser
+     * @param owners propriétaires des équipements de la randonnée
+     * @param engines moteurs et objectif demandés
+     * @return l'empreinte
+     */
+    static long of(Hike hike, List<BelongEquipment> owners, EngineChoice engines) {
+        OptimizationFingerprint f = new OptimizationFingerprint();
+        f.mix(hike.getDureeJours());
+        f.mix(engineName(engines.food()));
+        f.mix(engineName(engines.distribution()));
+        f.mix(engines.objective().getName());
+
+        f.mix(hike.getDepart());
+        f.mix(hike.getArrivee());
+        List<PointOfInterest> points = hike.getOptionalPoints() == null ? List.of() : hike.getOptionalPoints();
+        f.mix(points.size());
+        points.stream()
+                .sorted(Comparator.comparingInt(PointOfInterest::getSequence))
+                .forEach(f::mix);
+
+        f.mix(hike.getParticipants().size());
+        hike.getParticipants().stream()
+                .sorted(Comparator.comparing(Participant::getId, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .forEach(p -> {
+                    f.mix(p.getId());
+                    f.mix(p.getAge());
+                    f.mix(p.getNiveau() == null ? null : p.getNiveau().name());
+                    f.mix(p.getMorphologie() == null ? null : p.getMorphologie().name());
+                    f.mix(p.getBesoinKcal());
+                    f.mix(p.getBesoinEauLitre());
+                    f.mix(p.getCapaciteEmportMaxKg());
+                });
+
+        f.mix(hike.getFoodCatalogue().size());
+        hike.getFoodCatalogue().stream()
+                .sorted(Comparator.comparing(FoodProduct::getId, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .forEach(food -> {
+                    f.mix(food.getId());
+                    f.mix(food.getMasseGrammes());
+                    f.mix(food.getApportNutritionnelKcal());
+                    f.mix(food.getNbItem());
+                    f.mix(food.isDivisible() ? 1 : 0);
+                    f.mix(food.getAppellationCourante());
+                });
+
+        List<EquipmentItem> equipment = hike.getEquipmentGroups().values().stream()
+                .flatMap(group -> group.getItems().stream())
+                .sorted(Comparator.comparing(EquipmentItem::getId, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+        f.mix(equipment.size());
+        for (EquipmentItem item : equipment) {
+            f.mix(item.getId());
+            f.mix(item.getType() == null ? null : item.getType().name());
+            f.mix(item.getMasseGrammes());
+            f.mix(item.getMasseAVide());
+            f.mix(item.getNbItem());
+        }
+
+        f.mix(owners.size());
+        owners.stream()
+                .map(belong -> new long[] {belong.getEquipment().getId(), belong.getParticipant().getId()})
+                .sorted(Comparator.<long[]>comparingLong(pair -> pair[0]).thenComparingLong(pair -> pair[1]))
+                .forEach(pair -> {
+                    f.mix(pair[0]);
+                    f.mix(pair[1]);
+                });
+        return f.hash;
+    }
+
+    /* Nom normalisé d'un moteur : null, vide et "auto" désignent le même choix */
+    private static String engineName(String engine) {
+        return EngineChoice.isAuto(engine) ? EngineChoice.AUTO : engine.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void mix(PointOfInterest point) {
+        if (point == null) {
+            mix(0L);
+            return;
+        }
+        // Les points modifiés sont recréés (nouvel identifiant) : l'identifiant et la séquence suffisent
+        mix(point.getId());
+        mix(point.getSequence());
+    }
+
+    private void mix(String value) {
+        mix(value == null ? 0L : value.hashCode());
+    }
+
+    private void mix(Double value) {
+        mix(value == null ? 0L : Double.doubleToLongBits(value));
+    }
+
+    private void mix(Long value) {
+        mix(value == null ? 0L : value.longValue());
+    }
+
+    private void mix(long value) {
+        hash ^= value;
+        hash *= 0x100000001b3L;
+        hash ^= hash >>> 29;
+    }
+}
@@ -0,0 +1,136 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.dto.HikeResponseDto;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Optimisation asynchrone d'une randonnée : état, résultat ou erreur, et abonnés à sa fin.
+ * Les transitions sont synchronisées : une tâche se termine une seule fois
+ * (réussie, en échec ou annulée) et chaque abonné est prévenu une seule fois.
+ */
+public class OptimizationJob {
+
+    /**
+     * Cycle de vie d'une tâche
+     */
+    public enum Status {
+        PENDING, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isTerminal() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id;
+    private final Long hikeId;
+    private final Long userId;
+    private final SearchBudget budget;
+    private final Instant submittedAt = Instant.now();
+
+    private volatile Status status = Status.PENDING;
+    private volatile boolean cancelRequested;
+    private volatile Instant finishedAt;
+    private volatile HikeResponseDto result;
+    private volatile Integer errorStatus;
+    private volatile String errorMessage;
+
+    private Future<?> future;
+    private final List<Consumer<OptimizationJob>> listeners = new CopyOnWriteArrayList<>();
+
+    public OptimizationJob(String id, Long hikeId, Long userId, SearchBudget budget) {
+        this.id = id;
+        this.hikeId = hikeId;
+        this.userId = userId;
+        this.budget = budget;
+    }
+
+    /**
+     * Passe la tâche en cours d'exécution
+     * @return false si elle a été annulée pendant son attente en file
+     */
+    synchronized boolean start() {
+        if (status != Status.PENDING || cancelRequested) return false;
+        status = Status.RUNNING;
+        return true;
+    }
+
+    void succeed(HikeResponseDto result) {
+        this.result = result;
+        finish(Status.SUCCEEDED);
+    }
+
+    void fail(int errorStatus, String errorMessage) {
+        this.errorStatus = errorStatus;
+        this.errorMessage = errorMessage;
+        finish(Status.FAILED);
+    }
+
+    void cancelled(String message) {
+        this.errorMessage = message;
+        finish(Status.CANCELLED);
+    }
+
+    /**
+     * Demande l'annulation : une tâche en file est marquée annulée (l'appelant la retire de la file),
+     * une tâche en cours est interrompue et arrête sa recherche ou sa répartition au prochain contrôle
+     * du budget (un résultat déjà en cours d'enregistrement est conservé).
+     */
+    void cancel() {
+        synchronized (this) {
+            if (status.isTerminal()) return;
+            cancelRequested = true;
+            budget.cancel();
+            if (future != null) {
+                // Le budget annulé arrête les recherches ; l'interruption débloque aussi les attentes (portefeuille)
+                future.cancel(status == Status.RUNNING);
+            }
+            if (status == Status.RUNNING) return;
+        }
+        cancelled("Optimisation annulée avant son démarrage");
+    }
+
+    synchronized void attach(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Abonne un observateur à la fin de la tâche (appelé immédiatement si elle est déjà terminée)
+     * @param listener observateur, appelé une seule fois
+     */
+    void onFinish(Consumer<OptimizationJob> listener) {
+        synchronized (this) {
+            if (!status.isTerminal()) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        listener.accept(this);
+    }
+
+    private void finish(Status terminal) {
+        synchronized (this) {
+            if (status.isTerminal()) return;
+            finishedAt = Instant.now();
+            status = terminal;
+        }
+        listeners.forEach(listener -> listener.accept(this));
+        listeners.clear();
+    }
+
+    public String getId() { return id; }
+    public Long getHikeId() { return hikeId; }
+    public Long getUserId() { return userId; }
+    public Status getStatus() { return status; }
+    public boolean isCancelRequested() { return cancelRequested; }
+    public Instant getSubmittedAt() { return submittedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public HikeResponseDto getResult() { return result; }
+    public Integer getErrorStatus() { return errorStatus; }
+    public String getErrorMessage() { return errorMessage; }
+}
@@ -0,0 +1,193 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.dto.OptimizationJobDto;
+import iut.rodez.projet.sae.fourawalkapi.exception.*;
+import iut.rodez.projet.sae.fourawalkapi.solver.EngineChoice;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationReport;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Optimisations asynchrones : la requête HTTP met la randonnée en file sur un exécuteur borné et rend
+ * immédiatement un identifiant de tâche. Le client suit la tâche par interrogation ou par un flux
+ * d'événements serveur (SSE), et peut l'annuler. Les tâches terminées sont conservées en mémoire
+ * pendant une durée limitée.
+ */
+@Service
+public class OptimizationJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimizationJobService.class);
+
+    /* Noms des événements envoyés aux abonnés */
+    static final String STATUS_EVENT = "status";
+    static final String COMPLETION_EVENT = "completion";
+
+    /* Message rendu pour une erreur interne (le détail est journalisé) */
+    static final String INTERNAL_ERROR_MESSAGE = "Une erreur interne est survenue. Merci de contacter l'équipe de développeur.";
+
+    private final HikeService hikeService;
+    private final ExecutorService jobExecutor;
+    private final Duration retention;
+    private final long sseTimeoutMs;
+
+    private final Map<String, OptimizationJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Injection de dépendance
+     * @param hikeService service des randonnées
+     * @param jobExecutor exécuteur borné des optimisations asynchrones
+     * @param retentionMs durée de conservation d'une tâche terminée
+     * @param sseTimeoutMs durée maximale d'un abonnement aux événements d'une tâche
+     */
+    public OptimizationJobService(HikeService hikeService,
+                                  @Qualifier("optimizationJobExecutor") ExecutorService jobExecutor,
+                                  @Value("${app.optimizer.jobs.retention-ms:600000}") long retentionMs,
+                                  @Value("${app.optimizer.jobs.sse-timeout-ms:300000}") long sseTimeoutMs) {
+        this.hikeService = hikeService;
+        this.jobExecutor = jobExecutor;
+        this.retention = Duration.ofMillis(retentionMs);
+        this.sseTimeoutMs = sseTimeoutMs;
+    }
+
+    /**
+     * Met en file l'optimisation d'une randonnée. L'accès à la randonnée est vérifié avant la mise en file ;
+     * le chronomètre du budget tourne dès la soumission (attente en file comprise).
+     * @param hikeId identifiant de la randonnée
+     * @param userId identifiant de l'utilisateur demandeur
+     * @param budget budget de la recherche
+     * @param engines moteurs et objectif demandés
+     * @return la tâche créée
+     * @throws OptimizationQueueFullException si la file des optimisations est pleine
+     */
+    public OptimizationJob submit(Long hikeId, Long userId, SearchBudget budget, EngineChoice engines) {
+        hikeService.getHikeById(hikeId, userId);
+        evictExpired();
+
+        OptimizationJob job = new OptimizationJob(UUID.randomUUID().toString(), hikeId, userId, budget);
+        jobs.put(job.getId(), job);
+        try {
+            job.attach(jobExecutor.submit(() -> run(job, budget, engines)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new OptimizationQueueFullException("Trop d'optimisations en attente, réessayez plus tard");
+        }
+        return job;
+    }
+
+    /**
+     * Récupère une tâche de l'utilisateur
+     * @throws ResourceNotFoundException si la tâche n'existe pas (ou plus), ou n'appartient pas à cette randonnée et à cet utilisateur
+     */
+    public OptimizationJob getJob(String jobId, Long hikeId, Long userId) {
+        OptimizationJob job = jobs.get(jobId);
+        if (job == null || !job.getHikeId().equals(hikeId) || !job.getUserId().equals(userId)) {
+            throw new ResourceNotFoundException("Tâche d'optimisation introuvable : " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * Annule une tâche (sans effet si elle est déjà terminée). Une tâche en attente libère aussitôt
+     * sa place dans la file bornée.
+     * @return la tâche, avec son état après la demande d'annulation
+     */
+    public OptimizationJob cancel(String jobId, Long hikeId, Long userId) {
+        OptimizationJob job = getJob(jobId, hikeId, userId);
+        job.cancel();
+        if (jobExecutor instanceof ThreadPoolExecutor pool) {
+            pool.purge();
+        }
+        return job;
+    }
+
+    /**
+     * Abonne le client aux événements d'une tâche : son état courant ("status"), puis sa fin ("completion"),
+     * après laquelle le flux est fermé.
+     * @return le flux d'événements
+     */
+    public SseEmitter subscribe(String jobId, Long hikeId, Long userId) {
+        OptimizationJob job = getJob(jobId, hikeId, userId);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        send(emitter, STATUS_EVENT, job);
+        job.onFinish(finished -> {
+            send(emitter, COMPLETION_EVENT, finished);
+            emitter.complete();
+        });
+        return emitter;
+    }
+
+    private void run(OptimizationJob job, SearchBudget budget, EngineChoice engines) {
+        if (!job.start()) return;
+        Long hikeId = job.getHikeId();
+        Long userId = job.getUserId();
+        OptimizationReport report = new OptimizationReport(budget);
+        try {
+            hikeService.optimizeBackpack(hikeId, userId, budget, engines, report);
+            // Réponse construite dans une transaction : aucune session n'est ouverte sur ce thread
+            job.succeed(hikeService.getOptimizedHikeResponse(hikeId, userId, budget, report));
+        } catch (OptimizationCancelledException e) {
+            job.cancelled(e.getMessage());
+        } catch (RuntimeException e) {
+            // Moteur interrompu par l'annulation (répartition introuvable) : la transaction est annulée
+            if (job.isCancelRequested()) {
+                job.cancelled("Optimisation annulée pendant son exécution");
+                return;
+            }
+            HttpStatus status = statusOf(e);
+            if (status.is5xxServerError()) {
+                logger.error("Échec de l'optimisation asynchrone {} : ", job.getId(), e);
+                job.fail(status.value(), INTERNAL_ERROR_MESSAGE);
+            } else {
+                job.fail(status.value(), e.getMessage());
+            }
+        }
+    }
+
+    /* Même correspondance exception → statut HTTP que le gestionnaire global */
+    static HttpStatus statusOf(RuntimeException e) {
+        if (e instanceof BusinessValidationException || e instanceof IllegalArgumentException) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (e instanceof UnauthorizedAccessException) {
+            return HttpStatus.FORBIDDEN;
+        }
+        if (e instanceof ResourceNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (e instanceof CapacityExceededException || e instanceof IllegalBusinessActionException) {
+            return HttpStatus.UNPROCESSABLE_ENTITY;
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    private static void send(SseEmitter emitter, String name, OptimizationJob job) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(new OptimizationJobDto(job)));
+        } catch (IOException | IllegalStateException e) {
+            // Client déconnecté : la tâche continue, seul l'abonnement est perdu
+            emitter.completeWithError(e);
+        }
+    }
+
+    /* Oubli des tâches terminées depuis plus longtemps que la durée de conservation */
+    private void evictExpired() {
+        Instant limit = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(limit));
+    }
+}
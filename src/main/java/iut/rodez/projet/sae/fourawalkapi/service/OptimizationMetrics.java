@@ -0,0 +1,74 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationStage;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationReport;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métriques Micrometer des étapes du pipeline d'optimisation (consultables sur /actuator/metrics).
+ * Chaque étape alimente un minuteur, le nombre d'éléments traités, les nœuds explorés et les branches coupées,
+ * étiquetés par opération (optimize, preview) et par étape : on y voit si le temps part dans le SQL,
+ * dans les moteurs de recherche ou dans l'écriture en base.
+ */
+@Service
+public class OptimizationMetrics {
+
+    public static final String STAGE_TIMER = "optimizer.stage.duration";
+    public static final String STAGE_ITEMS = "optimizer.stage.items";
+    public static final String STAGE_NODES = "optimizer.stage.nodes";
+    public static final String STAGE_PRUNES = "optimizer.stage.prunes";
+
+    /* Opérations instrumentées */
+    public static final String OPTIMIZE = "optimize";
+    public static final String PREVIEW = "preview";
+
+    private final MeterRegistry registry;
+
+    public OptimizationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Enregistre les étapes terminées d'une optimisation (y compris celles d'une optimisation en échec).
+     * @param operation opération instrumentée
+     * @param report compte rendu de l'optimisation, porteur des étapes chronométrées
+     */
+    public void record(String operation, OptimizationReport report) {
+        for (OptimizationStage stage : report.getStages()) {
+            Timer.builder(STAGE_TIMER)
+                    .description("Durée des étapes de l'optimisation d'une randonnée")
+                    .tag("operation", operation)
+                    .tag("stage", stage.name())
+                    .register(registry)
+                    .record(stage.elapsedNanos(), TimeUnit.NANOSECONDS);
+            DistributionSummary.builder(STAGE_ITEMS)
+                    .description("Éléments traités par étape de l'optimisation")
+                    .tag("operation", operation)
+                    .tag("stage", stage.name())
+                    .register(registry)
+                    .record(stage.items());
+            if (stage.nodes() > 0) {
+                Counter.builder(STAGE_NODES)
+                        .description("Nœuds de recherche explorés par étape de l'optimisation")
+                        .tag("operation", operation)
+                        .tag("stage", stage.name())
+                        .register(registry)
+                        .increment(stage.nodes());
+            }
+            if (stage.prunes() > 0) {
+                Counter.builder(STAGE_PRUNES)
+                        .description("Branches de recherche coupées par étape de l'optimisation")
+                        .tag("operation", operation)
+                        .tag("stage", stage.name())
+                        .register(registry)
+                        .increment(stage.prunes());
+            }
+        }
+    }
+}
@@ -3,9 +3,30 @@ package iut.rodez.projet.sae.fourawalkapi.service;
 import iut.rodez.projet.sae.fourawalkapi.entity.*;
 import iut.rodez.projet.sae.fourawalkapi.exception.BusinessValidationException;
 import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
+import iut.rodez.projet.sae.fourawalkapi.solver.EngineChoice;
+import iut.rodez.projet.sae.fourawalkapi.solver.EquipmentInstance;
+import iut.rodez.projet.sae.fourawalkapi.solver.FoodDensityOrder;
+import iut.rodez.projet.sae.fourawalkapi.solver.FoodFingerprint;
+import iut.rodez.projet.sae.fourawalkapi.solver.FoodInstance;
+import iut.rodez.projet.sae.fourawalkapi.solver.FoodSearchTree;
+import iut.rodez.projet.sae.fourawalkapi.solver.InstanceFeatures;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationReport;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import iut.rodez.projet.sae.fourawalkapi.solver.StrategyRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service dédié à l'optimisation combinatoire.
@@ -14,10 +35,128 @@ import java.util.*;
  */
 @Service
 public class OptimizerService {
+
+    /* Nombre maximal de cellules (item × compteur d'appellation × palier calorique) du moteur dynamique */
+    static final int FOOD_DP_MAX_CELLS = 1 << 24;
+
+    /* Masse "infinie" d'un état calorique inatteignable */
+    private static final int UNREACHABLE = Integer.MAX_VALUE / 2;
+
+    /* Nombre maximal d'aliments d'une moitié du moteur "rencontre au milieu" (2^20 sous-ensembles) */
+    static final int MITM_MAX_HALF_ITEMS = 20;
+
+    /* Taille de catalogue à partir de laquelle le moteur "rencontre au milieu" remplace la séparation et évaluation */
+    @Value("${app.optimizer.mitm.min-items:24}")
+    private int mitmMinItems = 24;
+
+    /* Taille de catalogue à partir de laquelle la recherche de nourriture est parallélisée */
+    @Value("${app.optimizer.parallel.min-items:64}")
+    private int parallelMinItems = 64;
+
+    /* Nombre de niveaux de décision découpés en tâches fork/join */
+    @Value("${app.optimizer.parallel.split-depth:6}")
+    private int parallelSplitDepth = 6;
+
+    /* Noms des moteurs de nourriture (registre, surcharges, bilan) */
+    public static final String FOOD_ENGINE_DP = "dp";
+    public static final String FOOD_ENGINE_MITM = "mitm";
+    public static final String FOOD_ENGINE_PARALLEL = "parallel";
+    public static final String FOOD_ENGINE_BRANCH_AND_BOUND = "branch-and-bound";
+    public static final String FOOD_ENGINE_CACHE = "cache";
+
+    /* Moteur de nourriture fixé par le déploiement ("auto" : choix par instance) */
+    @Value("${app.optimizer.food-engine:auto}")
+    private String deploymentFoodEngine = EngineChoice.AUTO;
+
+    /* Moteurs de nourriture disponibles, par nom */
+    private final StrategyRegistry<OptimizerStrategy> foodEngines = new StrategyRegistry<>();
+
+    /* Exécuteur des sous-problèmes indépendants (une tâche par catégorie d'équipement) */
+    private final Executor optimizerExecutor;
+
+    /* Solutions de nourriture partagées entre randonnées */
+    private final FoodSolutionCache foodSolutionCache;
+
+    /**
+     * Service sans exécuteur dédié ni cache : les catégories sont résolues sur le thread appelant.
+     */
+    public OptimizerService() {
+        this(Runnable::run);
+    }
+
+    /**
+     * Service sans cache de solutions
+     * @param optimizerExecutor exécuteur des sous-problèmes d'optimisation
+     */
+    public OptimizerService(Executor optimizerExecutor) {
+        this(optimizerExecutor, FoodSolutionCache.disabled());
+    }
+
+    /**
+     * Injection de dépendance
+     * @param optimizerExecutor exécuteur borné des sous-problèmes d'optimisation
+     * @param foodSolutionCache cache des solutions de nourriture
+     */
+    @Autowired
+    public OptimizerService(@Qualifier("optimizerExecutor") Executor optimizerExecutor,
+                            FoodSolutionCache foodSolutionCache) {
+        this.optimizerExecutor = optimizerExecutor;
+        this.foodSolutionCache = foodSolutionCache;
+        foodEngines.register(FOOD_ENGINE_DP, this::solveFoodDynamic)
+                .register(FOOD_ENGINE_MITM, this::solveBestFoodMeetInTheMiddle)
+                .register(FOOD_ENGINE_PARALLEL, this::solveBestFoodParallel)
+                .register(FOOD_ENGINE_BRANCH_AND_BOUND, this::solveBestFoodBranchAndBound);
+    }
+
+    /**
+     * Sélection complète d'une randonnée : équipements et nourriture à emporter
+     * @param equipment équipements retenus (ordre des catégories)
+     * @param food aliments retenus (ordre du catalogue)
+     */
+    public record Selection(List<EquipmentItem> equipment, List<FoodProduct> food) {}
+
+    /**
+     * Optimise l'équipement et la nourriture d'une randonnée.
+     * Les catégories d'équipement sont résolues en parallèle sur l'exécuteur pendant que la nourriture
+     * est résolue sur le thread appelant : la latence est celle du sous-problème le plus long.
+     *
+     * @param hike La randonnée contenant les participants et les catalogues.
+     * @param budget budget de la recherche de nourriture, qui reçoit son bilan
+     * @return la sélection d'équipements et d'aliments
+     * @throws BusinessValidationException Si une catégorie obligatoire ne peut pas être satisfaite.
+     */
+    public Selection optimizeAll(Hike hike, SearchBudget budget) {
+        return optimizeAll(hike, budget, null);
+    }
+
+    /**
+     * Variante de {@link #optimizeAll(Hike, SearchBudget)} imposant un moteur de nourriture.
+     * @param foodEngine moteur de nourriture demandé (null ou "auto" : choix automatique)
+     * @throws IllegalArgumentException si le moteur demandé n'existe pas
+     */
+    public Selection optimizeAll(Hike hike, SearchBudget budget, String foodEngine) {
+        return optimizeAll(hike, budget, foodEngine, new OptimizationReport(budget));
+    }
+
+    /**
+     * Variante de {@link #optimizeAll(Hike, SearchBudget, String)} rendant compte du moteur de nourriture exécuté.
+     * @param report compte rendu de l'optimisation, qui reçoit le moteur de nourriture exécuté
+     */
+    public Selection optimizeAll(Hike hike, SearchBudget budget, String foodEngine, OptimizationReport report) {
+        if (!EngineChoice.isAuto(foodEngine)) {
+            foodEngines.get(foodEngine); // Refus d'un moteur inconnu avant tout calcul
+        }
+        Map<TypeEquipment, CompletableFuture<List<EquipmentItem>>> equipment = submitEquipment(hike);
+        List<FoodProduct> food = getOptimizeAllFood(hike, budget, foodEngine, report);
+        return new Selection(joinEquipment(equipment), food);
+    }
+
     /**
      * Algorithme d'optimisation pour l'équipement.
      * Parcourt chaque catégorie d'équipement requise et sélectionne la combinaison
      * la plus légère permettant de couvrir tous les participants.
+     * Les catégories sont indépendantes et résolues en parallèle, le résultat est fusionné
+     * dans l'ordre des catégories (réponse stable d'un appel à l'autre).
      * Point de vigilance, l'optimisation des vêtements ne présente pas de décisionnel ils sont tous ajouté
      *
      * @param hike La randonnée contenant les participants et le catalogue d'équipements.
@@ -25,14 +164,25 @@ public class OptimizerService {
      * @throws BusinessValidationException Si une catégorie obligatoire ne peut pas être satisfaite.
      */
     public List<EquipmentItem> getOptimizeAllEquipment(Hike hike) {
+        return joinEquipment(submitEquipment(hike));
+    }
+
+    /**
+     * Lance la résolution de chaque catégorie d'équipement.
+     * Les entités (collections paresseuses) sont lues sur le thread appelant : seules les instances
+     * compilées sont transmises à l'exécuteur.
+     * @return la résolution en cours de chaque catégorie, dans l'ordre des catégories
+     */
+    private Map<TypeEquipment, CompletableFuture<List<EquipmentItem>>> submitEquipment(Hike hike) {
         List<TypeEquipment> typeList = new ArrayList<>(Arrays.asList(TypeEquipment.values()));
-        List<EquipmentItem> equipmentOptimized = new ArrayList<>();
+        Map<TypeEquipment, CompletableFuture<List<EquipmentItem>>> equipmentOptimized = new EnumMap<>(TypeEquipment.class);
 
         /* Skip de repos si non nécessaire (Rando d'un jour) */
         if (hike.getDureeJours() <= 1) {
             typeList.remove(TypeEquipment.REPOS);
         }
 
+        int nbParticipant = hike.getParticipants().size();
         for (TypeEquipment type : typeList) {
             GroupEquipment group = hike.getEquipmentGroups().get(type);
 
@@ -42,32 +192,121 @@ public class OptimizerService {
 
                 // Les vêtementset autre équipe ont déjà été optimisé par l'utilisateur
                 if (type == TypeEquipment.VETEMENT || type == TypeEquipment.AUTRE) {
-                    equipmentOptimized.addAll(itemsDispo);
+                    equipmentOptimized.put(type, CompletableFuture.completedFuture(itemsDispo));
                 }
                 // Cherche du meilleur de la meilleure combinaison
                 else {
-                    List<EquipmentItem> bestItemsForType = sortBestEquipment(
-                            itemsDispo,
-                            new ArrayList<>(),
-                            hike.getParticipants().size(),
-                            0
-                    );
-
-                    if (bestItemsForType != null) {
-                        equipmentOptimized.addAll(bestItemsForType);
-                    } else {
-                        // On garde l'exception ici car c'est une sortie fatale, pas un simple saut
-                        throw new BusinessValidationException("Impossible de couvrir les besoins pour : " + type);
-                    }
+                    EquipmentInstance instance = EquipmentInstance.of(itemsDispo);
+                    equipmentOptimized.put(type, CompletableFuture.supplyAsync(() -> {
+                        boolean[] selected = solveBestEquipment(instance, nbParticipant);
+                        if (selected == null) {
+                            // On garde l'exception ici car c'est une sortie fatale, pas un simple saut
+                            throw new BusinessValidationException("Impossible de couvrir les besoins pour : " + type);
+                        }
+                        return instance.toEntities(selected);
+                    }, optimizerExecutor));
                 }
             }
         }
         return equipmentOptimized;
     }
 
+    /**
+     * Attend et fusionne les résultats des catégories dans l'ordre des catégories.
+     * La première catégorie en échec (dans cet ordre) détermine l'exception levée.
+     */
+    private static List<EquipmentItem> joinEquipment(Map<TypeEquipment, CompletableFuture<List<EquipmentItem>>> futures) {
+        List<EquipmentItem> equipmentOptimized = new ArrayList<>();
+        for (CompletableFuture<List<EquipmentItem>> future : futures.values()) {
+            try {
+                equipmentOptimized.addAll(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return equipmentOptimized;
+    }
+
+    /**
+     * Moteur par programmation dynamique pour la sélection d'équipement.
+     * Résout exactement le même problème que {@link #sortBestEquipment} (même objectif, même départage)
+     * mais indexe les états par (item, participants déjà couverts plafonné à nbParticipant).
+     * Le coût passe de O(2^n) à O(n × nbParticipant) en temps comme en mémoire.
+     *
+     * @param candidats Liste des équipements disponibles pour ce type.
+     * @param nbParticipant Nombre de personnes à équiper.
+     * @return La liste d'équipements retenue ou null si aucune combinaison ne couvre les participants.
+     */
+    public List<EquipmentItem> solveBestEquipment(List<EquipmentItem> candidats, int nbParticipant) {
+        EquipmentInstance instance = EquipmentInstance.of(candidats);
+        boolean[] selected = solveBestEquipment(instance, nbParticipant);
+        return selected == null ? null : instance.toEntities(selected);
+    }
+
+    /**
+     * Moteur dynamique d'équipement sur une instance compilée.
+     * @param instance équipements candidats compilés
+     * @param nbParticipant Nombre de personnes à équiper.
+     * @return la sélection par index, ou null si aucune combinaison ne couvre les participants
+     */
+    public boolean[] solveBestEquipment(EquipmentInstance instance, int nbParticipant) {
+        int n = instance.size();
+        boolean[] selected = new boolean[n];
+
+        // Cas de base identique au backtracking : rien à couvrir
+        if (nbParticipant <= 0) {
+            return selected;
+        }
+
+        int[] nbItems = instance.getNbItems();
+
+        // best[i][c] : taille de la meilleure sélection parmi les items [i, n) sachant c participants couverts,
+        // -1 si aucune sélection ne permet d'atteindre la couverture
+        int[][] best = new int[n + 1][nbParticipant];
+        Arrays.fill(best[n], -1);
+
+        for (int i = n - 1; i >= 0; i--) {
+            for (int c = 0; c < nbParticipant; c++) {
+                best[i][c] = Math.max(takeValue(best, nbItems, nbParticipant, i, c), best[i + 1][c]);
+            }
+        }
+
+        if (best[0][0] < 0) {
+            return null;
+        }
+
+        // Reconstruction : à égalité, la branche inclusion est prioritaire (comme dans le backtracking)
+        int couverture = 0;
+        for (int i = 0; i < n && couverture < nbParticipant; i++) {
+            int take = takeValue(best, nbItems, nbParticipant, i, couverture);
+            if (take >= 0 && take >= best[i + 1][couverture]) {
+                selected[i] = true;
+                couverture += nbItems[i];
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Valeur de la branche inclusion de l'item i dans l'état c du moteur dynamique.
+     * @return taille de la sélection obtenue en prenant l'item, -1 si la branche est sans issue
+     */
+    private static int takeValue(int[][] best, int[] nbItems, int nbParticipant, int i, int c) {
+        int couverture = c + nbItems[i];
+        if (couverture >= nbParticipant) {
+            return 1;
+        }
+        int suite = best[i + 1][couverture];
+        return suite < 0 ? -1 : suite + 1;
+    }
+
     /**
      * Moteur récursif (Backtracking) pour la sélection d'équipement.
      * Explore l'arbre des possibilités binaires (prendre ou ne pas prendre l'item).
+     * Conservé comme implémentation de référence de {@link #solveBestEquipment}.
      *
      * @param candidats Liste des équipements disponibles pour ce type.
      * @param currentSelection Liste des équipements actuellement sélectionnés dans cette branche.
@@ -129,37 +368,1065 @@ public class OptimizerService {
      * @return La liste des aliments sélectionnés, ou une liste vide si impossible.
      */
     public List<FoodProduct> getOptimizeAllFood(Hike hike) {
+        return getOptimizeAllFood(hike, SearchBudget.unlimited());
+    }
+
+    /**
+     * Variante "à tout moment" de {@link #getOptimizeAllFood(Hike)}.
+     * La séparation et évaluation s'arrête dès que le budget est épuisé, annulé ou que le thread
+     * est interrompu, et rend la meilleure solution connue. La table dynamique, dont la taille est
+     * bornée par FOOD_DP_MAX_CELLS, s'exécute toujours jusqu'au bout.
+     * Un problème déjà résolu (même empreinte canonique) est servi par le {@link FoodSolutionCache}.
+     * Le bilan (optimalité prouvée, masse, borne inférieure) est enregistré dans le budget.
+     *
+     * @param hike La randonnée contenant le catalogue et les participants.
+     * @param budget budget de la recherche, qui reçoit son bilan
+     * @return La liste des aliments sélectionnés, ou une liste vide si impossible.
+     */
+    public List<FoodProduct> getOptimizeAllFood(Hike hike, SearchBudget budget) {
+        return getOptimizeAllFood(hike, budget, null);
+    }
+
+    /**
+     * Variante de {@link #getOptimizeAllFood(Hike, SearchBudget)} imposant un moteur.
+     * Un moteur imposé par la requête contourne la lecture du cache (la solution reste partagée).
+     *
+     * @param hike La randonnée contenant le catalogue et les participants.
+     * @param budget budget de la recherche, qui reçoit son bilan
+     * @param foodEngine moteur demandé (null ou "auto" : choix automatique)
+     * @return La liste des aliments sélectionnés, ou une liste vide si impossible.
+     * @throws IllegalArgumentException si le moteur demandé n'existe pas
+     */
+    public List<FoodProduct> getOptimizeAllFood(Hike hike, SearchBudget budget, String foodEngine) {
+        return getOptimizeAllFood(hike, budget, foodEngine, new OptimizationReport(budget));
+    }
+
+    /**
+     * Variante de {@link #getOptimizeAllFood(Hike, SearchBudget, String)} rendant compte du moteur exécuté.
+     * @param report compte rendu de l'optimisation, qui reçoit le moteur exécuté ("cache" si la solution est réutilisée)
+     */
+    public List<FoodProduct> getOptimizeAllFood(Hike hike, SearchBudget budget, String foodEngine,
+                                                OptimizationReport report) {
         int targetKcal = hike.getCaloriesForAllParticipants();
 
         // Fast-exit
         if (targetKcal <= 0) {
+            budget.record(true, 0, 0.0);
             return new ArrayList<>();
         }
 
         int nbParticipants = hike.getParticipants().size();
 
-        List<FoodProduct> allFood = new ArrayList<>(hike.getFoodCatalogue());
+        // Compilation unique du catalogue, partagée par les moteurs
+        FoodInstance instance = FoodInstance.of(new ArrayList<>(hike.getFoodCatalogue()));
 
-        // Recherche récursive de la liste de nourriture optimisée
-        List<FoodProduct> optimizedList = sortBestFoodRecursive(
-                allFood,
-                new ArrayList<>(),
-                new HashMap<>(),
-                targetKcal,
-                nbParticipants,
-                0
-        );
+        // Problème déjà résolu pour une autre randonnée : réutilisation de la solution
+        FoodFingerprint fingerprint = foodSolutionCache.isEnabled()
+                ? FoodFingerprint.of(instance, targetKcal, nbParticipants)
+                : null;
+        FoodSolutionCache.Hit hit = fingerprint == null || !EngineChoice.isAuto(foodEngine)
+                ? null
+                : foodSolutionCache.lookup(fingerprint);
+
+        boolean[] optimized;
+        if (hit != null) {
+            optimized = hit.selected();
+            report.recordFoodEngine(FOOD_ENGINE_CACHE);
+            recordExact(budget, instance, optimized);
+        } else {
+            optimized = solveFood(instance, targetKcal, nbParticipants, budget, foodEngine, report);
+            // Seules les solutions d'optimalité prouvée sont partagées
+            if (fingerprint != null && budget.isOptimal()) {
+                foodSolutionCache.store(fingerprint, optimized);
+            }
+        }
 
         // Échec return d'une liste vide
-        if (optimizedList == null) {
+        if (optimized == null) {
             return new ArrayList<>();
         }
 
-        return optimizedList;
+        return instance.toEntities(optimized);
+    }
+
+    /**
+     * Exécute le moteur de nourriture choisi et l'enregistre dans le compte rendu.
+     * @return la sélection par index, ou null si aucune solution
+     */
+    private boolean[] solveFood(FoodInstance instance, int targetKcal, int nbParticipants, SearchBudget budget,
+                                String requestedEngine, OptimizationReport report) {
+        InstanceFeatures features = new InstanceFeatures(instance.size(), nbParticipants, targetKcal, 0);
+        String engine = selectFoodEngine(instance, features, requestedEngine);
+        report.recordFoodEngine(engine);
+        return foodEngines.get(engine).solve(instance, targetKcal, nbParticipants, budget);
+    }
+
+    /**
+     * Choix du moteur de nourriture. Ordre de priorité : moteur demandé par la requête,
+     * moteur fixé par le déploiement (app.optimizer.food-engine), puis modèle de coût :
+     * table dynamique si elle tient sans mise à l'échelle (taille du catalogue × plafond × objectif calorique),
+     * "rencontre au milieu" sur les catalogues moyens dont les deux moitiés restent énumérables,
+     * séparation et évaluation sinon (parallèle sur les grands catalogues, séquentielle sur les petits).
+     *
+     * @param instance nourritures disponibles compilées
+     * @param features caractéristiques de l'instance
+     * @param requestedEngine moteur demandé (null ou "auto" : choix automatique)
+     * @return le nom du moteur à exécuter
+     * @throws IllegalArgumentException si le moteur demandé n'existe pas
+     */
+    public String selectFoodEngine(FoodInstance instance, InstanceFeatures features, String requestedEngine) {
+        if (!EngineChoice.isAuto(requestedEngine)) {
+            foodEngines.get(requestedEngine);
+            return requestedEngine.trim();
+        }
+        if (!EngineChoice.isAuto(deploymentFoodEngine)) {
+            foodEngines.get(deploymentFoodEngine);
+            return deploymentFoodEngine.trim();
+        }
+        if (isFoodDpExact(instance, features.targetKcal(), features.participantCount())) {
+            return FOOD_ENGINE_DP;
+        }
+        if (features.itemCount() >= mitmMinItems
+                && isFoodMeetInTheMiddleApplicable(instance, features.participantCount())) {
+            return FOOD_ENGINE_MITM;
+        }
+        if (features.itemCount() >= parallelMinItems) {
+            return FOOD_ENGINE_PARALLEL;
+        }
+        return FOOD_ENGINE_BRANCH_AND_BOUND;
+    }
+
+    /**
+     * @return les noms des moteurs de nourriture disponibles
+     */
+    public Set<String> getFoodEngineNames() {
+        return foodEngines.names();
+    }
+
+    /**
+     * Moteur dynamique exposé au registre. Si la table a dû être mise à l'échelle, la solution reste valide
+     * mais son optimalité n'est garantie que par la relaxation continue.
+     */
+    private boolean[] solveFoodDynamic(FoodInstance instance, int targetKcal, int maxPerAppel, SearchBudget budget) {
+        boolean[] selected = solveBestFood(instance, targetKcal, maxPerAppel);
+        if (isFoodDpExact(instance, targetKcal, maxPerAppel)) {
+            recordExact(budget, instance, selected);
+            return selected;
+        }
+        double rootBound = FoodDensityOrder.of(instance).fractionalBound(0, 0, targetKcal);
+        if (selected == null) {
+            budget.record(Double.isInfinite(rootBound), null, null);
+            return null;
+        }
+        int mass = totalMass(instance, selected);
+        double lowerBound = Math.min(mass, Math.ceil(rootBound - 1e-9));
+        budget.record(lowerBound >= mass, mass, lowerBound);
+        return selected;
+    }
+
+    /**
+     * Enregistre le bilan d'une solution exacte (écart nul).
+     */
+    private static void recordExact(SearchBudget budget, FoodInstance instance, boolean[] selected) {
+        Integer mass = selected == null ? null : totalMass(instance, selected);
+        budget.record(true, mass, mass == null ? null : mass.doubleValue());
+    }
+
+    /**
+     * Moteur par programmation dynamique (sac à dos borné) pour la nourriture.
+     * Minimise la masse totale sous la contrainte calories >= targetKcal, en respectant
+     * le plafond maxPerAppel sur la somme des nbItem d'une même appellation courante.
+     * Les aliments sont regroupés par appellation : chaque groupe est traité avec une couche
+     * par compteur d'appellation, puis les couches sont fusionnées dans le tableau global.
+     * L'axe calorique est plafonné à l'objectif et, si la table dépasse FOOD_DP_MAX_CELLS,
+     * mis à l'échelle par paliers (arrondi conservateur : toute solution trouvée reste valide).
+     *
+     * @param candidats nourritures disponibles
+     * @param targetKcal consommation à couvrir
+     * @param maxPerAppel Nombre de participant
+     * @return Liste de la nourriture optimisée (ordre du catalogue) ou null si aucune solution
+     */
+    public List<FoodProduct> solveBestFood(List<FoodProduct> candidats, int targetKcal, int maxPerAppel) {
+        FoodInstance instance = FoodInstance.of(candidats);
+        boolean[] selected = solveBestFood(instance, targetKcal, maxPerAppel);
+        return selected == null ? null : instance.toEntities(selected);
+    }
+
+    /**
+     * Moteur dynamique de nourriture sur une instance compilée.
+     * @param instance nourritures disponibles compilées
+     * @param targetKcal consommation à couvrir
+     * @param maxPerAppel Nombre de participant
+     * @return la sélection par index, ou null si aucune solution
+     */
+    public boolean[] solveBestFood(FoodInstance instance, int targetKcal, int maxPerAppel) {
+        int n = instance.size();
+        boolean[] selected = new boolean[n];
+        if (targetKcal <= 0) {
+            return selected;
+        }
+
+        int[] kcals = instance.getKcals();
+        int[] masses = instance.getMasses();
+        int[] nbItems = instance.getNbItems();
+
+        FoodGroups foodGroups = groupFoodsByLabel(instance, maxPerAppel);
+        int[][] groups = foodGroups.groups();
+        int[] groupCap = foodGroups.caps();
+        long unitCells = foodGroups.unitCells();
+
+        // Mise à l'échelle de l'axe calorique pour borner la mémoire
+        int scale = 1;
+        if (unitCells > 0 && unitCells * (targetKcal + 1L) > FOOD_DP_MAX_CELLS) {
+            int maxSteps = (int) Math.max(1, FOOD_DP_MAX_CELLS / unitCells - 1);
+            scale = (targetKcal + maxSteps - 1) / maxSteps;
+        }
+        int target = (targetKcal + scale - 1) / scale;
+        int width = target + 1;
+
+        // dp[kc] : masse minimale pour atteindre kc paliers (kc plafonné à target)
+        int[] dp = new int[width];
+        Arrays.fill(dp, UNREACHABLE);
+        dp[0] = 0;
+
+        // Traces pour la reconstruction
+        BitSet taken = new BitSet();
+        int[][] sourceAtTarget = new int[n][];
+        short[][] groupCount = new short[groups.length][];
+        long offset = 0;
+        long[] itemOffset = new long[n];
+
+        for (int g = 0; g < groups.length; g++) {
+            int cap = groupCap[g];
+            int[][] layers = new int[cap + 1][width];
+            layers[0] = dp.clone();
+            for (int cnt = 1; cnt <= cap; cnt++) {
+                Arrays.fill(layers[cnt], UNREACHABLE);
+            }
+
+            for (int i : groups[g]) {
+                int nb = nbItems[i];
+                int kcal = Math.min(target, kcals[i] / scale);
+                int mass = masses[i];
+                itemOffset[i] = offset;
+                sourceAtTarget[i] = new int[cap + 1];
+
+                // Compteur décroissant : la couche source n'a pas encore vu cet item (0/1)
+                for (int cnt = cap; cnt >= nb; cnt--) {
+                    int[] from = layers[cnt - nb];
+                    int[] to = layers[cnt];
+                    for (int kc = 0; kc < width; kc++) {
+                        if (from[kc] >= UNREACHABLE) continue;
+                        int next = Math.min(target, kc + kcal);
+                        int candidate = from[kc] + mass;
+                        if (candidate < to[next]) {
+                            to[next] = candidate;
+                            taken.set(Math.toIntExact(offset + (long) cnt * width + next));
+                            if (next == target) {
+                                sourceAtTarget[i][cnt] = kc;
+                            }
+                        }
+                    }
+                }
+                offset += (long) (cap + 1) * width;
+            }
+
+            // Fusion des couches : meilleure masse tous compteurs confondus
+            groupCount[g] = new short[width];
+            for (int kc = 0; kc < width; kc++) {
+                int bestMass = layers[0][kc];
+                for (int cnt = 1; cnt <= cap; cnt++) {
+                    if (layers[cnt][kc] < bestMass) {
+                        bestMass = layers[cnt][kc];
+                        groupCount[g][kc] = (short) cnt;
+                    }
+                }
+                dp[kc] = bestMass;
+            }
+        }
+
+        if (dp[target] >= UNREACHABLE) {
+            return null;
+        }
+
+        // Reconstruction en remontant les groupes puis les items
+        int kc = target;
+        for (int g = groups.length - 1; g >= 0; g--) {
+            int cnt = groupCount[g][kc];
+            int[] group = groups[g];
+            for (int j = group.length - 1; j >= 0 && cnt > 0; j--) {
+                int i = group[j];
+                if (taken.get(Math.toIntExact(itemOffset[i] + (long) cnt * width + kc))) {
+                    selected[i] = true;
+                    kc = (kc == target) ? sourceAtTarget[i][cnt] : kc - Math.min(target, kcals[i] / scale);
+                    cnt -= nbItems[i];
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Indique si la table du moteur dynamique tient dans FOOD_DP_MAX_CELLS sans mise à l'échelle,
+     * c'est-à-dire si {@link #solveBestFood} est exact pour cette instance.
+     * @param candidats nourritures disponibles
+     * @param targetKcal consommation à couvrir
+     * @param maxPerAppel Nombre de participant
+     * @return true si le moteur dynamique est exact
+     */
+    public boolean isFoodDpExact(List<FoodProduct> candidats, int targetKcal, int maxPerAppel) {
+        return isFoodDpExact(FoodInstance.of(candidats), targetKcal, maxPerAppel);
+    }
+
+    /**
+     * Variante de {@link #isFoodDpExact(List, int, int)} sur une instance compilée.
+     */
+    public boolean isFoodDpExact(FoodInstance instance, int targetKcal, int maxPerAppel) {
+        long unitCells = groupFoodsByLabel(instance, maxPerAppel).unitCells();
+        return unitCells * (Math.max(0, targetKcal) + 1L) <= FOOD_DP_MAX_CELLS;
+    }
+
+    /**
+     * Groupes d'aliments d'une même appellation et leur plafond effectif
+     * @param groups index des aliments de chaque groupe (ordre du catalogue)
+     * @param caps plafond effectif du compteur d'appellation de chaque groupe
+     * @param unitCells nombre de cellules de la table dynamique par palier calorique
+     */
+    private record FoodGroups(int[][] groups, int[] caps, long unitCells) {}
+
+    /**
+     * Regroupe les aliments par appellation (ordre de première apparition).
+     * Les lots dépassant à eux seuls le plafond sont exclus, et le plafond d'un groupe est ramené
+     * à la quantité qu'il contient : inutile de compter au-delà.
+     */
+    private static FoodGroups groupFoodsByLabel(FoodInstance instance, int maxPerAppel) {
+        int[] labels = instance.getLabels();
+        int[] nbItems = instance.getNbItems();
+        int labelCount = instance.getLabelCount();
+
+        // Les appellations sont déjà numérotées dans l'ordre de première apparition
+        int[] sizes = new int[labelCount];
+        int[] available = new int[labelCount];
+        for (int i = 0; i < instance.size(); i++) {
+            if (nbItems[i] > 0 && nbItems[i] <= maxPerAppel) {
+                sizes[labels[i]]++;
+                available[labels[i]] += nbItems[i];
+            }
+        }
+
+        int[][] groups = new int[labelCount][];
+        int[] caps = new int[labelCount];
+        long unitCells = 0;
+        for (int g = 0; g < labelCount; g++) {
+            groups[g] = new int[sizes[g]];
+            caps[g] = Math.min(Math.min(maxPerAppel, available[g]), Short.MAX_VALUE);
+            unitCells += (long) sizes[g] * (caps[g] + 1);
+            sizes[g] = 0;
+        }
+        for (int i = 0; i < instance.size(); i++) {
+            if (nbItems[i] > 0 && nbItems[i] <= maxPerAppel) {
+                groups[labels[i]][sizes[labels[i]]++] = i;
+            }
+        }
+        return new FoodGroups(groups, caps, unitCells);
+    }
+
+    /**
+     * Moteur exact par séparation et évaluation "meilleur d'abord" pour la nourriture.
+     * Destiné aux catalogues trop larges pour la table dynamique.
+     * Les aliments sont parcourus par densité calorique décroissante (ordre déjà produit par Hike.addFood) :
+     * la borne inférieure d'un nœud est alors la relaxation continue (sac à dos fractionnaire),
+     * obtenue par recherche dichotomique dans les sommes préfixes.
+     * Une branche est élaguée dès que sa borne ne peut plus battre la meilleure solution connue,
+     * initialisée par une solution gloutonne.
+     *
+     * @param candidats nourritures disponibles
+     * @param targetKcal consommation à couvrir
+     * @param maxPerAppel Nombre de participant
+     * @return Liste de la nourriture optimisée (ordre du catalogue) ou null si aucune solution
+     */
+    public List<FoodProduct> solveBestFoodBranchAndBound(List<FoodProduct> candidats, int targetKcal, int maxPerAppel) {
+        FoodInstance instance = FoodInstance.of(candidats);
+        boolean[] selected = solveBestFoodBranchAndBound(instance, targetKcal, maxPerAppel);
+        return selected == null ? null : instance.toEntities(selected);
+    }
+
+    /**
+     * Séparation et évaluation sur une instance compilée, sans limite de budget.
+     * @param instance nourritures disponibles compilées
+     * @param targetKcal consommation à couvrir
+     * @param maxPerAppel Nombre de participant
+     * @return la sélection par index, ou null si aucune solution
+     */
+    public boolean[] solveBestFoodBranchAndBound(FoodInstance instance, int targetKcal, int maxPerAppel) {
+        return solveBestFoodBranchAndBound(instance, targetKcal, maxPerAppel, SearchBudget.unlimited());
+    }
+
+    /**
+     * Séparation et évaluation sur une instance compilée, interruptible.
+     * Les nœuds ouverts sont stockés dans un {@link FoodSearchTree} (tableaux recyclés, tas primitif) :
+     * la boucle de recherche n'alloue aucun objet.
+     * Si le budget s'épuise, la meilleure solution connue est rendue et la plus petite borne
+     * des nœuds encore ouverts est enregistrée comme borne inférieure.
+     *
+     * @param instance nourritures disponibles compilées
+     * @param targetKcal consommation à couvrir
+     * @param maxPerAppel Nombre de participant
+     * @param budget budget de la recherche, qui reçoit son bilan
+     * @return la sélection par index, ou null si aucune solution n'a été trouvée
+     */
+    public boolean[] solveBestFoodBranchAndBound(FoodInstance instance, int targetKcal, int maxPerAppel,
+                                                 SearchBudget budget) {
+        int n = instance.size();
+        boolean[] selected = new boolean[n];
+        if (targetKcal <= 0) {
+            budget.record(true, 0, 0.0);
+            return selected;
+        }
+
+        // Tri par densité calorique décroissante (stable : conserve l'ordre du catalogue à égalité)
+        FoodDensityOrder sorted = FoodDensityOrder.of(instance);
+        int[] kcals = sorted.getKcals();
+        int[] masses = sorted.getMasses();
+        int[] nbItems = sorted.getNbItems();
+        int[] labels = sorted.getLabels();
+
+        FoodSearchTree tree = new FoodSearchTree();
+
+        // Solution initiale gloutonne (densité décroissante, plafond respecté)
+        boolean hasIncumbent = false;
+        int incumbentChain = FoodSearchTree.EMPTY_CHAIN;
+        int incumbentMass = Integer.MAX_VALUE;
+        int[] greedyCounts = new int[instance.getLabelCount()];
+        int greedyChain = FoodSearchTree.EMPTY_CHAIN;
+        int greedyKcal = 0;
+        int greedyMass = 0;
+        for (int k = 0; k < n && greedyKcal < targetKcal; k++) {
+            if (greedyCounts[labels[k]] + nbItems[k] <= maxPerAppel) {
+                greedyCounts[labels[k]] += nbItems[k];
+                greedyChain = tree.link(greedyChain, k);
+                greedyKcal += kcals[k];
+                greedyMass += masses[k];
+            }
+        }
+        if (greedyKcal >= targetKcal) {
+            hasIncumbent = true;
+            incumbentChain = greedyChain;
+            incumbentMass = greedyMass;
+        }
+
+        double rootBound = sorted.fractionalBound(0, 0, targetKcal);
+        if (!Double.isInfinite(rootBound)) {
+            tree.push(tree.newNode(FoodSearchTree.EMPTY_CHAIN, 0, 0, 0, rootBound));
+        }
+
+        boolean stopped = false;
+        while (!tree.isEmpty()) {
+            // Budget épuisé : on garde la meilleure solution connue
+            if (budget.tick()) {
+                stopped = true;
+                break;
+            }
+            int node = tree.poll();
+
+            // Meilleur d'abord : plus aucun nœud ouvert ne peut battre la solution courante
+            if (hasIncumbent && Math.ceil(tree.bound(node) - 1e-9) >= incumbentMass) {
+                break;
+            }
+            int k = tree.index(node);
+            int chain = tree.chain(node);
+            int kcal = tree.kcal(node);
+            int mass = tree.mass(node);
+            tree.release(node);
+            if (k >= n) continue;
+
+            // Branche inclusion (si le plafond d'appellation le permet)
+            if (tree.countLabel(chain, labels[k], labels, nbItems) + nbItems[k] <= maxPerAppel) {
+                int childKcal = kcal + kcals[k];
+                int childMass = mass + masses[k];
+                if (childKcal >= targetKcal) {
+                    if (childMass < incumbentMass) {
+                        hasIncumbent = true;
+                        incumbentChain = tree.link(chain, k);
+                        incumbentMass = childMass;
+                    }
+                } else {
+                    double childBound = childMass + sorted.fractionalBound(k + 1, childKcal, targetKcal);
+                    if (isPromising(childBound, hasIncumbent, incumbentMass)) {
+                        tree.push(tree.newNode(tree.link(chain, k), k + 1, childKcal, childMass, childBound));
+                    }
+                }
+            }
+
+            // Branche exclusion
+            double skipBound = mass + sorted.fractionalBound(k + 1, kcal, targetKcal);
+            if (isPromising(skipBound, hasIncumbent, incumbentMass)) {
+                tree.push(tree.newNode(chain, k + 1, kcal, mass, skipBound));
+            }
+        }
+
+        if (!hasIncumbent) {
+            budget.record(!stopped, null, null);
+            return null;
+        }
+        double lowerBound = stopped
+                ? Math.min(incumbentMass, Math.ceil(tree.peekBound() - 1e-9))
+                : incumbentMass;
+        budget.record(lowerBound >= incumbentMass, incumbentMass, lowerBound);
+
+        // Reconstruction en remontant la chaîne des inclusions
+        tree.markChain(incumbentChain, sorted.getOrder(), selected);
+        return selected;
+    }
+
+    /**
+     * Masse totale d'une sélection.
+     */
+    private static int totalMass(FoodInstance instance, boolean[] selected) {
+        int mass = 0;
+        for (int i = 0; i < selected.length; i++) {
+            if (selected[i]) mass += instance.getMasses()[i];
+        }
+        return mass;
+    }
+
+    /**
+     * Un nœud est conservé s'il est réalisable et peut encore battre la solution courante.
+     */
+    private static boolean isPromising(double bound, boolean hasIncumbent, int incumbentMass) {
+        if (Double.isInfinite(bound)) return false;
+        return !hasIncumbent || Math.ceil(bound - 1e-9) < incumbentMass;
+    }
+
+    /**
+     * Indique si le moteur "rencontre au milieu" peut traiter l'instance : les appellations
+     * (jamais coupées) doivent se répartir en deux moitiés d'au plus MITM_MAX_HALF_ITEMS aliments.
+     * @param instance nourritures disponibles compilées
+     * @param maxPerAppel Nombre de participant
+     * @return true si le moteur est applicable
+     */
+    public boolean isFoodMeetInTheMiddleApplicable(FoodInstance instance, int maxPerAppel) {
+        return splitFoodHalves(instance, maxPerAppel) != null;
+    }
+
+    /**
+     * Moteur exact "rencontre au milieu" pour les catalogues de taille moyenne
+     * (trop irréguliers pour la table dynamique, trop larges pour l'énumération complète).
+     * Les aliments sont répartis en deux moitiés sans couper d'appellation, ce qui rend le plafond
+     * maxPerAppel vérifiable dans chaque moitié séparément. Les sous-ensembles réalisables de chaque
+     * moitié sont énumérés, la seconde moitié est triée par calories et réduite à sa frontière de Pareto
+     * (plus de calories ⇒ plus de masse), puis chaque sous-ensemble de la première moitié cherche
+     * par dichotomie le complément le plus léger qui atteint l'objectif : 2^(n/2)·log au lieu de 2^n.
+     * Si le budget s'épuise pendant l'énumération, la solution gloutonne est rendue avec la borne de la racine.
+     *
+     * @param instance nourritures disponibles compilées
+     * @param targetKcal consommation à couvrir
+     * @param maxPerAppel Nombre de participant
+     * @param budget budget de la recherche, qui reçoit son bilan
+     * @return la sélection par index, ou null si aucune solution n'a été trouvée
+     * @throws IllegalArgumentException si le moteur n'est pas applicable à l'instance
+     */
+    public boolean[] solveBestFoodMeetInTheMiddle(FoodInstance instance, int targetKcal, int maxPerAppel,
+                                                  SearchBudget budget) {
+        int[][] halves = splitFoodHalves(instance, maxPerAppel);
+        if (halves == null) {
+            throw new IllegalArgumentException("Catalogue trop large pour le moteur rencontre au milieu");
+        }
+        boolean[] selected = new boolean[instance.size()];
+        if (targetKcal <= 0) {
+            budget.record(true, 0, 0.0);
+            return selected;
+        }
+
+        FoodDensityOrder sorted = FoodDensityOrder.of(instance);
+        double rootBound = sorted.fractionalBound(0, 0, targetKcal);
+        if (Double.isInfinite(rootBound)) {
+            budget.record(true, null, null);
+            return null;
+        }
+
+        int[] labelCounts = new int[instance.getLabelCount()];
+        FoodHalf first = new FoodHalf(instance, halves[0], maxPerAppel, labelCounts, budget);
+        FoodHalf second = new FoodHalf(instance, halves[1], maxPerAppel, labelCounts, budget);
+        if (!first.enumerate() || !second.enumerate()) {
+            return recordGreedyFallback(sorted, instance, targetKcal, maxPerAppel, rootBound, budget);
+        }
+        second.reduceToFrontier();
+
+        // Complément le plus léger de chaque sous-ensemble de la première moitié
+        long bestMass = Long.MAX_VALUE;
+        int bestFirst = -1;
+        int bestSecond = -1;
+        int maxSecondKcal = second.kcal[second.count - 1];
+        for (int s = 0; s < first.count; s++) {
+            int need = targetKcal - first.kcal[s];
+            if (need > maxSecondKcal) continue;
+            int j = second.firstReaching(need);
+            long mass = (long) first.mass[s] + second.mass[j];
+            if (mass < bestMass) {
+                bestMass = mass;
+                bestFirst = s;
+                bestSecond = j;
+            }
+        }
+
+        if (bestFirst < 0) {
+            budget.record(true, null, null);
+            return null;
+        }
+        first.mark(bestFirst, selected);
+        second.mark(bestSecond, selected);
+        budget.record(true, (int) bestMass, (double) bestMass);
+        return selected;
+    }
+
+    /**
+     * Répartit les appellations en deux moitiés équilibrées (la plus grande appellation d'abord,
+     * dans la moitié la moins remplie). Les lots dépassant à eux seuls le plafond sont exclus.
+     * @return les index des aliments de chaque moitié, ou null si une moitié dépasse MITM_MAX_HALF_ITEMS
+     */
+    private static int[][] splitFoodHalves(FoodInstance instance, int maxPerAppel) {
+        int[][] groups = groupFoodsByLabel(instance, maxPerAppel).groups();
+        Integer[] bySize = new Integer[groups.length];
+        for (int g = 0; g < groups.length; g++) {
+            bySize[g] = g;
+        }
+        Arrays.sort(bySize, (g1, g2) -> Integer.compare(groups[g2].length, groups[g1].length));
+
+        int[][] halves = {new int[MITM_MAX_HALF_ITEMS], new int[MITM_MAX_HALF_ITEMS]};
+        int[] sizes = new int[2];
+        for (int g : bySize) {
+            int h = sizes[0] <= sizes[1] ? 0 : 1;
+            if (sizes[h] + groups[g].length > MITM_MAX_HALF_ITEMS) {
+                return null;
+            }
+            for (int i : groups[g]) {
+                halves[h][sizes[h]++] = i;
+            }
+        }
+        return new int[][] {Arrays.copyOf(halves[0], sizes[0]), Arrays.copyOf(halves[1], sizes[1])};
+    }
+
+    /**
+     * Bilan d'une recherche interrompue : solution gloutonne et borne de la racine.
+     * @return la sélection gloutonne par index, ou null si elle n'atteint pas l'objectif
+     */
+    private static boolean[] recordGreedyFallback(FoodDensityOrder sorted, FoodInstance instance, int targetKcal,
+                                                  int maxPerAppel, double rootBound, SearchBudget budget) {
+        FoodCandidate greedy = greedyFood(sorted, instance.getLabelCount(), targetKcal, maxPerAppel);
+        if (greedy == null) {
+            budget.record(false, null, null);
+            return null;
+        }
+        int mass = (int) greedy.mass();
+        double lowerBound = Math.min(mass, Math.ceil(rootBound - 1e-9));
+        budget.record(lowerBound >= mass, mass, lowerBound);
+
+        boolean[] selected = new boolean[instance.size()];
+        int[] order = sorted.getOrder();
+        for (int k = 0; k < order.length; k++) {
+            if (greedy.positions()[k]) {
+                selected[order[k]] = true;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Sous-ensembles réalisables d'une moitié du catalogue (moteur "rencontre au milieu").
+     * Chaque sous-ensemble est un masque de bits sur les aliments de la moitié, avec ses calories et sa masse.
+     */
+    private static final class FoodHalf {
+
+        private static final int BUDGET_BATCH = 1024;
+
+        private final int[] items;
+        private final int[] itemKcals;
+        private final int[] itemMasses;
+        private final int[] itemNbItems;
+        private final int[] itemLabels;
+        private final int maxPerAppel;
+        private final int[] labelCounts;
+        private final SearchBudget budget;
+
+        private int[] kcal = new int[BUDGET_BATCH];
+        private int[] mass = new int[BUDGET_BATCH];
+        private int[] mask = new int[BUDGET_BATCH];
+        private int count;
+        private boolean stopped;
+
+        private FoodHalf(FoodInstance instance, int[] items, int maxPerAppel, int[] labelCounts, SearchBudget budget) {
+            this.items = items;
+            this.itemKcals = new int[items.length];
+            this.itemMasses = new int[items.length];
+            this.itemNbItems = new int[items.length];
+            this.itemLabels = new int[items.length];
+            for (int b = 0; b < items.length; b++) {
+                itemKcals[b] = instance.getKcals()[items[b]];
+                itemMasses[b] = instance.getMasses()[items[b]];
+                itemNbItems[b] = instance.getNbItems()[items[b]];
+                itemLabels[b] = instance.getLabels()[items[b]];
+            }
+            this.maxPerAppel = maxPerAppel;
+            this.labelCounts = labelCounts;
+            this.budget = budget;
+        }
+
+        /**
+         * Énumère les sous-ensembles respectant le plafond d'appellation.
+         * @return false si le budget a été épuisé avant la fin
+         */
+        private boolean enumerate() {
+            explore(0, 0, 0, 0);
+            return !stopped;
+        }
+
+        private void explore(int b, int currentKcal, int currentMass, int currentMask) {
+            if (stopped) return;
+            if (b == items.length) {
+                add(currentKcal, currentMass, currentMask);
+                return;
+            }
+            explore(b + 1, currentKcal, currentMass, currentMask);
+            int label = itemLabels[b];
+            if (labelCounts[label] + itemNbItems[b] <= maxPerAppel) {
+                labelCounts[label] += itemNbItems[b];
+                explore(b + 1, currentKcal + itemKcals[b], currentMass + itemMasses[b], currentMask | (1 << b));
+                labelCounts[label] -= itemNbItems[b];
+            }
+        }
+
+        private void add(int subsetKcal, int subsetMass, int subsetMask) {
+            if (count == kcal.length) {
+                kcal = Arrays.copyOf(kcal, count * 2);
+                mass = Arrays.copyOf(mass, count * 2);
+                mask = Arrays.copyOf(mask, count * 2);
+            }
+            kcal[count] = subsetKcal;
+            mass[count] = subsetMass;
+            mask[count] = subsetMask;
+            count++;
+            if (count % BUDGET_BATCH == 0 && budget.tick(BUDGET_BATCH)) {
+                stopped = true;
+            }
+        }
+
+        /**
+         * Trie les sous-ensembles par calories croissantes et ne garde que la frontière de Pareto :
+         * chaque sous-ensemble conservé est strictement plus léger que tous ceux qui apportent plus de calories.
+         * La masse est alors croissante avec les calories.
+         */
+        private void reduceToFrontier() {
+            long[] keys = new long[count];
+            for (int s = 0; s < count; s++) {
+                keys[s] = ((long) kcal[s] << 32) | s;
+            }
+            Arrays.sort(keys);
+
+            int[] frontKcal = new int[count];
+            int[] frontMass = new int[count];
+            int[] frontMask = new int[count];
+            int size = 0;
+            int lightest = Integer.MAX_VALUE;
+            for (int k = count - 1; k >= 0; k--) {
+                int s = (int) keys[k];
+                if (mass[s] < lightest) {
+                    lightest = mass[s];
+                    frontKcal[size] = kcal[s];
+                    frontMass[size] = mass[s];
+                    frontMask[size] = mask[s];
+                    size++;
+                }
+            }
+
+            // Parcours par calories décroissantes : on retourne la frontière
+            kcal = new int[size];
+            mass = new int[size];
+            mask = new int[size];
+            for (int k = 0; k < size; k++) {
+                kcal[k] = frontKcal[size - 1 - k];
+                mass[k] = frontMass[size - 1 - k];
+                mask[k] = frontMask[size - 1 - k];
+            }
+            count = size;
+        }
+
+        /**
+         * Premier sous-ensemble de la frontière apportant au moins need calories (le plus léger d'entre eux).
+         */
+        private int firstReaching(int need) {
+            int lo = 0;
+            int hi = count - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (kcal[mid] >= need) hi = mid;
+                else lo = mid + 1;
+            }
+            return lo;
+        }
+
+        private void mark(int subset, boolean[] selected) {
+            for (int b = 0; b < items.length; b++) {
+                if ((mask[subset] & (1 << b)) != 0) {
+                    selected[items[b]] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moteur exact parallèle (fork/join) pour la nourriture.
+     * Même modèle que {@link #solveBestFoodBranchAndBound(FoodInstance, int, int, SearchBudget)}
+     * (densité décroissante, borne par relaxation continue), mais exploré en profondeur :
+     * les parallelSplitDepth premiers niveaux de décision sont découpés en {@link RecursiveTask}
+     * (la branche inclusion est confiée à une autre tâche, la branche exclusion poursuivie sur place),
+     * puis chaque sous-arbre est parcouru séquentiellement sans allocation.
+     * Toutes les tâches partagent la masse de la meilleure solution connue (AtomicLong) :
+     * une solution trouvée dans une branche élague immédiatement toutes les autres.
+     *
+     * @param instance nourritures disponibles compilées
+     * @param targetKcal consommation à couvrir
+     * @param maxPerAppel Nombre de participant
+     * @param budget budget de la recherche, qui reçoit son bilan
+     * @return la sélection par index, ou null si aucune solution n'a été trouvée
+     */
+    public boolean[] solveBestFoodParallel(FoodInstance instance, int targetKcal, int maxPerAppel,
+                                           SearchBudget budget) {
+        int n = instance.size();
+        boolean[] selected = new boolean[n];
+        if (targetKcal <= 0) {
+            budget.record(true, 0, 0.0);
+            return selected;
+        }
+
+        FoodDensityOrder sorted = FoodDensityOrder.of(instance);
+        double rootBound = sorted.fractionalBound(0, 0, targetKcal);
+        if (Double.isInfinite(rootBound)) {
+            budget.record(true, null, null);
+            return null;
+        }
+
+        // Solution initiale gloutonne (densité décroissante, plafond respecté)
+        FoodCandidate greedy = greedyFood(sorted, instance.getLabelCount(), targetKcal, maxPerAppel);
+        FoodSearch search = new FoodSearch(sorted, targetKcal, maxPerAppel, budget,
+                greedy == null ? Long.MAX_VALUE : greedy.mass());
+
+        FoodSearchTask root = new FoodSearchTask(search, 0, 0, 0,
+                new int[instance.getLabelCount()], new boolean[n], parallelSplitDepth);
+        ForkJoinTask<FoodCandidate> future = ForkJoinPool.commonPool().submit(root);
+        FoodCandidate found;
+        try {
+            found = future.get();
+        } catch (InterruptedException e) {
+            // Requête abandonnée : on arrête les tâches et on récupère la meilleure solution connue
+            budget.cancel();
+            Thread.currentThread().interrupt();
+            found = future.join();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Échec de la recherche parallèle", e.getCause());
+        }
+
+        FoodCandidate best = (found != null && (greedy == null || found.mass() < greedy.mass())) ? found : greedy;
+        boolean stopped = budget.isExhausted() || budget.isCancelled();
+        if (best == null) {
+            budget.record(!stopped, null, null);
+            return null;
+        }
+
+        // Recherche en profondeur interrompue : seule la borne de la racine reste garantie
+        int mass = (int) best.mass();
+        double lowerBound = stopped ? Math.min(mass, Math.ceil(rootBound - 1e-9)) : mass;
+        budget.record(lowerBound >= mass, mass, lowerBound);
+
+        int[] order = sorted.getOrder();
+        for (int k = 0; k < n; k++) {
+            if (best.positions()[k]) {
+                selected[order[k]] = true;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Solution gloutonne : aliments pris par densité décroissante tant que l'objectif n'est pas atteint.
+     * @return la solution, ou null si elle n'atteint pas l'objectif
+     */
+    private static FoodCandidate greedyFood(FoodDensityOrder sorted, int labelCount, int targetKcal, int maxPerAppel) {
+        int n = sorted.size();
+        boolean[] positions = new boolean[n];
+        int[] counts = new int[labelCount];
+        int kcal = 0;
+        long mass = 0;
+        for (int k = 0; k < n && kcal < targetKcal; k++) {
+            int label = sorted.getLabels()[k];
+            if (counts[label] + sorted.getNbItems()[k] <= maxPerAppel) {
+                counts[label] += sorted.getNbItems()[k];
+                positions[k] = true;
+                kcal += sorted.getKcals()[k];
+                mass += sorted.getMasses()[k];
+            }
+        }
+        return kcal >= targetKcal ? new FoodCandidate(mass, positions) : null;
+    }
+
+    /**
+     * Solution candidate d'une recherche parallèle
+     * @param mass masse totale
+     * @param positions sélection par position de recherche (ordre de densité)
+     */
+    private record FoodCandidate(long mass, boolean[] positions) {}
+
+    /**
+     * Données partagées par toutes les tâches d'une recherche parallèle.
+     * Seule la meilleure masse connue est modifiée, de manière atomique.
+     */
+    private static final class FoodSearch {
+        final FoodDensityOrder sorted;
+        final int targetKcal;
+        final int maxPerAppel;
+        final SearchBudget budget;
+        final AtomicLong bestMass;
+
+        FoodSearch(FoodDensityOrder sorted, int targetKcal, int maxPerAppel, SearchBudget budget, long initialBest) {
+            this.sorted = sorted;
+            this.targetKcal = targetKcal;
+            this.maxPerAppel = maxPerAppel;
+            this.budget = budget;
+            this.bestMass = new AtomicLong(initialBest);
+        }
+
+        /**
+         * Propose une masse comme nouvelle meilleure solution.
+         * @return true si elle bat la meilleure solution connue (qui est alors mise à jour)
+         */
+        boolean offer(long mass) {
+            long current = bestMass.get();
+            while (mass < current) {
+                if (bestMass.compareAndSet(current, mass)) {
+                    return true;
+                }
+                current = bestMass.get();
+            }
+            return false;
+        }
+
+        /**
+         * Une branche ne peut plus battre la meilleure solution connue (ou est irréalisable).
+         */
+        boolean prune(double bound) {
+            return Double.isInfinite(bound) || Math.ceil(bound - 1e-9) >= bestMass.get();
+        }
+    }
+
+    /**
+     * Tâche fork/join explorant le sous-arbre des items [index, n).
+     * Tant qu'il reste des niveaux à découper, la branche inclusion est confiée à une nouvelle tâche
+     * (avec sa propre copie des compteurs et du chemin) ; au-delà, le parcours est séquentiel
+     * et modifie les tableaux de la tâche sur place.
+     */
+    private static final class FoodSearchTask extends RecursiveTask<FoodCandidate> {
+
+        /* Nombre de nœuds explorés entre deux consommations du budget partagé */
+        private static final int BUDGET_BATCH = 1024;
+
+        private final FoodSearch search;
+        private final int index;
+        private final int kcal;
+        private final int mass;
+        private final int[] labelCounts;
+        private final boolean[] path;
+        private final int splitLevels;
+
+        /* Meilleure solution trouvée par cette tâche et parcours séquentiel en cours */
+        private FoodCandidate best;
+        private int pendingNodes;
+        private boolean stopped;
+
+        FoodSearchTask(FoodSearch search, int index, int kcal, int mass,
+                       int[] labelCounts, boolean[] path, int splitLevels) {
+            this.search = search;
+            this.index = index;
+            this.kcal = kcal;
+            this.mass = mass;
+            this.labelCounts = labelCounts;
+            this.path = path;
+            this.splitLevels = splitLevels;
+        }
+
+        @Override
+        protected FoodCandidate compute() {
+            FoodDensityOrder sorted = search.sorted;
+            int k = index;
+
+            // Découpage : inclusion dans une tâche parallèle, exclusion dans la tâche courante
+            if (splitLevels > 0 && kcal < search.targetKcal && k < sorted.size()
+                    && !search.prune(mass + sorted.fractionalBound(k, kcal, search.targetKcal))) {
+                int label = sorted.getLabels()[k];
+                FoodSearchTask take = null;
+                if (labelCounts[label] + sorted.getNbItems()[k] <= search.maxPerAppel) {
+                    int[] counts = labelCounts.clone();
+                    counts[label] += sorted.getNbItems()[k];
+                    boolean[] takePath = path.clone();
+                    takePath[k] = true;
+                    take = new FoodSearchTask(search, k + 1, kcal + sorted.getKcals()[k],
+                            mass + sorted.getMasses()[k], counts, takePath, splitLevels - 1);
+                    take.fork();
+                }
+                FoodCandidate skip = new FoodSearchTask(search, k + 1, kcal, mass,
+                        labelCounts, path, splitLevels - 1).compute();
+                FoodCandidate taken = take == null ? null : take.join();
+                if (taken == null) return skip;
+                if (skip == null) return taken;
+                return taken.mass() <= skip.mass() ? taken : skip;
+            }
+
+            explore(k, kcal, mass);
+            search.budget.tick(pendingNodes);
+            return best;
+        }
+
+        /**
+         * Parcours séquentiel en profondeur (inclusion d'abord) avec élagage par la borne partagée.
+         */
+        private void explore(int k, int currentKcal, int currentMass) {
+            if (stopped) return;
+            if (++pendingNodes == BUDGET_BATCH) {
+                stopped = search.budget.tick(pendingNodes);
+                pendingNodes = 0;
+                if (stopped) return;
+            }
+
+            FoodDensityOrder sorted = search.sorted;
+            if (currentKcal >= search.targetKcal) {
+                if (search.offer(currentMass)) {
+                    best = new FoodCandidate(currentMass, path.clone());
+                }
+                return;
+            }
+            if (k >= sorted.size()
+                    || search.prune(currentMass + sorted.fractionalBound(k, currentKcal, search.targetKcal))) {
+                return;
+            }
+
+            // Branche inclusion (si le plafond d'appellation le permet)
+            int label = sorted.getLabels()[k];
+            int nb = sorted.getNbItems()[k];
+            if (labelCounts[label] + nb <= search.maxPerAppel) {
+                labelCounts[label] += nb;
+                path[k] = true;
+                explore(k + 1, currentKcal + sorted.getKcals()[k], currentMass + sorted.getMasses()[k]);
+                path[k] = false;
+                labelCounts[label] -= nb;
+            }
+
+            // Branche exclusion
+            explore(k + 1, currentKcal, currentMass);
+        }
     }
 
     /**
      * Moteur récursif (Glouton exhaustif avec élagage).
+     * Conservé comme implémentation de référence de {@link #solveBestFood}.
      * @param candidats nourritures encore non explorées
      * @param currentSelection nourritures retenues
      * @param usedAppellations appellations "consommées"
@@ -168,7 +1435,7 @@ public class OptimizerService {
      * @param index curseur de lecture
      * @return Liste de la nourriture optimisée
      */
-    private List<FoodProduct> sortBestFoodRecursive(
+    List<FoodProduct> sortBestFoodRecursive(
             List<FoodProduct> candidats,
             List<FoodProduct> currentSelection,
             Map<String, Integer> usedAppellations,
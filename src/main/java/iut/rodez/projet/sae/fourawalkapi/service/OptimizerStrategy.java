@@ -0,0 +1,23 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.solver.FoodInstance;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+
+/**
+ * Moteur de sélection de la nourriture : minimise la masse sous la contrainte calories >= targetKcal
+ * et le plafond maxPerAppel par appellation. Les moteurs sont enregistrés par nom dans
+ * l'{@link OptimizerService}, qui choisit celui à exécuter pour chaque instance.
+ */
+@FunctionalInterface
+public interface OptimizerStrategy {
+
+    /**
+     * Résout une instance et enregistre le bilan de la recherche dans le budget.
+     * @param instance nourritures disponibles compilées
+     * @param targetKcal consommation à couvrir (strictement positive)
+     * @param maxPerAppel Nombre de participant
+     * @param budget budget de la recherche, qui reçoit son bilan
+     * @return la sélection par index, ou null si aucune solution
+     */
+    boolean[] solve(FoodInstance instance, int targetKcal, int maxPerAppel, SearchBudget budget);
+}
@@ -71,6 +71,7 @@ public class ParticipantService {
         Participant saved = participantRepository.save(p);
 
         hike.getParticipants().add(saved);
+        hike.invalidateOptimizationFingerprint();
         hikeRepository.save(hike);
 
         return saved;
@@ -109,6 +110,10 @@ public class ParticipantService {
         p.setBesoinEauLitre(details.getBesoinEauLitre());
         p.setCapaciteEmportMaxKg(details.getCapaciteEmportMaxKg());
 
+        // Besoins et capacité modifiés : la prochaine optimisation est recalculée
+        hike.invalidateOptimizationFingerprint();
+        hikeRepository.save(hike);
+
         if(p.getCreatorId() == null) {
             p.setCreatorId(userId);
         }
@@ -147,6 +152,7 @@ public class ParticipantService {
         if (p.getCreator()) throw new IllegalBusinessActionException("Impossible de supprimer le créateur");
 
         hike.getParticipants().remove(p);
+        hike.invalidateOptimizationFingerprint();
         hikeRepository.save(hike);
         participantRepository.delete(p);
     }
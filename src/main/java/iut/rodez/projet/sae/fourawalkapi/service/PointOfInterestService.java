@@ -63,6 +63,7 @@ public class PointOfInterestService {
             hike.getOptionalPoints().add(savedPoi);
         }
 
+        hike.invalidateOptimizationFingerprint();
         hikeRepository.save(hike);
         return hike.getOptionalPoints();
     }
@@ -0,0 +1,87 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table de calibration des moteurs : temps médian mesuré par la suite de benchmarks
+ * pour chaque scénario (nombre d'items, nombre de sacs).
+ * Format CSV : engine,items,bags,median_ns (une ligne d'en-tête, lignes "#" ignorées).
+ */
+public final class CalibrationTable {
+
+    /**
+     * Mesure d'un moteur sur un scénario
+     */
+    private record Point(int items, int bags, long medianNs) {}
+
+    private final Map<String, List<Point>> points = new LinkedHashMap<>();
+
+    private CalibrationTable() {
+    }
+
+    /**
+     * Table vide (aucun moteur calibré).
+     */
+    public static CalibrationTable empty() {
+        return new CalibrationTable();
+    }
+
+    /**
+     * Lit une table au format CSV.
+     * @throws IllegalArgumentException si une ligne est mal formée
+     */
+    public static CalibrationTable load(InputStream in) throws IOException {
+        CalibrationTable table = new CalibrationTable();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line = reader.readLine(); // En-tête
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] cells = line.split(",");
+            if (cells.length != 4) {
+                throw new IllegalArgumentException("Ligne de calibration invalide : " + line);
+            }
+            table.points.computeIfAbsent(cells[0].trim(), k -> new ArrayList<>())
+                    .add(new Point(Integer.parseInt(cells[1].trim()), Integer.parseInt(cells[2].trim()),
+                            Long.parseLong(cells[3].trim())));
+        }
+        return table;
+    }
+
+    /**
+     * Plus grand nombre d'items mesuré pour un moteur (domaine de confiance de la calibration).
+     * @return le nombre d'items, ou -1 si le moteur n'est pas calibré
+     */
+    public int maxItems(String engine) {
+        int max = -1;
+        for (Point p : points.getOrDefault(engine, List.of())) {
+            max = Math.max(max, p.items());
+        }
+        return max;
+    }
+
+    /**
+     * Temps estimé d'un moteur : médiane du scénario mesuré le plus proche (items, puis sacs).
+     * @return l'estimation en nanosecondes, ou null si le moteur n'est pas calibré
+     */
+    public Long estimateNs(String engine, int items, int bags) {
+        Point nearest = null;
+        long nearestDistance = Long.MAX_VALUE;
+        for (Point p : points.getOrDefault(engine, List.of())) {
+            long distance = Math.abs((long) p.items() - items) * 1024 + Math.abs((long) p.bags() - bags);
+            if (distance < nearestDistance) {
+                nearest = p;
+                nearestDistance = distance;
+            }
+        }
+        return nearest == null ? null : nearest.medianNs();
+    }
+}
@@ -0,0 +1,39 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+/**
+ * Objectif de la répartition des lots dans les sacs.
+ */
+public enum DistributionObjective {
+
+    /* Première répartition valide trouvée (comportement historique) */
+    FIRST_FIT("first-fit"),
+
+    /* Répartition minimisant le taux de remplissage du sac le plus chargé (charge / capacité) */
+    BALANCED("balanced");
+
+    private final String name;
+
+    DistributionObjective(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Lit un objectif tel que passé en paramètre de requête.
+     * @param value nom de l'objectif (null ou vide : première répartition valide)
+     * @return l'objectif
+     * @throws IllegalArgumentException si l'objectif est inconnu
+     */
+    public static DistributionObjective parse(String value) {
+        if (value == null || value.isBlank()) {
+            return FIRST_FIT;
+        }
+        for (DistributionObjective objective : values()) {
+            if (objective.name.equalsIgnoreCase(value.trim())) {
+                return objective;
+            }
+        }
+        throw new IllegalArgumentException("Objectif de répartition inconnu : " + value);
+    }
+
+    public String getName() { return name; }
+}
@@ -0,0 +1,34 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+/**
+ * Moteurs et objectif demandés explicitement pour une optimisation.
+ * Une valeur null (ou "auto") laisse le choix au sélecteur.
+ * @param food nom du moteur de sélection de nourriture
+ * @param distribution nom du moteur de répartition dans les sacs
+ * @param objective objectif de la répartition (null : première répartition valide)
+ */
+public record EngineChoice(String food, String distribution, DistributionObjective objective) {
+
+    /* Nom réservé au choix automatique */
+    public static final String AUTO = "auto";
+
+    /* Aucun moteur imposé */
+    public static final EngineChoice AUTOMATIC = new EngineChoice(null, null);
+
+    public EngineChoice {
+        if (objective == null) {
+            objective = DistributionObjective.FIRST_FIT;
+        }
+    }
+
+    public EngineChoice(String food, String distribution) {
+        this(food, distribution, DistributionObjective.FIRST_FIT);
+    }
+
+    /**
+     * Indique si un nom de moteur laisse le choix au sélecteur.
+     */
+    public static boolean isAuto(String engine) {
+        return engine == null || engine.isBlank() || AUTO.equalsIgnoreCase(engine.trim());
+    }
+}
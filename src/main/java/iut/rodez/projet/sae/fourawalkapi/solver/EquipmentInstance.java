@@ -0,0 +1,55 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.EquipmentItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instance compilée du problème de couverture d'une catégorie d'équipement.
+ * Seules les données utiles au moteur (nombre de personnes couvertes par lot) sont copiées
+ * dans des tableaux primitifs, la solution est reconvertie en entités à la fin.
+ */
+public final class EquipmentInstance {
+
+    /* Équipements d'origine, dans l'ordre des tableaux */
+    private final List<EquipmentItem> items;
+
+    /* Nombre de personnes couvertes par chaque lot */
+    private final int[] nbItems;
+
+    private EquipmentInstance(List<EquipmentItem> items) {
+        this.items = items;
+        this.nbItems = new int[items.size()];
+        for (int i = 0; i < nbItems.length; i++) {
+            nbItems[i] = items.get(i).getNbItem();
+        }
+    }
+
+    /**
+     * Compile une liste d'équipements en instance de résolution.
+     * @param items équipements candidats (l'ordre est conservé)
+     * @return l'instance compilée
+     */
+    public static EquipmentInstance of(List<EquipmentItem> items) {
+        return new EquipmentInstance(new ArrayList<>(items));
+    }
+
+    /**
+     * Reconvertit une sélection d'index en entités, dans l'ordre de l'instance.
+     * @param selected sélection par index
+     * @return les équipements sélectionnés
+     */
+    public List<EquipmentItem> toEntities(boolean[] selected) {
+        List<EquipmentItem> selection = new ArrayList<>();
+        for (int i = 0; i < selected.length; i++) {
+            if (selected[i]) {
+                selection.add(items.get(i));
+            }
+        }
+        return selection;
+    }
+
+    public int size() { return nbItems.length; }
+    public int[] getNbItems() { return nbItems; }
+}
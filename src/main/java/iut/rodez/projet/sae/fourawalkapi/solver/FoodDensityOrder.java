@@ -0,0 +1,99 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import java.util.Arrays;
+
+/**
+ * Vue d'une {@link FoodInstance} triée par densité calorique décroissante (kcal par gramme, tri stable).
+ * Partagée par les moteurs de séparation et évaluation : elle porte les tableaux réordonnés,
+ * les sommes préfixes et la relaxation continue utilisée comme borne inférieure.
+ * Immuable une fois construite, elle peut être lue par plusieurs threads.
+ */
+public final class FoodDensityOrder {
+
+    /* Position de recherche → index de l'instance */
+    private final int[] order;
+
+    /* Données des aliments, dans l'ordre de recherche */
+    private final int[] kcals;
+    private final int[] masses;
+    private final int[] nbItems;
+    private final int[] labels;
+
+    /* Sommes préfixes des calories et des masses */
+    private final long[] kcalPrefix;
+    private final long[] massPrefix;
+
+    private FoodDensityOrder(FoodInstance instance) {
+        int n = instance.size();
+        double[] density = new double[n];
+        for (int i = 0; i < n; i++) {
+            int mass = instance.getMasses()[i];
+            density[i] = mass > 0 ? (double) instance.getKcals()[i] / mass : Double.MAX_VALUE;
+        }
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, (i1, i2) -> Double.compare(density[i2], density[i1]));
+
+        this.order = new int[n];
+        this.kcals = new int[n];
+        this.masses = new int[n];
+        this.nbItems = new int[n];
+        this.labels = new int[n];
+        this.kcalPrefix = new long[n + 1];
+        this.massPrefix = new long[n + 1];
+        for (int k = 0; k < n; k++) {
+            int i = boxed[k];
+            order[k] = i;
+            kcals[k] = instance.getKcals()[i];
+            masses[k] = instance.getMasses()[i];
+            nbItems[k] = instance.getNbItems()[i];
+            labels[k] = instance.getLabels()[i];
+            kcalPrefix[k + 1] = kcalPrefix[k] + kcals[k];
+            massPrefix[k + 1] = massPrefix[k] + masses[k];
+        }
+    }
+
+    /**
+     * Trie une instance par densité calorique décroissante.
+     * @param instance aliments compilés
+     * @return la vue triée
+     */
+    public static FoodDensityOrder of(FoodInstance instance) {
+        return new FoodDensityOrder(instance);
+    }
+
+    /**
+     * Relaxation continue : masse minimale pour couvrir le déficit calorique avec les items [from, n),
+     * le dernier item pouvant être fractionné.
+     * @return la masse minimale relâchée, ou +infini si les items restants ne suffisent pas
+     */
+    public double fractionalBound(int from, int currentKcal, int targetKcal) {
+        long deficit = (long) targetKcal - currentKcal;
+        if (deficit <= 0) return 0;
+        int n = kcals.length;
+        if (kcalPrefix[n] - kcalPrefix[from] < deficit) return Double.POSITIVE_INFINITY;
+
+        // Premier index j tel que les items [from, j] couvrent le déficit
+        long wanted = kcalPrefix[from] + deficit;
+        int lo = from + 1;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (kcalPrefix[mid] >= wanted) hi = mid;
+            else lo = mid + 1;
+        }
+        int last = lo - 1;
+        long fullMass = massPrefix[last] - massPrefix[from];
+        long missing = wanted - kcalPrefix[last];
+        return fullMass + (double) masses[last] * missing / kcals[last];
+    }
+
+    public int size() { return order.length; }
+    public int[] getOrder() { return order; }
+    public int[] getKcals() { return kcals; }
+    public int[] getMasses() { return masses; }
+    public int[] getNbItems() { return nbItems; }
+    public int[] getLabels() { return labels; }
+}
@@ -0,0 +1,138 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Empreinte canonique d'un problème de sélection de nourriture.
+ * Les lots sont triés dans un ordre canonique (identifiant, calories, masse, quantité, appellation)
+ * et les appellations renumérotées dans cet ordre : deux catalogues contenant les mêmes lots,
+ * quel que soit leur ordre, produisent la même empreinte pour un même objectif et un même plafond.
+ * L'égalité porte sur le contenu complet (pas seulement sur le hachage) : aucune collision possible.
+ * Une solution est stockée en positions canoniques puis reprojetée sur l'instance qui la réutilise.
+ */
+public final class FoodFingerprint {
+
+    /* Champs décrivant un lot dans le contenu canonique */
+    private static final int FIELDS_PER_ITEM = 5;
+
+    /* Position canonique → index de l'instance (hors égalité) */
+    private final int[] canonicalOrder;
+
+    /* Contenu canonique : objectif, plafond, taille puis (id, kcal, masse, quantité, appellation) par lot */
+    private final long[] content;
+
+    /* Hachage 64 bits du contenu */
+    private final long hash;
+
+    private FoodFingerprint(int[] canonicalOrder, long[] content) {
+        this.canonicalOrder = canonicalOrder;
+        this.content = content;
+        long h = 0xcbf29ce484222325L;
+        for (long value : content) {
+            h ^= value;
+            h *= 0x100000001b3L;
+            h ^= h >>> 29;
+        }
+        this.hash = h;
+    }
+
+    /**
+     * Calcule l'empreinte canonique d'un problème.
+     * @param instance aliments compilés
+     * @param targetKcal consommation à couvrir
+     * @param maxPerAppel plafond par appellation
+     * @return l'empreinte
+     */
+    public static FoodFingerprint of(FoodInstance instance, int targetKcal, int maxPerAppel) {
+        int n = instance.size();
+        long[] ids = instance.getIds();
+        int[] kcals = instance.getKcals();
+        int[] masses = instance.getMasses();
+        int[] nbItems = instance.getNbItems();
+        int[] labels = instance.getLabels();
+        String[] names = instance.getLabelNames();
+
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            boxed[i] = i;
+        }
+        Comparator<Integer> canonical = Comparator.<Integer>comparingLong(i -> ids[i])
+                .thenComparingInt(i -> kcals[i])
+                .thenComparingInt(i -> masses[i])
+                .thenComparingInt(i -> nbItems[i])
+                .thenComparing(i -> names[labels[i]], Comparator.nullsFirst(Comparator.naturalOrder()));
+        Arrays.sort(boxed, canonical);
+
+        int[] order = new int[n];
+        int[] canonicalLabel = new int[instance.getLabelCount()];
+        Arrays.fill(canonicalLabel, -1);
+        int nextLabel = 0;
+        long[] content = new long[3 + n * FIELDS_PER_ITEM];
+        content[0] = targetKcal;
+        content[1] = maxPerAppel;
+        content[2] = n;
+        for (int pos = 0; pos < n; pos++) {
+            int i = boxed[pos];
+            order[pos] = i;
+            if (canonicalLabel[labels[i]] < 0) {
+                canonicalLabel[labels[i]] = nextLabel++;
+            }
+            int base = 3 + pos * FIELDS_PER_ITEM;
+            content[base] = ids[i];
+            content[base + 1] = kcals[i];
+            content[base + 2] = masses[i];
+            content[base + 3] = nbItems[i];
+            content[base + 4] = canonicalLabel[labels[i]];
+        }
+        return new FoodFingerprint(order, content);
+    }
+
+    /**
+     * Convertit une sélection de l'instance en positions canoniques.
+     */
+    public int[] toCanonical(boolean[] selected) {
+        int count = 0;
+        for (boolean taken : selected) {
+            if (taken) count++;
+        }
+        int[] positions = new int[count];
+        int next = 0;
+        for (int pos = 0; pos < canonicalOrder.length; pos++) {
+            if (selected[canonicalOrder[pos]]) {
+                positions[next++] = pos;
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Reprojette des positions canoniques sur l'instance de cette empreinte.
+     */
+    public boolean[] fromCanonical(int[] positions) {
+        boolean[] selected = new boolean[canonicalOrder.length];
+        for (int pos : positions) {
+            selected[canonicalOrder[pos]] = true;
+        }
+        return selected;
+    }
+
+    /**
+     * @return le hachage 64 bits du contenu canonique
+     */
+    public long value() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FoodFingerprint other)) return false;
+        return hash == other.hash && Arrays.equals(content, other.content);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+}
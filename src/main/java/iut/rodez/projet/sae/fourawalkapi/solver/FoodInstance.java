@@ -0,0 +1,100 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.FoodProduct;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instance compilée du problème de sélection de nourriture.
+ * Les aliments sont copiés une seule fois dans des tableaux primitifs : les moteurs de résolution
+ * ne manipulent plus les entités JPA (pas d'appel virtuel, pas de boxing des appellations).
+ * La solution n'est reconvertie en entités qu'à la fin via {@link #toEntities(boolean[])}.
+ */
+public final class FoodInstance {
+
+    /* Aliments d'origine, dans l'ordre des tableaux */
+    private final List<FoodProduct> foods;
+
+    /* Apport calorique total de chaque lot */
+    private final int[] kcals;
+
+    /* Masse totale de chaque lot en grammes */
+    private final int[] masses;
+
+    /* Nombre d'unités de chaque lot */
+    private final int[] nbItems;
+
+    /* Appellation courante de chaque lot, numérotée de 0 à labelCount - 1 */
+    private final int[] labels;
+
+    /* Nombre d'appellations distinctes */
+    private final int labelCount;
+
+    /* Identifiant de chaque lot (-1 si non persisté) */
+    private final long[] ids;
+
+    /* Appellation courante de chaque numéro d'appellation */
+    private final String[] labelNames;
+
+    private FoodInstance(List<FoodProduct> foods) {
+        this.foods = foods;
+        int n = foods.size();
+        this.kcals = new int[n];
+        this.masses = new int[n];
+        this.nbItems = new int[n];
+        this.labels = new int[n];
+        this.ids = new long[n];
+
+        Map<String, Integer> labelIds = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            FoodProduct food = foods.get(i);
+            kcals[i] = food.getTotalKcals();
+            masses[i] = food.getTotalMasses();
+            nbItems[i] = food.getNbItem();
+            ids[i] = food.getId() == null ? -1L : food.getId();
+            labels[i] = labelIds.computeIfAbsent(food.getAppellationCourante(), l -> {
+                names.add(l);
+                return labelIds.size();
+            });
+        }
+        this.labelCount = labelIds.size();
+        this.labelNames = names.toArray(new String[0]);
+    }
+
+    /**
+     * Compile une liste d'aliments en instance de résolution.
+     * @param foods aliments candidats (l'ordre est conservé)
+     * @return l'instance compilée
+     */
+    public static FoodInstance of(List<FoodProduct> foods) {
+        return new FoodInstance(new ArrayList<>(foods));
+    }
+
+    /**
+     * Reconvertit une sélection d'index en entités, dans l'ordre de l'instance.
+     * @param selected sélection par index
+     * @return les aliments sélectionnés
+     */
+    public List<FoodProduct> toEntities(boolean[] selected) {
+        List<FoodProduct> selection = new ArrayList<>();
+        for (int i = 0; i < selected.length; i++) {
+            if (selected[i]) {
+                selection.add(foods.get(i));
+            }
+        }
+        return selection;
+    }
+
+    public int size() { return kcals.length; }
+    public int[] getKcals() { return kcals; }
+    public int[] getMasses() { return masses; }
+    public int[] getNbItems() { return nbItems; }
+    public int[] getLabels() { return labels; }
+    public int getLabelCount() { return labelCount; }
+    public long[] getIds() { return ids; }
+    public String[] getLabelNames() { return labelNames; }
+}
@@ -0,0 +1,159 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import java.util.Arrays;
+
+/**
+ * Arbre de recherche du moteur par séparation et évaluation de la nourriture, stocké en tableaux.
+ * Les nœuds ouverts vivent dans des tableaux primitifs recyclés (pile de cases libres) et sont
+ * ordonnés par un tas binaire d'identifiants trié sur la borne : aucune allocation par nœud.
+ * Les inclusions forment une chaîne partagée (parent, item) : un nœud n'en garde que la tête,
+ * ce qui remplace la copie des compteurs d'appellation à chaque branchement.
+ */
+public final class FoodSearchTree {
+
+    /* Chaîne vide (aucun aliment pris) */
+    public static final int EMPTY_CHAIN = -1;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /* Nœuds : tête de chaîne, prochain item à décider, calories, masse, borne */
+    private int[] chain = new int[INITIAL_CAPACITY];
+    private int[] index = new int[INITIAL_CAPACITY];
+    private int[] kcal = new int[INITIAL_CAPACITY];
+    private int[] mass = new int[INITIAL_CAPACITY];
+    private double[] bound = new double[INITIAL_CAPACITY];
+    private int nodeCount;
+
+    /* Cases de nœuds libérées, réutilisées en priorité */
+    private int[] free = new int[INITIAL_CAPACITY];
+    private int freeCount;
+
+    /* Tas binaire (minimum de borne en tête) */
+    private int[] heap = new int[INITIAL_CAPACITY];
+    private int heapSize;
+
+    /* Chaîne des inclusions : maillon parent et item pris */
+    private int[] linkParent = new int[INITIAL_CAPACITY];
+    private int[] linkItem = new int[INITIAL_CAPACITY];
+    private int linkCount;
+
+    /**
+     * Crée un nœud (dans une case libérée si possible).
+     * @return identifiant du nœud
+     */
+    public int newNode(int chainHead, int nextIndex, int nodeKcal, int nodeMass, double nodeBound) {
+        int id;
+        if (freeCount > 0) {
+            id = free[--freeCount];
+        } else {
+            if (nodeCount == chain.length) {
+                int capacity = chain.length * 2;
+                chain = Arrays.copyOf(chain, capacity);
+                index = Arrays.copyOf(index, capacity);
+                kcal = Arrays.copyOf(kcal, capacity);
+                mass = Arrays.copyOf(mass, capacity);
+                bound = Arrays.copyOf(bound, capacity);
+            }
+            id = nodeCount++;
+        }
+        chain[id] = chainHead;
+        index[id] = nextIndex;
+        kcal[id] = nodeKcal;
+        mass[id] = nodeMass;
+        bound[id] = nodeBound;
+        return id;
+    }
+
+    /**
+     * Libère la case d'un nœud sorti du tas. Sa chaîne reste valide.
+     */
+    public void release(int node) {
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, free.length * 2);
+        }
+        free[freeCount++] = node;
+    }
+
+    /**
+     * Ajoute un maillon d'inclusion à une chaîne.
+     * @return tête de la nouvelle chaîne
+     */
+    public int link(int parentChain, int item) {
+        if (linkCount == linkParent.length) {
+            linkParent = Arrays.copyOf(linkParent, linkCount * 2);
+            linkItem = Arrays.copyOf(linkItem, linkCount * 2);
+        }
+        linkParent[linkCount] = parentChain;
+        linkItem[linkCount] = item;
+        return linkCount++;
+    }
+
+    /**
+     * Quantité déjà prise pour une appellation, en remontant la chaîne.
+     */
+    public int countLabel(int chainHead, int label, int[] labels, int[] nbItems) {
+        int count = 0;
+        for (int c = chainHead; c != EMPTY_CHAIN; c = linkParent[c]) {
+            if (labels[linkItem[c]] == label) {
+                count += nbItems[linkItem[c]];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Marque les items d'une chaîne dans une sélection.
+     * @param order correspondance position de recherche → index de l'instance
+     */
+    public void markChain(int chainHead, int[] order, boolean[] selected) {
+        for (int c = chainHead; c != EMPTY_CHAIN; c = linkParent[c]) {
+            selected[order[linkItem[c]]] = true;
+        }
+    }
+
+    public void push(int node) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        int pos = heapSize++;
+        double key = bound[node];
+        while (pos > 0) {
+            int up = (pos - 1) >>> 1;
+            if (bound[heap[up]] <= key) break;
+            heap[pos] = heap[up];
+            pos = up;
+        }
+        heap[pos] = node;
+    }
+
+    public int poll() {
+        int top = heap[0];
+        int last = heap[--heapSize];
+        int pos = 0;
+        double key = bound[last];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && bound[heap[child + 1]] < bound[heap[child]]) child++;
+            if (bound[heap[child]] >= key) break;
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        if (heapSize > 0) heap[pos] = last;
+        return top;
+    }
+
+    /**
+     * Plus petite borne parmi les nœuds ouverts (borne inférieure globale de la recherche).
+     */
+    public double peekBound() {
+        return bound[heap[0]];
+    }
+
+    public boolean isEmpty() { return heapSize == 0; }
+    public int chain(int node) { return chain[node]; }
+    public int index(int node) { return index[node]; }
+    public int kcal(int node) { return kcal[node]; }
+    public int mass(int node) { return mass[node]; }
+    public double bound(int node) { return bound[node]; }
+}
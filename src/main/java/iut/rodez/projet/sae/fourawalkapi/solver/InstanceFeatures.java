@@ -0,0 +1,19 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+/**
+ * Caractéristiques d'une instance utilisées pour choisir un moteur de résolution.
+ * @param itemCount nombre d'items à sélectionner ou à répartir
+ * @param participantCount nombre de participants (plafond d'appellation, nombre de sacs)
+ * @param targetKcal objectif calorique (0 pour la répartition)
+ * @param ownerBoundItems items dont le propriétaire a un sac dans la répartition (vêtements et repos attribués)
+ */
+public record InstanceFeatures(int itemCount, int participantCount, int targetKcal, int ownerBoundItems) {
+
+    /**
+     * Items explorés librement par la recherche. Les items attachés à un propriétaire sont essayés d'abord
+     * dans son sac : tant que ce sac a la place, ils n'ouvrent aucune branche.
+     */
+    public int freeItems() {
+        return Math.max(0, itemCount - ownerBoundItems);
+    }
+}
@@ -0,0 +1,219 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+/**
+ * Recherche de la répartition la plus équilibrée : minimise max(charge / capacité) sur les sacs.
+ * Une première affectation est construite par heuristique (LPT : plus gros lot d'abord, dans le sac
+ * le moins rempli, puis passe d'amélioration par déplacements et échanges). La recherche dichotomique
+ * sur le taux de remplissage maximal autorisé, exprimé en dix-millièmes, la resserre ensuite :
+ * pour chaque taux, les capacités sont abaissées d'autant et un moteur de répartition exact sert
+ * d'oracle de faisabilité. Chaque sonde consomme le budget de la recherche : une sonde interrompue
+ * par l'épuisement du budget ne prouve rien, la recherche s'arrête et garde la meilleure affectation connue.
+ */
+public final class LoadBalancer {
+
+    /* Résolution du taux de remplissage (1 / 10 000) */
+    public static final int RATIO_SCALE = 10_000;
+
+    private LoadBalancer() {
+    }
+
+    /**
+     * Oracle de faisabilité : un moteur exact, dont l'échec sans épuisement du budget prouve l'impossibilité.
+     * Une heuristique ne peut pas servir d'oracle : son échec serait pris pour une preuve.
+     */
+    @FunctionalInterface
+    public interface Oracle {
+
+        /**
+         * @param instance instance compilée (capacités éventuellement abaissées)
+         * @param assignment rempli avec le sac de chaque lot en cas de succès
+         * @param budget budget consommé nœud par nœud ; la recherche s'arrête (échec) quand il est épuisé
+         * @return true si une affectation a été trouvée
+         */
+        boolean solve(PackingInstance instance, int[] assignment, SearchBudget budget);
+    }
+
+    /**
+     * Cherche l'affectation minimisant le taux de remplissage du sac le plus chargé.
+     * La faisabilité à pleine capacité est toujours tranchée (vue sans limite du budget, seule l'annulation
+     * l'arrête) ; seules les sondes de resserrement sont bornées par le budget.
+     * @param instance instance compilée (capacités réelles)
+     * @param oracle moteur exact
+     * @param budget budget de la recherche
+     * @return l'affectation la plus équilibrée trouvée, ou null si l'instance est infaisable à pleine capacité
+     * (ou si la recherche a été annulée avant d'en trouver une)
+     */
+    public static int[] minimizeMaxLoadRatio(PackingInstance instance, Oracle oracle, SearchBudget budget) {
+        int[] best = balanceGreedily(instance);
+        if (best == null) {
+            // L'heuristique a échoué : seul un moteur exact peut trancher
+            best = new int[instance.itemCount()];
+            if (!oracle.solve(instance, best, budget.withoutLimits())) {
+                return null;
+            }
+            improve(instance, best);
+        }
+
+        int[] capacities = instance.getCapacities();
+        int low = lowerBound(instance);
+        int high = maxRatio(instance, best);
+        int[] candidate = new int[instance.itemCount()];
+        int[] reduced = new int[capacities.length];
+
+        // Invariant : "high" est atteint par "best", aucun taux < "low" n'est faisable
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            for (int b = 0; b < capacities.length; b++) {
+                reduced[b] = (int) ((long) capacities[b] * mid / RATIO_SCALE);
+            }
+            if (oracle.solve(instance.withCapacities(reduced.clone()), candidate, budget)) {
+                int[] swap = best;
+                best = candidate;
+                candidate = swap;
+                high = Math.min(mid, maxRatio(instance, best));
+            } else if (budget.isExhausted() || budget.isCancelled()) {
+                // Sonde interrompue : la faisabilité de "mid" est inconnue
+                break;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Répartition équilibrée heuristique, sans retour sur trace : chaque lot, du plus lourd au plus léger
+     * (ordre de l'instance), va dans le sac où il laisse le plus faible taux de remplissage (à égalité,
+     * le sac de son propriétaire), puis une passe d'amélioration réduit le taux du sac le plus chargé.
+     * @param instance instance compilée, lots triés par poids décroissant
+     * @return l'affectation, ou null si un lot ne tient dans aucun sac (ce qui ne prouve pas l'impossibilité)
+     */
+    public static int[] balanceGreedily(PackingInstance instance) {
+        int[] capacities = instance.getCapacities();
+        int[] weights = instance.getWeights();
+        int[] preferredBags = instance.getPreferredBags();
+        long[] loads = new long[capacities.length];
+        int[] assignment = new int[weights.length];
+
+        for (int i = 0; i < weights.length; i++) {
+            int bag = -1;
+            int bestFill = Integer.MAX_VALUE;
+            for (int b = 0; b < capacities.length; b++) {
+                if (loads[b] + weights[i] > capacities[b]) continue;
+                int fill = fill(loads[b] + weights[i], capacities[b]);
+                if (fill < bestFill || (fill == bestFill && b == preferredBags[i])) {
+                    bag = b;
+                    bestFill = fill;
+                }
+            }
+            if (bag < 0) {
+                return null;
+            }
+            loads[bag] += weights[i];
+            assignment[i] = bag;
+        }
+        improve(instance, assignment);
+        return assignment;
+    }
+
+    /**
+     * Passe d'amélioration : déplace un lot du sac le plus rempli vers un autre sac, ou l'échange
+     * avec un lot plus léger, tant que le taux du sac le plus rempli diminue. Les lots rangés dans
+     * le sac de leur propriétaire ne sont pas déplacés.
+     */
+    private static void improve(PackingInstance instance, int[] assignment) {
+        int[] capacities = instance.getCapacities();
+        int[] weights = instance.getWeights();
+        int[] preferredBags = instance.getPreferredBags();
+        long[] loads = new long[capacities.length];
+        for (int i = 0; i < assignment.length; i++) {
+            loads[assignment[i]] += weights[i];
+        }
+
+        // Chaque passe réduit le taux du sac le plus rempli ; le nombre de passes reste borné par sécurité
+        int rounds = assignment.length * capacities.length;
+        boolean improved = true;
+        while (improved && rounds-- > 0) {
+            improved = false;
+            int top = 0;
+            for (int b = 1; b < capacities.length; b++) {
+                if (fill(loads[b], capacities[b]) > fill(loads[top], capacities[top])) top = b;
+            }
+            int topFill = fill(loads[top], capacities[top]);
+
+            for (int i = 0; i < assignment.length && !improved; i++) {
+                if (assignment[i] != top || preferredBags[i] == top) continue;
+                for (int b = 0; b < capacities.length && !improved; b++) {
+                    if (b == top) continue;
+                    // Déplacement du lot
+                    if (loads[b] + weights[i] <= capacities[b]
+                            && fill(loads[b] + weights[i], capacities[b]) < topFill) {
+                        loads[top] -= weights[i];
+                        loads[b] += weights[i];
+                        assignment[i] = b;
+                        improved = true;
+                        break;
+                    }
+                    // Échange avec un lot plus léger du sac b
+                    for (int j = 0; j < assignment.length; j++) {
+                        if (assignment[j] != b || weights[j] >= weights[i] || preferredBags[j] == b) continue;
+                        long topLoad = loads[top] - weights[i] + weights[j];
+                        long otherLoad = loads[b] - weights[j] + weights[i];
+                        if (otherLoad <= capacities[b] && fill(otherLoad, capacities[b]) < topFill
+                                && fill(topLoad, capacities[top]) < topFill) {
+                            loads[top] = topLoad;
+                            loads[b] = otherLoad;
+                            assignment[i] = b;
+                            assignment[j] = top;
+                            improved = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Taux de remplissage du sac le plus chargé d'une affectation (arrondi supérieur, en dix-millièmes).
+     */
+    public static int maxRatio(PackingInstance instance, int[] assignment) {
+        int[] capacities = instance.getCapacities();
+        long[] loads = new long[capacities.length];
+        for (int i = 0; i < assignment.length; i++) {
+            loads[assignment[i]] += instance.getWeights()[i];
+        }
+        int max = 0;
+        for (int b = 0; b < capacities.length; b++) {
+            max = Math.max(max, fill(loads[b], capacities[b]));
+        }
+        return max;
+    }
+
+    /* Aucun taux inférieur ne peut convenir : ni au poids total, ni au lot le plus lourd dans le plus grand sac */
+    private static int lowerBound(PackingInstance instance) {
+        long totalWeight = 0;
+        int heaviest = 0;
+        for (int weight : instance.getWeights()) {
+            totalWeight += weight;
+            heaviest = Math.max(heaviest, weight);
+        }
+        long totalCapacity = 0;
+        int largest = 0;
+        for (int capacity : instance.getCapacities()) {
+            totalCapacity += capacity;
+            largest = Math.max(largest, capacity);
+        }
+        if (totalCapacity == 0) return 0;
+        return Math.max(ratio(totalWeight, totalCapacity), ratio(heaviest, largest));
+    }
+
+    /* Taux de remplissage d'un sac (0 pour un sac vide, quelle que soit sa capacité) */
+    private static int fill(long load, int capacity) {
+        return load == 0 ? 0 : ratio(load, capacity);
+    }
+
+    private static int ratio(long load, long capacity) {
+        return (int) ((load * RATIO_SCALE + capacity - 1) / capacity);
+    }
+}
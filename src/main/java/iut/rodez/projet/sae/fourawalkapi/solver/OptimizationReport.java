@@ -0,0 +1,95 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Compte rendu d'une optimisation : moteurs exécutés, objectif de répartition et étapes chronométrées.
+ * Le pipeline y enregistre ses étapes successives via {@link #endStage(String, int)} ; les nœuds explorés
+ * et les branches coupées de chaque étape sont lus sur le budget de la recherche, qui reste seul juge
+ * des limites et de l'annulation.
+ * Un compte rendu est propre à un appel, comme son budget.
+ */
+public final class OptimizationReport {
+
+    private final SearchBudget budget;
+
+    /* Moteurs exécutés (nourriture, répartition) */
+    private volatile String foodEngine;
+    private volatile String distributionEngine;
+
+    /* Objectif de la répartition et taux de remplissage du sac le plus chargé */
+    private volatile String distributionObjective;
+    private volatile Double maxLoadRatio;
+
+    /* Étapes terminées du pipeline, dans l'ordre d'exécution, et début de l'étape en cours */
+    private final List<OptimizationStage> stages = new CopyOnWriteArrayList<>();
+    private long stageStartNanos;
+    private long stageStartNodes;
+    private long stageStartPrunes;
+
+    /**
+     * @param budget budget de la recherche dont les compteurs sont relevés à chaque étape
+     */
+    public OptimizationReport(SearchBudget budget) {
+        this.budget = budget;
+        beginStages();
+    }
+
+    /**
+     * Démarre le chronométrage des étapes (par défaut, la première étape démarre à la création du compte rendu,
+     * attente éventuelle dans une file d'exécution comprise).
+     */
+    public void beginStages() {
+        stageStartNanos = System.nanoTime();
+        stageStartNodes = budget.getNodes();
+        stageStartPrunes = budget.getPrunes();
+    }
+
+    /**
+     * Termine l'étape en cours : sa durée, les nœuds explorés et les branches coupées depuis son début
+     * sont enregistrés, puis l'étape suivante démarre aussitôt.
+     * @param name nom de l'étape
+     * @param items nombre d'éléments traités par l'étape
+     */
+    public void endStage(String name, int items) {
+        long now = System.nanoTime();
+        long nodes = budget.getNodes();
+        long prunes = budget.getPrunes();
+        stages.add(new OptimizationStage(name, now - stageStartNanos, items,
+                nodes - stageStartNodes, prunes - stageStartPrunes));
+        stageStartNanos = now;
+        stageStartNodes = nodes;
+        stageStartPrunes = prunes;
+    }
+
+    /**
+     * Enregistre le moteur de nourriture exécuté ("cache" si la solution a été réutilisée).
+     */
+    public void recordFoodEngine(String engine) {
+        this.foodEngine = engine;
+    }
+
+    /**
+     * Enregistre le moteur de répartition exécuté.
+     */
+    public void recordDistributionEngine(String engine) {
+        this.distributionEngine = engine;
+    }
+
+    /**
+     * Enregistre l'objectif de répartition appliqué et l'équilibre obtenu.
+     * @param objective nom de l'objectif ("first-fit", "balanced")
+     * @param ratio plus grand rapport charge / capacité parmi les sacs (null si aucun sac)
+     */
+    public void recordDistributionObjective(String objective, Double ratio) {
+        this.distributionObjective = objective;
+        this.maxLoadRatio = ratio;
+    }
+
+    public String getFoodEngine() { return foodEngine; }
+    public String getDistributionEngine() { return distributionEngine; }
+    public String getDistributionObjective() { return distributionObjective; }
+    public Double getMaxLoadRatio() { return maxLoadRatio; }
+    public List<OptimizationStage> getStages() { return List.copyOf(stages); }
+}
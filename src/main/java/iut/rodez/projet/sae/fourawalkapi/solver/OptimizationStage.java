@@ -0,0 +1,19 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+/**
+ * Étape terminée du pipeline d'optimisation d'une randonnée et son coût.
+ * @param name nom de l'étape (load, validate, select, prepare, flush, ownership, distribute, save)
+ * @param elapsedNanos durée de l'étape en nanosecondes
+ * @param items nombre d'éléments traités par l'étape
+ * @param nodes nœuds de recherche explorés pendant l'étape
+ * @param prunes branches coupées sans être explorées pendant l'étape
+ */
+public record OptimizationStage(String name, long elapsedNanos, int items, long nodes, long prunes) {
+
+    /**
+     * @return la durée de l'étape en millisecondes
+     */
+    public double elapsedMs() {
+        return elapsedNanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,97 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
+import iut.rodez.projet.sae.fourawalkapi.entity.BelongEquipment;
+import iut.rodez.projet.sae.fourawalkapi.entity.EquipmentItem;
+import iut.rodez.projet.sae.fourawalkapi.model.Item;
+import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index des propriétaires d'équipement d'une randonnée : identifiant d'équipement → index du sac
+ * de son propriétaire. Construit une seule fois par répartition à partir des liaisons d'appartenance
+ * déjà chargées, il est stocké en tableaux primitifs triés (recherche dichotomique) :
+ * la résolution d'un propriétaire ne fait plus aucune entrée/sortie.
+ * Seuls les vêtements et le matériel de repos sont rangés chez leur propriétaire.
+ */
+public final class OwnershipIndex {
+
+    private static final OwnershipIndex EMPTY = new OwnershipIndex(new long[0], new int[0]);
+
+    /* Identifiants d'équipement triés, et index du sac du propriétaire correspondant */
+    private final long[] equipmentIds;
+    private final int[] bags;
+
+    private OwnershipIndex(long[] equipmentIds, int[] bags) {
+        this.equipmentIds = equipmentIds;
+        this.bags = bags;
+    }
+
+    /**
+     * Index sans aucun propriétaire.
+     */
+    public static OwnershipIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Construit l'index.
+     * @param links liaisons d'appartenance de la randonnée
+     * @param backpacks sacs de la répartition (l'index de sac est la position dans cette liste)
+     * @return l'index ; les liaisons dont le participant n'a pas de sac sont ignorées
+     */
+    public static OwnershipIndex of(List<BelongEquipment> links, List<Backpack> backpacks) {
+        long[] keys = new long[links.size()];
+        int count = 0;
+        for (BelongEquipment link : links) {
+            if (link.getEquipment() == null || link.getEquipment().getId() == null || link.getParticipant() == null) {
+                continue;
+            }
+            int bag = indexOfOwner(backpacks, link.getParticipant().getId());
+            if (bag >= 0) {
+                // Clé composite (identifiant, sac) : à identifiant égal, le sac de plus petit index est retenu
+                keys[count++] = (link.getEquipment().getId() << 20) | bag;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+
+        long[] ids = new long[count];
+        int[] bagIndexes = new int[count];
+        int size = 0;
+        for (int k = 0; k < count; k++) {
+            long id = keys[k] >>> 20;
+            if (size > 0 && ids[size - 1] == id) continue;
+            ids[size] = id;
+            bagIndexes[size] = (int) (keys[k] & 0xFFFFF);
+            size++;
+        }
+        return new OwnershipIndex(Arrays.copyOf(ids, size), Arrays.copyOf(bagIndexes, size));
+    }
+
+    private static int indexOfOwner(List<Backpack> backpacks, Long participantId) {
+        if (participantId == null) return -1;
+        for (int b = 0; b < backpacks.size(); b++) {
+            Backpack backpack = backpacks.get(b);
+            if (backpack.getOwner() != null && participantId.equals(backpack.getOwner().getId())) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sac du propriétaire d'un lot.
+     * @return index du sac, -1 si le lot n'a pas de propriétaire ou n'est pas d'un type éligible
+     */
+    public int bagOf(Item item) {
+        if (!(item instanceof EquipmentItem equipment) || equipment.getId() == null) return -1;
+        TypeEquipment type = equipment.getType();
+        if (type != TypeEquipment.VETEMENT && type != TypeEquipment.REPOS) return -1;
+        int pos = Arrays.binarySearch(equipmentIds, equipment.getId());
+        return pos >= 0 ? bags[pos] : -1;
+    }
+
+    public int size() { return equipmentIds.length; }
+}
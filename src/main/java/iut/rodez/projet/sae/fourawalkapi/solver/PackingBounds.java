@@ -0,0 +1,155 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Bornes inférieures de la répartition, pour prouver une impossibilité sans parcourir l'arbre de recherche.
+ * <ul>
+ *     <li>Gros objets : des objets deux à deux incompatibles (leur somme dépasse le plus grand espace libre)
+ *     exigent chacun un sac distinct ; le k-ième plus lourd doit tenir dans le k-ième plus grand espace.</li>
+ *     <li>Borne de type L2 (Martello-Toth) par fonctions duales réalisables : pour un seuil e, dans un sac
+ *     d'espace c (avec e ≤ c / 2), un objet de plus de c - e compte pour c, un objet de moins de e compte
+ *     pour 0. Chaque objet compte pour sa plus petite valeur parmi les sacs où il tient : si la somme dépasse
+ *     l'espace libre total, aucune répartition n'existe. Les sacs de tailles différentes sont ainsi
+ *     pris en charge (chaque sac a sa propre fonction).</li>
+ * </ul>
+ * Une instance par recherche (tableaux de travail non partagés entre threads).
+ */
+public final class PackingBounds {
+
+    private final int[] weights;
+
+    /* Tableaux de travail : poids restants triés, espaces libres triés */
+    private final int[] remaining;
+    private final int[] spaces;
+
+    private PackingBounds(PackingInstance instance) {
+        this.weights = instance.getWeights();
+        this.remaining = new int[weights.length];
+        this.spaces = new int[instance.bagCount()];
+    }
+
+    public static PackingBounds of(PackingInstance instance) {
+        return new PackingBounds(instance);
+    }
+
+    /**
+     * Indique si les objets restants peuvent encore tenir dans l'espace libre des sacs (test nécessaire).
+     * @param from premier objet non placé
+     * @param capacities capacité de chaque sac
+     * @param loads charge courante de chaque sac
+     * @return false si une borne prouve l'impossibilité
+     */
+    public boolean canComplete(int from, int[] capacities, int[] loads) {
+        return reason(from, capacities, loads) == null;
+    }
+
+    /**
+     * Raison de l'impossibilité prouvée par les bornes.
+     * @param from premier objet non placé
+     * @param capacities capacité de chaque sac
+     * @param loads charge courante de chaque sac (null : sacs vides)
+     * @return la raison, ou null si aucune borne ne conclut
+     */
+    public String reason(int from, int[] capacities, int[] loads) {
+        int n = weights.length - from;
+        if (n <= 0) return null;
+        int m = spaces.length;
+        if (m == 0) return "aucun sac disponible";
+
+        // Objets restants triés par poids décroissant, espaces libres triés par taille décroissante
+        System.arraycopy(weights, from, remaining, 0, n);
+        Arrays.sort(remaining, 0, n);
+        reverse(remaining, n);
+        for (int b = 0; b < m; b++) {
+            spaces[b] = capacities[b] - (loads == null ? 0 : loads[b]);
+        }
+        Arrays.sort(spaces);
+        reverse(spaces, m);
+
+        String large = largeItemsReason(n, m);
+        if (large != null) return large;
+        return dualBoundReason(n, m);
+    }
+
+    /* Gros objets deux à deux incompatibles : appariement glouton (Hall) avec les plus grands espaces */
+    private String largeItemsReason(int n, int m) {
+        int largest = spaces[0];
+        if (remaining[0] > largest) {
+            return String.format(Locale.ROOT, "un objet de %.1f kg ne rentre dans aucun sac (plus grand espace : %.1f kg)",
+                    remaining[0] / 1000.0, largest / 1000.0);
+        }
+        // Préfixe des objets qui ne peuvent partager un sac avec aucun autre objet du préfixe
+        int k = 1;
+        while (k < n && remaining[k] + remaining[k - 1] > largest) {
+            k++;
+        }
+        for (int i = 0; i < k; i++) {
+            if (i >= m || remaining[i] > spaces[i]) {
+                int fitting = 0;
+                while (fitting < m && spaces[fitting] >= remaining[i]) {
+                    fitting++;
+                }
+                return String.format(Locale.ROOT,
+                        "%d objets d'au moins %.1f kg ne peuvent pas partager un sac, seuls %d sacs peuvent les accueillir",
+                        i + 1, remaining[i] / 1000.0, fitting);
+            }
+        }
+        return null;
+    }
+
+    /* Borne par fonctions duales réalisables, seuils pris parmi les poids restants */
+    private String dualBoundReason(int n, int m) {
+        long totalSpace = 0;
+        for (int b = 0; b < m; b++) {
+            totalSpace += Math.max(0, spaces[b]);
+        }
+        int previous = -1;
+        for (int t = n - 1; t >= 0; t--) {
+            int threshold = remaining[t];
+            if (threshold == previous || threshold == 0) continue;
+            previous = threshold;
+            if (2L * threshold > spaces[0]) break; // Seuils croissants : aucun sac ne l'admet plus
+
+            long bound = 0;
+            for (int i = 0; i < n && bound <= totalSpace; i++) {
+                bound += dualValue(remaining[i], threshold, m);
+            }
+            if (bound > totalSpace) {
+                return String.format(Locale.ROOT,
+                        "la borne de Martello-Toth (seuil %.1f kg) dépasse les %.1f kg d'espace libre",
+                        threshold / 1000.0, totalSpace / 1000.0);
+            }
+        }
+        return null;
+    }
+
+    /* Plus petite valeur duale d'un objet parmi les sacs où il tient */
+    private long dualValue(int weight, int threshold, int m) {
+        long best = Long.MAX_VALUE;
+        for (int b = 0; b < m && spaces[b] >= weight; b++) {
+            int space = spaces[b];
+            long value;
+            if (2L * threshold > space) {
+                value = weight; // Seuil non admissible pour ce sac : la fonction identité reste valide
+            } else if (weight > space - threshold) {
+                value = space;
+            } else if (weight < threshold) {
+                value = 0;
+            } else {
+                value = weight;
+            }
+            best = Math.min(best, value);
+        }
+        return best;
+    }
+
+    private static void reverse(int[] values, int length) {
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
+import iut.rodez.projet.sae.fourawalkapi.model.Item;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Instance compilée du problème de répartition (Bin Packing) des lots dans les sacs.
+ * Poids et capacités sont convertis en grammes entiers, le sac du propriétaire d'un lot
+ * est résolu une seule fois par lot et stocké comme index de sac (-1 si aucun).
+ * Les moteurs produisent une affectation lot → index de sac, appliquée aux entités
+ * uniquement à la fin via {@link #applyTo(int[])}.
+ * Un lot divisible de plusieurs unités (voir {@link Item#isDivisible()}) est découpé en lots d'une unité,
+ * que les moteurs peuvent ranger dans des sacs différents ; les lots sont alors retriés par poids décroissant.
+ */
+public final class PackingInstance {
+
+    /* Lot d'origine de chaque lot compilé, dans l'ordre des tableaux (répété pour un lot découpé) */
+    private final List<Item> items;
+
+    /* Unités du lot d'origine portées par chaque lot compilé */
+    private final int[] units;
+
+    /* Sacs d'origine, dans l'ordre des tableaux */
+    private final List<Backpack> backpacks;
+
+    /* Poids de chaque lot en grammes (masse unitaire × unités, arrondi supérieur) */
+    private final int[] weights;
+
+    /* Index du sac du propriétaire de chaque lot, -1 si aucun */
+    private final int[] preferredBags;
+
+    /* Capacité de chaque sac en grammes (arrondi inférieur) */
+    private final int[] capacities;
+
+    private PackingInstance(List<Item> items, List<Backpack> backpacks, ToIntFunction<Item> preferredBag) {
+        Lot[] lots = split(items);
+        this.items = Arrays.stream(lots).map(Lot::item).toList();
+        this.backpacks = backpacks;
+        this.units = new int[lots.length];
+        this.weights = new int[lots.length];
+        this.preferredBags = new int[lots.length];
+        this.capacities = new int[backpacks.size()];
+
+        for (int b = 0; b < capacities.length; b++) {
+            capacities[b] = (int) Math.floor(backpacks.get(b).getCapacityMaxKg() * 1000.0 + 1e-6);
+        }
+        for (int i = 0; i < weights.length; i++) {
+            Item item = lots[i].item();
+            units[i] = lots[i].units();
+            weights[i] = lots[i].weight();
+            preferredBags[i] = preferredBag.applyAsInt(item);
+        }
+    }
+
+    private PackingInstance(PackingInstance source, int[] capacities) {
+        this.items = source.items;
+        this.units = source.units;
+        this.backpacks = source.backpacks;
+        this.weights = source.weights;
+        this.preferredBags = source.preferredBags;
+        this.capacities = capacities;
+    }
+
+    /**
+     * Compile les lots et les sacs en instance de résolution.
+     * @param items lots à répartir (l'ordre est conservé)
+     * @param backpacks sacs disponibles (l'ordre est conservé)
+     * @param preferredOwner résolution du sac du propriétaire d'un lot (null si aucun)
+     * @return l'instance compilée
+     */
+    public static PackingInstance of(List<Item> items, List<Backpack> backpacks,
+                                     Function<Item, Backpack> preferredOwner) {
+        List<Backpack> bags = List.copyOf(backpacks);
+        return new PackingInstance(items, bags, item -> indexOfBackpack(bags, preferredOwner.apply(item)));
+    }
+
+    /**
+     * Compile les lots et les sacs en instance de résolution, les propriétaires étant lus dans un index préchargé.
+     * @param items lots à répartir (l'ordre est conservé)
+     * @param backpacks sacs disponibles (l'ordre est conservé, et doit être celui de l'index)
+     * @param ownership index des propriétaires construit sur ces sacs
+     * @return l'instance compilée
+     */
+    public static PackingInstance of(List<Item> items, List<Backpack> backpacks, OwnershipIndex ownership) {
+        return new PackingInstance(items, List.copyOf(backpacks), ownership::bagOf);
+    }
+
+    /**
+     * Même instance avec des capacités abaissées (recherche d'une répartition équilibrée).
+     * Lots, poids et sacs prioritaires sont partagés.
+     * @param reduced capacité de chaque sac en grammes, au plus sa capacité réelle
+     * @return l'instance restreinte
+     */
+    public PackingInstance withCapacities(int[] reduced) {
+        if (reduced.length != capacities.length) {
+            throw new IllegalArgumentException("Une capacité par sac est attendue");
+        }
+        return new PackingInstance(this, reduced);
+    }
+
+    /**
+     * Range chaque lot dans le sac qui lui a été affecté (les unités d'un lot découpé sont cumulées par sac).
+     * @param assignment index du sac de chaque lot
+     */
+    public void applyTo(int[] assignment) {
+        for (int i = 0; i < assignment.length; i++) {
+            backpacks.get(assignment[i]).addUnits(items.get(i), units[i]);
+        }
+    }
+
+    /**
+     * Découpe les lots divisibles en lots d'une unité. Sans découpe, l'ordre des lots est conservé ;
+     * sinon les lots sont retriés par poids décroissant (tri stable).
+     */
+    private static Lot[] split(List<Item> items) {
+        int count = 0;
+        for (Item item : items) {
+            count += isSplit(item) ? item.getNbItem() : 1;
+        }
+        Lot[] lots = new Lot[count];
+        int l = 0;
+        for (Item item : items) {
+            if (isSplit(item)) {
+                for (int u = 0; u < item.getNbItem(); u++) {
+                    lots[l++] = Lot.of(item, 1);
+                }
+            } else {
+                lots[l++] = Lot.of(item, item.getNbItem());
+            }
+        }
+        if (count > items.size()) {
+            Arrays.sort(lots, Comparator.comparingInt(Lot::weight).reversed());
+        }
+        return lots;
+    }
+
+    private static boolean isSplit(Item item) {
+        return item.isDivisible() && item.getNbItem() > 1;
+    }
+
+    /**
+     * Position d'un sac dans l'instance (comparaison par identité)
+     * @return index du sac, -1 s'il est absent ou null
+     */
+    private static int indexOfBackpack(List<Backpack> backpacks, Backpack backpack) {
+        if (backpack == null) return -1;
+        for (int b = 0; b < backpacks.size(); b++) {
+            if (backpacks.get(b) == backpack) return b;
+        }
+        return -1;
+    }
+
+    /**
+     * Lot d'origine d'un lot compilé
+     * @param lot index du lot compilé
+     */
+    public Item getItem(int lot) { return items.get(lot); }
+
+    public int itemCount() { return weights.length; }
+    public int bagCount() { return capacities.length; }
+    public int[] getWeights() { return weights; }
+    public int[] getPreferredBags() { return preferredBags; }
+    public int[] getCapacities() { return capacities; }
+    public int[] getUnits() { return units; }
+
+    /**
+     * Lot compilé : lot d'origine, unités portées et poids en grammes (arrondi supérieur)
+     */
+    private record Lot(Item item, int units, int weight) {
+        static Lot of(Item item, int units) {
+            return new Lot(item, units, (int) Math.ceil(item.getMasseGrammes() * units - 1e-6));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Élagage par symétrie et par dominance de la répartition, partagé par les moteurs V2 et V3.
+ * <ul>
+ *     <li>Sacs équivalents : deux sacs ayant le même espace libre sont interchangeables pour la suite,
+ *     seul le mieux classé est essayé (le sac du propriétaire du lot, puis le plus petit index).</li>
+ *     <li>Lots équivalents : deux lots de même poids et de même sac prioritaire sont interchangeables,
+ *     le second ne va jamais dans un sac mieux classé que celui du premier.</li>
+ *     <li>Table de transposition : une impasse est mémorisée sous la clé (prochain lot, multiensemble trié
+ *     des espaces libres) et n'est plus jamais réexplorée, quelle que soit l'affectation qui y mène.</li>
+ * </ul>
+ * Les deux règles de symétrie conservent, parmi les affectations symétriques, la plus petite dans l'ordre
+ * des rangs : une instance faisable le reste et la première solution trouvée respecte toujours l'ordre
+ * des sacs prioritaires. Une instance par répartition (non partagée entre threads).
+ */
+public final class PackingPruning {
+
+    /* Rang du sac prioritaire d'un lot, avant tous les index de sac */
+    private static final int PREFERRED_RANK = -1;
+
+    private final int[] capacities;
+    private final int[] preferredBags;
+
+    /* Lot équivalent le plus proche placé avant chaque lot, -1 si aucun */
+    private final int[] previousEquivalent;
+
+    /* true si aucun lot à partir de cet index n'est lié à un lot déjà placé (impasse mémorisable) */
+    private final boolean[] independentSuffix;
+
+    /* Table de transposition à adressage ouvert (clé : index du lot puis espaces libres triés) */
+    private final int maxEntries;
+    private int[][] table;
+    private int entries;
+    private final int[] scratch;
+
+    private PackingPruning(PackingInstance instance, int maxEntries) {
+        this.capacities = instance.getCapacities();
+        this.preferredBags = instance.getPreferredBags();
+        this.maxEntries = maxEntries;
+        this.scratch = new int[capacities.length + 1];
+
+        int n = instance.itemCount();
+        int[] weights = instance.getWeights();
+        this.previousEquivalent = new int[n];
+        Map<Long, Integer> lastOfClass = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Long key = ((long) weights[i] << 32) | (preferredBags[i] + 1);
+            Integer previous = lastOfClass.put(key, i);
+            previousEquivalent[i] = previous == null ? -1 : previous;
+        }
+
+        this.independentSuffix = new boolean[n + 1];
+        int oldestLink = Integer.MAX_VALUE;
+        independentSuffix[n] = true;
+        for (int i = n - 1; i >= 0; i--) {
+            if (previousEquivalent[i] >= 0) {
+                oldestLink = Math.min(oldestLink, previousEquivalent[i]);
+            }
+            independentSuffix[i] = oldestLink >= i;
+        }
+    }
+
+    /**
+     * Prépare l'élagage d'une instance.
+     * @param instance instance compilée
+     * @param maxEntries nombre maximal d'impasses mémorisées (0 : table de transposition désactivée)
+     * @return l'élagage, propre à une répartition
+     */
+    public static PackingPruning of(PackingInstance instance, int maxEntries) {
+        return new PackingPruning(instance, Math.max(0, maxEntries));
+    }
+
+    /**
+     * Indique si le lot peut être essayé dans ce sac sans doublonner une branche symétrique.
+     * @param bag sac candidat
+     * @param index lot à placer
+     * @param loads charge courante de chaque sac
+     * @param assignment sac affecté à chaque lot déjà placé
+     * @return false si une branche équivalente est (ou a été) explorée depuis un sac mieux classé
+     */
+    public boolean allows(int bag, int index, int[] loads, int[] assignment) {
+        int preferred = preferredBags[index];
+        int rank = rank(bag, preferred);
+
+        int previous = previousEquivalent[index];
+        if (previous >= 0 && rank < rank(assignment[previous], preferred)) {
+            return false;
+        }
+
+        int space = capacities[bag] - loads[bag];
+        for (int other = 0; other < capacities.length; other++) {
+            if (other != bag && capacities[other] - loads[other] == space && rank(other, preferred) < rank) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indique si l'état courant est une impasse déjà rencontrée.
+     * @param index prochain lot à placer
+     * @param loads charge courante de chaque sac
+     */
+    public boolean isDeadEnd(int index, int[] loads) {
+        if (table == null) return false;
+        fillKey(index, loads);
+        return table[slot(scratch)] != null;
+    }
+
+    /**
+     * Mémorise une impasse. Ignoré si la table est pleine ou désactivée, ou si des lots restants sont liés
+     * par équivalence à des lots déjà placés (l'échec ne vaudrait alors que sous cette contrainte).
+     * @param index prochain lot à placer
+     * @param loads charge courante de chaque sac
+     */
+    public void recordDeadEnd(int index, int[] loads) {
+        if (entries >= maxEntries || !independentSuffix[index]) return;
+        if (table == null) {
+            table = new int[Integer.highestOneBit(Math.max(16, maxEntries * 2 - 1)) << 1][];
+        }
+        fillKey(index, loads);
+        int slot = slot(scratch);
+        if (table[slot] == null) {
+            table[slot] = scratch.clone();
+            entries++;
+        }
+    }
+
+    /**
+     * @return nombre d'impasses mémorisées
+     */
+    public int size() {
+        return entries;
+    }
+
+    private static int rank(int bag, int preferred) {
+        return bag == preferred ? PREFERRED_RANK : bag;
+    }
+
+    /* Clé de l'état : index du lot puis espaces libres triés (tri par insertion, peu de sacs) */
+    private void fillKey(int index, int[] loads) {
+        scratch[0] = index;
+        for (int b = 0; b < capacities.length; b++) {
+            int space = capacities[b] - loads[b];
+            int pos = b + 1;
+            while (pos > 1 && scratch[pos - 1] > space) {
+                scratch[pos] = scratch[pos - 1];
+                pos--;
+            }
+            scratch[pos] = space;
+        }
+    }
+
+    /* Case de la clé, ou première case vide de sa séquence de sondage linéaire */
+    private int slot(int[] key) {
+        int mask = table.length - 1;
+        int slot = Arrays.hashCode(key) * 0x9E3779B9 >>> 1 & mask;
+        while (table[slot] != null && !Arrays.equals(table[slot], key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
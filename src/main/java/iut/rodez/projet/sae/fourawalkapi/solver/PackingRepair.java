@@ -0,0 +1,136 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Réparation incrémentale d'une répartition existante après une petite modification des lots.
+ * Les lots déjà rangés restent dans leur sac ; les lots disparus ont simplement quitté l'instance.
+ * Les nouveaux lots (du plus lourd au plus léger) vont dans le sac de leur propriétaire s'il y a la place,
+ * sinon dans le sac le moins rempli, sinon un lot déjà rangé est déplacé vers un autre sac pour leur
+ * faire de la place (mouvement local). Si un lot ne trouve toujours pas de place, la réparation échoue
+ * et l'appelant relance la recherche complète.
+ * Le coût dépend du nombre de lots à insérer, pas de la taille de l'arbre de recherche.
+ */
+public final class PackingRepair {
+
+    /* Lot sans sac (nouveau, ou retiré d'un sac devenu trop petit) */
+    public static final int UNASSIGNED = -1;
+
+    private PackingRepair() {
+    }
+
+    /**
+     * Répare une affectation.
+     * @param instance instance compilée des lots à ranger
+     * @param previous sac actuel de chaque lot, {@link #UNASSIGNED} s'il n'est rangé nulle part
+     * @return l'affectation réparée, ou null si l'insertion locale échoue
+     */
+    public static int[] repair(PackingInstance instance, int[] previous) {
+        int[] weights = instance.getWeights();
+        int[] capacities = instance.getCapacities();
+        int[] assignment = Arrays.copyOf(previous, previous.length);
+        long[] loads = new long[capacities.length];
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] != UNASSIGNED) {
+                loads[assignment[i]] += weights[i];
+            }
+        }
+
+        // Sacs devenus trop chargés (capacité ou quantités modifiées) : les lots les plus lourds sont ressortis
+        for (int b = 0; b < capacities.length; b++) {
+            while (loads[b] > capacities[b]) {
+                int heaviest = heaviestIn(b, assignment, weights);
+                assignment[heaviest] = UNASSIGNED;
+                loads[b] -= weights[heaviest];
+            }
+        }
+
+        // Insertion des lots sans sac, du plus lourd au plus léger
+        Integer[] pending = pendingByWeight(assignment, weights);
+        for (int i : pending) {
+            int bag = insertionBag(i, instance, loads);
+            if (bag == UNASSIGNED && !makeRoom(i, instance, assignment, loads)) {
+                return null;
+            }
+            if (bag != UNASSIGNED) {
+                assignment[i] = bag;
+                loads[bag] += weights[i];
+            }
+        }
+        return assignment;
+    }
+
+    /* Sac du propriétaire s'il a la place, sinon le sac offrant le plus d'espace libre suffisant */
+    private static int insertionBag(int i, PackingInstance instance, long[] loads) {
+        int weight = instance.getWeights()[i];
+        int[] capacities = instance.getCapacities();
+        int preferred = instance.getPreferredBags()[i];
+        if (preferred >= 0 && loads[preferred] + weight <= capacities[preferred]) {
+            return preferred;
+        }
+        int bag = UNASSIGNED;
+        long bestSpace = -1;
+        for (int b = 0; b < capacities.length; b++) {
+            long space = capacities[b] - loads[b];
+            if (space >= weight && space > bestSpace) {
+                bag = b;
+                bestSpace = space;
+            }
+        }
+        return bag;
+    }
+
+    /**
+     * Mouvement local : déplace un lot déjà rangé d'un sac vers un autre pour que le lot i tienne à sa place.
+     * Le lot déplacé est le plus léger qui libère assez d'espace, pour déranger le moins possible.
+     * @return true si le lot i a été rangé
+     */
+    private static boolean makeRoom(int i, PackingInstance instance, int[] assignment, long[] loads) {
+        int[] weights = instance.getWeights();
+        int[] capacities = instance.getCapacities();
+        int moved = UNASSIGNED;
+        int target = UNASSIGNED;
+        for (int j = 0; j < assignment.length; j++) {
+            int b = assignment[j];
+            if (b == UNASSIGNED || j == i) continue;
+            // Le lot j doit libérer assez d'espace dans son sac, et être plus léger que le meilleur candidat
+            if (loads[b] - weights[j] + weights[i] > capacities[b]) continue;
+            if (moved != UNASSIGNED && weights[j] >= weights[moved]) continue;
+            for (int c = 0; c < capacities.length; c++) {
+                if (c != b && loads[c] + weights[j] <= capacities[c]) {
+                    moved = j;
+                    target = c;
+                    break;
+                }
+            }
+        }
+        if (moved == UNASSIGNED) {
+            return false;
+        }
+        int bag = assignment[moved];
+        assignment[moved] = target;
+        loads[target] += weights[moved];
+        loads[bag] += weights[i] - weights[moved];
+        assignment[i] = bag;
+        return true;
+    }
+
+    private static int heaviestIn(int bag, int[] assignment, int[] weights) {
+        int heaviest = UNASSIGNED;
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] == bag && (heaviest == UNASSIGNED || weights[i] > weights[heaviest])) {
+                heaviest = i;
+            }
+        }
+        return heaviest;
+    }
+
+    private static Integer[] pendingByWeight(int[] assignment, int[] weights) {
+        return IntStream.range(0, assignment.length)
+                .filter(i -> assignment[i] == UNASSIGNED)
+                .boxed()
+                .sorted((i1, i2) -> Integer.compare(weights[i2], weights[i1]))
+                .toArray(Integer[]::new);
+    }
+}
@@ -0,0 +1,177 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Budget d'une recherche "à tout moment" (anytime) et bilan de cette recherche.
+ * Le moteur consomme le budget nœud par nœud via {@link #tick()} : dès que la limite de temps
+ * ou de nœuds est atteinte, que le budget est annulé ou que le thread est interrompu
+ * (requête HTTP abandonnée), il s'arrête et rend la meilleure solution connue.
+ * Les branches coupées sans être explorées sont comptées via {@link #prune()}.
+ * Le moteur enregistre ensuite son bilan (optimalité prouvée, masse retenue, borne inférieure)
+ * via {@link #record(boolean, Integer, Double)}.
+ * Un budget est propre à un appel : il n'est pas partagé entre requêtes, mais peut être consommé
+ * par plusieurs threads d'une même recherche parallèle. L'interruption d'un de ces threads (moteur perdant
+ * d'un portefeuille) n'arrête que lui : elle n'épuise pas le budget partagé.
+ */
+public final class SearchBudget {
+
+    /* L'horloge n'est consultée qu'une fois tous les 1024 nœuds */
+    private static final int CLOCK_CHECK_MASK = 1023;
+
+    /* Limites demandées (null : illimité) */
+    private final Long timeLimitMs;
+    private final Long nodeLimit;
+
+    private final long startNanos;
+    private final long deadlineNanos;
+    private final long maxNodes;
+
+    /* Budget dont celui-ci est une vue sans limite (null : budget racine) */
+    private final SearchBudget parent;
+
+    private final AtomicLong nodes;
+    private final AtomicLong prunes;
+    private volatile boolean exhausted;
+    private volatile boolean cancelled;
+
+    /* Bilan de la recherche */
+    private boolean optimal = true;
+    private Integer bestMass;
+    private Double lowerBound;
+
+    private SearchBudget(Long timeLimitMs, Long nodeLimit, SearchBudget parent) {
+        this.timeLimitMs = timeLimitMs;
+        this.nodeLimit = nodeLimit;
+        this.parent = parent;
+        this.nodes = parent == null ? new AtomicLong() : parent.nodes;
+        this.prunes = parent == null ? new AtomicLong() : parent.prunes;
+        this.startNanos = System.nanoTime();
+        this.deadlineNanos = timeLimitMs == null ? Long.MAX_VALUE : startNanos + timeLimitMs * 1_000_000L;
+        this.maxNodes = nodeLimit == null ? Long.MAX_VALUE : nodeLimit;
+    }
+
+    /**
+     * Budget sans limite (seule l'annulation ou l'interruption arrête la recherche).
+     */
+    public static SearchBudget unlimited() {
+        return new SearchBudget(null, null, null);
+    }
+
+    /**
+     * Budget borné en temps et/ou en nombre de nœuds. Le chronomètre démarre à la création.
+     * @param timeLimitMs durée maximale en millisecondes (null : illimitée)
+     * @param nodeLimit nombre maximal de nœuds explorés (null : illimité)
+     * @return le budget
+     * @throws IllegalArgumentException si une limite n'est pas strictement positive
+     */
+    public static SearchBudget of(Long timeLimitMs, Long nodeLimit) {
+        if (timeLimitMs != null && timeLimitMs <= 0) {
+            throw new IllegalArgumentException("Le budget de temps doit être strictement positif");
+        }
+        if (nodeLimit != null && nodeLimit <= 0) {
+            throw new IllegalArgumentException("Le budget de nœuds doit être strictement positif");
+        }
+        return new SearchBudget(timeLimitMs, nodeLimit, null);
+    }
+
+    /**
+     * Vue sans limite de ce budget, pour une recherche qui doit aboutir (première répartition valide) :
+     * ses nœuds et coupes sont comptés dans ce budget et son annulation l'arrête, mais ni le temps ni le nombre
+     * de nœuds déjà consommés ne l'interrompent.
+     * @return la vue sans limite
+     */
+    public SearchBudget withoutLimits() {
+        return new SearchBudget(null, null, this);
+    }
+
+    /**
+     * Consomme un nœud du budget.
+     * @return true si la recherche doit s'arrêter
+     */
+    public boolean tick() {
+        if (exhausted) {
+            return true;
+        }
+        long consumed = nodes.incrementAndGet();
+        if (consumed >= maxNodes || isCancelRequested()
+                || ((consumed & CLOCK_CHECK_MASK) == 0 && System.nanoTime() >= deadlineNanos)) {
+            exhausted = true;
+        }
+        return exhausted || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Consomme un lot de nœuds d'un coup (recherche parallèle : un seul accès partagé par lot).
+     * L'horloge est consultée à chaque lot.
+     * @param count nombre de nœuds explorés depuis le dernier appel
+     * @return true si la recherche doit s'arrêter
+     */
+    public boolean tick(long count) {
+        if (exhausted) {
+            return true;
+        }
+        if (nodes.addAndGet(count) >= maxNodes || isCancelRequested() || System.nanoTime() >= deadlineNanos) {
+            exhausted = true;
+        }
+        return exhausted || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Compte une branche coupée (borne, impasse) sans être explorée.
+     */
+    public void prune() {
+        prunes.incrementAndGet();
+    }
+
+    /**
+     * Annule la recherche (appelable depuis un autre thread).
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true si la recherche a été annulée ou si le thread courant est interrompu
+     */
+    public boolean isCancelled() {
+        return isCancelRequested() || Thread.currentThread().isInterrupted();
+    }
+
+    /* Annulation demandée sur ce budget ou sur celui dont il est la vue */
+    private boolean isCancelRequested() {
+        return cancelled || (parent != null && parent.isCancelRequested());
+    }
+
+    /**
+     * Enregistre le bilan d'une recherche.
+     * @param provedOptimal true si l'optimalité de la solution est prouvée
+     * @param mass masse de la solution retenue (null si aucune)
+     * @param bound meilleure borne inférieure connue sur la masse optimale (null si aucune solution)
+     */
+    public void record(boolean provedOptimal, Integer mass, Double bound) {
+        this.optimal = provedOptimal;
+        this.bestMass = mass;
+        this.lowerBound = bound;
+    }
+
+    /**
+     * Écart relatif entre la solution retenue et la borne inférieure (0 : optimalité prouvée).
+     * @return l'écart, ou null si aucune solution n'a été trouvée
+     */
+    public Double getGap() {
+        if (bestMass == null || lowerBound == null) return null;
+        if (bestMass == 0) return 0.0;
+        return Math.max(0.0, (bestMass - lowerBound) / bestMass);
+    }
+
+    public long getElapsedMs() { return (System.nanoTime() - startNanos) / 1_000_000L; }
+    public Long getTimeLimitMs() { return timeLimitMs; }
+    public Long getNodeLimit() { return nodeLimit; }
+    public long getNodes() { return nodes.get(); }
+    public long getPrunes() { return prunes.get(); }
+    public boolean isExhausted() { return exhausted; }
+    public boolean isOptimal() { return optimal; }
+    public Integer getBestMass() { return bestMass; }
+    public Double getLowerBound() { return lowerBound; }
+}
@@ -0,0 +1,41 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registre de moteurs de résolution indexés par nom (ordre d'enregistrement conservé).
+ * @param <S> type de moteur
+ */
+public final class StrategyRegistry<S> {
+
+    private final Map<String, S> strategies = new LinkedHashMap<>();
+
+    /**
+     * Enregistre un moteur.
+     * @throws IllegalStateException si le nom est déjà utilisé
+     */
+    public StrategyRegistry<S> register(String name, S strategy) {
+        if (strategies.putIfAbsent(name, strategy) != null) {
+            throw new IllegalStateException("Moteur déjà enregistré : " + name);
+        }
+        return this;
+    }
+
+    /**
+     * Moteur enregistré sous ce nom.
+     * @throws IllegalArgumentException si aucun moteur ne porte ce nom
+     */
+    public S get(String name) {
+        S strategy = strategies.get(name == null ? null : name.trim());
+        if (strategy == null) {
+            throw new IllegalArgumentException("Moteur inconnu : " + name + " (disponibles : " + strategies.keySet() + ")");
+        }
+        return strategy;
+    }
+
+    public boolean contains(String name) { return strategies.containsKey(name); }
+    public Set<String> names() { return Collections.unmodifiableSet(strategies.keySet()); }
+}
@@ -7,6 +7,7 @@ DROP TABLE IF EXISTS group_equipments;
 DROP TABLE IF EXISTS hike_food_products;
 DROP TABLE IF EXISTS hike_participants;
 DROP TABLE IF EXISTS backpack_equipment;
+DROP TABLE IF EXISTS backpack_food_units;
 DROP TABLE IF EXISTS backpack_food;
 DROP TABLE IF EXISTS backpacks;
 DROP TABLE IF EXISTS points_of_interest;
@@ -61,6 +62,7 @@ CREATE TABLE hikes (
                        depart_id BIGINT,
                        arrivee_id BIGINT,
                        is_optimize BOOLEAN,
+                       optimization_fingerprint BIGINT,
                        CONSTRAINT fk_hike_creator FOREIGN KEY (creator_id) REFERENCES users(id),
                        CONSTRAINT fk_hike_depart FOREIGN KEY (depart_id) REFERENCES points_of_interest(id),
                        CONSTRAINT fk_hike_arrivee FOREIGN KEY (arrivee_id) REFERENCES points_of_interest(id)
@@ -75,7 +77,8 @@ CREATE TABLE food_products (
                                conditionnement VARCHAR(255),
                                apport_nutritionnel_kcal DOUBLE NOT NULL,
                                prix_euro DOUBLE NOT NULL,
-                               nb_item INT DEFAULT 1 CHECK (nb_item >= 1 AND nb_item <= 3)
+                               nb_item INT DEFAULT 1 CHECK (nb_item >= 1 AND nb_item <= 3),
+                               divisible BOOLEAN NOT NULL DEFAULT TRUE
 );
 
 CREATE TABLE equipment_items (
@@ -111,6 +114,16 @@ CREATE TABLE backpack_food (
                                FOREIGN KEY (food_id) REFERENCES food_products(id) ON DELETE CASCADE
 );
 
+-- Unités portées par un sac quand un lot de nourriture est réparti sur plusieurs sacs
+CREATE TABLE backpack_food_units (
+                                     backpack_id BIGINT NOT NULL,
+                                     food_id BIGINT NOT NULL,
+                                     nb_units INT NOT NULL CHECK (nb_units >= 1),
+                                     PRIMARY KEY (backpack_id, food_id),
+                                     FOREIGN KEY (backpack_id) REFERENCES backpacks(id) ON DELETE CASCADE,
+                                     FOREIGN KEY (food_id) REFERENCES food_products(id) ON DELETE CASCADE
+);
+
 CREATE TABLE hike_participants (
                                    hike_id BIGINT NOT NULL,
                                    participant_id BIGINT NOT NULL,
@@ -4,6 +4,8 @@ import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -90,6 +92,42 @@ class BackpackTest {
         assertEquals(3.5, backpack.getTotalMassKg());
     }
 
+    /**
+     * Test l'alignement du sac sur une copie de travail : seules les différences sont reportées,
+     * dans les mêmes collections.
+     */
+    @Test
+    void syncContent_ShouldApplyOnlyDifferences() {
+        // Given: Un sac contenant une pomme (1kg) et une tente (2kg), et une copie de travail
+        // où la pomme est remplacée par une banane (0.5kg)
+        FoodProduct apple = mock(FoodProduct.class);
+        when(apple.getTotalMassesKg()).thenReturn(1.0);
+        FoodProduct banana = mock(FoodProduct.class);
+        when(banana.getTotalMassesKg()).thenReturn(0.5);
+        EquipmentItem tent = mock(EquipmentItem.class);
+        when(tent.getTotalMassesKg()).thenReturn(2.0);
+        backpack.addItem(apple);
+        backpack.addItem(tent);
+        var foodItems = backpack.getFoodItems();
+        var equipmentItems = backpack.getEquipmentItems();
+
+        Backpack working = backpack.workingCopy();
+        working.clearContent();
+        working.addItem(banana);
+        working.addItem(tent);
+
+        // When: Le sac est aligné sur la copie
+        backpack.syncContent(working);
+
+        // Then: Les collections d'origine portent le nouveau contenu et la masse est à jour
+        assertSame(foodItems, backpack.getFoodItems());
+        assertSame(equipmentItems, backpack.getEquipmentItems());
+        assertEquals(Set.of(banana), backpack.getFoodItems());
+        assertEquals(Set.of(tent), backpack.getEquipmentItems());
+        assertEquals(2.5, backpack.getTotalMassKg());
+        assertSame(mockOwner, working.getOwner());
+    }
+
     /**
      * Test le retrait d'un objet qui n'a jamais été ajouté au sac.
      */
@@ -136,4 +174,38 @@ class BackpackTest {
         // Then: Le résultat doit être négatif (-2000g)
         assertEquals(-2000.0, remaining);
     }
+
+    /**
+     * Test la tenue à jour incrémentale de la charge (ajouts, doublons, retraits, vidage).
+     */
+    @Test
+    void runningLoad_ShouldMatchFullRecomputation() {
+        // Given: Deux aliments (0.25kg et 1.2kg) et un équipement de 3kg
+        FoodProduct food = mock(FoodProduct.class);
+        when(food.getTotalMassesKg()).thenReturn(0.25);
+        FoodProduct other = mock(FoodProduct.class);
+        when(other.getTotalMassesKg()).thenReturn(1.2);
+        EquipmentItem tent = mock(EquipmentItem.class);
+        when(tent.getTotalMassesKg()).thenReturn(3.0);
+
+        // When: On ajoute tout (un aliment deux fois), puis on retire l'équipement
+        backpack.addItem(food);
+        backpack.addItem(other);
+        backpack.addItem(food);
+        backpack.addItem(tent);
+        backpack.removeItem(tent);
+
+        // Then: La charge courante vaut 1450g, identique au recalcul complet, et l'espace restant en découle
+        assertEquals(1450L, backpack.getLoadGrammes());
+        assertEquals(1450L, backpack.updateTotalMass());
+        assertEquals(8550.0, backpack.getSpaceRemainingGrammes());
+        assertTrue(backpack.canAddWeightGrammes(8550.0));
+        assertFalse(backpack.canAddWeightGrammes(8551.0));
+
+        // When: On vide le sac
+        backpack.clearContent();
+
+        // Then: La charge repart de zéro
+        assertEquals(0L, backpack.getLoadGrammes());
+    }
 }
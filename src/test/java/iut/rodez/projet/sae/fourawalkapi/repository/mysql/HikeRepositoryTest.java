@@ -0,0 +1,157 @@
+package iut.rodez.projet.sae.fourawalkapi.repository.mysql;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
+import iut.rodez.projet.sae.fourawalkapi.entity.EquipmentItem;
+import iut.rodez.projet.sae.fourawalkapi.entity.FoodProduct;
+import iut.rodez.projet.sae.fourawalkapi.entity.GroupEquipment;
+import iut.rodez.projet.sae.fourawalkapi.entity.Hike;
+import iut.rodez.projet.sae.fourawalkapi.entity.Participant;
+import iut.rodez.projet.sae.fourawalkapi.entity.PointOfInterest;
+import iut.rodez.projet.sae.fourawalkapi.entity.User;
+import iut.rodez.projet.sae.fourawalkapi.model.enums.Level;
+import iut.rodez.projet.sae.fourawalkapi.model.enums.Morphology;
+import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests du chargement de l'agrégat d'une randonnée pour l'optimisation.
+ * Compte les requêtes SQL émises (statistiques Hibernate) sur une base embarquée (H2),
+ * le schéma étant généré depuis les entités : le test s'exécute à chaque build.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class HikeRepositoryTest {
+
+    /* Valeur observée : requête principale, puis une par collection (items des groupes, catalogue,
+       points optionnels, nourriture, équipements et unités des sacs), quel que soit le nombre de sacs */
+    private static final long EXPECTED_QUERIES = 7;
+
+    /* Au-delà de 16 sacs, un chargement par lots de 16 ajouterait des requêtes */
+    private static final int LARGE_GROUP = 20;
+
+    @Autowired
+    private HikeRepository hikeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Vérifie que l'agrégat complet d'une randonnée à un participant est chargé en un nombre fixe de requêtes.
+     */
+    @Test
+    void findForOptimization_SoloHike_ShouldUseFixedQueryCount() {
+        // Given : Une randonnée à un participant dont le sac est rempli
+        Long hikeId = persistHike("solo", 1);
+
+        // When & Then : L'agrégat est chargé en un nombre fixe de requêtes
+        assertEquals(EXPECTED_QUERIES, loadAggregateQueryCount(hikeId));
+    }
+
+    /**
+     * Vérifie que le nombre de requêtes ne dépend pas du nombre de sacs, même au-delà d'un lot de 16.
+     */
+    @Test
+    void findForOptimization_LargeGroup_ShouldUseSameQueryCount() {
+        // Given : Une randonnée de 20 participants, chacun avec un sac rempli
+        Long hikeId = persistHike("groupe", LARGE_GROUP);
+
+        // When & Then : Autant de requêtes que pour un seul sac
+        assertEquals(EXPECTED_QUERIES, loadAggregateQueryCount(hikeId));
+    }
+
+    /* Charge la randonnée et parcourt tout ce que lit l'optimisation, puis rend le nombre de requêtes émises */
+    private long loadAggregateQueryCount(Long hikeId) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        Hike hike = hikeRepository.findForOptimization(hikeId).orElseThrow();
+        hike.getFoodCatalogue().size();
+        hike.getOptionalPoints().size();
+        for (GroupEquipment group : hike.getEquipmentGroups().values()) {
+            group.getItems().size();
+        }
+        for (Participant participant : hike.getParticipants()) {
+            Backpack backpack = participant.getBackpack();
+            if (backpack != null) {
+                backpack.getFoodItems().forEach(backpack::getFoodUnits);
+                backpack.getEquipmentItems().size();
+            }
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    /* Randonnée complète : points, catalogue, équipements groupés et participants dont les sacs
+       portent de la nourriture (dont une partie d'un lot divisible) et un équipement */
+    private Long persistHike(String libelle, int participantCount) {
+        User creator = new User("Doe", "John", libelle + "@mail.fr", "secret", "Rodez", 30,
+                Level.SPORTIF, Morphology.MOYENNE);
+        entityManager.persist(creator);
+
+        Hike hike = new Hike(libelle, new PointOfInterest("Départ", 44.35, 2.57, "Parking", 0),
+                new PointOfInterest("Arrivée", 44.40, 2.60, "Refuge", 1), 2, creator, true);
+        hike.getOptionalPoints().add(new PointOfInterest("Lac", 44.37, 2.58, "Pause", 2));
+
+        FoodProduct barres = new FoodProduct("Barre", 400.0, "Barre", "Sachet", 200.0, 1.0, 3);
+        FoodProduct pates = new FoodProduct("Pâtes", 500.0, "Pâtes", "Sachet", 1800.0, 2.0, 1);
+        EquipmentItem tente = new EquipmentItem("Tente", "2 places", 2000.0, 1, TypeEquipment.REPOS, 0.0);
+        EquipmentItem gourde = new EquipmentItem("Gourde", "1 L", 150.0, 1, TypeEquipment.EAU, 150.0);
+        entityManager.persist(barres);
+        entityManager.persist(pates);
+        entityManager.persist(tente);
+        entityManager.persist(gourde);
+        hike.addFood(barres);
+        hike.addFood(pates);
+        hike.addEquipment(tente);
+        hike.addEquipment(gourde);
+
+        for (int p = 0; p < participantCount; p++) {
+            Participant participant = new Participant("Marcheur " + p, "Doe", 30, Level.SPORTIF,
+                    Morphology.MOYENNE, p == 0, creator.getId(), 2500, 2.0, 15.0);
+            Backpack backpack = new Backpack(participant);
+            backpack.addUnits(barres, 1);
+            backpack.addItem(pates);
+            backpack.addItem(gourde);
+            participant.setBackpack(backpack);
+            entityManager.persist(participant);
+            hike.getParticipants().add(participant);
+        }
+        entityManager.persist(hike);
+        return hike.getId();
+    }
+
+    /**
+     * Configuration limitée à JPA (la base documentaire n'est pas démarrée).
+     */
+    @SpringBootConfiguration
+    @EnableJpaRepositories(basePackageClasses = HikeRepository.class)
+    @EntityScan(basePackageClasses = Hike.class)
+    static class JpaOnlyConfiguration {
+    }
+}
@@ -1,21 +1,23 @@
 package iut.rodez.projet.sae.fourawalkapi.service;
 
 import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
+import iut.rodez.projet.sae.fourawalkapi.entity.BelongEquipment;
 import iut.rodez.projet.sae.fourawalkapi.entity.EquipmentItem;
 import iut.rodez.projet.sae.fourawalkapi.entity.Participant;
 import iut.rodez.projet.sae.fourawalkapi.model.Item;
 import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
 import iut.rodez.projet.sae.fourawalkapi.repository.mysql.BelongEquipmentRepository;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Tests unitaires du BackpackDistributorService.
@@ -34,6 +36,7 @@ class BackpackDistributorServiceV2Test {
     void setUp() {
         backpackServiceMock = mock(BackpackService.class);
         distributorService = new BackpackDistributorServiceV2(backpackServiceMock);
+        when(backpackServiceMock.loadOwnershipIndex(anyList(), anyLong())).thenReturn(OwnershipIndex.empty());
         backpacks = new ArrayList<>();
         items = new ArrayList<>();
         idCounter = 1L; // Réinitialisation à chaque test
@@ -171,6 +174,26 @@ class BackpackDistributorServiceV2Test {
         assertTrue(ex.getMessage().contains("Répartition impossible"));
     }
 
+    /**
+     * Vérifie que les sacs interchangeables et les lots identiques ne sont explorés qu'une fois :
+     * une instance impossible mais symétrique échoue rapidement au lieu d'énumérer les permutations.
+     */
+    @Test
+    void distributeBatches_SymmetricInfeasible_ShouldFailQuickly() {
+        // Given : 12 sacs identiques de 1 kg et 23 gourdes de 510 g (une seule par sac, poids total suffisant)
+        for (int b = 0; b < 12; b++) {
+            backpacks.add(createTestBackpack("Porteur " + b, 1.0));
+        }
+        for (int i = 0; i < 23; i++) {
+            items.add(createEquipmentItem(510.0, 1, TypeEquipment.EAU));
+        }
+
+        // When & Then : L'échec est prouvé sans parcourir les 12! placements équivalents
+        RuntimeException ex = assertTimeoutPreemptively(Duration.ofSeconds(2), () -> assertThrows(RuntimeException.class,
+                () -> distributorService.distributeBatchesToBackpacks(items, backpacks, 1L)));
+        assertTrue(ex.getMessage().contains("Répartition impossible"));
+    }
+
     // ==========================================
     // NOUVEAU TEST : PRIORISATION DU PROPRIÉTAIRE
     // ==========================================
@@ -196,8 +219,8 @@ class BackpackDistributorServiceV2Test {
         veste.setId(99L);
         items.add(veste);
 
-        when(backpackServiceMock.getPreferredOwnerBackpack(veste, backpacks, 1L))
-                .thenReturn(bobBackpack);
+        when(backpackServiceMock.loadOwnershipIndex(backpacks, 1L))
+                .thenReturn(OwnershipIndex.of(List.of(new BelongEquipment(null, bobBackpack.getOwner(), veste)), backpacks));
 
         // When
         assertDoesNotThrow(() -> distributorService.distributeBatchesToBackpacks(items, backpacks, 1L));
@@ -207,6 +230,40 @@ class BackpackDistributorServiceV2Test {
         assertFalse(aliceBackpack.getEquipmentItems().contains(veste), "La veste ne doit pas être dans le sac d'Alice");
     }
 
+    /**
+     * Vérifie que les propriétaires sont chargés en une seule requête avant la recherche,
+     * et qu'aucune requête n'est émise pendant la résolution (backtracking compris).
+     */
+    @Test
+    void distributeBatches_OwnershipIndex_ShouldIssueSingleQuery() {
+        // Given : Un vrai BackpackService sur un repository simulé, 3 sacs et 6 vêtements dont 2 attribués
+        BelongEquipmentRepository repository = mock(BelongEquipmentRepository.class);
+        BackpackService backpackService = new BackpackService(repository);
+        BackpackDistributorServiceV2 distributor = new BackpackDistributorServiceV2(backpackService);
+        for (int b = 0; b < 3; b++) {
+            backpacks.add(createTestBackpack("Owner " + b, 3.0));
+        }
+        List<BelongEquipment> links = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            EquipmentItem clothing = (EquipmentItem) createEquipmentItem(900.0 + i * 10, 1, TypeEquipment.VETEMENT);
+            clothing.setId(200L + i);
+            items.add(clothing);
+            if (i < 2) {
+                links.add(new BelongEquipment(null, backpacks.get(2 - i).getOwner(), clothing));
+            }
+        }
+        when(repository.findByHikeId(1L)).thenReturn(links);
+
+        // When : La répartition est lancée
+        distributor.distributeBatchesToBackpacks(items, backpacks, 1L);
+
+        // Then : Une seule requête (le chargement de l'index), aucune requête unitaire
+        verify(repository, times(1)).findByHikeId(1L);
+        verifyNoMoreInteractions(repository);
+        assertTrue(backpacks.get(2).getEquipmentItems().contains(items.stream()
+                .filter(i -> i.getId() == 200L).findFirst().orElseThrow()));
+    }
+
     // ==========================================
     // UTILITAIRES DE TEST ADAPTÉS À L'ARCHITECTURE
     // ==========================================
@@ -1,10 +1,14 @@
 package iut.rodez.projet.sae.fourawalkapi.service;
 
 import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
+import iut.rodez.projet.sae.fourawalkapi.entity.BelongEquipment;
 import iut.rodez.projet.sae.fourawalkapi.entity.EquipmentItem;
+import iut.rodez.projet.sae.fourawalkapi.entity.FoodProduct;
 import iut.rodez.projet.sae.fourawalkapi.entity.Participant;
 import iut.rodez.projet.sae.fourawalkapi.model.Item;
 import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -13,6 +17,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -33,6 +39,7 @@ class BackpackDistributorServiceV3Test {
     void setUp() {
         backpackServiceMock = mock(BackpackService.class);
         distributorService = new BackpackDistributorServiceV3(backpackServiceMock);
+        when(backpackServiceMock.loadOwnershipIndex(anyList(), anyLong())).thenReturn(OwnershipIndex.empty());
         backpacks = new ArrayList<>();
         items = new ArrayList<>();
         idCounter = 1L; // Réinitialisation à chaque test
@@ -91,6 +98,28 @@ class BackpackDistributorServiceV3Test {
         assertDoesNotThrow(() -> distributorService.distributeBatchesToBackpacks(items, backpacks, 1L));
     }
 
+    /**
+     * Vérifie que la recherche consomme son budget nœud par nœud et compte les branches coupées.
+     */
+    @Test
+    void distributeBatches_Backtracking_ShouldCountNodesAndPrunes() {
+        // Given : 2 sacs de 10 kg et des lots de 5, 4, 4, 3, 2, 2 kg (remplissage exact,
+        // le premier rangement glouton bloque le dernier lot)
+        backpacks.add(createTestBackpack("Alice", 10.0));
+        backpacks.add(createTestBackpack("Bob", 10.0));
+        for (double masse : new double[]{5000.0, 4000.0, 4000.0, 3000.0, 2000.0, 2000.0}) {
+            items.add(createEquipmentItem(masse, 1, TypeEquipment.AUTRE));
+        }
+        SearchBudget budget = SearchBudget.unlimited();
+
+        // When : On lance la distribution
+        distributorService.distributeBatchesToBackpacks(items, backpacks, OwnershipIndex.empty(), budget);
+
+        // Then : Au moins un nœud par lot, et les impasses sont coupées
+        assertTrue(budget.getNodes() >= items.size());
+        assertTrue(budget.getPrunes() > 0);
+    }
+
     /**
      * Test de performance validant le mécanisme d'élagage (Pruning).
      * En soumettant beaucoup de petits objets, l'arbre de recherche potentiel est gigantesque.
@@ -199,6 +228,129 @@ class BackpackDistributorServiceV3Test {
         assertTrue(ex.getMessage().contains("Objets trop volumineux pour l'espace des sacs disponibles"));
     }
 
+    /**
+     * Vérifie que les sacs interchangeables et les lots identiques ne sont explorés qu'une fois :
+     * une instance impossible mais symétrique échoue rapidement au lieu d'énumérer les permutations.
+     */
+    @Test
+    void distributeBatches_SymmetricInfeasible_ShouldFailQuickly() {
+        // Given : 12 sacs identiques de 1 kg et 23 gourdes de 510 g (une seule par sac, poids total suffisant)
+        for (int b = 0; b < 12; b++) {
+            backpacks.add(createTestBackpack("Porteur " + b, 1.0));
+        }
+        for (int i = 0; i < 23; i++) {
+            items.add(createEquipmentItem(510.0, 1, TypeEquipment.EAU));
+        }
+
+        // When & Then : L'échec est prouvé sans parcourir les 12! placements équivalents
+        RuntimeException ex = assertTimeoutPreemptively(Duration.ofSeconds(2), () -> assertThrows(RuntimeException.class,
+                () -> distributorService.distributeBatchesToBackpacks(items, backpacks, 1L)));
+        assertTrue(ex.getMessage().contains("Objets trop volumineux pour l'espace des sacs disponibles"));
+    }
+
+    /**
+     * Vérifie que l'objectif équilibré minimise le remplissage du sac le plus chargé,
+     * là où le premier rangement (First-Fit) remplit le premier sac à ras bord.
+     */
+    @Test
+    void distributeBalanced_ShouldMinimizeHeaviestLoadRatio() {
+        // Given : 2 sacs de 10 kg et des objets de 4, 3, 3 et 2 kg
+        Backpack first = createTestBackpack("Porteur 1", 10.0);
+        Backpack second = createTestBackpack("Porteur 2", 10.0);
+        backpacks.add(first);
+        backpacks.add(second);
+        for (double masse : new double[]{4000.0, 3000.0, 3000.0, 2000.0}) {
+            items.add(createEquipmentItem(masse, 1, TypeEquipment.EAU));
+        }
+
+        // When : Premier rangement, puis répartition équilibrée
+        distributorService.distributeBatchesToBackpacks(new ArrayList<>(items), backpacks, OwnershipIndex.empty(),
+                SearchBudget.unlimited());
+        double firstFitHeaviest = Math.max(first.getTotalMassKg(), second.getTotalMassKg());
+        distributorService.distributeBalanced(new ArrayList<>(items), backpacks, OwnershipIndex.empty(),
+                SearchBudget.unlimited());
+
+        // Then : Le First-Fit charge un sac à 10 kg, l'équilibrage répartit 6 kg / 6 kg
+        assertEquals(10.0, firstFitHeaviest);
+        assertEquals(6.0, first.getTotalMassKg());
+        assertEquals(6.0, second.getTotalMassKg());
+    }
+
+    /**
+     * Vérifie que des objets deux à deux incompatibles (chacun plus lourd que la moitié de tout sac)
+     * sont rejetés à la racine avec la raison de l'impossibilité.
+     */
+    @Test
+    void distributeBatches_LargeItemsBound_ShouldThrowWithReason() {
+        // Given : 2 sacs de 5 kg et 3 objets de 3 kg (9 kg pour 10 kg de capacité, mais 2 objets par sac impossibles)
+        backpacks.add(createTestBackpack("Porteur 1", 5.0));
+        backpacks.add(createTestBackpack("Porteur 2", 5.0));
+        for (int i = 0; i < 3; i++) {
+            items.add(createEquipmentItem(3000.0, 1, TypeEquipment.EAU));
+        }
+
+        // When & Then : L'impossibilité est prouvée par le décompte des gros objets
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> distributorService.distributeBatchesToBackpacks(items, backpacks, 1L));
+        assertTrue(ex.getMessage().contains("Objets trop volumineux pour l'espace des sacs disponibles"));
+        assertTrue(ex.getMessage().contains("3 objets d'au moins 3.0 kg ne peuvent pas partager un sac"));
+    }
+
+    /**
+     * Vérifie qu'un lot de nourriture divisible est réparti par unités sur plusieurs sacs
+     * alors que le même lot, rangé d'un seul bloc, ne tient dans aucun sac.
+     */
+    @Test
+    void distributeBatches_DivisibleLot_ShouldSplitUnitsAcrossBackpacks() {
+        // Given : 2 sacs de 1 kg et un lot de 3 rations de 500 g (1,5 kg)
+        backpacks.add(createTestBackpack("Alice", 1.0));
+        backpacks.add(createTestBackpack("Bob", 1.0));
+        FoodProduct rations = new FoodProduct("Ration", 500.0, "Ration", "Sachet", 600.0, 3.0, 3);
+        rations.setDivisible(false);
+        items.add(rations);
+
+        // When & Then : Indivisible, le lot dépasse tout sac
+        assertThrows(RuntimeException.class,
+                () -> distributorService.distributeBatchesToBackpacks(new ArrayList<>(items), backpacks, 1L));
+
+        // When : Le lot devient divisible
+        rations.setDivisible(true);
+        assertDoesNotThrow(() -> distributorService.distributeBatchesToBackpacks(new ArrayList<>(items), backpacks, 1L));
+
+        // Then : Les 3 unités sont réparties (2 + 1) sans dépasser les capacités
+        int units = 0;
+        for (Backpack backpack : backpacks) {
+            assertTrue(backpack.getSpaceRemainingGrammes() >= 0);
+            if (backpack.getFoodItems().contains(rations)) {
+                units += backpack.getFoodUnits(rations);
+            }
+        }
+        assertEquals(3, units);
+    }
+
+    /**
+     * Vérifie que la borne L2 (Martello-Toth) détecte une impossibilité que le poids total
+     * et le décompte des gros objets laissent passer.
+     */
+    @Test
+    void distributeBatches_L2Bound_ShouldThrowWithReason() {
+        // Given : 3 sacs de 10 kg, 2 objets de 8 kg et 4 objets de 3 kg (28 kg pour 30 kg de capacité)
+        // Les objets de 3 kg ne peuvent accompagner un objet de 8 kg : au plus 3 tiennent dans le dernier sac
+        for (int b = 0; b < 3; b++) {
+            backpacks.add(createTestBackpack("Porteur " + b, 10.0));
+        }
+        items.add(createEquipmentItem(8000.0, 1, TypeEquipment.EAU));
+        items.add(createEquipmentItem(8000.0, 1, TypeEquipment.EAU));
+        for (int i = 0; i < 4; i++) {
+            items.add(createEquipmentItem(3000.0, 1, TypeEquipment.EAU));
+        }
+
+        // When & Then : La borne L2 conclut sans recherche
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> distributorService.distributeBatchesToBackpacks(items, backpacks, 1L));
+        assertTrue(ex.getMessage().contains("la borne de Martello-Toth (seuil 3.0 kg)"));
+    }
+
     // ==========================================
     // NOUVEAU TEST : PRIORISATION DU PROPRIÉTAIRE
     // ==========================================
@@ -225,8 +377,8 @@ class BackpackDistributorServiceV3Test {
         veste.setId(99L);
         items.add(veste);
 
-        when(backpackServiceMock.getPreferredOwnerBackpack(veste, backpacks, 1L))
-                .thenReturn(bobBackpack);
+        when(backpackServiceMock.loadOwnershipIndex(backpacks, 1L))
+                .thenReturn(OwnershipIndex.of(List.of(new BelongEquipment(null, bobBackpack.getOwner(), veste)), backpacks));
 
         // When
         assertDoesNotThrow(() -> distributorService.distributeBatchesToBackpacks(items, backpacks, 1L));
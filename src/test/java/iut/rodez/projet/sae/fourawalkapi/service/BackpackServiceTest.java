@@ -1,14 +1,18 @@
 package iut.rodez.projet.sae.fourawalkapi.service;
 
 import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
+import iut.rodez.projet.sae.fourawalkapi.entity.BelongEquipment;
 import iut.rodez.projet.sae.fourawalkapi.entity.EquipmentItem;
 import iut.rodez.projet.sae.fourawalkapi.entity.FoodProduct;
 import iut.rodez.projet.sae.fourawalkapi.entity.Participant;
+import iut.rodez.projet.sae.fourawalkapi.model.Item;
 import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
 import iut.rodez.projet.sae.fourawalkapi.repository.mysql.BelongEquipmentRepository;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,8 +20,8 @@ import static org.mockito.Mockito.*;
 
 /**
  * Classe de test pour BackpackService.
- * Vérifie l'attribution logique des sacs à dos en fonction du type d'équipement
- * (restriction aux vêtements et au matériel de repos) et du propriétaire assigné.
+ * Vérifie le rattachement des équipements au sac de leur propriétaire (restreint aux vêtements
+ * et au matériel de repos) et la réparation incrémentale d'une répartition.
  */
 class BackpackServiceTest {
 
@@ -57,121 +61,124 @@ class BackpackServiceTest {
     }
 
     // ==========================================
-    // TESTS : SUCCÈS (RECHERCHE FRUCTUEUSE)
+    // TESTS : INDEX DES PROPRIÉTAIRES
     // ==========================================
 
     /**
-     * Teste que la méthode retourne bien le sac du propriétaire si l'équipement
-     * est un vêtement et qu'il est correctement assigné.
+     * Teste le chargement de l'index des propriétaires : une requête, puis des lectures sans I/O
+     * limitées aux vêtements et au matériel de repos.
      */
     @Test
-    void getPreferredOwnerBackpack_Success_WithVetement() {
-        // Given : Un équipement de type VÊTEMENT et un propriétaire connu
+    void loadOwnershipIndex_ShouldResolveOwnersWithoutFurtherQueries() {
+        // Given : Un vêtement et un réchaud attribués au propriétaire, et un aliment
         mockEquipment.setType(TypeEquipment.VETEMENT);
-        when(belongEquipmentRepository.getIfExistParticipantForEquipmentAndHike(HIKE_ID, mockEquipment.getId()))
-                .thenReturn(OWNER_ID);
-
-        // When : On demande à trouver le sac préférentiel
-        Backpack result = backpackService.getPreferredOwnerBackpack(mockEquipment, backpacks, HIKE_ID);
-
-        // Then : Le sac du propriétaire est renvoyé
-        assertNotNull(result);
-        assertEquals(targetBackpack, result);
-        verify(belongEquipmentRepository).getIfExistParticipantForEquipmentAndHike(HIKE_ID, mockEquipment.getId());
-    }
-
-    /**
-     * Teste que la méthode retourne bien le sac du propriétaire si l'équipement
-     * est du matériel de repos et qu'il est correctement assigné.
-     */
-    @Test
-    void getPreferredOwnerBackpack_Success_WithRepos() {
-        // Given : Un équipement de type REPOS et un propriétaire connu
-        mockEquipment.setType(TypeEquipment.REPOS);
-        when(belongEquipmentRepository.getIfExistParticipantForEquipmentAndHike(HIKE_ID, mockEquipment.getId()))
-                .thenReturn(OWNER_ID);
-
-        // When : On demande à trouver le sac préférentiel
-        Backpack result = backpackService.getPreferredOwnerBackpack(mockEquipment, backpacks, HIKE_ID);
-
-        // Then : Le sac du propriétaire est renvoyé
-        assertNotNull(result);
-        assertEquals(targetBackpack, result);
-        verify(belongEquipmentRepository).getIfExistParticipantForEquipmentAndHike(HIKE_ID, mockEquipment.getId());
+        EquipmentItem stove = new EquipmentItem();
+        stove.setId(501L);
+        stove.setType(TypeEquipment.AUTRE);
+        Participant owner = targetBackpack.getOwner();
+        when(belongEquipmentRepository.findByHikeId(HIKE_ID)).thenReturn(List.of(
+                new BelongEquipment(null, owner, mockEquipment), new BelongEquipment(null, owner, stove)));
+
+        // When : L'index est chargé puis interrogé
+        OwnershipIndex index = backpackService.loadOwnershipIndex(backpacks, HIKE_ID);
+
+        // Then : Seul le vêtement est rattaché au sac du propriétaire (position 1), en une seule requête
+        assertEquals(1, index.bagOf(mockEquipment));
+        assertEquals(-1, index.bagOf(stove));
+        assertEquals(-1, index.bagOf(new FoodProduct()));
+        verify(belongEquipmentRepository, times(1)).findByHikeId(HIKE_ID);
+        verifyNoMoreInteractions(belongEquipmentRepository);
     }
 
     // ==========================================
-    // TESTS : ÉCHECS ET CAS AUX LIMITES
+    // TESTS : RÉPARATION DE LA RÉPARTITION
     // ==========================================
 
     /**
-     * Teste que l'algorithme ignore les équipements dont le type (ex: EAU)
-     * n'est pas censé forcer une appartenance stricte à un sac.
+     * Teste la réparation incrémentale : les objets déjà rangés restent dans leur sac,
+     * le nouvel objet est inséré dans le sac le moins chargé.
      */
     @Test
-    void getPreferredOwnerBackpack_WrongType_ReturnsNull() {
-        // Given : Un équipement dont le type EAU ne nécessite pas le sac de son propriétaire
-        mockEquipment.setType(TypeEquipment.EAU);
-
-        // When : On tente de lui attribuer un sac préférentiel
-        Backpack result = backpackService.getPreferredOwnerBackpack(mockEquipment, backpacks, HIKE_ID);
-
-        // Then : La méthode retourne null (aucun sac préférentiel défini)
-        assertNull(result);
-
-        // Sécurité/Optimisation : la base de données ne doit même pas être interrogée
-        verify(belongEquipmentRepository, never()).getIfExistParticipantForEquipmentAndHike(anyLong(), anyLong());
+    void repairDistribution_NewItem_ShouldKeepExistingPlacement() {
+        // Given : Deux sacs de 10 kg, un objet de 4 kg déjà rangé dans le second
+        List<Backpack> bags = List.of(createBackpack(10.0), createBackpack(10.0));
+        EquipmentItem packed = createItem(4000.0);
+        EquipmentItem added = createItem(3000.0);
+        bags.get(1).addItem(packed);
+
+        // When : On répare la répartition après l'ajout d'un objet de 3 kg
+        boolean repaired = backpackService.repairDistribution(
+                new ArrayList<>(List.<Item>of(packed, added)), bags, OwnershipIndex.empty());
+
+        // Then : L'objet existant n'a pas bougé, le nouveau est dans le premier sac
+        assertTrue(repaired);
+        assertTrue(bags.get(1).getEquipmentItems().contains(packed));
+        assertTrue(bags.get(0).getEquipmentItems().contains(added));
     }
 
     /**
-     * Teste le cas où l'item fourni n'est pas un équipement (ex: c'est un FoodProduct direct).
+     * Teste le mouvement local : aucun sac n'a la place pour le nouvel objet,
+     * un objet déjà rangé change de sac pour lui faire de la place.
      */
     @Test
-    void getPreferredOwnerBackpack_NotAnEquipmentItem_ReturnsNull() {
-        // Given : Un objet de type FoodProduct, qui n'est pas un EquipmentItem
-        FoodProduct foodItem = new FoodProduct();
-        foodItem.setId(300L);
-
-        // When : On demande un sac préférentiel pour cet item
-        Backpack result = backpackService.getPreferredOwnerBackpack(foodItem, backpacks, HIKE_ID);
-
-        // Then : La méthode retourne null sans faire d'appel au repo
-        assertNull(result);
-        verify(belongEquipmentRepository, never()).getIfExistParticipantForEquipmentAndHike(anyLong(), anyLong());
+    void repairDistribution_NoRoom_ShouldMoveOneItem() {
+        // Given : Sac A (3 kg + 4 kg) et sac B (6 kg), tous deux de 10 kg
+        List<Backpack> bags = List.of(createBackpack(10.0), createBackpack(10.0));
+        EquipmentItem small = createItem(3000.0);
+        EquipmentItem medium = createItem(4000.0);
+        EquipmentItem large = createItem(6000.0);
+        EquipmentItem added = createItem(5000.0);
+        bags.get(0).addItem(small);
+        bags.get(0).addItem(medium);
+        bags.get(1).addItem(large);
+
+        // When : On ajoute un objet de 5 kg (3 et 4 kg d'espace libre)
+        boolean repaired = backpackService.repairDistribution(
+                new ArrayList<>(List.<Item>of(small, medium, large, added)), bags, OwnershipIndex.empty());
+
+        // Then : L'objet de 3 kg passe dans le sac B, le nouveau prend sa place
+        assertTrue(repaired);
+        assertTrue(bags.get(0).getEquipmentItems().containsAll(List.of(medium, added)));
+        assertTrue(bags.get(1).getEquipmentItems().containsAll(List.of(large, small)));
+        assertTrue(bags.stream().allMatch(bag -> bag.getSpaceRemainingGrammes() >= 0));
     }
 
     /**
-     * Teste le comportement si un équipement éligible n'a pas encore de propriétaire assigné en BDD.
+     * Teste les cas où la réparation laisse la main à la recherche complète :
+     * aucune répartition existante, ou insertion locale impossible.
      */
     @Test
-    void getPreferredOwnerBackpack_NoOwnerAssigned_ReturnsNull() {
-        // Given : Un vêtement, mais qui n'a pas de propriétaire en base
-        mockEquipment.setType(TypeEquipment.VETEMENT);
-        when(belongEquipmentRepository.getIfExistParticipantForEquipmentAndHike(HIKE_ID, mockEquipment.getId()))
-                .thenReturn(null);
-
-        // When : On recherche son sac
-        Backpack result = backpackService.getPreferredOwnerBackpack(mockEquipment, backpacks, HIKE_ID);
-
-        // Then : Impossible de trouver un sac, retour de null
-        assertNull(result);
+    void repairDistribution_NothingPackedOrNoLocalMove_ShouldReturnFalse() {
+        // Given : Un seul sac de 5 kg contenant un objet de 4 kg
+        List<Backpack> bags = List.of(createBackpack(5.0));
+        EquipmentItem packed = createItem(4000.0);
+        EquipmentItem added = createItem(4000.0);
+
+        // When / Then : Première optimisation, rien n'est encore rangé
+        assertFalse(backpackService.repairDistribution(
+                new ArrayList<>(List.<Item>of(packed)), bags, OwnershipIndex.empty()));
+
+        // When / Then : Le nouvel objet ne tient nulle part, le sac n'est pas modifié
+        bags.get(0).addItem(packed);
+        assertFalse(backpackService.repairDistribution(
+                new ArrayList<>(List.<Item>of(packed, added)), bags, OwnershipIndex.empty()));
+        assertEquals(1, bags.get(0).getEquipmentItems().size());
     }
 
-    /**
-     * Teste le cas où le propriétaire de l'équipement est bien trouvé en base,
-     * mais qu'il ne possède aucun sac dans la liste qui nous a été fournie.
-     */
-    @Test
-    void getPreferredOwnerBackpack_OwnerNotInBackpackList_ReturnsNull() {
-        // Given : Un équipement de repos appartenant à un participant (ID 777L)
-        mockEquipment.setType(TypeEquipment.REPOS);
-        when(belongEquipmentRepository.getIfExistParticipantForEquipmentAndHike(HIKE_ID, mockEquipment.getId()))
-                .thenReturn(777L);
-
-        // When : On cherche le sac de cet utilisateur (qui n'est pas dans la liste 'backpacks')
-        Backpack result = backpackService.getPreferredOwnerBackpack(mockEquipment, backpacks, HIKE_ID);
+    private EquipmentItem createItem(double masseGrammes) {
+        EquipmentItem item = new EquipmentItem();
+        item.setMasseGrammes(masseGrammes);
+        item.setNbItem(1);
+        item.setType(TypeEquipment.AUTRE);
+        return item;
+    }
 
-        // Then : Le sac n'est pas trouvé dans la liste, on retourne null
-        assertNull(result);
+    private Backpack createBackpack(double capaciteMaxKg) {
+        Participant owner = new Participant();
+        owner.setId(OWNER_ID);
+        owner.setCapaciteEmportMaxKg(capaciteMaxKg);
+        Backpack backpack = new Backpack();
+        backpack.setOwner(owner);
+        return backpack;
     }
-}
\ No newline at end of file
+}
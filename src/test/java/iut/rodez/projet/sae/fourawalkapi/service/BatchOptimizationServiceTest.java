@@ -0,0 +1,163 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.dto.BatchOptimizationReportDto;
+import iut.rodez.projet.sae.fourawalkapi.dto.BatchOptimizationResultDto;
+import iut.rodez.projet.sae.fourawalkapi.entity.Hike;
+import iut.rodez.projet.sae.fourawalkapi.entity.User;
+import iut.rodez.projet.sae.fourawalkapi.exception.OptimizationCancelledException;
+import iut.rodez.projet.sae.fourawalkapi.exception.UnauthorizedAccessException;
+import iut.rodez.projet.sae.fourawalkapi.repository.mysql.HikeRepository;
+import iut.rodez.projet.sae.fourawalkapi.solver.EngineChoice;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationReport;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires des optimisations par lot : bilan par randonnée, isolement des échecs,
+ * limites du lot et sélection des randonnées du mode ligne de commande.
+ */
+class BatchOptimizationServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    private HikeService hikeService;
+    private HikeRepository hikeRepository;
+    private ExecutorService executor;
+    private BatchOptimizationService batchService;
+
+    @BeforeEach
+    void setUp() {
+        hikeService = mock(HikeService.class);
+        hikeRepository = mock(HikeRepository.class);
+        executor = Executors.newFixedThreadPool(2);
+        batchService = new BatchOptimizationService(hikeService, hikeRepository, executor, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Vérifie que chaque randonnée est optimisée une seule fois et que l'échec de l'une
+     * figure dans le bilan sans empêcher les autres.
+     */
+    @Test
+    void optimize_OneFailure_ShouldReportEachHikeInOrder() {
+        // Given : La randonnée 101 appartient à un autre utilisateur
+        doThrow(new UnauthorizedAccessException("Accès refusé"))
+                .when(hikeService).optimizeBackpack(eq(101L), eq(USER_ID), any(SearchBudget.class), any(EngineChoice.class),
+                        any(OptimizationReport.class));
+
+        // When : Un lot de trois randonnées (avec un doublon) est optimisé
+        BatchOptimizationReportDto report = batchService.optimize(List.of(100L, 101L, 102L, 100L), USER_ID,
+                null, null, EngineChoice.AUTOMATIC);
+
+        // Then : Deux réussites, un échec 403, dans l'ordre de la demande
+        assertEquals(2, report.getSucceeded());
+        assertEquals(1, report.getFailed());
+        List<BatchOptimizationResultDto> results = report.getResults();
+        assertEquals(List.of(100L, 101L, 102L), results.stream().map(BatchOptimizationResultDto::getHikeId).toList());
+        assertEquals(BatchOptimizationResultDto.SUCCEEDED, results.get(0).getStatus());
+        assertNotNull(results.get(0).getOptimization());
+        assertEquals(BatchOptimizationResultDto.FAILED, results.get(1).getStatus());
+        assertEquals(403, results.get(1).getErrorStatus());
+        verify(hikeService, times(1)).optimizeBackpack(eq(100L), eq(USER_ID), any(SearchBudget.class), any(EngineChoice.class),
+                any(OptimizationReport.class));
+    }
+
+    /**
+     * Vérifie qu'un lot vide, trop long ou avec un budget invalide est refusé avant toute optimisation.
+     */
+    @Test
+    void optimize_InvalidBatch_ShouldThrowBeforeOptimizing() {
+        // When & Then : Lot vide, lot de 4 randonnées (limite : 3), budget négatif
+        assertThrows(IllegalArgumentException.class,
+                () -> batchService.optimize(List.of(), USER_ID, null, null, EngineChoice.AUTOMATIC));
+        assertThrows(IllegalArgumentException.class,
+                () -> batchService.optimize(List.of(1L, 2L, 3L, 4L), USER_ID, null, null, EngineChoice.AUTOMATIC));
+        assertThrows(IllegalArgumentException.class,
+                () -> batchService.optimize(List.of(1L), USER_ID, -5L, null, EngineChoice.AUTOMATIC));
+        verifyNoInteractions(hikeService);
+    }
+
+    /**
+     * Vérifie qu'une demande interrompue interrompt aussi les optimisations en cours,
+     * qui s'arrêtent au lieu d'enregistrer un résultat annoncé comme interrompu.
+     */
+    @Test
+    void optimize_InterruptedRequest_ShouldInterruptRunningHikes() throws InterruptedException {
+        // Given : Une optimisation en cours qui ne s'arrête que sur interruption
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.onSpinWait();
+            }
+            stopped.countDown();
+            throw new OptimizationCancelledException("Optimisation abandonnée par le client");
+        }).when(hikeService).optimizeBackpack(eq(100L), eq(USER_ID), any(SearchBudget.class), any(EngineChoice.class),
+                any(OptimizationReport.class));
+        AtomicReference<BatchOptimizationReportDto> report = new AtomicReference<>();
+        Thread request = new Thread(() -> report.set(
+                batchService.optimize(List.of(100L), USER_ID, null, null, EngineChoice.AUTOMATIC)));
+        request.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When : Le thread de la demande est interrompu
+        request.interrupt();
+        request.join(5_000);
+
+        // Then : L'optimisation en cours est interrompue et le bilan l'indique (408)
+        assertTrue(stopped.await(5, TimeUnit.SECONDS));
+        assertEquals(408, report.get().getResults().get(0).getErrorStatus());
+    }
+
+    /**
+     * Vérifie que le mode ligne de commande n'optimise que les randonnées non optimisées du filtre,
+     * chacune au nom de son créateur.
+     */
+    @Test
+    void optimizeMatching_OnlyUnoptimized_ShouldSkipOptimizedHikes() {
+        // Given : Deux randonnées du créateur 1, dont une déjà optimisée
+        Hike pending = createHike(100L, false);
+        Hike optimized = createHike(101L, true);
+        when(hikeRepository.findByCreatorId(USER_ID)).thenReturn(List.of(pending, optimized));
+
+        // When : Le lot est lancé sur les randonnées non optimisées
+        BatchOptimizationReportDto report = batchService.optimizeMatching(USER_ID, true, null, null, EngineChoice.AUTOMATIC);
+
+        // Then : Seule la randonnée non optimisée est traitée
+        assertEquals(1, report.getSucceeded());
+        assertEquals(100L, report.getResults().get(0).getHikeId());
+        verify(hikeService).optimizeBackpack(eq(100L), eq(USER_ID), any(SearchBudget.class), any(EngineChoice.class),
+                any(OptimizationReport.class));
+        verify(hikeService, never()).optimizeBackpack(eq(101L), any(), any(SearchBudget.class), any(EngineChoice.class),
+                any(OptimizationReport.class));
+    }
+
+    private static Hike createHike(Long id, boolean optimize) {
+        User creator = new User();
+        creator.setId(USER_ID);
+        Hike hike = new Hike();
+        hike.setId(id);
+        hike.setCreator(creator);
+        hike.setOptimize(optimize);
+        return hike;
+    }
+}
@@ -0,0 +1,172 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
+import iut.rodez.projet.sae.fourawalkapi.entity.EquipmentItem;
+import iut.rodez.projet.sae.fourawalkapi.entity.Participant;
+import iut.rodez.projet.sae.fourawalkapi.exception.CapacityExceededException;
+import iut.rodez.projet.sae.fourawalkapi.model.Item;
+import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
+import iut.rodez.projet.sae.fourawalkapi.solver.PackingInstance;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests du portefeuille de moteurs de répartition : course, annulation des perdants
+ * et comptage des victoires.
+ */
+class DistributionPortfolioTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Vérifie que le premier moteur qui trouve une répartition l'emporte
+     * et que le moteur encore en cours est interrompu.
+     */
+    @Test
+    void solve_FirstValidPackingWins_ShouldCancelOthers() throws InterruptedException {
+        // Given : Un moteur qui ne termine jamais seul et un moteur immédiat
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch slowCancelled = new CountDownLatch(1);
+        DistributionStrategy slow = new ScriptedStrategy("slow", true, (instance, assignment) -> {
+            slowStarted.countDown();
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.onSpinWait();
+            }
+            slowCancelled.countDown();
+            return false;
+        });
+        DistributionStrategy fast = new ScriptedStrategy("fast", true, (instance, assignment) -> {
+            try {
+                slowStarted.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        });
+        DistributionPortfolio portfolio = new DistributionPortfolio(List.of(slow, fast), executor);
+        PackingInstance instance = PackingInstance.of(List.of(item(1000.0)), List.of(backpack(5.0)), OwnershipIndex.empty());
+
+        // When : La course est lancée
+        boolean solved = portfolio.solve(instance, new int[1], SearchBudget.unlimited());
+
+        // Then : Le moteur rapide gagne, le lent est interrompu coopérativement
+        assertTrue(solved);
+        assertTrue(slowCancelled.await(2, TimeUnit.SECONDS), "Le moteur perdant doit être interrompu");
+        assertEquals(1L, portfolio.getWins().get("fast"));
+        assertEquals(0L, portfolio.getWins().get("slow"));
+    }
+
+    /**
+     * Vérifie qu'un échec de l'heuristique ne conclut pas la course :
+     * le moteur exact trouve la répartition serrée et est crédité de la victoire.
+     */
+    @Test
+    void distributeBatches_GreedyFails_ExactEngineShouldWin() {
+        // Given : 2 sacs de 6 kg et des objets de 3, 3, 2, 2, 2 kg (seule solution : 3+3 / 2+2+2)
+        DistributionPortfolio portfolio = new DistributionPortfolio(
+                List.of(new GreedyDistributorService(), new BackpackDistributorServiceV2(mock(BackpackService.class))),
+                executor);
+        Backpack first = backpack(6.0);
+        Backpack second = backpack(6.0);
+        List<Item> items = new ArrayList<>();
+        for (double masse : new double[]{3000.0, 3000.0, 2000.0, 2000.0, 2000.0}) {
+            items.add(item(masse));
+        }
+
+        // When : Le portefeuille répartit les objets
+        portfolio.distributeBatchesToBackpacks(items, List.of(first, second), OwnershipIndex.empty(),
+                SearchBudget.unlimited());
+
+        // Then : Les deux sacs sont pleins et la victoire revient à V2
+        assertEquals(6.0, first.getTotalMassKg());
+        assertEquals(6.0, second.getTotalMassKg());
+        assertEquals(1L, portfolio.getWins().get("v2"));
+        assertEquals(0L, portfolio.getWins().get("greedy"));
+    }
+
+    /**
+     * Vérifie que l'échec d'un moteur exact prouve l'impossibilité sans attendre les autres.
+     */
+    @Test
+    void distributeBatches_ExactEngineFails_ShouldThrowCapacityExceeded() {
+        // Given : Un objet de 6 kg pour deux sacs de 5 kg
+        DistributionPortfolio portfolio = new DistributionPortfolio(
+                List.of(new GreedyDistributorService(), new BackpackDistributorServiceV3(mock(BackpackService.class))),
+                executor);
+        List<Item> items = new ArrayList<>(List.of(item(6000.0)));
+
+        // When & Then : Aucun moteur ne gagne, la répartition est déclarée impossible
+        assertThrows(CapacityExceededException.class, () -> portfolio.distributeBatchesToBackpacks(
+                items, List.of(backpack(5.0), backpack(5.0)), OwnershipIndex.empty(), SearchBudget.unlimited()));
+        assertEquals(0L, portfolio.getWins().get("v3"));
+    }
+
+    // ==========================================
+    // UTILITAIRES DE TEST
+    // ==========================================
+
+    /**
+     * Oracle de répartition scénarisé
+     */
+    private interface Script {
+        boolean solve(PackingInstance instance, int[] assignment);
+    }
+
+    /**
+     * Moteur factice dont la résolution est scénarisée.
+     */
+    private record ScriptedStrategy(String name, boolean exact, Script script) implements DistributionStrategy {
+        @Override
+        public String getName() { return name; }
+
+        @Override
+        public boolean isExact() { return exact; }
+
+        @Override
+        public void distributeBatchesToBackpacks(List<Item> itemsToPack, List<Backpack> backpacks,
+                                                 OwnershipIndex ownership, SearchBudget budget) {
+        }
+
+        @Override
+        public boolean solve(PackingInstance instance, int[] assignment, SearchBudget budget) {
+            return script.solve(instance, assignment);
+        }
+    }
+
+    private Item item(double masseGrammes) {
+        EquipmentItem item = new EquipmentItem();
+        item.setMasseGrammes(masseGrammes);
+        item.setNbItem(1);
+        item.setType(TypeEquipment.EAU);
+        return item;
+    }
+
+    private Backpack backpack(double capaciteMaxKg) {
+        Participant owner = new Participant();
+        owner.setCapaciteEmportMaxKg(capaciteMaxKg);
+        return new Backpack(owner);
+    }
+}
@@ -0,0 +1,166 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
+import iut.rodez.projet.sae.fourawalkapi.entity.BelongEquipment;
+import iut.rodez.projet.sae.fourawalkapi.entity.EquipmentItem;
+import iut.rodez.projet.sae.fourawalkapi.entity.FoodProduct;
+import iut.rodez.projet.sae.fourawalkapi.entity.Participant;
+import iut.rodez.projet.sae.fourawalkapi.model.Item;
+import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
+import iut.rodez.projet.sae.fourawalkapi.solver.CalibrationTable;
+import iut.rodez.projet.sae.fourawalkapi.solver.InstanceFeatures;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
+import iut.rodez.projet.sae.fourawalkapi.solver.PackingInstance;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires du DistributionSelector.
+ * Vérifie le choix par calibration, les surcharges (requête, déploiement) et le refus des moteurs inconnus.
+ */
+class DistributionSelectorTest {
+
+    private List<DistributionStrategy> strategies;
+    private CalibrationTable calibration;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        strategies = List.of(new NamedStrategy("v2"), new NamedStrategy("v3"));
+        // v2 plus rapide mais mesuré jusqu'à 20 items, v3 mesuré jusqu'à 30 items
+        String csv = """
+                engine,items,bags,median_ns
+                v2,10,4,50000
+                v2,20,5,100000
+                v3,10,4,90000
+                v3,20,5,200000
+                v3,30,5,210000
+                """;
+        calibration = CalibrationTable.load(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Vérifie que le moteur le plus rapide est retenu tant que sa calibration couvre l'instance,
+     * puis le moteur calibré sur les plus grandes instances.
+     */
+    @Test
+    void select_Auto_ShouldFollowCalibration() {
+        // Given : Un sélecteur sans surcharge de déploiement
+        DistributionSelector selector = new DistributionSelector(strategies, "auto", calibration);
+
+        // When & Then : v2 dans son domaine mesuré, v3 au-delà
+        assertEquals("v2", selector.select(new InstanceFeatures(12, 4, 0, 0), null).getName());
+        assertEquals("v3", selector.select(new InstanceFeatures(25, 5, 0, 0), null).getName());
+        assertEquals("v3", selector.select(new InstanceFeatures(80, 5, 0, 0), "auto").getName());
+    }
+
+    /**
+     * Vérifie que seuls les objets dont le propriétaire a un sac ne comptent pas dans la taille de la recherche :
+     * un vêtement sans propriétaire est exploré librement.
+     */
+    @Test
+    void select_OwnerBoundItems_ShouldReduceSearchSize() {
+        // Given : 25 objets dont 8 vêtements, 5 sacs ; seuls 6 vêtements ont un propriétaire
+        DistributionSelector selector = new DistributionSelector(strategies, "auto", calibration);
+        List<Backpack> backpacks = new ArrayList<>();
+        for (long p = 1; p <= 5; p++) {
+            Participant participant = new Participant();
+            participant.setId(p);
+            Backpack backpack = new Backpack();
+            backpack.setOwner(participant);
+            backpacks.add(backpack);
+        }
+        List<Item> items = new ArrayList<>();
+        List<BelongEquipment> links = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            if (i < 8) {
+                EquipmentItem clothing = new EquipmentItem();
+                clothing.setId((long) i + 1);
+                clothing.setType(TypeEquipment.VETEMENT);
+                items.add(clothing);
+                if (i < 6) {
+                    links.add(new BelongEquipment(null, backpacks.get(i % 5).getOwner(), clothing));
+                }
+            } else {
+                items.add(new FoodProduct());
+            }
+        }
+
+        // When : Les caractéristiques sont extraites
+        InstanceFeatures features = DistributionSelector.features(items, 5, OwnershipIndex.of(links, backpacks));
+
+        // Then : 19 objets libres (les 2 vêtements sans propriétaire en font partie), dans le domaine de v2
+        assertEquals(6, features.ownerBoundItems());
+        assertEquals(19, features.freeItems());
+        assertEquals("v2", selector.select(features, null).getName());
+    }
+
+    /**
+     * Vérifie l'ordre de priorité : requête, puis déploiement, puis calibration.
+     */
+    @Test
+    void select_Overrides_ShouldTakePrecedence() {
+        // Given : Un déploiement imposant v3
+        DistributionSelector selector = new DistributionSelector(strategies, "v3", calibration);
+        InstanceFeatures small = new InstanceFeatures(10, 4, 0, 0);
+
+        // When & Then : Le déploiement l'emporte sur la calibration, la requête sur le déploiement
+        assertEquals("v3", selector.select(small, null).getName());
+        assertEquals("v2", selector.select(small, "v2").getName());
+    }
+
+    /**
+     * Vérifie qu'un moteur inconnu est refusé, à la requête comme au démarrage.
+     */
+    @Test
+    void select_UnknownEngine_ShouldThrowException() {
+        // Given : Un sélecteur sans surcharge
+        DistributionSelector selector = new DistributionSelector(strategies, "auto", calibration);
+
+        // When & Then : Requête et configuration invalides
+        assertThrows(IllegalArgumentException.class, () -> selector.checkEngine("v9"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new DistributionSelector(strategies, "v9", calibration));
+    }
+
+    /**
+     * Vérifie le repli sur le moteur historique sans table de calibration.
+     */
+    @Test
+    void select_EmptyCalibration_ShouldUseDefaultEngine() {
+        // Given : Aucune mesure disponible
+        DistributionSelector selector = new DistributionSelector(strategies, "auto", CalibrationTable.empty());
+
+        // When & Then : Moteur historique
+        assertEquals(DistributionSelector.DEFAULT_ENGINE,
+                selector.select(new InstanceFeatures(10, 4, 0, 0), null).getName());
+    }
+
+    // ==========================================
+    // UTILITAIRES DE TEST
+    // ==========================================
+
+    /**
+     * Moteur factice identifié par son nom.
+     */
+    private record NamedStrategy(String name) implements DistributionStrategy {
+        @Override
+        public String getName() { return name; }
+
+        @Override
+        public void distributeBatchesToBackpacks(List<Item> itemsToPack, List<Backpack> backpacks,
+                                                 OwnershipIndex ownership, SearchBudget budget) {
+        }
+
+        @Override
+        public boolean solve(PackingInstance instance, int[] assignment, SearchBudget budget) { return false; }
+    }
+}
@@ -262,8 +262,9 @@ class FoodServiceTest {
         // When : L'utilisateur ID=10 ajoute l'aliment
         foodService.addFoodToHike(100L, 300L, 10L);
 
-        // Then : Délégation à l'entité (DDD) et sauvegarde
+        // Then : Délégation à l'entité (DDD), invalidation de l'optimisation et sauvegarde
         verify(mockHike).addFood(validFood);
+        verify(mockHike).invalidateOptimizationFingerprint();
         verify(hikeRepository).save(mockHike);
     }
 
@@ -0,0 +1,122 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.FoodProduct;
+import iut.rodez.projet.sae.fourawalkapi.entity.Hike;
+import iut.rodez.projet.sae.fourawalkapi.entity.Participant;
+import iut.rodez.projet.sae.fourawalkapi.solver.FoodFingerprint;
+import iut.rodez.projet.sae.fourawalkapi.solver.FoodInstance;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires du FoodSolutionCache.
+ * Vérifie la réutilisation des solutions entre randonnées, l'éviction et la désactivation.
+ */
+class FoodSolutionCacheTest {
+
+    /**
+     * Deux randonnées construites avec les mêmes aliments (dans un ordre différent)
+     * partagent la même solution : la seconde optimisation est servie par le cache.
+     */
+    @Test
+    void getOptimizeAllFood_SameCatalogueInAnotherHike_ShouldHitCache() {
+        // Given : Un cache actif et deux randonnées au catalogue identique mais permuté
+        FoodSolutionCache cache = new FoodSolutionCache(true, 16);
+        OptimizerService optimizerService = new OptimizerService(Runnable::run, cache);
+        List<FoodProduct> catalogue = createCatalogue();
+        List<FoodProduct> reversed = new ArrayList<>(catalogue);
+        Collections.reverse(reversed);
+
+        // When : Les deux randonnées sont optimisées
+        List<FoodProduct> first = optimizerService.getOptimizeAllFood(createHike(catalogue));
+        List<FoodProduct> second = optimizerService.getOptimizeAllFood(createHike(reversed));
+
+        // Then : Une lecture infructueuse puis une lecture réussie, même sélection
+        assertEquals(1, cache.getStats().misses());
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(new HashSet<>(first), new HashSet<>(second));
+    }
+
+    /**
+     * Vérifie que le cache ne dépasse jamais sa capacité et compte les évictions.
+     */
+    @Test
+    void store_BeyondCapacity_ShouldEvictLeastRecentlyUsed() {
+        // Given : Un cache de 2 entrées
+        FoodSolutionCache cache = new FoodSolutionCache(true, 2);
+        FoodInstance instance = FoodInstance.of(createCatalogue());
+        FoodFingerprint a = FoodFingerprint.of(instance, 1000, 2);
+        FoodFingerprint b = FoodFingerprint.of(instance, 2000, 2);
+        FoodFingerprint c = FoodFingerprint.of(instance, 3000, 2);
+        boolean[] selection = new boolean[instance.size()];
+        selection[0] = true;
+
+        // When : 3 solutions sont enregistrées, la première étant relue avant la troisième
+        cache.store(a, selection);
+        cache.store(b, selection);
+        cache.lookup(a);
+        cache.store(c, selection);
+
+        // Then : b (la moins récemment utilisée) est évincée
+        assertEquals(2, cache.getStats().size());
+        assertEquals(1, cache.getStats().evictions());
+        assertNotNull(cache.lookup(a));
+        assertNull(cache.lookup(b));
+        assertNotNull(cache.lookup(c));
+    }
+
+    /**
+     * Vérifie qu'un cache désactivé (mesures de performance) ne conserve rien.
+     */
+    @Test
+    void lookup_DisabledCache_ShouldNeverHit() {
+        // Given : Un cache désactivé
+        FoodSolutionCache cache = new FoodSolutionCache(false, 16);
+        FoodInstance instance = FoodInstance.of(createCatalogue());
+        FoodFingerprint fingerprint = FoodFingerprint.of(instance, 1000, 2);
+
+        // When : Une solution est enregistrée puis relue
+        cache.store(fingerprint, new boolean[instance.size()]);
+
+        // Then : Rien n'est servi ni compté
+        assertNull(cache.lookup(fingerprint));
+        assertEquals(0, cache.getStats().size());
+        assertEquals(0, cache.getStats().misses());
+    }
+
+    // ==========================================
+    // UTILITAIRES DE TEST
+    // ==========================================
+
+    private List<FoodProduct> createCatalogue() {
+        List<FoodProduct> catalogue = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            FoodProduct food = new FoodProduct();
+            food.setId((long) i + 1);
+            food.setNom("Food " + i);
+            food.setApportNutritionnelKcal(200 + i * 37);
+            food.setMasseGrammes(80 + (i * 53) % 120);
+            food.setNbItem(1);
+            food.setAppellationCourante("label " + (i % 3));
+            catalogue.add(food);
+        }
+        return catalogue;
+    }
+
+    private Hike createHike(List<FoodProduct> catalogue) {
+        Hike hike = new Hike();
+        Set<Participant> participants = new HashSet<>();
+        for (int i = 0; i < 2; i++) {
+            Participant p = new Participant();
+            p.setBesoinKcal(600);
+            participants.add(p);
+        }
+        hike.setParticipants(participants);
+        hike.setDureeJours(1);
+        hike.setFoodCatalogue(new ArrayList<>(catalogue));
+        return hike;
+    }
+}
@@ -1,8 +1,19 @@
 package iut.rodez.projet.sae.fourawalkapi.service;
 
+import iut.rodez.projet.sae.fourawalkapi.dto.OptimizationPreviewRequestDto;
 import iut.rodez.projet.sae.fourawalkapi.entity.*;
+import iut.rodez.projet.sae.fourawalkapi.exception.OptimizationCancelledException;
+import iut.rodez.projet.sae.fourawalkapi.model.enums.Level;
+import iut.rodez.projet.sae.fourawalkapi.model.enums.Morphology;
+import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
 import iut.rodez.projet.sae.fourawalkapi.repository.mongo.CourseRepository;
 import iut.rodez.projet.sae.fourawalkapi.repository.mysql.*;
+import iut.rodez.projet.sae.fourawalkapi.solver.DistributionObjective;
+import iut.rodez.projet.sae.fourawalkapi.solver.EngineChoice;
+import iut.rodez.projet.sae.fourawalkapi.solver.OwnershipIndex;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationReport;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationStage;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,7 +46,9 @@ class HikeServiceTest {
     @Mock private EntityManager entityManager;
     @Mock private HikeRepository hikeRepository;
     @Mock private CourseRepository courseRepository; // Mock pour les opérations MongoDB en cascade
-    @Mock private BackpackDistributorServiceV2 backpackDistributor;
+    @Mock private DistributionSelector distributionSelector;
+    @Mock private DistributionStrategy backpackDistributor;
+    @Mock private BackpackService backpackService;
     @Mock private HikeValidationOrchestrator hikeValidatorService;
     @Mock private OptimizerService optimizerService;
     @Mock private UserRepository userRepository;
@@ -43,6 +56,9 @@ class HikeServiceTest {
     @Mock private ParticipantRepository participantRepository;
     @Mock private GroupEquipmentRepository groupEquipmentRepository;
     @Mock private BelongEquipmentRepository belongEquipmentRepository;
+    @Mock private FoodProductRepository foodProductRepository;
+    @Mock private EquipmentItemRepository equipmentItemRepository;
+    @Mock private OptimizationMetrics optimizationMetrics;
 
     @InjectMocks
     private HikeService hikeService;
@@ -226,12 +242,15 @@ class HikeServiceTest {
     @Test
     void optimizeBackpack_NominalCase_ShouldCallAllServices() {
         // GIVEN : Une randonnée existante à optimiser.
-        when(hikeRepository.findById(100L)).thenReturn(Optional.of(testHike));
+        when(hikeRepository.findForOptimization(100L)).thenReturn(Optional.of(testHike));
 
         List<EquipmentItem> dummyEquip = List.of(new EquipmentItem());
         List<FoodProduct> dummyFood = List.of(new FoodProduct());
-        when(optimizerService.getOptimizeAllEquipment(testHike)).thenReturn(dummyEquip);
-        when(optimizerService.getOptimizeAllFood(testHike)).thenReturn(dummyFood);
+        when(optimizerService.optimizeAll(eq(testHike), any(SearchBudget.class), isNull(), any(OptimizationReport.class)))
+                .thenReturn(new OptimizerService.Selection(dummyEquip, dummyFood));
+        when(distributionSelector.select(any(), isNull())).thenReturn(backpackDistributor);
+        OwnershipIndex ownership = OwnershipIndex.empty();
+        when(backpackService.loadOwnershipIndex(testHike.getBackpacks(), testHike.getId())).thenReturn(ownership);
 
         // WHEN : L'ordre d'optimisation est lancé.
         hikeService.optimizeBackpack(100L, 1L);
@@ -242,13 +261,288 @@ class HikeServiceTest {
         // Vérification de la sauvegarde des groupes d'équipements
         verify(groupEquipmentRepository).saveAll(any());
 
-        verify(optimizerService).getOptimizeAllEquipment(testHike);
-        verify(optimizerService).getOptimizeAllFood(testHike);
+        verify(optimizerService).optimizeAll(eq(testHike), any(SearchBudget.class), isNull(), any(OptimizationReport.class));
         verify(backpackDistributor).distributeBatchesToBackpacks(
-                anyList(), eq(testHike.getBackpacks()), eq(testHike.getId()));
+                anyList(), eq(testHike.getBackpacks()), eq(ownership), any(SearchBudget.class));
+        verify(hikeRepository).save(testHike);
+    }
+
+    /**
+     * Vérifie que l'objectif équilibré est transmis au moteur de répartition et reporté dans le bilan.
+     */
+    @Test
+    void optimizeBackpack_BalancedObjective_ShouldDistributeBalancedAndReport() {
+        // GIVEN : Une randonnée existante et un objectif de sacs équilibrés
+        when(hikeRepository.findForOptimization(100L)).thenReturn(Optional.of(testHike));
+        when(optimizerService.optimizeAll(eq(testHike), any(SearchBudget.class), isNull(), any(OptimizationReport.class)))
+                .thenReturn(new OptimizerService.Selection(List.of(), List.of()));
+        when(distributionSelector.select(any(), isNull())).thenReturn(backpackDistributor);
+        OwnershipIndex ownership = OwnershipIndex.empty();
+        when(backpackService.loadOwnershipIndex(testHike.getBackpacks(), testHike.getId())).thenReturn(ownership);
+        SearchBudget budget = SearchBudget.unlimited();
+        OptimizationReport report = new OptimizationReport(budget);
+
+        // WHEN : L'optimisation est lancée avec l'objectif "balanced"
+        hikeService.optimizeBackpack(100L, 1L, budget,
+                new EngineChoice(null, null, DistributionObjective.parse("balanced")), report);
+
+        // THEN : La répartition équilibrée est utilisée à la place du premier rangement, et le bilan l'indique
+        verify(backpackDistributor).distributeBalanced(anyList(), eq(testHike.getBackpacks()), eq(ownership),
+                eq(budget));
+        verify(backpackDistributor, never()).distributeBatchesToBackpacks(anyList(), anyList(), any(OwnershipIndex.class),
+                any(SearchBudget.class));
+        assertEquals("balanced", report.getDistributionObjective());
+
+        // THEN : Chaque étape du pipeline est chronométrée, dans l'ordre, et transmise aux métriques
+        assertEquals(List.of(HikeService.STAGE_LOAD, HikeService.STAGE_VALIDATE, HikeService.STAGE_SELECT,
+                        HikeService.STAGE_PREPARE, HikeService.STAGE_FLUSH, HikeService.STAGE_OWNERSHIP,
+                        HikeService.STAGE_DISTRIBUTE, HikeService.STAGE_SAVE),
+                report.getStages().stream().map(OptimizationStage::name).toList());
+        verify(entityManager).flush();
+        verify(optimizationMetrics).record(OptimizationMetrics.OPTIMIZE, report);
+    }
+
+    /**
+     * Vérifie qu'une randonnée déjà optimisée est réparée sans lancer la recherche complète.
+     */
+    @Test
+    void optimizeBackpack_RepairableDistribution_ShouldSkipFullSolve() {
+        // GIVEN : Une randonnée dont la répartition persistée peut être réparée
+        when(hikeRepository.findForOptimization(100L)).thenReturn(Optional.of(testHike));
+        when(optimizerService.optimizeAll(eq(testHike), any(SearchBudget.class), isNull(), any(OptimizationReport.class)))
+                .thenReturn(new OptimizerService.Selection(List.of(), List.of()));
+        OwnershipIndex ownership = OwnershipIndex.empty();
+        when(backpackService.loadOwnershipIndex(testHike.getBackpacks(), testHike.getId())).thenReturn(ownership);
+        when(backpackService.repairDistribution(anyList(), eq(testHike.getBackpacks()), eq(ownership))).thenReturn(true);
+        SearchBudget budget = SearchBudget.unlimited();
+        OptimizationReport report = new OptimizationReport(budget);
+
+        // WHEN : L'optimisation automatique est relancée
+        hikeService.optimizeBackpack(100L, 1L, budget, EngineChoice.AUTOMATIC, report);
+
+        // THEN : Aucun moteur de répartition n'est sollicité, le bilan indique la réparation
+        verify(distributionSelector, never()).select(any(), any());
+        verify(backpackDistributor, never()).distributeBatchesToBackpacks(anyList(), anyList(), any(OwnershipIndex.class),
+                any(SearchBudget.class));
+        assertEquals(HikeService.REPAIR_ENGINE, report.getDistributionEngine());
         verify(hikeRepository).save(testHike);
     }
 
+    /**
+     * Vérifie qu'une optimisation relancée sans modification des données rend la main sans recalcul,
+     * et qu'une modification des données relance le calcul.
+     */
+    @Test
+    void optimizeBackpack_UnchangedInputs_ShouldSkipSolve() {
+        // GIVEN : Une randonnée avec un participant, optimisée une première fois
+        Participant participant = new Participant("Jane", "Doe", 30, Level.SPORTIF, Morphology.MOYENNE,
+                true, 1L, 3000, 2.0, 10.0);
+        participant.setId(7L);
+        testHike.getParticipants().add(participant);
+        when(hikeRepository.findForOptimization(100L)).thenReturn(Optional.of(testHike));
+        when(optimizerService.optimizeAll(eq(testHike), any(SearchBudget.class), isNull(), any(OptimizationReport.class)))
+                .thenReturn(new OptimizerService.Selection(List.of(), List.of()));
+        when(backpackService.repairDistribution(anyList(), anyList(), any())).thenReturn(true);
+        hikeService.optimizeBackpack(100L, 1L, SearchBudget.unlimited());
+        assertNotNull(testHike.getOptimizationFingerprint());
+
+        // WHEN : L'optimisation est relancée sans modification
+        SearchBudget budget = SearchBudget.unlimited();
+        OptimizationReport report = new OptimizationReport(budget);
+        hikeService.optimizeBackpack(100L, 1L, budget, EngineChoice.AUTOMATIC, report);
+
+        // THEN : Aucun calcul n'est relancé, le bilan l'indique
+        verify(optimizerService, times(1)).optimizeAll(any(Hike.class), any(SearchBudget.class), any(), any());
+        assertEquals(HikeService.UNCHANGED_ENGINE, report.getDistributionEngine());
+        assertTrue(testHike.getOptimize());
+
+        // WHEN : La capacité du participant change, puis l'optimisation est relancée
+        participant.setCapaciteEmportMaxKg(12.0);
+        hikeService.optimizeBackpack(100L, 1L, SearchBudget.unlimited());
+
+        // THEN : Le calcul est relancé
+        verify(optimizerService, times(2)).optimizeAll(any(Hike.class), any(SearchBudget.class), any(), any());
+    }
+
+    /**
+     * Vérifie qu'une optimisation abandonnée par le client pendant la recherche
+     * n'est ni répartie ni persistée.
+     */
+    @Test
+    void optimizeBackpack_CancelledBudget_ShouldAbortBeforePacking() {
+        // GIVEN : Une randonnée existante et un budget annulé (client déconnecté).
+        when(hikeRepository.findForOptimization(100L)).thenReturn(Optional.of(testHike));
+        SearchBudget budget = SearchBudget.unlimited();
+        OptimizationReport report = new OptimizationReport(budget);
+        budget.cancel();
+        when(optimizerService.optimizeAll(eq(testHike), eq(budget), isNull(), any(OptimizationReport.class)))
+                .thenReturn(new OptimizerService.Selection(List.of(), List.of()));
+
+        // WHEN & THEN : L'optimisation s'interrompt sans répartir ni sauvegarder.
+        assertThrows(OptimizationCancelledException.class,
+                () -> hikeService.optimizeBackpack(100L, 1L, budget, EngineChoice.AUTOMATIC, report));
+        verify(backpackDistributor, never()).distributeBatchesToBackpacks(anyList(), anyList(), any(OwnershipIndex.class),
+                any(SearchBudget.class));
+        verify(hikeRepository, never()).save(testHike);
+
+        // THEN : Les étapes terminées avant l'abandon sont tout de même mesurées
+        assertEquals(List.of(HikeService.STAGE_LOAD, HikeService.STAGE_VALIDATE),
+                report.getStages().stream().map(OptimizationStage::name).toList());
+        verify(optimizationMetrics).record(OptimizationMetrics.OPTIMIZE, report);
+    }
+
+    /**
+     * Vérifie qu'une optimisation annulée pendant la répartition n'est ni reportée sur les sacs ni persistée.
+     */
+    @Test
+    void optimizeBackpack_CancelledDuringDistribution_ShouldNotPersist() {
+        // GIVEN : Une randonnée dont la répartition est annulée en cours de route
+        when(hikeRepository.findForOptimization(100L)).thenReturn(Optional.of(testHike));
+        when(optimizerService.optimizeAll(eq(testHike), any(SearchBudget.class), isNull(), any(OptimizationReport.class)))
+                .thenReturn(new OptimizerService.Selection(List.of(), List.of()));
+        when(distributionSelector.select(any(), isNull())).thenReturn(backpackDistributor);
+        SearchBudget budget = SearchBudget.unlimited();
+        doAnswer(invocation -> {
+            budget.cancel();
+            return null;
+        }).when(backpackDistributor).distributeBatchesToBackpacks(anyList(), anyList(), any(), any());
+
+        // WHEN & THEN : L'optimisation s'interrompt après la répartition, sans sauvegarde finale
+        assertThrows(OptimizationCancelledException.class,
+                () -> hikeService.optimizeBackpack(100L, 1L, budget,
+                        new EngineChoice(null, null, DistributionObjective.FIRST_FIT), new OptimizationReport(budget)));
+        verify(hikeRepository, never()).save(testHike);
+        assertFalse(testHike.getOptimize());
+    }
+
+    /**
+     * Vérifie qu'une annulation survenue pendant l'écriture finale lève l'exception d'annulation
+     * (la transaction est annulée) au lieu de valider une randonnée que l'appelant croit abandonnée.
+     */
+    @Test
+    void optimizeBackpack_CancelledDuringSave_ShouldThrowToRollBack() {
+        // GIVEN : Une randonnée dont l'écriture finale coïncide avec l'annulation de la tâche
+        when(hikeRepository.findForOptimization(100L)).thenReturn(Optional.of(testHike));
+        when(optimizerService.optimizeAll(eq(testHike), any(SearchBudget.class), isNull(), any(OptimizationReport.class)))
+                .thenReturn(new OptimizerService.Selection(List.of(), List.of()));
+        when(distributionSelector.select(any(), isNull())).thenReturn(backpackDistributor);
+        when(backpackService.loadOwnershipIndex(testHike.getBackpacks(), testHike.getId()))
+                .thenReturn(OwnershipIndex.empty());
+        SearchBudget budget = SearchBudget.unlimited();
+        OptimizationReport report = new OptimizationReport(budget);
+        doAnswer(invocation -> {
+            budget.cancel();
+            return null;
+        }).when(entityManager).flush();
+
+        // WHEN & THEN : L'optimisation échoue après l'écriture, sans étape d'enregistrement terminée
+        assertThrows(OptimizationCancelledException.class,
+                () -> hikeService.optimizeBackpack(100L, 1L, budget, EngineChoice.AUTOMATIC, report));
+        verify(entityManager).flush();
+        assertFalse(report.getStages().stream().anyMatch(stage -> stage.name().equals(HikeService.STAGE_SAVE)));
+    }
+
+    /**
+     * Vérifie que l'étape de répartition rend compte de la recherche du moteur exécuté :
+     * nœuds explorés et branches coupées.
+     */
+    @Test
+    void optimizeBackpack_RealDistributor_ShouldReportDistributionSearch() {
+        // GIVEN : Deux participants de 10 kg et des lots de 5, 4, 4, 3, 2, 2 kg (remplissage exact,
+        // le premier rangement glouton échoue sur le dernier lot et doit revenir sur ses choix)
+        for (long id = 1; id <= 2; id++) {
+            Participant participant = new Participant("Marcheur " + id, "Doe", 30, Level.SPORTIF, Morphology.MOYENNE,
+                    id == 1, 1L, 3000, 2.0, 10.0);
+            participant.setId(id);
+            participant.setBackpack(new Backpack(participant));
+            testHike.getParticipants().add(participant);
+        }
+        List<EquipmentItem> equipment = new ArrayList<>();
+        for (double masse : new double[]{5000.0, 4000.0, 4000.0, 3000.0, 2000.0, 2000.0}) {
+            EquipmentItem item = new EquipmentItem();
+            item.setId((long) equipment.size() + 1);
+            item.setMasseGrammes(masse);
+            item.setNbItem(1);
+            item.setType(TypeEquipment.AUTRE);
+            equipment.add(item);
+        }
+        when(hikeRepository.findForOptimization(100L)).thenReturn(Optional.of(testHike));
+        when(optimizerService.optimizeAll(eq(testHike), any(SearchBudget.class), isNull(), any(OptimizationReport.class)))
+                .thenReturn(new OptimizerService.Selection(equipment, List.of()));
+        when(backpackService.loadOwnershipIndex(anyList(), eq(100L))).thenReturn(OwnershipIndex.empty());
+        when(distributionSelector.select(any(), isNull())).thenReturn(new BackpackDistributorServiceV3(backpackService));
+        SearchBudget budget = SearchBudget.unlimited();
+        OptimizationReport report = new OptimizationReport(budget);
+
+        // WHEN : L'optimisation est lancée
+        hikeService.optimizeBackpack(100L, 1L, budget, EngineChoice.AUTOMATIC, report);
+
+        // THEN : Les nœuds et les coupes de la recherche sont imputés à l'étape de répartition
+        OptimizationStage distribute = report.getStages().stream()
+                .filter(stage -> stage.name().equals(HikeService.STAGE_DISTRIBUTE))
+                .findFirst().orElseThrow();
+        assertTrue(distribute.nodes() > 0);
+        assertTrue(distribute.prunes() > 0);
+        assertEquals(budget.getNodes(), distribute.nodes());
+    }
+
+    /**
+     * Vérifie qu'une optimisation à blanc s'exécute sur une copie modifiée de la randonnée,
+     * sans toucher à la randonnée persistée ni rien enregistrer.
+     */
+    @Test
+    void previewOptimization_ShouldPackSnapshotWithoutWriting() {
+        // GIVEN : Une randonnée avec un participant (10 kg) et une nourriture, et un delta
+        // qui ajoute une nourriture, retire l'existante et porte la capacité du participant à 15 kg
+        Participant participant = new Participant("Jane", "Doe", 30, Level.SPORTIF, Morphology.MOYENNE,
+                true, 1L, 3000, 2.0, 10.0);
+        participant.setId(7L);
+        participant.setBackpack(new Backpack(participant));
+        testHike.getParticipants().add(participant);
+        FoodProduct existing = new FoodProduct();
+        existing.setId(50L);
+        testHike.getFoodCatalogue().add(existing);
+        FoodProduct added = new FoodProduct();
+        added.setId(51L);
+
+        OptimizationPreviewRequestDto delta = new OptimizationPreviewRequestDto();
+        delta.setAddedFoodIds(Set.of(51L));
+        delta.setRemovedFoodIds(Set.of(50L));
+        delta.setParticipantCapacitiesKg(Map.of(7L, 15.0));
+
+        when(hikeRepository.findForOptimization(100L)).thenReturn(Optional.of(testHike));
+        when(foodProductRepository.findById(51L)).thenReturn(Optional.of(added));
+        when(optimizerService.optimizeAll(any(Hike.class), any(SearchBudget.class), isNull(), any(OptimizationReport.class)))
+                .thenReturn(new OptimizerService.Selection(List.of(), List.of(added)));
+        when(backpackService.loadOwnershipIndex(anyList(), eq(100L))).thenReturn(OwnershipIndex.empty());
+        when(distributionSelector.select(any(), isNull())).thenReturn(backpackDistributor);
+        SearchBudget budget = SearchBudget.unlimited();
+
+        // WHEN : La modification est simulée
+        Hike preview = hikeService.previewOptimization(100L, 1L, delta, budget, EngineChoice.AUTOMATIC,
+                new OptimizationReport(budget));
+
+        // THEN : La copie porte la modification et a été répartie
+        assertNotSame(testHike, preview);
+        assertTrue(preview.getOptimize());
+        assertEquals(List.of(added), preview.getFoodCatalogue());
+        Participant copy = preview.getParticipants().iterator().next();
+        assertNotSame(participant, copy);
+        assertEquals(7L, copy.getId());
+        assertEquals(15.0, copy.getCapaciteEmportMaxKg());
+        verify(hikeValidatorService).validateHikeForOptimize(preview);
+        verify(backpackDistributor).distributeBatchesToBackpacks(anyList(),
+                argThat(bags -> bags.size() == 1 && bags.get(0).getOwner() == copy), any(OwnershipIndex.class),
+                any(SearchBudget.class));
+
+        // THEN : La randonnée persistée est intacte et rien n'est enregistré
+        assertEquals(10.0, participant.getCapaciteEmportMaxKg());
+        assertEquals(List.of(existing), testHike.getFoodCatalogue());
+        verify(hikeRepository, never()).save(any());
+        verify(hikeRepository, never()).saveAndFlush(any());
+        verify(groupEquipmentRepository, never()).saveAll(any());
+    }
+
     // ==========================================
     // TESTS : CALCUL DE DISTANCE (Méthode Statique)
     // ==========================================
@@ -0,0 +1,50 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.solver.EngineChoice;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests d'intégration des optimisations asynchrones : une tâche réelle s'exécute sur l'exécuteur dédié,
+ * sans session ouverte sur son thread, et construit sa réponse (associations paresseuses comprises).
+ * Optimise la randonnée 1 de data.sql (ses sacs sont réécrits).
+ * Nécessite de lancer le docker en local (MySQL)
+ */
+@Disabled("Ne permet pas d'être directement tester depuis le git workflow, doit être commenter pour tester localement")
+@SpringBootTest
+class OptimizationJobServiceIntegrationTest {
+
+    private static final Long HIKE_ID = 1L;
+    private static final Long USER_ID = 1L;
+
+    @Autowired
+    private OptimizationJobService jobService;
+
+    /**
+     * Vérifie qu'une tâche réelle se termine avec succès et expose la randonnée complète.
+     */
+    @Test
+    void submit_RealHike_ShouldSucceedWithFullResponse() throws InterruptedException {
+        // Given / When : L'optimisation de la randonnée est soumise
+        OptimizationJob job = jobService.submit(HIKE_ID, USER_ID, SearchBudget.of(30_000L, null), EngineChoice.AUTOMATIC);
+        CountDownLatch finished = new CountDownLatch(1);
+        job.onFinish(done -> finished.countDown());
+        assertTrue(finished.await(60, TimeUnit.SECONDS));
+
+        // Then : La tâche réussit, avec les associations paresseuses lues dans la réponse
+        assertEquals(OptimizationJob.Status.SUCCEEDED, job.getStatus(), job.getErrorMessage());
+        assertEquals(HIKE_ID, job.getResult().getId());
+        assertNotNull(job.getResult().getCreator());
+        assertFalse(job.getResult().getFoodCatalogue().isEmpty());
+        assertFalse(job.getResult().getParticipants().isEmpty());
+        assertNotNull(job.getResult().getOptimization());
+    }
+}
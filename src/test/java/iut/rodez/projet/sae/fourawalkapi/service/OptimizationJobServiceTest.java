@@ -0,0 +1,201 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import iut.rodez.projet.sae.fourawalkapi.dto.HikeResponseDto;
+import iut.rodez.projet.sae.fourawalkapi.dto.OptimizationReportDto;
+import iut.rodez.projet.sae.fourawalkapi.entity.Hike;
+import iut.rodez.projet.sae.fourawalkapi.entity.PointOfInterest;
+import iut.rodez.projet.sae.fourawalkapi.exception.CapacityExceededException;
+import iut.rodez.projet.sae.fourawalkapi.exception.OptimizationQueueFullException;
+import iut.rodez.projet.sae.fourawalkapi.exception.ResourceNotFoundException;
+import iut.rodez.projet.sae.fourawalkapi.solver.EngineChoice;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationReport;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires des optimisations asynchrones : exécution sur l'exécuteur dédié,
+ * report des erreurs dans la tâche, annulation et saturation de la file.
+ */
+class OptimizationJobServiceTest {
+
+    private static final Long HIKE_ID = 100L;
+    private static final Long USER_ID = 1L;
+
+    private HikeService hikeService;
+    private ThreadPoolExecutor executor;
+    private OptimizationJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        hikeService = mock(HikeService.class);
+
+        Hike hike = new Hike();
+        hike.setId(HIKE_ID);
+        hike.setDepart(createPoint(44.35, 2.57));
+        hike.setArrivee(createPoint(44.40, 2.60));
+        when(hikeService.getHikeById(HIKE_ID, USER_ID)).thenReturn(hike);
+        when(hikeService.getOptimizedHikeResponse(eq(HIKE_ID), eq(USER_ID), any(SearchBudget.class),
+                any(OptimizationReport.class)))
+                .thenAnswer(invocation -> new HikeResponseDto(hike, Map.of(),
+                        new OptimizationReportDto(invocation.getArgument(2), invocation.getArgument(3))));
+
+        // Un seul thread et une file d'une place, refus au-delà
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+        jobService = new OptimizationJobService(hikeService, executor, 60_000L, 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Vérifie qu'une tâche soumise est exécutée en arrière-plan et expose la randonnée optimisée.
+     */
+    @Test
+    void submit_Success_ShouldCompleteWithResult() throws InterruptedException {
+        // Given / When : Une optimisation soumise
+        OptimizationJob job = jobService.submit(HIKE_ID, USER_ID, SearchBudget.unlimited(), EngineChoice.AUTOMATIC);
+
+        // Then : La tâche se termine avec la randonnée optimisée et son bilan
+        awaitFinish(job);
+        assertEquals(OptimizationJob.Status.SUCCEEDED, job.getStatus());
+        assertEquals(HIKE_ID, job.getResult().getId());
+        assertNotNull(job.getResult().getOptimization());
+        verify(hikeService).optimizeBackpack(eq(HIKE_ID), eq(USER_ID), any(SearchBudget.class), eq(EngineChoice.AUTOMATIC),
+                any(OptimizationReport.class));
+        assertSame(job, jobService.getJob(job.getId(), HIKE_ID, USER_ID));
+    }
+
+    /**
+     * Vérifie qu'une erreur métier est reportée dans la tâche avec le statut HTTP correspondant.
+     */
+    @Test
+    void submit_CapacityExceeded_ShouldFailWithUnprocessableStatus() throws InterruptedException {
+        // Given : Une répartition impossible
+        doThrow(new CapacityExceededException("Répartition impossible"))
+                .when(hikeService).optimizeBackpack(eq(HIKE_ID), eq(USER_ID), any(SearchBudget.class), any(EngineChoice.class),
+                        any(OptimizationReport.class));
+
+        // When : L'optimisation est soumise
+        OptimizationJob job = jobService.submit(HIKE_ID, USER_ID, SearchBudget.unlimited(), EngineChoice.AUTOMATIC);
+
+        // Then : La tâche échoue avec le code 422 et le message métier
+        awaitFinish(job);
+        assertEquals(OptimizationJob.Status.FAILED, job.getStatus());
+        assertEquals(422, job.getErrorStatus());
+        assertEquals("Répartition impossible", job.getErrorMessage());
+    }
+
+    /**
+     * Vérifie qu'une tâche annulée pendant son attente en file n'est jamais exécutée,
+     * et qu'une file pleine refuse les nouvelles soumissions.
+     */
+    @Test
+    void cancel_PendingJob_ShouldNeverRun_AndFullQueueShouldReject() throws InterruptedException {
+        // Given : Le seul thread est occupé, la tâche attend dans l'unique place de la file
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        SearchBudget budget = SearchBudget.unlimited();
+        OptimizationJob job = jobService.submit(HIKE_ID, USER_ID, budget, EngineChoice.AUTOMATIC);
+
+        // When & Then : File pleine, une seconde soumission est refusée
+        assertThrows(OptimizationQueueFullException.class,
+                () -> jobService.submit(HIKE_ID, USER_ID, SearchBudget.unlimited(), EngineChoice.AUTOMATIC));
+
+        // When : La tâche en attente est annulée
+        jobService.cancel(job.getId(), HIKE_ID, USER_ID);
+
+        // Then : Sa place dans la file est aussitôt libérée
+        assertTrue(executor.getQueue().isEmpty());
+
+        // When : Le thread est libéré
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Then : La tâche est annulée sans avoir lancé d'optimisation
+        assertEquals(OptimizationJob.Status.CANCELLED, job.getStatus());
+        assertTrue(budget.isCancelled());
+        verify(hikeService, never()).optimizeBackpack(any(), any(), any(SearchBudget.class), any(EngineChoice.class),
+                any(OptimizationReport.class));
+    }
+
+    /**
+     * Vérifie qu'une tâche annulée pendant son exécution est interrompue (les moteurs de répartition
+     * ne consultent que l'interruption du thread) et se termine annulée, sans réponse.
+     */
+    @Test
+    void cancel_RunningJob_ShouldInterruptAndEndCancelled() throws InterruptedException {
+        // Given : Une optimisation en cours qui ne s'arrête que sur interruption, puis échoue faute de répartition
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.onSpinWait();
+            }
+            throw new CapacityExceededException("Répartition introuvable");
+        }).when(hikeService).optimizeBackpack(eq(HIKE_ID), eq(USER_ID), any(SearchBudget.class), any(EngineChoice.class),
+                any(OptimizationReport.class));
+        OptimizationJob job = jobService.submit(HIKE_ID, USER_ID, SearchBudget.unlimited(), EngineChoice.AUTOMATIC);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When : La tâche est annulée
+        jobService.cancel(job.getId(), HIKE_ID, USER_ID);
+
+        // Then : Elle s'arrête et se termine annulée, sans construire de réponse
+        awaitFinish(job);
+        assertEquals(OptimizationJob.Status.CANCELLED, job.getStatus());
+        assertNull(job.getResult());
+        verify(hikeService, never()).getOptimizedHikeResponse(any(), any(), any(SearchBudget.class),
+                any(OptimizationReport.class));
+    }
+
+    /**
+     * Vérifie qu'une tâche n'est visible que par son auteur, sur sa randonnée.
+     */
+    @Test
+    void getJob_OtherUserOrHike_ShouldThrowNotFound() throws InterruptedException {
+        // Given : Une tâche de l'utilisateur 1 sur la randonnée 100
+        OptimizationJob job = jobService.submit(HIKE_ID, USER_ID, SearchBudget.unlimited(), EngineChoice.AUTOMATIC);
+        awaitFinish(job);
+
+        // When & Then : Introuvable pour un autre utilisateur ou une autre randonnée
+        assertThrows(ResourceNotFoundException.class, () -> jobService.getJob(job.getId(), HIKE_ID, 2L));
+        assertThrows(ResourceNotFoundException.class, () -> jobService.getJob(job.getId(), 101L, USER_ID));
+        assertThrows(ResourceNotFoundException.class, () -> jobService.getJob("inconnue", HIKE_ID, USER_ID));
+    }
+
+    private static PointOfInterest createPoint(double latitude, double longitude) {
+        PointOfInterest point = new PointOfInterest();
+        point.setLatitude(latitude);
+        point.setLongitude(longitude);
+        return point;
+    }
+
+    private static void awaitFinish(OptimizationJob job) throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(1);
+        job.onFinish(done -> finished.countDown());
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+    }
+}
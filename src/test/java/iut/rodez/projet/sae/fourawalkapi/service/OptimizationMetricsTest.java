@@ -0,0 +1,50 @@
+package iut.rodez.projet.sae.fourawalkapi.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationReport;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires des métriques des étapes de l'optimisation.
+ */
+class OptimizationMetricsTest {
+
+    /**
+     * Vérifie que chaque étape alimente un minuteur et ses compteurs, étiquetés par opération et par étape.
+     */
+    @Test
+    void record_ShouldRegisterOneTimerPerStage() {
+        // Given : Une optimisation en deux étapes, dont une recherche de 40 nœuds et 3 coupes
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OptimizationMetrics metrics = new OptimizationMetrics(registry);
+        SearchBudget budget = SearchBudget.unlimited();
+        OptimizationReport report = new OptimizationReport(budget);
+        report.endStage(HikeService.STAGE_LOAD, 12);
+        budget.tick(40);
+        for (int i = 0; i < 3; i++) {
+            budget.prune();
+        }
+        report.endStage(HikeService.STAGE_SELECT, 5);
+
+        // When : Les étapes sont enregistrées
+        metrics.record(OptimizationMetrics.OPTIMIZE, report);
+
+        // Then : Un minuteur par étape, avec les éléments traités, les nœuds et les coupes de l'étape de recherche
+        Timer load = registry.find(OptimizationMetrics.STAGE_TIMER)
+                .tags("operation", OptimizationMetrics.OPTIMIZE, "stage", HikeService.STAGE_LOAD).timer();
+        assertNotNull(load);
+        assertEquals(1, load.count());
+        assertEquals(12.0, registry.get(OptimizationMetrics.STAGE_ITEMS)
+                .tag("stage", HikeService.STAGE_LOAD).summary().totalAmount());
+        assertEquals(40.0, registry.get(OptimizationMetrics.STAGE_NODES)
+                .tag("stage", HikeService.STAGE_SELECT).counter().count());
+        assertNull(registry.find(OptimizationMetrics.STAGE_NODES).tag("stage", HikeService.STAGE_LOAD).counter());
+        assertEquals(3.0, registry.get(OptimizationMetrics.STAGE_PRUNES)
+                .tag("stage", HikeService.STAGE_SELECT).counter().count());
+        assertNull(registry.find(OptimizationMetrics.STAGE_PRUNES).tag("stage", HikeService.STAGE_LOAD).counter());
+    }
+}
@@ -3,10 +3,16 @@ package iut.rodez.projet.sae.fourawalkapi.service;
 import iut.rodez.projet.sae.fourawalkapi.entity.*;
 import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
 import iut.rodez.projet.sae.fourawalkapi.repository.mysql.BelongEquipmentRepository;
+import iut.rodez.projet.sae.fourawalkapi.solver.FoodInstance;
+import iut.rodez.projet.sae.fourawalkapi.solver.InstanceFeatures;
+import iut.rodez.projet.sae.fourawalkapi.solver.OptimizationReport;
+import iut.rodez.projet.sae.fourawalkapi.solver.SearchBudget;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -116,6 +122,88 @@ class OptimizerServiceTest {
         assertTrue(ex.getMessage().contains("Impossible de couvrir les besoins pour :"));
     }
 
+    /**
+     * Teste la résolution concurrente des catégories : avec un exécuteur multi-thread, le résultat
+     * est identique à la résolution séquentielle et fusionné dans l'ordre des catégories.
+     */
+    @Test
+    void getOptimizeAllEquipment_ConcurrentExecutor_ShouldMergeInEnumOrder() {
+        // Given : Une randonnée de 2 jours pour 3 participants, toutes les catégories renseignées
+        setupHikeParticipants(3, 2000);
+        testHike.setDureeJours(2);
+        Map<TypeEquipment, GroupEquipment> groups = new EnumMap<>(TypeEquipment.class);
+        fillOtherRequiredTypes(groups, 3);
+        GroupEquipment reposGroup = new GroupEquipment();
+        reposGroup.addItem(createEquip("Tente 2 places", 2, TypeEquipment.REPOS));
+        reposGroup.addItem(createEquip("Tente 1 place", 1, TypeEquipment.REPOS));
+        groups.put(TypeEquipment.REPOS, reposGroup);
+        testHike.setEquipmentGroups(groups);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // When : La même randonnée est optimisée séquentiellement puis en parallèle
+            List<EquipmentItem> sequential = optimizerService.getOptimizeAllEquipment(testHike);
+            List<EquipmentItem> concurrent = new OptimizerService(executor).getOptimizeAllEquipment(testHike);
+
+            // Then : Même sélection, catégories dans l'ordre de l'énumération
+            assertEquals(sequential, concurrent);
+            List<TypeEquipment> types = concurrent.stream().map(EquipmentItem::getType).toList();
+            List<TypeEquipment> sortedTypes = new ArrayList<>(types);
+            Collections.sort(sortedTypes);
+            assertEquals(sortedTypes, types);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Teste que le moteur dynamique retourne exactement la même sélection que le backtracking
+     * de référence (même objectif, même départage) sur des catalogues aléatoires.
+     */
+    @Test
+    void solveBestEquipment_RandomCatalogues_ShouldMatchBacktracking() {
+        Random rng = new Random(42);
+
+        for (int run = 0; run < 200; run++) {
+            // Given : Un catalogue aléatoire de 1 à 12 équipements pour 1 à 4 participants
+            int nbParticipants = 1 + rng.nextInt(4);
+            List<EquipmentItem> catalogue = new ArrayList<>();
+            int size = 1 + rng.nextInt(12);
+            for (int i = 0; i < size; i++) {
+                catalogue.add(createEquip("Item " + i, 1 + rng.nextInt(3), TypeEquipment.SOIN));
+            }
+
+            // When : Les deux moteurs résolvent le même problème
+            List<EquipmentItem> expected = optimizerService.sortBestEquipment(
+                    catalogue, new ArrayList<>(), nbParticipants, 0);
+            List<EquipmentItem> result = optimizerService.solveBestEquipment(catalogue, nbParticipants);
+
+            // Then : La sélection est identique, item par item
+            assertEquals(expected, result, "Divergence au run " + run);
+        }
+    }
+
+    /**
+     * Teste que le moteur dynamique résout un grand catalogue (inaccessible au backtracking en 2^n)
+     * et que la couverture obtenue est suffisante.
+     */
+    @Test
+    void solveBestEquipment_LargeCatalogue_ShouldCoverParticipants() {
+        // Given : 80 équipements pour 3 participants
+        List<EquipmentItem> catalogue = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            catalogue.add(createEquip("Item " + i, 1 + i % 3, TypeEquipment.PROGRESSION));
+        }
+
+        // When : On lance le moteur dynamique
+        List<EquipmentItem> result = assertTimeoutPreemptively(java.time.Duration.ofSeconds(1),
+                () -> optimizerService.solveBestEquipment(catalogue, 3));
+
+        // Then : Les 3 participants sont couverts
+        assertNotNull(result);
+        assertTrue(result.stream().mapToInt(EquipmentItem::getNbItem).sum() >= 3);
+    }
+
     // ==========================================
     // TESTS : OPTIMISATION DE LA NOURRITURE
     // ==========================================
@@ -185,10 +273,355 @@ class OptimizerServiceTest {
         assertTrue(result.isEmpty());
     }
 
+    /**
+     * Teste que le moteur dynamique trouve la même masse minimale que le backtracking de référence,
+     * plafond d'appellation compris, sur des catalogues aléatoires.
+     */
+    @Test
+    void solveBestFood_RandomCatalogues_ShouldMatchBacktrackingMass() {
+        Random rng = new Random(7);
+        String[] labels = {"barre", "compote", "noix"};
+
+        for (int run = 0; run < 200; run++) {
+            // Given : Un catalogue aléatoire de 1 à 12 aliments répartis sur 3 appellations
+            int nbParticipants = 1 + rng.nextInt(3);
+            int target = 500 + rng.nextInt(3000);
+            List<FoodProduct> catalogue = new ArrayList<>();
+            int size = 1 + rng.nextInt(12);
+            for (int i = 0; i < size; i++) {
+                FoodProduct food = createFood("Food " + i, 100 + rng.nextInt(500), 50 + rng.nextInt(300),
+                        1 + rng.nextInt(3));
+                food.setAppellationCourante(labels[rng.nextInt(labels.length)]);
+                catalogue.add(food);
+            }
+
+            // When : Les deux moteurs résolvent le même problème
+            List<FoodProduct> expected = optimizerService.sortBestFoodRecursive(
+                    catalogue, new ArrayList<>(), new HashMap<>(), target, nbParticipants, 0);
+            List<FoodProduct> result = optimizerService.solveBestFood(catalogue, target, nbParticipants);
+
+            // Then : Même faisabilité, même masse, objectif et plafond respectés
+            if (expected == null) {
+                assertNull(result, "Divergence de faisabilité au run " + run);
+                continue;
+            }
+            assertNotNull(result, "Divergence de faisabilité au run " + run);
+            assertEquals(totalMass(expected), totalMass(result), "Divergence de masse au run " + run);
+            assertTrue(result.stream().mapToInt(FoodProduct::getTotalKcals).sum() >= target);
+            Map<String, Integer> perLabel = new HashMap<>();
+            result.forEach(f -> perLabel.merge(f.getAppellationCourante(), f.getNbItem(), Integer::sum));
+            perLabel.values().forEach(count -> assertTrue(count <= nbParticipants));
+        }
+    }
+
+    /**
+     * Teste que le moteur dynamique résout rapidement un catalogue de plus de 100 aliments.
+     */
+    @Test
+    void solveBestFood_LargeCatalogue_ShouldSolveQuickly() {
+        // Given : 120 aliments, 3 participants et un objectif de 9000 kcal
+        List<FoodProduct> catalogue = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            FoodProduct food = createFood("Food " + i, 200 + (i * 37) % 400, 60 + (i * 53) % 200, 1 + i % 3);
+            food.setAppellationCourante("label " + (i % 40));
+            catalogue.add(food);
+        }
+
+        // When : On lance le moteur dynamique
+        List<FoodProduct> result = assertTimeoutPreemptively(java.time.Duration.ofSeconds(2),
+                () -> optimizerService.solveBestFood(catalogue, 9000, 3));
+
+        // Then : L'objectif calorique est atteint
+        assertNotNull(result);
+        assertTrue(result.stream().mapToInt(FoodProduct::getTotalKcals).sum() >= 9000);
+    }
+
+    /**
+     * Teste que la séparation et évaluation trouve la même masse minimale que le backtracking de référence.
+     */
+    @Test
+    void solveBestFoodBranchAndBound_RandomCatalogues_ShouldMatchBacktrackingMass() {
+        Random rng = new Random(11);
+        String[] labels = {"barre", "compote", "noix"};
+
+        for (int run = 0; run < 200; run++) {
+            // Given : Un catalogue aléatoire de 1 à 12 aliments répartis sur 3 appellations
+            int nbParticipants = 1 + rng.nextInt(3);
+            int target = 500 + rng.nextInt(3000);
+            List<FoodProduct> catalogue = new ArrayList<>();
+            int size = 1 + rng.nextInt(12);
+            for (int i = 0; i < size; i++) {
+                FoodProduct food = createFood("Food " + i, 100 + rng.nextInt(500), 50 + rng.nextInt(300),
+                        1 + rng.nextInt(3));
+                food.setAppellationCourante(labels[rng.nextInt(labels.length)]);
+                catalogue.add(food);
+            }
+
+            // When : Les deux moteurs résolvent le même problème
+            List<FoodProduct> expected = optimizerService.sortBestFoodRecursive(
+                    catalogue, new ArrayList<>(), new HashMap<>(), target, nbParticipants, 0);
+            List<FoodProduct> result = optimizerService.solveBestFoodBranchAndBound(catalogue, target, nbParticipants);
+
+            // Then : Même faisabilité et même masse
+            if (expected == null) {
+                assertNull(result, "Divergence de faisabilité au run " + run);
+            } else {
+                assertNotNull(result, "Divergence de faisabilité au run " + run);
+                assertEquals(totalMass(expected), totalMass(result), "Divergence de masse au run " + run);
+            }
+        }
+    }
+
+    /**
+     * Teste que la séparation et évaluation reste exacte sur un catalogue large,
+     * en comparant sa masse à celle du moteur dynamique.
+     */
+    @Test
+    void solveBestFoodBranchAndBound_WideCatalogue_ShouldMatchDynamicProgramming() {
+        // Given : 300 aliments répartis sur 60 appellations, 3 participants
+        List<FoodProduct> catalogue = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            FoodProduct food = createFood("Food " + i, 150 + (i * 71) % 450, 60 + (i * 29) % 240, 1 + i % 3);
+            food.setAppellationCourante("label " + (i % 60));
+            catalogue.add(food);
+        }
+
+        // When : Les deux moteurs exacts résolvent l'instance
+        List<FoodProduct> dp = optimizerService.solveBestFood(catalogue, 8000, 3);
+        List<FoodProduct> bnb = assertTimeoutPreemptively(java.time.Duration.ofSeconds(5),
+                () -> optimizerService.solveBestFoodBranchAndBound(catalogue, 8000, 3));
+
+        // Then : Les masses optimales sont identiques
+        assertNotNull(bnb);
+        assertEquals(totalMass(dp), totalMass(bnb));
+    }
+
+    /**
+     * Vérifie le mode "à tout moment" : avec un budget d'un seul nœud, le moteur rend
+     * une solution valide et une borne inférieure qui encadrent l'optimum.
+     */
+    @Test
+    void solveBestFoodBranchAndBound_NodeBudget_ShouldReturnIncumbentAndBoundOptimum() {
+        // Given : Le catalogue large (300 aliments, 60 appellations) et son optimum exact
+        List<FoodProduct> catalogue = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            FoodProduct food = createFood("Food " + i, 150 + (i * 71) % 450, 60 + (i * 29) % 240, 1 + i % 3);
+            food.setAppellationCourante("label " + (i % 60));
+            catalogue.add(food);
+        }
+        int optimum = totalMass(optimizerService.solveBestFood(catalogue, 8000, 3));
+        FoodInstance instance = FoodInstance.of(catalogue);
+
+        // When : La recherche est arrêtée au premier nœud, puis relancée sans limite
+        SearchBudget tight = SearchBudget.of(null, 1L);
+        boolean[] partial = optimizerService.solveBestFoodBranchAndBound(instance, 8000, 3, tight);
+        SearchBudget unlimited = SearchBudget.unlimited();
+        optimizerService.solveBestFoodBranchAndBound(instance, 8000, 3, unlimited);
+
+        // Then : La solution partielle est valide et l'optimum est encadré par la borne et la solution
+        assertNotNull(partial);
+        assertTrue(tight.isExhausted());
+        assertTrue(totalMass(instance.toEntities(partial)) >= optimum);
+        assertTrue(tight.getLowerBound() <= optimum);
+        assertTrue(tight.getBestMass() >= optimum);
+        assertEquals(tight.isOptimal(), tight.getGap() == 0.0);
+
+        // Then : Sans limite, l'optimalité est prouvée avec un écart nul
+        assertTrue(unlimited.isOptimal());
+        assertEquals(optimum, unlimited.getBestMass());
+        assertEquals(0.0, unlimited.getGap());
+    }
+
+    /**
+     * Teste que la recherche parallèle (découpage jusqu'aux feuilles sur de petits catalogues)
+     * trouve la même masse que le backtracking de référence.
+     */
+    @Test
+    void solveBestFoodParallel_RandomCatalogues_ShouldMatchBacktrackingMass() {
+        Random rng = new Random(17);
+        String[] labels = {"barre", "compote", "noix"};
+
+        for (int run = 0; run < 200; run++) {
+            // Given : Un catalogue aléatoire de 1 à 12 aliments répartis sur 3 appellations
+            int nbParticipants = 1 + rng.nextInt(3);
+            int target = 500 + rng.nextInt(3000);
+            List<FoodProduct> catalogue = new ArrayList<>();
+            int size = 1 + rng.nextInt(12);
+            for (int i = 0; i < size; i++) {
+                FoodProduct food = createFood("Food " + i, 100 + rng.nextInt(500), 50 + rng.nextInt(300),
+                        1 + rng.nextInt(3));
+                food.setAppellationCourante(labels[rng.nextInt(labels.length)]);
+                catalogue.add(food);
+            }
+            FoodInstance instance = FoodInstance.of(catalogue);
+
+            // When : Les deux moteurs résolvent le même problème
+            List<FoodProduct> expected = optimizerService.sortBestFoodRecursive(
+                    catalogue, new ArrayList<>(), new HashMap<>(), target, nbParticipants, 0);
+            boolean[] result = optimizerService.solveBestFoodParallel(instance, target, nbParticipants,
+                    SearchBudget.unlimited());
+
+            // Then : Même faisabilité et même masse
+            if (expected == null) {
+                assertNull(result, "Divergence de faisabilité au run " + run);
+            } else {
+                assertNotNull(result, "Divergence de faisabilité au run " + run);
+                assertEquals(totalMass(expected), totalMass(instance.toEntities(result)),
+                        "Divergence de masse au run " + run);
+            }
+        }
+    }
+
+    /**
+     * Teste la recherche parallèle sur un catalogue large : même masse que le moteur dynamique,
+     * optimalité prouvée dans le bilan.
+     */
+    @Test
+    void solveBestFoodParallel_WideCatalogue_ShouldMatchDynamicProgramming() {
+        // Given : 300 aliments répartis sur 60 appellations, 3 participants
+        List<FoodProduct> catalogue = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            FoodProduct food = createFood("Food " + i, 150 + (i * 71) % 450, 60 + (i * 29) % 240, 1 + i % 3);
+            food.setAppellationCourante("label " + (i % 60));
+            catalogue.add(food);
+        }
+        FoodInstance instance = FoodInstance.of(catalogue);
+        SearchBudget budget = SearchBudget.unlimited();
+
+        // When : Le moteur dynamique et la recherche parallèle résolvent l'instance
+        List<FoodProduct> dp = optimizerService.solveBestFood(catalogue, 8000, 3);
+        boolean[] parallel = assertTimeoutPreemptively(java.time.Duration.ofSeconds(5),
+                () -> optimizerService.solveBestFoodParallel(instance, 8000, 3, budget));
+
+        // Then : Les masses optimales sont identiques et l'optimalité est prouvée
+        assertNotNull(parallel);
+        assertEquals(totalMass(dp), totalMass(instance.toEntities(parallel)));
+        assertTrue(budget.isOptimal());
+    }
+
+    /**
+     * Teste que le moteur "rencontre au milieu" trouve la même masse que le backtracking de référence.
+     */
+    @Test
+    void solveBestFoodMeetInTheMiddle_RandomCatalogues_ShouldMatchBacktrackingMass() {
+        Random rng = new Random(23);
+        String[] labels = {"barre", "compote", "noix", "fromage"};
+
+        for (int run = 0; run < 200; run++) {
+            // Given : Un catalogue aléatoire de 1 à 12 aliments répartis sur 4 appellations
+            int nbParticipants = 1 + rng.nextInt(3);
+            int target = 500 + rng.nextInt(3000);
+            List<FoodProduct> catalogue = new ArrayList<>();
+            int size = 1 + rng.nextInt(12);
+            for (int i = 0; i < size; i++) {
+                FoodProduct food = createFood("Food " + i, 100 + rng.nextInt(500), 50 + rng.nextInt(300),
+                        1 + rng.nextInt(3));
+                food.setAppellationCourante(labels[rng.nextInt(labels.length)]);
+                catalogue.add(food);
+            }
+            FoodInstance instance = FoodInstance.of(catalogue);
+
+            // When : Les deux moteurs résolvent le même problème
+            List<FoodProduct> expected = optimizerService.sortBestFoodRecursive(
+                    catalogue, new ArrayList<>(), new HashMap<>(), target, nbParticipants, 0);
+            boolean[] result = optimizerService.solveBestFoodMeetInTheMiddle(instance, target, nbParticipants,
+                    SearchBudget.unlimited());
+
+            // Then : Même faisabilité et même masse
+            if (expected == null) {
+                assertNull(result, "Divergence de faisabilité au run " + run);
+            } else {
+                assertNotNull(result, "Divergence de faisabilité au run " + run);
+                assertEquals(totalMass(expected), totalMass(instance.toEntities(result)),
+                        "Divergence de masse au run " + run);
+            }
+        }
+    }
+
+    /**
+     * Teste le moteur "rencontre au milieu" sur un catalogue moyen aux calories irrégulières :
+     * même masse que la séparation et évaluation, et repli glouton si le budget s'épuise.
+     */
+    @Test
+    void solveBestFoodMeetInTheMiddle_MidSizeCatalogue_ShouldMatchBranchAndBound() {
+        // Given : 36 aliments répartis sur 12 appellations, jusqu'à 3000 kcal par lot
+        List<FoodProduct> catalogue = new ArrayList<>();
+        for (int i = 0; i < 36; i++) {
+            FoodProduct food = createFood("Food " + i, 400 + (i * 397) % 2600, 90 + (i * 53) % 400, 1 + i % 2);
+            food.setAppellationCourante("label " + (i % 12));
+            catalogue.add(food);
+        }
+        FoodInstance instance = FoodInstance.of(catalogue);
+        SearchBudget budget = SearchBudget.unlimited();
+        SearchBudget tinyBudget = SearchBudget.of(null, 1L);
+
+        // When : Les deux moteurs exacts résolvent l'instance, puis le moteur est relancé avec 1 nœud
+        assertTrue(optimizerService.isFoodMeetInTheMiddleApplicable(instance, 2));
+        boolean[] expected = optimizerService.solveBestFoodBranchAndBound(instance, 25000, 2);
+        boolean[] result = optimizerService.solveBestFoodMeetInTheMiddle(instance, 25000, 2, budget);
+        boolean[] truncated = optimizerService.solveBestFoodMeetInTheMiddle(instance, 25000, 2, tinyBudget);
+
+        // Then : Même masse optimale prouvée ; la recherche tronquée rend une solution gloutonne bornée
+        assertNotNull(result);
+        assertEquals(totalMass(instance.toEntities(expected)), totalMass(instance.toEntities(result)));
+        assertTrue(budget.isOptimal());
+        assertNotNull(truncated);
+        assertTrue(tinyBudget.getLowerBound() <= budget.getBestMass());
+        assertTrue(tinyBudget.getBestMass() >= budget.getBestMass());
+    }
+
+    /**
+     * Teste le choix automatique du moteur de nourriture selon l'instance et la surcharge par requête.
+     */
+    @Test
+    void getOptimizeAllFood_EngineOverride_ShouldReportEngineAndMatchAutomaticMass() {
+        // Given : Un petit catalogue (table dynamique exacte) et un catalogue moyen à fortes calories
+        setupHikeParticipants(2, 1500);
+        List<FoodProduct> catalogue = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            FoodProduct food = createFood("Food " + i, 300 + (i * 97) % 400, 80 + (i * 31) % 150, 1);
+            food.setAppellationCourante("label " + (i % 4));
+            catalogue.add(food);
+        }
+        testHike.setFoodCatalogue(catalogue);
+        List<FoodProduct> midSize = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            FoodProduct food = createFood("Food " + i, 400 + (i * 397) % 2600, 90 + (i * 53) % 400, 1);
+            food.setAppellationCourante("label " + (i % 10));
+            midSize.add(food);
+        }
+        FoodInstance midInstance = FoodInstance.of(midSize);
+        SearchBudget autoBudget = SearchBudget.unlimited();
+        SearchBudget forcedBudget = SearchBudget.unlimited();
+        OptimizationReport auto = new OptimizationReport(autoBudget);
+        OptimizationReport forced = new OptimizationReport(forcedBudget);
+
+        // When : Optimisation automatique puis imposée
+        List<FoodProduct> automatic = optimizerService.getOptimizeAllFood(testHike, autoBudget, null, auto);
+        List<FoodProduct> overridden = optimizerService.getOptimizeAllFood(testHike, forcedBudget,
+                "branch-and-bound", forced);
+
+        // Then : Moteurs rapportés, même masse, moteur inconnu refusé
+        assertEquals(OptimizerService.FOOD_ENGINE_DP, auto.getFoodEngine());
+        assertEquals(OptimizerService.FOOD_ENGINE_BRANCH_AND_BOUND, forced.getFoodEngine());
+        assertEquals(totalMass(automatic), totalMass(overridden));
+        assertEquals(OptimizerService.FOOD_ENGINE_MITM, optimizerService.selectFoodEngine(midInstance,
+                new InstanceFeatures(midInstance.size(), 2, 600000, 0), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> optimizerService.getOptimizeAllFood(testHike, SearchBudget.unlimited(), "simplex"));
+    }
+
     // ==========================================
     // UTILITAIRES DE TEST (ADAPTÉS AUX ENTITÉS)
     // ==========================================
 
+    /**
+     * Masse totale d'une sélection de nourriture.
+     */
+    private int totalMass(List<FoodProduct> foods) {
+        return foods.stream().mapToInt(FoodProduct::getTotalMasses).sum();
+    }
+
     /**
      * Crée des participants et les ajoute à la randonnée pour fixer l'objectif calorique et la couverture équipement.
      */
@@ -0,0 +1,105 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
+import iut.rodez.projet.sae.fourawalkapi.entity.EquipmentItem;
+import iut.rodez.projet.sae.fourawalkapi.entity.Participant;
+import iut.rodez.projet.sae.fourawalkapi.model.Item;
+import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test la recherche de la répartition la plus équilibrée : heuristique de départ,
+ * resserrement par un oracle exact et arrêt sur épuisement du budget.
+ */
+class LoadBalancerTest {
+
+    /**
+     * Vérifie que la passe d'amélioration corrige le déséquilibre laissé par le placement LPT.
+     */
+    @Test
+    void balanceGreedily_ShouldImproveLptPlacement() {
+        // Given: Deux sacs de 10 kg et des lots de 3, 3, 2, 2, 2 kg (LPT seul : 7 kg / 5 kg)
+        PackingInstance instance = instance(10.0, 3000.0, 3000.0, 2000.0, 2000.0, 2000.0);
+
+        // When: On équilibre sans oracle
+        int[] assignment = LoadBalancer.balanceGreedily(instance);
+
+        // Then: L'échange d'un lot de 3 kg contre un lot de 2 kg donne 6 kg / 6 kg
+        assertNotNull(assignment);
+        assertEquals(6000, LoadBalancer.maxRatio(instance, assignment));
+    }
+
+    /**
+     * Vérifie qu'une sonde interrompue par l'épuisement du budget n'est pas prise pour une preuve
+     * d'impossibilité : la recherche s'arrête et garde la meilleure affectation connue.
+     */
+    @Test
+    void minimizeMaxLoadRatio_ExhaustedProbe_ShouldKeepBestKnown() {
+        // Given: Trois lots de 5 kg pour deux sacs de 10 kg (taux optimal 100 %, borne inférieure 75 %)
+        // et un oracle qui épuise le budget d'un nœud sans conclure
+        PackingInstance instance = instance(10.0, 5000.0, 5000.0, 5000.0);
+        SearchBudget budget = SearchBudget.of(null, 1L);
+        AtomicInteger probes = new AtomicInteger();
+
+        // When: On cherche la répartition la plus équilibrée
+        int[] assignment = LoadBalancer.minimizeMaxLoadRatio(instance, (probe, candidate, b) -> {
+            probes.incrementAndGet();
+            b.tick();
+            return false;
+        }, budget);
+
+        // Then: Une seule sonde, l'affectation heuristique est conservée
+        assertEquals(1, probes.get());
+        assertNotNull(assignment);
+        assertEquals(LoadBalancer.RATIO_SCALE, LoadBalancer.maxRatio(instance, assignment));
+    }
+
+    /**
+     * Vérifie que, l'heuristique en échec, la faisabilité à pleine capacité est tranchée par l'oracle
+     * sans limite, même si le budget est déjà épuisé.
+     */
+    @Test
+    void minimizeMaxLoadRatio_HeuristicFails_ShouldAskOracleWithoutLimits() {
+        // Given: Deux sacs de 6 kg et des lots de 3, 3, 2, 2, 2 kg (LPT échoue, seule solution : 3+3 / 2+2+2)
+        // et un budget déjà épuisé
+        PackingInstance instance = instance(6.0, 3000.0, 3000.0, 2000.0, 2000.0, 2000.0);
+        SearchBudget budget = SearchBudget.of(null, 1L);
+        budget.tick();
+        List<Boolean> probeExhausted = new ArrayList<>();
+
+        // When: L'oracle exact fournit l'unique répartition
+        int[] assignment = LoadBalancer.minimizeMaxLoadRatio(instance, (probe, candidate, b) -> {
+            probeExhausted.add(b.isExhausted());
+            System.arraycopy(new int[]{0, 0, 1, 1, 1}, 0, candidate, 0, candidate.length);
+            return true;
+        }, budget);
+
+        // Then: L'oracle a reçu un budget utilisable et sa répartition, déjà optimale, est retenue
+        assertEquals(List.of(false), probeExhausted);
+        assertArrayEquals(new int[]{0, 0, 1, 1, 1}, assignment);
+    }
+
+    private PackingInstance instance(double capaciteKg, double... massesGrammes) {
+        List<Item> items = new ArrayList<>();
+        for (double masse : massesGrammes) {
+            EquipmentItem item = new EquipmentItem();
+            item.setMasseGrammes(masse);
+            item.setNbItem(1);
+            item.setType(TypeEquipment.EAU);
+            items.add(item);
+        }
+        List<Backpack> backpacks = new ArrayList<>();
+        for (int b = 0; b < 2; b++) {
+            Participant owner = new Participant();
+            owner.setCapaciteEmportMaxKg(capaciteKg);
+            backpacks.add(new Backpack(owner));
+        }
+        return PackingInstance.of(items, backpacks, item -> null);
+    }
+}
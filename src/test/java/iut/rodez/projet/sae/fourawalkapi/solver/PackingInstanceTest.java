@@ -0,0 +1,111 @@
+package iut.rodez.projet.sae.fourawalkapi.solver;
+
+import iut.rodez.projet.sae.fourawalkapi.entity.Backpack;
+import iut.rodez.projet.sae.fourawalkapi.entity.EquipmentItem;
+import iut.rodez.projet.sae.fourawalkapi.entity.FoodProduct;
+import iut.rodez.projet.sae.fourawalkapi.entity.Participant;
+import iut.rodez.projet.sae.fourawalkapi.model.Item;
+import iut.rodez.projet.sae.fourawalkapi.model.enums.TypeEquipment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test la compilation d'un problème de répartition en tableaux primitifs
+ * et la restitution de l'affectation sur les entités.
+ */
+class PackingInstanceTest {
+
+    /**
+     * Vérifie la conversion des poids et capacités en grammes entiers
+     * ainsi que la résolution du sac propriétaire en index.
+     */
+    @Test
+    void of_ShouldCompileWeightsCapacitiesAndOwners() {
+        // Given: Deux sacs (2,5 kg et 4 kg) et deux lots dont un vêtement appartenant au second sac
+        Backpack alice = createBackpack(1L, 2.5);
+        Backpack bob = createBackpack(2L, 4.0);
+        EquipmentItem veste = createItem(450.5, 2, TypeEquipment.VETEMENT);
+        EquipmentItem gourde = createItem(1000.0, 1, TypeEquipment.EAU);
+
+        // When: On compile l'instance
+        PackingInstance instance = PackingInstance.of(List.<Item>of(veste, gourde), List.of(alice, bob),
+                item -> item == veste ? bob : null);
+
+        // Then: Poids (masse × quantité), capacités en grammes et sac prioritaire par index
+        assertArrayEquals(new int[]{901, 1000}, instance.getWeights());
+        assertArrayEquals(new int[]{2500, 4000}, instance.getCapacities());
+        assertArrayEquals(new int[]{1, -1}, instance.getPreferredBags());
+    }
+
+    /**
+     * Vérifie que l'affectation calculée est appliquée aux bons sacs.
+     */
+    @Test
+    void applyTo_ShouldAddItemsToAssignedBackpacks() {
+        // Given: Deux sacs et deux lots
+        Backpack alice = createBackpack(1L, 5.0);
+        Backpack bob = createBackpack(2L, 5.0);
+        EquipmentItem tente = createItem(2000.0, 1, TypeEquipment.REPOS);
+        EquipmentItem gourde = createItem(1000.0, 1, TypeEquipment.EAU);
+        PackingInstance instance = PackingInstance.of(List.<Item>of(tente, gourde), List.of(alice, bob), item -> null);
+
+        // When: La tente va chez Bob, la gourde chez Alice
+        instance.applyTo(new int[]{1, 0});
+
+        // Then: Chaque sac contient son lot
+        assertTrue(bob.getEquipmentItems().contains(tente));
+        assertTrue(alice.getEquipmentItems().contains(gourde));
+        assertFalse(alice.getEquipmentItems().contains(tente));
+    }
+
+    /**
+     * Vérifie qu'un lot divisible est découpé en lots d'une unité, retriés par poids décroissant,
+     * et que les unités sont cumulées par sac à l'application.
+     */
+    @Test
+    void of_DivisibleLot_ShouldSplitUnitsAcrossBackpacks() {
+        // Given: Un lot divisible de 3 barres de 400 g et une gourde de 1 kg (indivisible)
+        Backpack alice = createBackpack(1L, 1.0);
+        Backpack bob = createBackpack(2L, 1.0);
+        FoodProduct barres = new FoodProduct("Barre", 400.0, "Barre", "Sachet", 200.0, 1.0, 3);
+        EquipmentItem gourde = createItem(1000.0, 1, TypeEquipment.EAU);
+
+        // When: On compile l'instance
+        PackingInstance instance = PackingInstance.of(List.<Item>of(barres, gourde), List.of(alice, bob), item -> null);
+
+        // Then: Trois lots d'une unité, placés après la gourde plus lourde
+        assertArrayEquals(new int[]{1000, 400, 400, 400}, instance.getWeights());
+        assertArrayEquals(new int[]{1, 1, 1, 1}, instance.getUnits());
+        assertSame(barres, instance.getItem(3));
+
+        // When: Deux barres chez Alice, la dernière barre chez Bob
+        PackingInstance.of(List.<Item>of(barres), List.of(alice, bob), item -> null).applyTo(new int[]{0, 0, 1});
+
+        // Then: Chaque sac porte ses unités et le poids correspondant
+        assertEquals(2, alice.getFoodUnits(barres));
+        assertEquals(1, bob.getFoodUnits(barres));
+        assertEquals(800, alice.getLoadGrammes());
+        assertEquals(400, bob.getLoadGrammes());
+        assertEquals(alice.getLoadGrammes(), alice.updateTotalMass());
+    }
+
+    private EquipmentItem createItem(double masseGrammes, int quantite, TypeEquipment type) {
+        EquipmentItem item = new EquipmentItem();
+        item.setMasseGrammes(masseGrammes);
+        item.setNbItem(quantite);
+        item.setType(type);
+        return item;
+    }
+
+    private Backpack createBackpack(Long ownerId, double capaciteMaxKg) {
+        Participant owner = new Participant();
+        owner.setId(ownerId);
+        owner.setCapaciteEmportMaxKg(capaciteMaxKg);
+        Backpack backpack = new Backpack();
+        backpack.setOwner(owner);
+        return backpack;
+    }
+}